@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2011-2018 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.ipc.netty.channel;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.util.ReferenceCountUtil;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Measure the {@link ChannelOperationsHandler} write path (doWrite/drain) on an
+ * {@link EmbeddedChannel}, comparing the available flush strategies. The
+ * {@code flushes} auxiliary counter reports the flush calls reaching the transport.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Thread)
+public class ChannelOperationsHandlerBenchmark {
+
+	@Param({"1", "64"})
+	int items;
+
+	@Param({"16", "1024"})
+	int itemSize;
+
+	@Param({"boundary", "each", "eachImmediate", "bytes", "interval", "adaptive"})
+	String flush;
+
+	@Param({"0", "8192"})
+	int aggregate;
+
+	EmbeddedChannel          channel;
+	ChannelOperationsHandler handler;
+	ByteBuf                  payload;
+	long                     flushCount;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		handler = new ChannelOperationsHandler(null);
+		channel = new EmbeddedChannel(new ChannelOutboundHandlerAdapter() {
+			@Override
+			public void flush(ChannelHandlerContext ctx) throws Exception {
+				flushCount++;
+				super.flush(ctx);
+			}
+		}, handler);
+
+		switch (flush) {
+			case "each":
+				handler.flushOnEach(true);
+				break;
+			case "eachImmediate":
+				handler.flushOnEach(false);
+				break;
+			case "bytes":
+				handler.flushOnBytes(8192);
+				break;
+			case "interval":
+				handler.flushOnInterval(Duration.ofMillis(1));
+				break;
+			case "adaptive":
+				handler.flushAdaptive();
+				break;
+			default:
+				handler.flushOnBoundary();
+		}
+
+		handler.aggregateWrites(aggregate);
+
+		payload = Unpooled.directBuffer(itemSize)
+		                  .writeZero(itemSize);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		channel.finishAndReleaseAll();
+		payload.release();
+	}
+
+	@Benchmark
+	public void writePublisher(Blackhole bh, FlushCounter counter) {
+		channel.writeAndFlush(Flux.range(0, items)
+		                          .map(i -> payload.retainedDuplicate()));
+		drainOutbound(bh, counter);
+	}
+
+	@Benchmark
+	public void writeScalar(Blackhole bh, FlushCounter counter) {
+		channel.writeAndFlush(Mono.fromCallable(payload::retainedDuplicate));
+		drainOutbound(bh, counter);
+	}
+
+	void drainOutbound(Blackhole bh, FlushCounter counter) {
+		channel.runPendingTasks();
+		Object o;
+		while ((o = channel.readOutbound()) != null) {
+			bh.consume(o);
+			ReferenceCountUtil.release(o);
+		}
+		counter.flushes += flushCount;
+		flushCount = 0;
+	}
+
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	public static class FlushCounter {
+
+		public long flushes;
+
+		@Setup(Level.Iteration)
+		public void reset() {
+			flushes = 0;
+		}
+	}
+}
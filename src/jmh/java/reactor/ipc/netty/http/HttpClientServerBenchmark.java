@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2011-2018 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.ipc.netty.http;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.ipc.netty.NettyContext;
+import reactor.ipc.netty.http.client.HttpClient;
+import reactor.ipc.netty.http.server.HttpServer;
+import reactor.ipc.netty.resources.PoolResources;
+
+/**
+ * Loopback {@link HttpServer}/{@link HttpClient} request-response throughput over a
+ * pooled keep-alive connection. Combine with {@code -PjmhProfilers=gc} to track the
+ * per-request allocation rate.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class HttpClientServerBenchmark {
+
+	static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+	@Param({"mono", "flux"})
+	String body;
+
+	NettyContext  server;
+	PoolResources pool;
+	HttpClient    client;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		server = HttpServer.create(0)
+		                   .newRouter(r -> r.get("/mono",
+		                                    (req, res) -> res.sendString(Mono.just("hello")))
+		                                    .get("/flux",
+		                                    (req, res) -> res.sendString(Flux.just("hel", "lo"))))
+		                   .block(TIMEOUT);
+
+		pool = PoolResources.fixed("benchmark", 64);
+		client = HttpClient.create(o -> o.port(server.address().getPort())
+		                                 .poolResources(pool));
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		pool.dispose();
+		server.dispose();
+	}
+
+	@Benchmark
+	public String requestResponse() {
+		return client.get("/" + body)
+		             .flatMap(res -> res.receive()
+		                                .aggregate()
+		                                .asString())
+		             .block(TIMEOUT);
+	}
+}
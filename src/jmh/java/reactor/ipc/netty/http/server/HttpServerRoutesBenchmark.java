@@ -0,0 +1,177 @@
+/*
+ * Copyright (c) 2011-2018 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.ipc.netty.http.server;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.cookie.Cookie;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.ipc.netty.NettyContext;
+
+/**
+ * Measure {@link DefaultHttpServerRoutes#apply} dispatch cost as the number of
+ * registered routes grows. Requests target the first, the middle and the last
+ * registered route, and each matched handler resolves its path parameter. Misses
+ * scan every route before falling back to a catch-all predicate route.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Thread)
+public class HttpServerRoutesBenchmark {
+
+	@Param({"10", "100", "500"})
+	int routes;
+
+	HttpServerRoutes router;
+	RouteRequest     first;
+	RouteRequest     middle;
+	RouteRequest     last;
+	RouteRequest     notFound;
+
+	@Setup
+	public void setup() {
+		router = HttpServerRoutes.newRoutes();
+		for (int i = 0; i < routes; i++) {
+			router.get("/api/v1/resource" + i + "/{id}",
+					(req, res) -> Mono.justOrEmpty(req.param("id")).then());
+		}
+		// catch-all so that unmatched requests never reach the (absent) response
+		router.route(req -> true, (req, res) -> Mono.empty());
+
+		first = new RouteRequest(HttpMethod.GET, "/api/v1/resource0/42");
+		middle = new RouteRequest(HttpMethod.GET, "/api/v1/resource" + routes / 2 + "/42");
+		last = new RouteRequest(HttpMethod.GET, "/api/v1/resource" + (routes - 1) + "/42");
+		notFound = new RouteRequest(HttpMethod.POST, "/api/v1/resource0/42");
+	}
+
+	@Benchmark
+	public void routeFirst(Blackhole bh) {
+		bh.consume(router.apply(first, null));
+	}
+
+	@Benchmark
+	public void routeMiddle(Blackhole bh) {
+		bh.consume(router.apply(middle, null));
+	}
+
+	@Benchmark
+	public void routeLast(Blackhole bh) {
+		bh.consume(router.apply(last, null));
+	}
+
+	@Benchmark
+	public void routeMiss(Blackhole bh) {
+		bh.consume(router.apply(notFound, null));
+	}
+
+	/**
+	 * A minimal {@link HttpServerRequest} exposing only what route dispatch reads.
+	 */
+	static final class RouteRequest implements HttpServerRequest {
+
+		final HttpMethod method;
+		final String     uri;
+
+		Function<? super String, Map<String, String>> paramsResolver;
+
+		RouteRequest(HttpMethod method, String uri) {
+			this.method = method;
+			this.uri = uri;
+		}
+
+		@Override
+		public String param(CharSequence key) {
+			Map<String, String> params = params();
+			return params != null ? params.get(key) : null;
+		}
+
+		@Override
+		public Map<String, String> params() {
+			return paramsResolver != null ? paramsResolver.apply(uri) : null;
+		}
+
+		@Override
+		public HttpServerRequest paramsResolver(Function<? super String, Map<String, String>> headerResolver) {
+			this.paramsResolver = headerResolver;
+			return this;
+		}
+
+		@Override
+		public HttpHeaders requestHeaders() {
+			return EMPTY_HEADERS;
+		}
+
+		@Override
+		public NettyContext context() {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public Flux<?> receiveObject() {
+			return Flux.empty();
+		}
+
+		@Override
+		public Map<CharSequence, Set<Cookie>> cookies() {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public boolean isKeepAlive() {
+			return true;
+		}
+
+		@Override
+		public boolean isWebsocket() {
+			return false;
+		}
+
+		@Override
+		public HttpMethod method() {
+			return method;
+		}
+
+		@Override
+		public String uri() {
+			return uri;
+		}
+
+		@Override
+		public HttpVersion version() {
+			return HttpVersion.HTTP_1_1;
+		}
+
+		static final HttpHeaders EMPTY_HEADERS = new DefaultHttpHeaders();
+	}
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2011-2018 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.ipc.netty.resources;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.TimeUnit;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.pool.ChannelPool;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import reactor.ipc.netty.NettyContext;
+import reactor.ipc.netty.tcp.TcpServer;
+
+/**
+ * Measure {@link PoolResources} acquire/release round-trips against a loopback
+ * {@link TcpServer}. Run with {@code -t N} to observe contention on a single remote
+ * address.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class PoolResourcesBenchmark {
+
+	@Param({"fixed", "elastic", "perEventLoop"})
+	String pool;
+
+	NettyContext      server;
+	PoolResources     poolResources;
+	EventLoopGroup    group;
+	ChannelPool       channelPool;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		server = TcpServer.create(0)
+		                  .newHandler((in, out) -> out.neverComplete())
+		                  .block();
+
+		group = new NioEventLoopGroup(4);
+		switch (pool) {
+			case "fixed":
+				poolResources = PoolResources.fixed("benchmark", 64);
+				break;
+			case "perEventLoop":
+				poolResources = PoolResources.perEventLoop("benchmark", 64, 45000);
+				break;
+			default:
+				poolResources = PoolResources.elastic("benchmark");
+		}
+
+		InetSocketAddress address = server.address();
+		channelPool = poolResources.selectOrCreate(address,
+				() -> new Bootstrap().remoteAddress(address)
+				                     .channelFactory(NioSocketChannel::new)
+				                     .group(group),
+				null,
+				group);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		poolResources.dispose();
+		server.dispose();
+		group.shutdownGracefully();
+	}
+
+	@Benchmark
+	public Channel acquireRelease() {
+		Channel ch = channelPool.acquire()
+		                        .syncUninterruptibly()
+		                        .getNow();
+		channelPool.release(ch)
+		           .syncUninterruptibly();
+		return ch;
+	}
+}
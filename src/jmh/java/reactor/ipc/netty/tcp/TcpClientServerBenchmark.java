@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2011-2018 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.ipc.netty.tcp;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.MonoProcessor;
+import reactor.ipc.netty.NettyContext;
+import reactor.ipc.netty.NettyPipeline;
+
+/**
+ * Loopback {@link TcpServer}/{@link TcpClient} echo throughput, each invocation
+ * writing {@code messages} frames of {@code messageSize} bytes and awaiting the echoed
+ * bytes back.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class TcpClientServerBenchmark {
+
+	static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+	@Param({"1", "100"})
+	int messages;
+
+	@Param({"64", "8192"})
+	int messageSize;
+
+	NettyContext server;
+	TcpClient    client;
+	byte[]       message;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		server = TcpServer.create(0)
+		                  .newHandler((in, out) -> out.options(NettyPipeline.SendOptions::flushOnEach)
+		                                              .send(in.receive()
+		                                                      .retain()))
+		                  .block(TIMEOUT);
+		client = TcpClient.create(server.address().getPort());
+		message = new byte[messageSize];
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		server.dispose();
+	}
+
+	@Benchmark
+	public Long echo() {
+		long expected = (long) messages * messageSize;
+		MonoProcessor<Long> received = MonoProcessor.create();
+
+		NettyContext c = client.newHandler((in, out) -> {
+			in.receive()
+			  .scan(0L, (total, buf) -> total + buf.readableBytes())
+			  .filter(total -> total >= expected)
+			  .next()
+			  .subscribe(received);
+			return out.sendByteArray(Flux.range(0, messages)
+			                             .map(i -> message))
+			          .then(received.then());
+		})
+		                       .block(TIMEOUT);
+
+		Long total = received.block(TIMEOUT);
+		c.dispose();
+		return total;
+	}
+}
@@ -16,6 +16,7 @@
 
 package reactor.ipc.netty;
 
+import java.time.Duration;
 import java.util.Objects;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
@@ -35,7 +36,12 @@ import org.reactivestreams.Publisher;
  * -> ssl & trace log ? [SslLoggingHandler]
  * -> ssl ? [SslReader]
  * -> log ? [LoggingHandler]
+ * -> h2 ? [H2OrHttp11Codec]
+ * -> h2c ? [H2CPriorKnowledge]
  * -> http ? [HttpCodecHandler]
+ * -> h2c ? [H2CUpgradeHandler]
+ * -> h2 connection ? [H2ConnectionFrames]
+ * -> h2 stream ? [H2StreamBridge]
  * -> http ws ? [HttpAggregator]
  * -> http server  ? [HttpServerHandler]
  * -> onWriteIdle ? [OnChannelWriteIdle]
@@ -67,6 +73,11 @@ public interface NettyPipeline {
 	String ChunkedWriter      = LEFT + "chunkedWriter";
 	String LoggingHandler     = LEFT + "loggingHandler";
 	String CompressionHandler = LEFT + "compressionHandler";
+	String H2OrHttp11Codec    = LEFT + "h2OrHttp11Codec";
+	String H2CPriorKnowledge  = LEFT + "h2cPriorKnowledge";
+	String H2CUpgradeHandler  = LEFT + "h2cUpgradeHandler";
+	String H2StreamBridge     = LEFT + "h2StreamBridge";
+	String H2ConnectionFrames = LEFT + "h2ConnectionFrames";
 
 	/**
 	 * A builder for sending strategy, similar prefixed methods being mutually exclusive
@@ -102,7 +113,77 @@ public interface NettyPipeline {
 		 */
 		SendOptions flushOnEach(boolean withEventLoop);
 
+		/**
+		 * Make the underlying channel coalesce writes and flush once at least
+		 * <code>maxBytes</code> are pending, when the channel becomes unwritable, on
+		 * read complete or on a terminated {@link Publisher}.
+		 * Can be combined with {@link #flushOnInterval(Duration)}.
+		 *
+		 * @param maxBytes the number of pending bytes triggering a flush (strictly
+		 *                 positive)
+		 * @return this builder
+		 */
+		SendOptions flushOnBytes(int maxBytes);
+
+		/**
+		 * Make the underlying channel coalesce writes and flush pending bytes at most
+		 * <code>maxDelay</code> after the first unflushed write, when the channel
+		 * becomes unwritable, on read complete or on a terminated {@link Publisher}.
+		 * Can be combined with {@link #flushOnBytes(int)}.
+		 *
+		 * @param maxDelay the maximum delay before pending bytes are flushed
+		 *                 (strictly positive)
+		 * @return this builder
+		 */
+		SendOptions flushOnInterval(Duration maxDelay);
+
+		/**
+		 * Make the underlying channel coalesce the writes issued during the same event
+		 * loop iteration and flush them once the iteration completes, on read complete,
+		 * once the channel write buffer low water mark is reached or on a terminated
+		 * {@link Publisher}. Bursts of small items are batched while a slow producer is
+		 * still flushed item by item.
+		 *
+		 * @return this builder
+		 */
+		SendOptions flushAdaptive();
+
+		/**
+		 * Set the number of items initially requested from the sent {@link Publisher},
+		 * 75% of which are requested back at once when written.
+		 *
+		 * @param prefetch the number of items to prefetch (strictly positive)
+		 * @return this builder
+		 * @see #prefetch(int, int)
+		 */
+		SendOptions prefetch(int prefetch);
 
+		/**
+		 * Set the number of items initially requested from the sent {@link Publisher}
+		 * and the number of written items requested back at once. Replenishment is
+		 * deferred to the write completion while the outbound buffer holds more than the
+		 * channel write buffer low water mark, so demand follows the bytes actually
+		 * pending rather than the number of items.
+		 *
+		 * @param prefetch the number of items to prefetch (strictly positive)
+		 * @param replenish the number of written items to request back at once
+		 *                  (strictly positive, lower than or equal to prefetch)
+		 * @return this builder
+		 */
+		SendOptions prefetch(int prefetch, int replenish);
+
+		/**
+		 * Merge consecutive {@link io.netty.buffer.ByteBuf} items smaller than
+		 * <code>maxBytes</code> into a single pooled buffer of up to
+		 * <code>maxBytes</code> before handing them to the channel, reducing the number
+		 * of outbound messages and gathering write fragments when sending many small
+		 * items. A merged buffer is written once full, before any flush and before any
+		 * other message. A value of 0 disables aggregation (default).
+		 *
+		 * @param maxBytes the aggregate buffer capacity (positive)
+		 * @return this builder
+		 */
+		SendOptions aggregateWrites(int maxBytes);
 	}
 
 	/**
@@ -151,8 +232,4 @@ public interface NettyPipeline {
 	static Object handlerTerminatedEvent() {
 		return ReactorNetty.TERMINATED;
 	}
-
-	static Object responseCompressionEvent() {
-		return ReactorNetty.RESPONSE_COMPRESSION_EVENT;
-	}
 }
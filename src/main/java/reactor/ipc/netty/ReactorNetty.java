@@ -265,13 +265,6 @@ final class ReactorNetty {
 		}
 	}
 
-	static final class ResponseWriteCompleted {
-		@Override
-		public String toString() {
-			return "[Response Write Completed]";
-		}
-	}
-
 	/**
 	 * An appending write that delegates to its origin context and append the passed
 	 * publisher after the origin success if any.
@@ -343,9 +336,8 @@ final class ReactorNetty {
 		}
 	}
 
-	static final Object TERMINATED                 = new TerminatedHandlerEvent();
-	static final Object RESPONSE_COMPRESSION_EVENT = new ResponseWriteCompleted();
-	static final Logger log                        = Loggers.getLogger(ReactorNetty.class);
+	static final Object TERMINATED = new TerminatedHandlerEvent();
+	static final Logger log        = Loggers.getLogger(ReactorNetty.class);
 
 	/**
 	 * A handler that can be used to extract {@link ByteBuf} out of {@link ByteBufHolder},
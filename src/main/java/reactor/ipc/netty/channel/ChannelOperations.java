@@ -168,6 +168,10 @@ public class ChannelOperations<INBOUND extends NettyInbound, OUTBOUND extends Ne
 			InetSocketAddress a = ((DatagramChannel) c).remoteAddress();
 			return a != null ? a : ((DatagramChannel)c ).localAddress();
 		}
+		if (c.remoteAddress() instanceof InetSocketAddress) {
+			//multiplexed child channels report the address of their connection
+			return (InetSocketAddress) c.remoteAddress();
+		}
 		throw new IllegalStateException("Does not have an InetSocketAddress");
 	}
 
@@ -258,6 +262,26 @@ public class ChannelOperations<INBOUND extends NettyInbound, OUTBOUND extends Ne
 		return channel.toString();
 	}
 
+	/**
+	 * Return the number of inbound bytes currently buffered for the receiver of this
+	 * connection
+	 *
+	 * @return the number of inbound bytes currently buffered
+	 */
+	public final long inboundBufferedBytes() {
+		return inbound.getBufferedBytes();
+	}
+
+	/**
+	 * Return the number of inbound bytes dropped by this connection under the
+	 * {@link reactor.ipc.netty.options.NettyOptions.ReceiveOverflow#DROP} policy
+	 *
+	 * @return the number of inbound bytes dropped
+	 */
+	public final long inboundDroppedBytes() {
+		return inbound.getDroppedBytes();
+	}
+
 	/**
 	 * Return true if inbound traffic is not expected anymore
 	 *
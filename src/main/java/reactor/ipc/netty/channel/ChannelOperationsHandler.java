@@ -17,9 +17,13 @@
 package reactor.ipc.netty.channel;
 
 import java.nio.charset.Charset;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 import java.util.Queue;
 import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 import java.util.concurrent.atomic.AtomicLongFieldUpdater;
 import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
@@ -32,6 +36,7 @@ import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufHolder;
 import io.netty.buffer.EmptyByteBuf;
 import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
 import io.netty.channel.Channel.Unsafe;
 import io.netty.channel.ChannelDuplexHandler;
 import io.netty.channel.ChannelFuture;
@@ -41,9 +46,11 @@ import io.netty.channel.ChannelOutboundBuffer;
 import io.netty.channel.ChannelPromise;
 import io.netty.channel.EventLoop;
 import io.netty.channel.FileRegion;
+import io.netty.channel.WriteBufferWaterMark;
 import io.netty.handler.codec.DecoderResult;
 import io.netty.handler.codec.http.HttpResponse;
 import io.netty.util.ReferenceCountUtil;
+import io.netty.util.concurrent.PromiseNotifier;
 import org.reactivestreams.Publisher;
 import org.reactivestreams.Subscription;
 import reactor.core.CoreSubscriber;
@@ -51,6 +58,7 @@ import reactor.core.Exceptions;
 import reactor.core.publisher.Operators;
 import reactor.ipc.netty.NettyOutbound;
 import reactor.ipc.netty.NettyPipeline;
+import reactor.ipc.netty.options.NettyOptions;
 import reactor.util.Logger;
 import reactor.util.Loggers;
 import reactor.util.concurrent.Queues;
@@ -67,9 +75,11 @@ final class ChannelOperationsHandler extends ChannelDuplexHandler
 
 	final PublisherSender                inner;
 	final BiConsumer<?, ? super ByteBuf> encoder;
-	final int                            prefetch;
 	final ContextHandler<?>              originContext;
 
+	int prefetch;
+	int replenish;
+
 	/**
 	 * Cast the supplied queue (SpscLinkedArrayQueue) to use its atomic dual-insert
 	 * backed by {@link BiPredicate#test}
@@ -79,9 +89,15 @@ final class ChannelOperationsHandler extends ChannelDuplexHandler
 	ChannelHandlerContext               ctx;
 	boolean                             flushOnEach;
 	boolean                             flushOnEachWithEventLoop;
+	boolean                             flushAdaptive;
+	long                                flushOnBytes;
+	long                                flushIntervalNanos;
 
 	long                                pendingBytes;
 	ContextHandler<?>                   lastContext;
+	int                                 aggregateWrites;
+	ByteBuf                             aggregate;
+	List<ChannelPromise>                aggregatePromises;
 
 	private Unsafe                      unsafe;
 
@@ -89,11 +105,19 @@ final class ChannelOperationsHandler extends ChannelDuplexHandler
 	volatile boolean removed;
 	volatile int     wip;
 	volatile long    scheduledFlush;
+	volatile int     intervalFlush;
 
 	@SuppressWarnings("unchecked")
 	ChannelOperationsHandler(ContextHandler<?> contextHandler) {
 		this.inner = new PublisherSender(this);
-		this.prefetch = 32;
+		if (contextHandler != null) {
+			this.prefetch = contextHandler.options.sendPrefetch();
+			this.replenish = contextHandler.options.sendReplenish();
+		}
+		else {
+			this.prefetch = NettyOptions.DEFAULT_SEND_PREFETCH;
+			this.replenish = NettyOptions.defaultReplenish(prefetch);
+		}
 		this.encoder = NOOP_ENCODER;
 		this.lastContext = null;
 		this.originContext = contextHandler; // only set if parent context is closable,
@@ -161,6 +185,15 @@ final class ChannelOperationsHandler extends ChannelDuplexHandler
 		}
 	}
 
+	@Override
+	public void channelReadComplete(ChannelHandlerContext ctx) {
+		if (isCoalescing() && hasPendingWriteBytes()) {
+			pendingBytes = 0L;
+			flushPending();
+		}
+		ctx.fireChannelReadComplete();
+	}
+
 	@Override
 	public void channelWritabilityChanged(ChannelHandlerContext ctx) {
 		if (log.isDebugEnabled()) {
@@ -261,21 +294,104 @@ final class ChannelOperationsHandler extends ChannelDuplexHandler
 
 	@Override
 	public NettyPipeline.SendOptions flushOnBoundary() {
-		flushOnEach = false;
+		resetFlushMode();
 		return this;
 	}
 
 	@Override
 	public NettyPipeline.SendOptions flushOnEach(boolean withEventLoop) {
+		resetFlushMode();
 		flushOnEach = true;
 		flushOnEachWithEventLoop = withEventLoop;
 		return this;
 	}
 
+	@Override
+	public NettyPipeline.SendOptions flushOnBytes(int maxBytes) {
+		if (maxBytes <= 0) {
+			throw new IllegalArgumentException("maxBytes must be strictly positive");
+		}
+		flushOnEach = false;
+		flushOnEachWithEventLoop = false;
+		flushAdaptive = false;
+		flushOnBytes = maxBytes;
+		return this;
+	}
+
+	@Override
+	public NettyPipeline.SendOptions flushOnInterval(Duration maxDelay) {
+		Objects.requireNonNull(maxDelay, "maxDelay");
+		if (maxDelay.isNegative() || maxDelay.isZero()) {
+			throw new IllegalArgumentException("maxDelay must be strictly positive");
+		}
+		flushOnEach = false;
+		flushOnEachWithEventLoop = false;
+		flushAdaptive = false;
+		flushIntervalNanos = maxDelay.toNanos();
+		return this;
+	}
+
+	@Override
+	public NettyPipeline.SendOptions flushAdaptive() {
+		resetFlushMode();
+		flushAdaptive = true;
+		return this;
+	}
+
+	@Override
+	public NettyPipeline.SendOptions prefetch(int prefetch) {
+		return prefetch(prefetch, NettyOptions.defaultReplenish(prefetch));
+	}
+
+	@Override
+	public NettyPipeline.SendOptions prefetch(int prefetch, int replenish) {
+		NettyOptions.validatePrefetch(prefetch, replenish);
+		int delta = prefetch - this.prefetch;
+		this.prefetch = prefetch;
+		this.replenish = replenish;
+		if (ctx != null) {
+			if (delta > 0) {
+				inner.request(delta);
+			}
+			else if (delta < 0) {
+				//absorb the excess demand already requested on the next replenishments
+				PublisherSender.PENDING_REQUEST.addAndGet(inner, delta);
+			}
+		}
+		return this;
+	}
+
+	@Override
+	public NettyPipeline.SendOptions aggregateWrites(int maxBytes) {
+		if (maxBytes < 0) {
+			throw new IllegalArgumentException("maxBytes must be positive");
+		}
+		if (maxBytes == 0) {
+			writeAggregate();
+		}
+		else if (aggregatePromises == null) {
+			aggregatePromises = new ArrayList<>();
+		}
+		this.aggregateWrites = maxBytes;
+		return this;
+	}
+
+	void resetFlushMode() {
+		flushOnEach = false;
+		flushOnEachWithEventLoop = false;
+		flushAdaptive = false;
+		flushOnBytes = 0L;
+		flushIntervalNanos = 0L;
+	}
+
+	boolean isCoalescing() {
+		return flushAdaptive || flushOnBytes != 0L || flushIntervalNanos != 0L;
+	}
+
 	@Override
 	public void operationComplete(ChannelFuture future) {
 		if (future.isSuccess()) {
-			inner.request(1L);
+			inner.replenish();
 		}
 	}
 
@@ -287,12 +403,12 @@ final class ChannelOperationsHandler extends ChannelDuplexHandler
 				) {
 			pendingBytes = 0L;
 
-			ChannelFuture future = ctx.write(msg, promise);
+			ChannelFuture future = writePending(msg, promise, inner != null);
 			if (flushOnEachWithEventLoop && ctx.channel().isWritable()) {
 				scheduleFlush();
 			}
 			else {
-				ctx.flush();
+				flushPending();
 			}
 			return future;
 		}
@@ -312,10 +428,25 @@ final class ChannelOperationsHandler extends ChannelDuplexHandler
 			if (log.isTraceEnabled()) {
 				log.trace("{} Pending write size = {}", ctx.channel(), pendingBytes);
 			}
-			ChannelFuture future = ctx.write(msg, promise);
-			if (!ctx.channel().isWritable()) {
+			ChannelFuture future = writePending(msg, promise, inner != null);
+			if (!ctx.channel().isWritable() ||
+					(flushOnBytes != 0L && pendingBytes >= flushOnBytes)) {
 				pendingBytes = 0L;
-				ctx.flush();
+				flushPending();
+			}
+			else if (flushAdaptive) {
+				if (pendingBytes >= ctx.channel()
+				                       .config()
+				                       .getWriteBufferLowWaterMark()) {
+					pendingBytes = 0L;
+					flushPending();
+				}
+				else {
+					scheduleFlush();
+				}
+			}
+			else if (flushIntervalNanos != 0L) {
+				scheduleIntervalFlush();
 			}
 			return future;
 		}
@@ -329,7 +460,7 @@ final class ChannelOperationsHandler extends ChannelDuplexHandler
 			       long missed = scheduledFlush;
 			       for(;;) {
 			           if (hasPendingWriteBytes()) {
-			               ctx.flush();
+			               flushPending();
 			           }
 			           missed = SCHEDULED_FLUSH.addAndGet(this, -missed);
 			           if (missed == 0) {
@@ -340,7 +471,30 @@ final class ChannelOperationsHandler extends ChannelDuplexHandler
 		}
 	}
 
+	void scheduleIntervalFlush() {
+		if (intervalFlush == 0 && INTERVAL_FLUSH.compareAndSet(this, 0, 1)) {
+			ctx.channel()
+			   .eventLoop()
+			   .schedule(() -> {
+			       intervalFlush = 0;
+			       if (hasPendingWriteBytes()) {
+			           pendingBytes = 0L;
+			           flushPending();
+			       }
+			   }, flushIntervalNanos, TimeUnit.NANOSECONDS);
+		}
+	}
+
 	void discard() {
+		ByteBuf aggregate = this.aggregate;
+		if (aggregate != null) {
+			this.aggregate = null;
+			aggregate.release();
+			for (ChannelPromise promise : aggregatePromises) {
+				promise.tryFailure(new AbortedException("Connection has been closed"));
+			}
+			aggregatePromises.clear();
+		}
 		for (; ; ) {
 			if (pendingWrites == null || pendingWrites.isEmpty()) {
 				return;
@@ -379,7 +533,7 @@ final class ChannelOperationsHandler extends ChannelDuplexHandler
 				if (pendingWrites == null || innerActive || !ctx.channel()
 				                                                .isWritable()) {
 					if (!ctx.channel().isWritable() && hasPendingWriteBytes()) {
-						ctx.flush();
+						flushPending();
 					}
 					if (WIP.decrementAndGet(this) == 0) {
 						break;
@@ -412,7 +566,7 @@ final class ChannelOperationsHandler extends ChannelDuplexHandler
 				if (!innerActive && v == PublisherSender.PENDING_WRITES) {
 					boolean last = pendingWrites.isEmpty();
 					if (!future.isDone() && hasPendingWriteBytes()) {
-						ctx.flush();
+						flushPending();
 						if (!future.isDone() && hasPendingWriteBytes()) {
 							pendingWriteOffer.test(future, v);
 						}
@@ -469,12 +623,84 @@ final class ChannelOperationsHandler extends ChannelDuplexHandler
 	}
 
 	private boolean hasPendingWriteBytes() {
+		if (aggregate != null) {
+			return true;
+		}
 		// On close the outboundBuffer is made null. After that point
 		// adding messages and flushes to outboundBuffer is not allowed.
 		ChannelOutboundBuffer outBuffer = this.unsafe.outboundBuffer();
 		return outBuffer != null && outBuffer.totalPendingWriteBytes() > 0;
 	}
 
+	/**
+	 * Write the given message, merging it into the current aggregate if write
+	 * aggregation is enabled and the message is a small {@link ByteBuf} emitted by a
+	 * sent {@link Publisher}.
+	 */
+	ChannelFuture writePending(Object msg, ChannelPromise promise, boolean fromPublisher) {
+		if (aggregateWrites == 0) {
+			return ctx.write(msg, promise);
+		}
+		if (fromPublisher && msg instanceof ByteBuf && ctx.executor()
+		                                                  .inEventLoop()) {
+			ByteBuf buf = (ByteBuf) msg;
+			int size = buf.readableBytes();
+			if (size < aggregateWrites) {
+				ByteBuf aggregate = this.aggregate;
+				if (aggregate != null && aggregate.writableBytes() < size) {
+					writeAggregate();
+					aggregate = null;
+				}
+				if (aggregate == null) {
+					aggregate = ctx.alloc()
+					               .buffer(aggregateWrites, aggregateWrites);
+					this.aggregate = aggregate;
+				}
+				aggregate.writeBytes(buf);
+				buf.release();
+				aggregatePromises.add(promise);
+				if (!aggregate.isWritable()) {
+					writeAggregate();
+				}
+				return promise;
+			}
+		}
+		writeAggregate();
+		return ctx.write(msg, promise);
+	}
+
+	/**
+	 * Hand the current aggregate, if any, to the next outbound handler and complete
+	 * the promises of the merged writes with its outcome.
+	 */
+	void writeAggregate() {
+		ByteBuf aggregate = this.aggregate;
+		if (aggregate == null) {
+			return;
+		}
+		this.aggregate = null;
+		List<ChannelPromise> promises = aggregatePromises;
+		if (promises.size() == 1) {
+			ctx.write(aggregate, promises.get(0));
+		}
+		else {
+			ctx.write(aggregate)
+			   .addListener(new PromiseNotifier<>(promises.toArray(new ChannelPromise[0])));
+		}
+		promises.clear();
+	}
+
+	void flushPending() {
+		if (aggregate != null && !ctx.executor()
+		                            .inEventLoop()) {
+			ctx.executor()
+			   .execute(this::flushPending);
+			return;
+		}
+		writeAggregate();
+		ctx.flush();
+	}
+
 	static final class PublisherSender
 			implements CoreSubscriber<Object>, Subscription, ChannelFutureListener,
 			           Consumer<ChannelFuture> {
@@ -485,6 +711,11 @@ final class ChannelOperationsHandler extends ChannelDuplexHandler
 		volatile long         missedRequested;
 		volatile long         missedProduced;
 		volatile int          wip;
+		/**
+		 * The number of items written but not yet requested back, negative when the
+		 * prefetch has been lowered.
+		 */
+		volatile long         pendingRequest;
 
 		boolean        inactive;
 		/**
@@ -536,10 +767,7 @@ final class ChannelOperationsHandler extends ChannelDuplexHandler
 
 		@Override
 		public void onComplete() {
-			if (parent.ctx.pipeline().get(NettyPipeline.CompressionHandler) != null) {
-				parent.ctx.pipeline()
-				          .fireUserEventTriggered(NettyPipeline.responseCompressionEvent());
-			}
+			replenish();
 			long p = produced;
 			ChannelFuture f = lastWrite;
 			parent.innerActive = false;
@@ -550,12 +778,12 @@ final class ChannelOperationsHandler extends ChannelDuplexHandler
 					              .isActive()) {
 						parent.pendingBytes = 0L;
 						if (lastThreadInEventLoop) {
-							parent.ctx.flush();
+							parent.flushPending();
 						}
 						else {
 							parent.ctx.channel()
 							          .eventLoop()
-							          .execute(() -> parent.ctx.flush());
+							          .execute(() -> parent.flushPending());
 						}
 					}
 					else {
@@ -587,6 +815,7 @@ final class ChannelOperationsHandler extends ChannelDuplexHandler
 
 		@Override
 		public void onError(Throwable t) {
+			replenish();
 			long p = produced;
 			ChannelFuture f = lastWrite;
 			parent.innerActive = false;
@@ -595,12 +824,12 @@ final class ChannelOperationsHandler extends ChannelDuplexHandler
 				if (parent.ctx.channel()
 				              .isActive()) {
 					if (lastThreadInEventLoop) {
-						parent.ctx.flush();
+						parent.flushPending();
 					}
 					else {
 						parent.ctx.channel()
 						          .eventLoop()
-						          .execute(() -> parent.ctx.flush());
+						          .execute(() -> parent.flushPending());
 					}
 				}
 				else {
@@ -640,7 +869,16 @@ final class ChannelOperationsHandler extends ChannelDuplexHandler
 		@Override
 		public void onNext(Object t) {
 			ChannelPromise newPromise = parent.ctx.newPromise();
-			if (lastWrite == null || lastThreadInEventLoop || lastWrite.isDone()) {
+			if (parent.aggregateWrites != 0 && !parent.ctx.channel()
+			                                              .eventLoop()
+			                                              .inEventLoop()) {
+				// aggregated writes are only ever merged and written from the event loop
+				parent.ctx.channel()
+				          .eventLoop()
+				          .execute(() -> onNextInternal(t, newPromise));
+				lastThreadInEventLoop = false;
+			}
+			else if (lastWrite == null || lastThreadInEventLoop || lastWrite.isDone()) {
 				onNextInternal(t, newPromise);
 				lastThreadInEventLoop = parent.ctx.channel().eventLoop().inEventLoop();
 			}
@@ -659,13 +897,41 @@ final class ChannelOperationsHandler extends ChannelDuplexHandler
 
 			parent.doWrite(t, promise, this);
 
-			if (parent.ctx.channel()
-			              .isWritable()) {
-				request(1L);
-			}
-			else {
+			long pending = PENDING_REQUEST.incrementAndGet(this);
+			Channel channel = parent.ctx.channel();
+			if (!channel.isWritable()) {
 				promise.addListener(parent);
 			}
+			else if (pending >= parent.replenish) {
+				// replenish as long as the outbound buffer stays under the low water
+				// mark, otherwise flush and wait for this write to complete
+				WriteBufferWaterMark waterMark = channel.config()
+				                                        .getWriteBufferWaterMark();
+				if (channel.bytesBeforeUnwritable() >= waterMark.high() - waterMark.low()) {
+					replenish();
+				}
+				else {
+					parent.pendingBytes = 0L;
+					parent.flushPending();
+					promise.addListener(parent);
+				}
+			}
+		}
+
+		/**
+		 * Request the items written since the last replenishment, if any.
+		 */
+		final void replenish() {
+			for (;;) {
+				long pending = pendingRequest;
+				if (pending <= 0L) {
+					return;
+				}
+				if (PENDING_REQUEST.compareAndSet(this, pending, 0L)) {
+					request(pending);
+					return;
+				}
+			}
 		}
 
 		@Override
@@ -887,6 +1153,9 @@ final class ChannelOperationsHandler extends ChannelDuplexHandler
 		static final AtomicLongFieldUpdater<PublisherSender>    MISSED_PRODUCED     =
 				AtomicLongFieldUpdater.newUpdater(PublisherSender.class,
 						"missedProduced");
+		static final AtomicLongFieldUpdater<PublisherSender>    PENDING_REQUEST     =
+				AtomicLongFieldUpdater.newUpdater(PublisherSender.class,
+						"pendingRequest");
 		@SuppressWarnings("rawtypes")
 		static final AtomicIntegerFieldUpdater<PublisherSender> WIP                 =
 				AtomicIntegerFieldUpdater.newUpdater(PublisherSender.class, "wip");
@@ -899,6 +1168,8 @@ final class ChannelOperationsHandler extends ChannelDuplexHandler
 			AtomicIntegerFieldUpdater.newUpdater(ChannelOperationsHandler.class, "wip");
 	static final AtomicLongFieldUpdater<ChannelOperationsHandler> SCHEDULED_FLUSH =
 			AtomicLongFieldUpdater.newUpdater(ChannelOperationsHandler.class, "scheduledFlush");
+	static final AtomicIntegerFieldUpdater<ChannelOperationsHandler> INTERVAL_FLUSH =
+			AtomicIntegerFieldUpdater.newUpdater(ChannelOperationsHandler.class, "intervalFlush");
 	static final Logger                                              log =
 			Loggers.getLogger(ChannelOperationsHandler.class);
 
@@ -62,7 +62,7 @@ abstract class CloseableContextHandler<CHANNEL extends Channel>
 	public final void operationComplete(ChannelFuture f) throws Exception {
 		if (!f.isSuccess()) {
 			if(f.isCancelled()){
-				log.debug("Cancelled {}", f.channel().toString());
+				log.debug("Cancelled {}", f);
 				return;
 			}
 			if (f.cause() != null) {
@@ -108,11 +108,9 @@ abstract class CloseableContextHandler<CHANNEL extends Channel>
 		if (f == null){
 			return;
 		}
-		if (f.channel()
-		     .isActive()) {
-
-				f.channel()
-				 .close();
+		Channel c = f.channel();
+		if (c != null && c.isActive()) {
+			c.close();
 		}
 		else if (!f.isDone()) {
 			f.cancel(true);
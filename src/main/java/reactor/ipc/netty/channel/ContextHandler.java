@@ -351,6 +351,28 @@ public abstract class ContextHandler<CHANNEL extends Channel>
 		}
 	}
 
+	/**
+	 * Initialize the pipeline of a child {@link Channel} multiplexed over a connection
+	 * initialized by this context, such as an HTTP/2 stream. SSL and logging stay on
+	 * the parent connection: only the given stream codecs and the reactive bridge are
+	 * installed.
+	 *
+	 * @param channel the child channel to initialize
+	 * @param streamConfigurator a configurator for the child channel codecs
+	 */
+	@SuppressWarnings("unchecked")
+	public final void acceptStream(Channel channel,
+			BiConsumer<ChannelPipeline, ContextHandler<Channel>> streamConfigurator) {
+		streamConfigurator.accept(channel.pipeline(), (ContextHandler<Channel>) this);
+		channel.pipeline()
+		       .addLast(NettyPipeline.ReactiveBridge, new ChannelOperationsHandler(this));
+		if (log.isDebugEnabled()) {
+			log.debug("After stream pipeline {}",
+					channel.pipeline()
+					       .toString());
+		}
+	}
+
 	/**
 	 * @param channel
 	 */
@@ -18,6 +18,7 @@ package reactor.ipc.netty.channel;
 
 import java.util.Queue;
 import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
 import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 import io.netty.buffer.ByteBuf;
@@ -28,8 +29,10 @@ import io.netty.util.ReferenceCountUtil;
 import org.reactivestreams.Subscription;
 import reactor.core.CoreSubscriber;
 import reactor.core.Disposable;
+import reactor.core.Exceptions;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Operators;
+import reactor.ipc.netty.options.NettyOptions;
 import reactor.util.Logger;
 import reactor.util.Loggers;
 import reactor.util.concurrent.Queues;
@@ -44,10 +47,19 @@ final class FluxReceive extends Flux<Object> implements Subscription, Disposable
 	final ChannelOperations<?, ?> parent;
 	final EventLoop         eventLoop;
 
+	final long                            lowWaterMark;
+	final long                            highWaterMark;
+	final NettyOptions.ReceiveOverflow    overflow;
+
 	CoreSubscriber<? super Object> receiver;
 	boolean                        receiverFastpath;
 	long                           receiverDemand;
 	Queue<Object>                  receiverQueue;
+	boolean                        readSuspended;
+	boolean                        autoReadSuspended;
+
+	volatile long bufferedBytes;
+	volatile long droppedBytes;
 
 	volatile boolean   inboundDone;
 	Throwable inboundError;
@@ -62,6 +74,17 @@ final class FluxReceive extends Flux<Object> implements Subscription, Disposable
 		this.parent = parent;
 		this.channel = parent.channel;
 		this.eventLoop = channel.eventLoop();
+		NettyOptions<?, ?> options = parent.context.options;
+		if (options != null) {
+			this.lowWaterMark = options.receiveLowWaterMark();
+			this.highWaterMark = options.receiveHighWaterMark();
+			this.overflow = options.receiveOverflow();
+		}
+		else {
+			this.lowWaterMark = NettyOptions.DEFAULT_RECEIVE_LOW_WATER_MARK;
+			this.highWaterMark = NettyOptions.DEFAULT_RECEIVE_HIGH_WATER_MARK;
+			this.overflow = NettyOptions.ReceiveOverflow.BACKPRESSURE;
+		}
 		CANCEL.lazySet(this, () -> {
 			if (eventLoop.inEventLoop()) {
 				unsubscribeReceiver();
@@ -82,6 +105,14 @@ final class FluxReceive extends Flux<Object> implements Subscription, Disposable
 		return receiverQueue != null ? receiverQueue.size() : 0;
 	}
 
+	final long getBufferedBytes() {
+		return bufferedBytes;
+	}
+
+	final long getDroppedBytes() {
+		return droppedBytes;
+	}
+
 	final boolean isCancelled() {
 		return receiverCancel == CANCELLED;
 	}
@@ -149,6 +180,38 @@ final class FluxReceive extends Flux<Object> implements Subscription, Disposable
 				}
 				ReferenceCountUtil.release(o);
 			}
+			bufferedBytes = 0L;
+		}
+	}
+
+	/**
+	 * Stop reading from the channel until the receiver drains the buffer below the
+	 * low water mark.
+	 */
+	final void suspendRead() {
+		if (!readSuspended) {
+			readSuspended = true;
+			autoReadSuspended = channel.config()
+			                           .isAutoRead();
+			if (autoReadSuspended) {
+				channel.config()
+				       .setAutoRead(false);
+			}
+			if (log.isDebugEnabled()) {
+				log.debug("{} Suspending read, {} bytes in buffer", channel, bufferedBytes);
+			}
+		}
+	}
+
+	final void resumeRead() {
+		readSuspended = false;
+		if (log.isDebugEnabled()) {
+			log.debug("{} Resuming read, {} bytes in buffer", channel, bufferedBytes);
+		}
+		if (autoReadSuspended) {
+			autoReadSuspended = false;
+			channel.config()
+			       .setAutoRead(true);
 		}
 	}
 
@@ -207,6 +270,8 @@ final class FluxReceive extends Flux<Object> implements Subscription, Disposable
 					break;
 				}
 
+				BUFFERED_BYTES.addAndGet(this, -sizeOf(v));
+
 				try {
 					a.onNext(v);
 				}
@@ -228,6 +293,18 @@ final class FluxReceive extends Flux<Object> implements Subscription, Disposable
 				return;
 			}
 
+			if (readSuspended) {
+				if (bufferedBytes > lowWaterMark) {
+					receiverDemand -= e;
+					missed = WIP.addAndGet(this, -missed);
+					if (missed == 0) {
+						break;
+					}
+					continue;
+				}
+				resumeRead();
+			}
+
 			if (r == Long.MAX_VALUE) {
 				channel.config()
 				       .setAutoRead(true);
@@ -288,7 +365,7 @@ final class FluxReceive extends Flux<Object> implements Subscription, Disposable
 			return;
 		}
 
-		if (receiverFastpath && receiver != null) {
+		if (isFastpath() && receiver != null) {
 			try {
 				if (log.isDebugEnabled()){
 					if(msg instanceof ByteBuf) {
@@ -307,6 +384,24 @@ final class FluxReceive extends Flux<Object> implements Subscription, Disposable
 			}
 		}
 		else {
+			long size = sizeOf(msg);
+			if (bufferedBytes + size > highWaterMark && overflow != NettyOptions.ReceiveOverflow.BACKPRESSURE) {
+				ReferenceCountUtil.release(msg);
+				if (overflow == NettyOptions.ReceiveOverflow.DROP) {
+					DROPPED_BYTES.addAndGet(this, size);
+					if (log.isDebugEnabled()) {
+						log.debug("{} Dropping frame of {} bytes, {} bytes in buffer",
+								channel, size, bufferedBytes);
+					}
+				}
+				else {
+					onInboundError(Exceptions.failWithOverflow(
+							"Receive buffer exceeded its high water mark of " +
+									highWaterMark + " bytes"));
+				}
+				return;
+			}
+
 			Queue<Object> q = receiverQueue;
 			if (q == null) {
 				q = Queues.unbounded()
@@ -323,7 +418,11 @@ final class FluxReceive extends Flux<Object> implements Subscription, Disposable
 				}
 			}
 			q.offer(msg);
+			BUFFERED_BYTES.addAndGet(this, size);
 			drainReceiver();
+			if (bufferedBytes >= highWaterMark) {
+				suspendRead();
+			}
 		}
 	}
 
@@ -332,7 +431,7 @@ final class FluxReceive extends Flux<Object> implements Subscription, Disposable
 			return;
 		}
 		inboundDone = true;
-		if (receiverFastpath) {
+		if (isFastpath()) {
 			CoreSubscriber<?> receiver = this.receiver;
 			if (receiver != null) {
 				receiver.onComplete();
@@ -355,7 +454,7 @@ final class FluxReceive extends Flux<Object> implements Subscription, Disposable
 		if(channel.isActive()){
 			channel.close();
 		}
-		if (receiverFastpath && receiver != null) {
+		if (isFastpath() && receiver != null) {
 			parent.context.fireContextError(err);
 			receiver.onError(err);
 		}
@@ -364,9 +463,20 @@ final class FluxReceive extends Flux<Object> implements Subscription, Disposable
 		}
 	}
 
+	/**
+	 * The unbounded receiver bypasses the queue only once it has been drained:
+	 * channels delivering reads synchronously (e.g. HTTP/2 streams) may still have
+	 * buffered messages when the fastpath is switched on.
+	 */
+	final boolean isFastpath() {
+		Queue<Object> q = receiverQueue;
+		return receiverFastpath && (q == null || q.isEmpty());
+	}
+
 	final void terminateReceiver(Queue<?> q, CoreSubscriber<?> a) {
 		if (q != null) {
 			q.clear();
+			bufferedBytes = 0L;
 		}
 		Throwable ex = inboundError;
 		if (ex != null) {
@@ -386,6 +496,23 @@ final class FluxReceive extends Flux<Object> implements Subscription, Disposable
 		}
 	}
 
+	static long sizeOf(Object msg) {
+		if (msg instanceof ByteBuf) {
+			return ((ByteBuf) msg).readableBytes();
+		}
+		if (msg instanceof ByteBufHolder) {
+			return ((ByteBufHolder) msg).content()
+			                            .readableBytes();
+		}
+		return 0L;
+	}
+
+	static final AtomicLongFieldUpdater<FluxReceive> BUFFERED_BYTES =
+			AtomicLongFieldUpdater.newUpdater(FluxReceive.class, "bufferedBytes");
+
+	static final AtomicLongFieldUpdater<FluxReceive> DROPPED_BYTES =
+			AtomicLongFieldUpdater.newUpdater(FluxReceive.class, "droppedBytes");
+
 	@SuppressWarnings("rawtypes")
 	static final AtomicReferenceFieldUpdater<FluxReceive, Disposable> CANCEL =
 			AtomicReferenceFieldUpdater.newUpdater(FluxReceive.class,
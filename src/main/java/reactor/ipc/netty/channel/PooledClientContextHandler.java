@@ -32,6 +32,7 @@ import reactor.core.publisher.DirectProcessor;
 import reactor.core.publisher.MonoSink;
 import reactor.ipc.netty.NettyContext;
 import reactor.ipc.netty.options.ClientOptions;
+import reactor.ipc.netty.resources.DeadlineChannelPool;
 import reactor.util.Logger;
 import reactor.util.Loggers;
 import reactor.util.function.Tuple2;
@@ -189,7 +190,7 @@ final class PooledClientContextHandler<CHANNEL extends Channel>
 		if (!c.isActive()) {
 			log.debug("Immediately aborted pooled channel, re-acquiring new channel: {}",
 					c.toString());
-			setFuture(pool.acquire());
+			setFuture(DeadlineChannelPool.acquire(pool, sink.currentContext()));
 			return;
 		}
 
@@ -197,7 +198,7 @@ final class PooledClientContextHandler<CHANNEL extends Channel>
 			log.debug("Acquired active channel: " + c.toString());
 		}
 		if (createOperations(c, null) == null) {
-			setFuture(pool.acquire());
+			setFuture(DeadlineChannelPool.acquire(pool, sink.currentContext()));
 		}
 	}
 
@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2011-2018 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.ipc.netty.http;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+import io.netty.handler.codec.http.DefaultHttpContent;
+import io.netty.handler.codec.http2.Http2Frame;
+import io.netty.handler.codec.http2.Http2GoAwayFrame;
+import io.netty.util.ReferenceCountUtil;
+
+/**
+ * Handlers shared by the HTTP/2 server and client pipelines.
+ *
+ * @since 0.7.8
+ */
+public final class Http2Handlers {
+
+	/**
+	 * Return a handler to add after the stream codec of an HTTP/2 stream channel,
+	 * wrapping the raw body buffers written by the reactive bridge into
+	 * {@link io.netty.handler.codec.http.HttpContent}, the only body type the stream
+	 * codec encodes.
+	 *
+	 * @return the stream bridge handler
+	 */
+	public static ChannelHandler streamBridge() {
+		return StreamBridge.INSTANCE;
+	}
+
+	/**
+	 * Return a handler to add after the HTTP/2 codec of a connection, consuming the
+	 * connection level frames (settings, ping, goaway...) it propagates since no
+	 * connection operations are attached to serve them.
+	 *
+	 * @return the connection frames handler
+	 */
+	public static ChannelHandler connectionFrames() {
+		return ConnectionFrames.INSTANCE;
+	}
+
+	Http2Handlers() {
+	}
+
+	@ChannelHandler.Sharable
+	static final class StreamBridge extends ChannelOutboundHandlerAdapter {
+
+		static final StreamBridge INSTANCE = new StreamBridge();
+
+		@Override
+		public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+			if (msg instanceof ByteBuf) {
+				ctx.write(new DefaultHttpContent((ByteBuf) msg), promise);
+			}
+			else {
+				ctx.write(msg, promise);
+			}
+		}
+	}
+
+	@ChannelHandler.Sharable
+	static final class ConnectionFrames extends ChannelInboundHandlerAdapter {
+
+		static final ConnectionFrames INSTANCE = new ConnectionFrames();
+
+		@Override
+		public void channelRead(ChannelHandlerContext ctx, Object msg) {
+			if (msg instanceof Http2Frame) {
+				// the codec has already released the goaway frame it propagates
+				if (!(msg instanceof Http2GoAwayFrame)) {
+					ReferenceCountUtil.release(msg);
+				}
+				return;
+			}
+			ctx.fireChannelRead(msg);
+		}
+	}
+}
@@ -38,6 +38,7 @@ import io.netty.handler.codec.http.HttpHeaderNames;
 import io.netty.handler.codec.http.HttpMessage;
 import io.netty.handler.codec.http.HttpUtil;
 import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.handler.codec.http2.Http2StreamChannel;
 import io.netty.handler.stream.ChunkedInput;
 import io.netty.handler.stream.ChunkedNioFile;
 import org.reactivestreams.Publisher;
@@ -149,7 +150,7 @@ public abstract class HttpOperations<INBOUND extends NettyInbound, OUTBOUND exte
 		Objects.requireNonNull(file);
 
 		if (hasSentHeaders()) {
-			return super.sendFile(file, position, count);
+			return sendFileOrChunks(file, position, count);
 		}
 
 		if (!HttpUtil.isTransferEncodingChunked(outboundHttpMessage()) && !HttpUtil.isContentLengthSet(
@@ -164,6 +165,24 @@ public abstract class HttpOperations<INBOUND extends NettyInbound, OUTBOUND exte
 			HttpUtil.setTransferEncodingChunked(outboundHttpMessage(), true);
 		}
 
+		return sendFileOrChunks(file, position, count);
+	}
+
+	/**
+	 * Return true if the body of the outbound message will be compressed, in which
+	 * case a file cannot be transferred as is.
+	 *
+	 * @return true if the body of the outbound message will be compressed
+	 */
+	protected boolean isCompressing() {
+		return false;
+	}
+
+	final NettyOutbound sendFileOrChunks(Path file, long position, long count) {
+		//HTTP/2 streams frame the body themselves, a FileRegion cannot be written as is
+		if (channel() instanceof Http2StreamChannel || isCompressing()) {
+			return sendFileChunked(file, position, count);
+		}
 		return super.sendFile(file, position, count);
 	}
 
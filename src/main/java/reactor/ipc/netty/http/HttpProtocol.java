@@ -0,0 +1,45 @@
+/*
+ * Copyright (c) 2011-2018 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.ipc.netty.http;
+
+/**
+ * The HTTP protocol versions a server accepts or a client uses.
+ *
+ * @since 0.7.8
+ */
+public enum HttpProtocol {
+
+	/**
+	 * HTTP/1.1, the default.
+	 */
+	HTTP11,
+
+	/**
+	 * HTTP/2 over TLS, negotiated with ALPN. The configured
+	 * {@link io.netty.handler.ssl.SslContext} must advertise the {@code h2} protocol.
+	 * A server falls back to {@link #HTTP11} when the peer does not select it, a
+	 * client expects the server to select it.
+	 */
+	H2,
+
+	/**
+	 * HTTP/2 over cleartext TCP. A server accepts it either with prior knowledge or
+	 * upgraded from an HTTP/1.1 request when {@link #HTTP11} is also configured, a
+	 * client always connects with prior knowledge.
+	 */
+	H2C
+}
@@ -0,0 +1,288 @@
+/*
+ * Copyright (c) 2011-2018 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.ipc.netty.http.client;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.pool.ChannelPool;
+import io.netty.handler.codec.http.HttpContentDecompressor;
+import io.netty.handler.codec.http2.Http2Connection;
+import io.netty.handler.codec.http2.Http2FrameCodec;
+import io.netty.handler.codec.http2.Http2StreamChannelBootstrap;
+import io.netty.handler.codec.http2.Http2StreamFrameToHttpObjectCodec;
+import io.netty.util.AttributeKey;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.ImmediateEventExecutor;
+import io.netty.util.concurrent.Promise;
+import reactor.ipc.netty.NettyPipeline;
+import reactor.ipc.netty.channel.ContextHandler;
+import reactor.ipc.netty.http.Http2Handlers;
+import reactor.util.Logger;
+import reactor.util.Loggers;
+
+/**
+ * A {@link ChannelPool} handing out HTTP/2 stream channels multiplexed over the
+ * connections of a connection pool.
+ * <p>
+ * Each acquire opens a stream on a held connection with fewer active streams than
+ * the {@code SETTINGS_MAX_CONCURRENT_STREAMS} of the server, and only acquires a new
+ * connection from the connection pool when every held one is saturated. A released
+ * stream is closed, and a connection goes back to the connection pool once its last
+ * stream is closed.
+ */
+final class Http2StreamPool implements ChannelPool {
+
+	static final Logger log = Loggers.getLogger(Http2StreamPool.class);
+
+	static final AttributeKey<StreamInitializer> STREAM_INITIALIZER =
+			AttributeKey.newInstance("http2StreamInitializer");
+
+	/**
+	 * The streams a connection accepts before the server announced its limit, the
+	 * minimum value RFC 7540 recommends for {@code SETTINGS_MAX_CONCURRENT_STREAMS}.
+	 */
+	static final int DEFAULT_MAX_STREAMS = 100;
+
+	final ChannelPool      connectionPool;
+	final List<Connection> connections = new ArrayList<>();
+
+	int maxStreams; // guarded by this
+
+	/**
+	 * @param connectionPool the pool of the connections to multiplex streams over
+	 * @param maxStreams the streams a connection accepts until the server announces
+	 * its limit
+	 */
+	Http2StreamPool(ChannelPool connectionPool, int maxStreams) {
+		this.connectionPool = connectionPool;
+		this.maxStreams = maxStreams;
+	}
+
+	@Override
+	public Future<Channel> acquire() {
+		return acquire(ImmediateEventExecutor.INSTANCE.newPromise());
+	}
+
+	@Override
+	public Future<Channel> acquire(Promise<Channel> promise) {
+		Connection connection;
+		synchronized (this) {
+			connection = null;
+			for (Connection c : connections) {
+				if (c.hasCapacity()) {
+					connection = c;
+					break;
+				}
+			}
+			if (connection == null) {
+				connection = new Connection(connectionPool.acquire());
+				connections.add(connection);
+			}
+			connection.streams++;
+		}
+		connection.openStream(promise);
+		return promise;
+	}
+
+	@Override
+	public Future<Void> release(Channel channel) {
+		return release(channel, ImmediateEventExecutor.INSTANCE.newPromise());
+	}
+
+	@Override
+	public Future<Void> release(Channel channel, Promise<Void> promise) {
+		// streams are not reusable, the connection is released with its last stream
+		channel.close();
+		return promise.setSuccess(null);
+	}
+
+	@Override
+	public void close() {
+		//noop, the connections belong to the connection pool
+	}
+
+	/**
+	 * @return the streams a connection accepts until the server announces its limit
+	 */
+	final synchronized int maxStreams() {
+		return maxStreams;
+	}
+
+	final void onStreamClosed(Connection connection) {
+		boolean released;
+		synchronized (this) {
+			connection.updateMaxStreams();
+			released = --connection.streams == 0;
+			if (released) {
+				connections.remove(connection);
+			}
+		}
+		if (released && connection.future.isSuccess()) {
+			if (log.isDebugEnabled()) {
+				log.debug("Releasing idle HTTP/2 connection {}", connection.future.getNow());
+			}
+			connectionPool.release(connection.future.getNow());
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "Http2StreamPool{connectionPool=" + connectionPool + "}";
+	}
+
+	/**
+	 * A connection acquired from the connection pool, held while it carries streams.
+	 */
+	final class Connection {
+
+		final Future<Channel> future;
+
+		int streams; // guarded by the pool
+
+		Connection(Future<Channel> future) {
+			this.future = future;
+		}
+
+		/**
+		 * A connection accepts as many streams as the last limit announced by the
+		 * server on this pool until its own settings are received.
+		 *
+		 * @return true if this connection can carry one more stream
+		 */
+		boolean hasCapacity() {
+			if (!future.isDone()) {
+				return streams < maxStreams;
+			}
+			Channel channel = future.getNow();
+			if (channel == null || !channel.isActive()) {
+				return false;
+			}
+			Http2FrameCodec codec = channel.pipeline()
+			                               .get(Http2FrameCodec.class);
+			if (codec == null || codec.connection()
+			                          .goAwayReceived()) {
+				return false;
+			}
+			if (!codec.decoder()
+			          .prefaceReceived()) {
+				return streams < maxStreams;
+			}
+			return streams < updateMaxStreams();
+		}
+
+		/**
+		 * Record the limit announced by the server on this connection, if received.
+		 *
+		 * @return the current limit of this pool
+		 */
+		int updateMaxStreams() {
+			Channel channel = future.getNow();
+			Http2FrameCodec codec = channel == null ? null :
+					channel.pipeline()
+					       .get(Http2FrameCodec.class);
+			if (codec != null && codec.decoder()
+			                          .prefaceReceived()) {
+				maxStreams = codec.connection()
+				                  .local()
+				                  .maxActiveStreams();
+			}
+			return maxStreams;
+		}
+
+		void openStream(Promise<Channel> promise) {
+			future.addListener(f -> {
+				if (!f.isSuccess()) {
+					onStreamFailed(promise, f.cause());
+					return;
+				}
+				Channel channel = future.getNow();
+				StreamInitializer initializer = channel.attr(STREAM_INITIALIZER)
+				                                       .get();
+				if (initializer == null) {
+					onStreamFailed(promise, new IllegalStateException(
+							"Channel " + channel + " is not an HTTP/2 connection"));
+					return;
+				}
+				new Http2StreamChannelBootstrap(channel).handler(initializer)
+				                                        .open()
+				                                        .addListener(sf -> onStreamOpened(promise, sf));
+			});
+		}
+
+		void onStreamOpened(Promise<Channel> promise, Future<?> future) {
+			if (!future.isSuccess()) {
+				onStreamFailed(promise, future.cause());
+				return;
+			}
+			Channel stream = (Channel) future.getNow();
+			// a stream may close while the codec is still reading its last frame,
+			// only free its slot once the codec has deactivated it
+			stream.closeFuture()
+			      .addListener(f -> stream.eventLoop()
+			                              .execute(() -> onStreamClosed(this)));
+			if (!promise.trySuccess(stream)) {
+				stream.close();
+			}
+		}
+
+		void onStreamFailed(Promise<Channel> promise, Throwable cause) {
+			onStreamClosed(this);
+			promise.tryFailure(cause);
+		}
+	}
+
+	/**
+	 * Initialize the stream channels of an HTTP/2 connection as HTTP/1.1-like
+	 * exchanges served by {@link HttpClientOperations}.
+	 */
+	@ChannelHandler.Sharable
+	static final class StreamInitializer extends ChannelInitializer<Channel>
+			implements BiConsumer<ChannelPipeline, ContextHandler<Channel>> {
+
+		final ContextHandler<Channel> parentContext;
+		final boolean                 acceptGzip;
+
+		StreamInitializer(ContextHandler<Channel> parentContext, boolean acceptGzip) {
+			this.parentContext = parentContext;
+			this.acceptGzip = acceptGzip;
+		}
+
+		@Override
+		protected void initChannel(Channel ch) {
+			ch.config()
+			  .setAutoRead(false);
+			parentContext.acceptStream(ch, this);
+		}
+
+		@Override
+		public void accept(ChannelPipeline p, ContextHandler<Channel> c) {
+			p.addLast(NettyPipeline.HttpCodec, new Http2StreamFrameToHttpObjectCodec(false));
+			p.addLast(NettyPipeline.H2StreamBridge, Http2Handlers.streamBridge());
+			if (acceptGzip) {
+				p.addAfter(NettyPipeline.HttpCodec,
+						NettyPipeline.HttpDecompressor,
+						new HttpContentDecompressor());
+			}
+		}
+	}
+}
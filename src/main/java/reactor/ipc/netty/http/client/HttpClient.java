@@ -18,8 +18,10 @@ package reactor.ipc.netty.http.client;
 
 import java.net.InetSocketAddress;
 import java.net.SocketAddress;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.BiConsumer;
 import java.util.function.BiFunction;
 import java.util.function.Consumer;
@@ -35,6 +37,8 @@ import io.netty.handler.codec.http.HttpHeaderNames;
 import io.netty.handler.codec.http.HttpHeaderValues;
 import io.netty.handler.codec.http.HttpHeaders;
 import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http2.Http2MultiplexCodecBuilder;
+import io.netty.handler.codec.http2.Http2Settings;
 import io.netty.handler.logging.LoggingHandler;
 
 import org.reactivestreams.Publisher;
@@ -46,11 +50,13 @@ import reactor.ipc.netty.NettyInbound;
 import reactor.ipc.netty.NettyOutbound;
 import reactor.ipc.netty.NettyPipeline;
 import reactor.ipc.netty.channel.ContextHandler;
+import reactor.ipc.netty.http.Http2Handlers;
 import reactor.ipc.netty.http.HttpResources;
 import reactor.ipc.netty.http.server.HttpServerResponse;
 import reactor.ipc.netty.http.websocket.WebsocketInbound;
 import reactor.ipc.netty.http.websocket.WebsocketOutbound;
 import reactor.ipc.netty.options.ClientOptions;
+import reactor.ipc.netty.resources.PoolResources;
 import reactor.ipc.netty.tcp.TcpClient;
 
 /**
@@ -373,10 +379,30 @@ public class HttpClient implements NettyConnector<HttpClientResponse, HttpClient
 	final class TcpBridgeClient extends TcpClient implements
 	                                              BiConsumer<ChannelPipeline, ContextHandler<Channel>> {
 
+		final Map<SocketAddress, Http2StreamPool> http2Pools = new ConcurrentHashMap<>();
+
 		TcpBridgeClient(ClientOptions options) {
 			super(options);
 		}
 
+		@Override
+		protected ChannelPool selectOrCreatePool(PoolResources poolResources,
+				SocketAddress remote,
+				boolean secure,
+				MonoSink<NettyContext> sink) {
+			ChannelPool pool = super.selectOrCreatePool(poolResources, remote, secure, sink);
+			if (!options.isHttp2(secure)) {
+				return pool;
+			}
+			// a connection pool disposed while inactive is replaced by a new one for the
+			// same address, keep the stream limit learned from the server
+			return http2Pools.compute(remote,
+					(address, streamPool) -> streamPool == null ?
+							new Http2StreamPool(pool, Http2StreamPool.DEFAULT_MAX_STREAMS) :
+							streamPool.connectionPool == pool ? streamPool :
+									new Http2StreamPool(pool, streamPool.maxStreams()));
+		}
+
 		@Override
 		protected Mono<NettyContext> newHandler(BiFunction<? super NettyInbound, ? super NettyOutbound, ? extends Publisher<Void>> handler,
 				InetSocketAddress address,
@@ -392,7 +418,8 @@ public class HttpClient implements NettyConnector<HttpClientResponse, HttpClient
 				SocketAddress providedAddress,
 				ChannelPool pool,
 				Consumer<? super Channel> onSetup) {
-			return ContextHandler.<SocketChannel>newClientContext(sink,
+			// operations may be bound to HTTP/2 stream channels which are not sockets
+			ContextHandler<?> contextHandler = ContextHandler.<Channel>newClientContext(sink,
 					options,
 					loggingHandler,
 					secure,
@@ -403,11 +430,34 @@ public class HttpClient implements NettyConnector<HttpClientResponse, HttpClient
 							onSetup.accept(ch);
 						}
 						return HttpClientOperations.bindHttp(ch, handler, c);
-					} : EMPTY).onPipeline(this);
+					} : (ch, c, msg) -> null).onPipeline(this);
+			@SuppressWarnings("unchecked")
+			ContextHandler<SocketChannel> socketContextHandler =
+					(ContextHandler<SocketChannel>) contextHandler;
+			return socketContextHandler;
 		}
 
 		@Override
 		public void accept(ChannelPipeline pipeline, ContextHandler<Channel> c) {
+			if (options.isHttp2(pipeline.get(NettyPipeline.SslHandler) != null)) {
+				Http2StreamPool.StreamInitializer streamInitializer =
+						new Http2StreamPool.StreamInitializer(c, options.acceptGzip());
+				pipeline.addLast(NettyPipeline.HttpCodec,
+						Http2MultiplexCodecBuilder.forClient(streamInitializer)
+						                          .initialSettings(Http2Settings.defaultSettings()
+						                                                        .pushEnabled(false))
+						                          .build());
+				pipeline.addLast(NettyPipeline.H2ConnectionFrames,
+						Http2Handlers.connectionFrames());
+				// frames are read continuously, each stream applies its own backpressure
+				pipeline.channel()
+				        .config()
+				        .setAutoRead(true);
+				pipeline.channel()
+				        .attr(Http2StreamPool.STREAM_INITIALIZER)
+				        .set(streamInitializer);
+				return;
+			}
 			pipeline.addLast(NettyPipeline.HttpCodec, new HttpClientCodec());
 			if (options.acceptGzip()) {
 				pipeline.addAfter(NettyPipeline.HttpCodec,
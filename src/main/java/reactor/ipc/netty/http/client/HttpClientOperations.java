@@ -54,6 +54,7 @@ import io.netty.handler.codec.http.cookie.Cookie;
 import io.netty.handler.codec.http.multipart.DefaultHttpDataFactory;
 import io.netty.handler.codec.http.multipart.HttpDataFactory;
 import io.netty.handler.codec.http.multipart.HttpPostRequestEncoder;
+import io.netty.handler.codec.http2.Http2StreamChannel;
 import io.netty.handler.stream.ChunkedWriteHandler;
 import io.netty.util.AttributeKey;
 import io.netty.util.ReferenceCountUtil;
@@ -121,8 +122,10 @@ class HttpClientOperations extends HttpOperations<HttpClientResponse, HttpClient
 			BiFunction<? super HttpClientResponse, ? super HttpClientRequest, ? extends Publisher<Void>> handler,
 			ContextHandler<?> context) {
 		super(channel, handler, context);
-		this.isSecure = channel.pipeline()
-		                       .get(NettyPipeline.SslHandler) != null;
+		// an HTTP/2 stream is secured by the SslHandler of its connection
+		Channel connection = channel instanceof Http2StreamChannel ? channel.parent() : channel;
+		this.isSecure = connection.pipeline()
+		                          .get(NettyPipeline.SslHandler) != null;
 		String[] redirects = channel.attr(REDIRECT_ATTR_KEY)
 		                            .get();
 		this.redirectedFrom = redirects == null ? EMPTY_REDIRECTIONS : redirects;
@@ -704,6 +707,10 @@ class HttpClientOperations extends HttpOperations<HttpClientResponse, HttpClient
 	final Mono<Void> withWebsocketSupport(URI url,
 			String protocols,
 			BiFunction<? super WebsocketInbound, ? super WebsocketOutbound, ? extends Publisher<Void>> websocketHandler) {
+		if (channel() instanceof Http2StreamChannel) {
+			return Mono.error(new UnsupportedOperationException(
+					"Websocket upgrade is not supported over HTTP/2"));
+		}
 
 		//prevent further header to be sent for handshaking
 		if (markSentHeaders()) {
@@ -19,7 +19,10 @@ package reactor.ipc.netty.http.client;
 import java.net.InetSocketAddress;
 import java.net.SocketAddress;
 import java.net.URI;
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.Objects;
+import java.util.Set;
 import java.util.function.Function;
 
 import javax.net.ssl.SSLEngine;
@@ -27,10 +30,13 @@ import javax.net.ssl.SSLParameters;
 
 import io.netty.bootstrap.Bootstrap;
 import io.netty.buffer.ByteBufAllocator;
+import io.netty.handler.ssl.ApplicationProtocolConfig;
+import io.netty.handler.ssl.ApplicationProtocolNames;
 import io.netty.handler.ssl.SslContext;
 import io.netty.handler.ssl.SslContextBuilder;
 import io.netty.handler.ssl.SslHandler;
 import io.netty.util.NetUtil;
+import reactor.ipc.netty.http.HttpProtocol;
 import reactor.ipc.netty.options.ClientOptions;
 import reactor.ipc.netty.options.ClientProxyOptions;
 import reactor.ipc.netty.options.ClientProxyOptions.Proxy;
@@ -56,11 +62,13 @@ public final class HttpClientOptions extends ClientOptions {
 		return new HttpClientOptions.Builder();
 	}
 
-	private final boolean acceptGzip;
+	private final boolean           acceptGzip;
+	private final Set<HttpProtocol> protocols;
 
 	private HttpClientOptions(HttpClientOptions.Builder builder) {
 		super(builder);
 		this.acceptGzip = builder.acceptGzip;
+		this.protocols = Collections.unmodifiableSet(EnumSet.copyOf(builder.protocols));
 	}
 
 	@Override
@@ -106,9 +114,32 @@ public final class HttpClientOptions extends ClientOptions {
 		return this.acceptGzip;
 	}
 
+	/**
+	 * Returns the HTTP protocols the client uses. By default only
+	 * {@link HttpProtocol#HTTP11}.
+	 *
+	 * @return the HTTP protocols the client uses
+	 */
+	public Set<HttpProtocol> protocols() {
+		return protocols;
+	}
+
+	/**
+	 * Returns true if connections to the remote peer use HTTP/2: secured ones when
+	 * {@link HttpProtocol#H2} is configured, cleartext ones when {@link HttpProtocol#H2C}
+	 * is configured.
+	 *
+	 * @param secure whether the connection is secured
+	 * @return true if such connections use HTTP/2
+	 */
+	public boolean isHttp2(boolean secure) {
+		return protocols.contains(secure ? HttpProtocol.H2 : HttpProtocol.H2C);
+	}
+
 	@Override
 	protected SslContext defaultSslContext() {
-		return DEFAULT_SSL_CONTEXT;
+		return protocols.contains(HttpProtocol.H2) ? DEFAULT_H2_SSL_CONTEXT :
+				DEFAULT_SSL_CONTEXT;
 	}
 
 	final String formatSchemeAndHost(String url, boolean ws) {
@@ -168,6 +199,7 @@ public final class HttpClientOptions extends ClientOptions {
 	}
 
 	static final SslContext DEFAULT_SSL_CONTEXT;
+	static final SslContext DEFAULT_H2_SSL_CONTEXT;
 
 	static {
 		SslContext sslContext;
@@ -179,10 +211,25 @@ public final class HttpClientOptions extends ClientOptions {
 			sslContext = null;
 		}
 		DEFAULT_SSL_CONTEXT = sslContext;
+
+		try {
+			sslContext = SslContextBuilder.forClient()
+			                              .applicationProtocolConfig(new ApplicationProtocolConfig(
+					                              ApplicationProtocolConfig.Protocol.ALPN,
+					                              ApplicationProtocolConfig.SelectorFailureBehavior.NO_ADVERTISE,
+					                              ApplicationProtocolConfig.SelectedListenerFailureBehavior.ACCEPT,
+					                              ApplicationProtocolNames.HTTP_2))
+			                              .build();
+		}
+		catch (Exception e) {
+			sslContext = null;
+		}
+		DEFAULT_H2_SSL_CONTEXT = sslContext;
 	}
 
 	public static final class Builder extends ClientOptions.Builder<Builder> {
-		private boolean acceptGzip;
+		private boolean           acceptGzip;
+		private Set<HttpProtocol> protocols = EnumSet.of(HttpProtocol.HTTP11);
 
 		private Builder() {
 			super(new Bootstrap());
@@ -199,6 +246,34 @@ public final class HttpClientOptions extends ClientOptions {
 			return get();
 		}
 
+		/**
+		 * Configure the HTTP protocols the client uses. Defaults to
+		 * {@link HttpProtocol#HTTP11}.
+		 * <p>
+		 * With {@link HttpProtocol#H2} secured connections, and with
+		 * {@link HttpProtocol#H2C} cleartext ones (prior knowledge), speak HTTP/2: a
+		 * pooled connection then carries concurrent requests as streams, up to the
+		 * {@code SETTINGS_MAX_CONCURRENT_STREAMS} of the server, and a new connection is
+		 * only opened when every pooled one is saturated. HTTP/2 connections require a
+		 * connection pool and do not support websocket upgrades; {@link HttpProtocol#H2}
+		 * requires the server to select {@code h2} with ALPN.
+		 *
+		 * @param supportedProtocols the protocols to use
+		 * @return {@code this}
+		 */
+		public final Builder protocols(HttpProtocol... supportedProtocols) {
+			Objects.requireNonNull(supportedProtocols, "supportedProtocols");
+			if (supportedProtocols.length == 0) {
+				throw new IllegalArgumentException("supportedProtocols must not be empty");
+			}
+			Set<HttpProtocol> protocols = EnumSet.noneOf(HttpProtocol.class);
+			for (HttpProtocol protocol : supportedProtocols) {
+				protocols.add(Objects.requireNonNull(protocol, "protocol"));
+			}
+			this.protocols = protocols;
+			return get();
+		}
+
 		/**
 		 * The HTTP proxy configuration
 		 *
@@ -219,12 +294,17 @@ public final class HttpClientOptions extends ClientOptions {
 		public final Builder from(HttpClientOptions options) {
 			super.from(options);
 			this.acceptGzip = options.acceptGzip;
+			this.protocols = EnumSet.copyOf(options.protocols);
 			return get();
 		}
 
 		@Override
 		public HttpClientOptions build() {
 			super.build();
+			if ((protocols.contains(HttpProtocol.H2) || protocols.contains(HttpProtocol.H2C))
+					&& isPoolDisabled()) {
+				throw new IllegalArgumentException("Configured HTTP/2 protocols without a connection pool");
+			}
 			return new HttpClientOptions(this);
 		}
 	}
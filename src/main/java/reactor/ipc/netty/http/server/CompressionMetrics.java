@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2011-2018 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.ipc.netty.http.server;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of the response compression performed by an {@link HttpServer}.
+ *
+ * @since 0.7.8
+ * @see HttpServer#compressionMetrics()
+ */
+public final class CompressionMetrics {
+
+	final LongAdder responses        = new LongAdder();
+	final LongAdder skippedResponses = new LongAdder();
+	final LongAdder bytesIn          = new LongAdder();
+	final LongAdder bytesOut         = new LongAdder();
+	final LongAdder encodingNanos    = new LongAdder();
+
+	CompressionMetrics() {
+	}
+
+	/**
+	 * Return the number of responses compressed since the server started.
+	 *
+	 * @return the number of compressed responses
+	 */
+	public long responses() {
+		return responses.sum();
+	}
+
+	/**
+	 * Return the number of responses that were eligible for compression but sent
+	 * as is, because of their content type or of a body smaller than the minimum
+	 * response size.
+	 *
+	 * @return the number of skipped responses
+	 */
+	public long skippedResponses() {
+		return skippedResponses.sum();
+	}
+
+	/**
+	 * Return the number of body bytes handed to the encoders.
+	 *
+	 * @return the number of uncompressed bytes
+	 */
+	public long bytesIn() {
+		return bytesIn.sum();
+	}
+
+	/**
+	 * Return the number of compressed body bytes produced by the encoders.
+	 *
+	 * @return the number of compressed bytes
+	 */
+	public long bytesOut() {
+		return bytesOut.sum();
+	}
+
+	/**
+	 * Return the time spent encoding on the event loops, in nanoseconds.
+	 *
+	 * @return the encoding time in nanoseconds
+	 */
+	public long encodingNanos() {
+		return encodingNanos.sum();
+	}
+
+	/**
+	 * Return the ratio of uncompressed to compressed bytes, 1 when nothing was
+	 * compressed yet.
+	 *
+	 * @return the compression ratio
+	 */
+	public double compressionRatio() {
+		long out = bytesOut();
+		return out == 0 ? 1.0d : (double) bytesIn() / out;
+	}
+
+	void onEncode(int in, int out, long nanos) {
+		bytesIn.add(in);
+		bytesOut.add(out);
+		encodingNanos.add(nanos);
+	}
+
+	@Override
+	public String toString() {
+		return "CompressionMetrics{" + "responses=" + responses() + ", skippedResponses=" +
+				skippedResponses() + ", bytesIn=" + bytesIn() + ", bytesOut=" +
+				bytesOut() + ", encodingNanos=" + encodingNanos() + '}';
+	}
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2011-2018 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.ipc.netty.http.server;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+
+/**
+ * A content coding the server may compress responses with, negotiated against the
+ * {@code Accept-Encoding} request header. The built-in {@link #gzip(int) gzip} and
+ * {@link #deflate(int) deflate} encoders are backed by the JDK {@link java.util.zip.Deflater};
+ * other codings such as {@code br} or {@code zstd} are plugged by implementing this
+ * interface over their native library and registering it with
+ * {@link HttpServerOptions.Builder#compressionEncoders(ContentEncoder...)}.
+ *
+ * @since 0.7.8
+ */
+public interface ContentEncoder {
+
+	/**
+	 * Return a gzip encoder compressing at the given level.
+	 *
+	 * @param level the compression level, from 0 (no compression) to 9 (best
+	 * compression)
+	 *
+	 * @return a gzip encoder
+	 */
+	static ContentEncoder gzip(int level) {
+		return DeflateEncoder.get(true, level);
+	}
+
+	/**
+	 * Return a deflate (zlib) encoder compressing at the given level.
+	 *
+	 * @param level the compression level, from 0 (no compression) to 9 (best
+	 * compression)
+	 *
+	 * @return a deflate encoder
+	 */
+	static ContentEncoder deflate(int level) {
+		return DeflateEncoder.get(false, level);
+	}
+
+	/**
+	 * Return the content coding token of this encoder, as found in the
+	 * {@code Accept-Encoding} and {@code Content-Encoding} headers, e.g. {@code gzip}
+	 * or {@code br}.
+	 *
+	 * @return the content coding token
+	 */
+	String encoding();
+
+	/**
+	 * Create the encoding state of a single response. It is only used from the event
+	 * loop of the response connection.
+	 *
+	 * @return a new {@link Stream}
+	 */
+	Stream newStream();
+
+	/**
+	 * The encoding state of a single response.
+	 */
+	interface Stream {
+
+		/**
+		 * Compress the readable bytes of the given buffer, which is left untouched.
+		 * The returned bytes must be decodable on their own by the client, that is the
+		 * encoder flushes its output on each call.
+		 *
+		 * @param alloc the allocator of the compressed buffer
+		 * @param in the bytes to compress
+		 * @param last true to also end the compressed stream
+		 *
+		 * @return the compressed bytes
+		 */
+		ByteBuf encode(ByteBufAllocator alloc, ByteBuf in, boolean last);
+
+		/**
+		 * Release the resources of this stream, once ended or when the response is
+		 * abandoned. Invoking it more than once has no effect.
+		 */
+		void release();
+	}
+}
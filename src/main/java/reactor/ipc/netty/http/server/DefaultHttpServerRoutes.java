@@ -16,10 +16,8 @@
 
 package reactor.ipc.netty.http.server;
 
-import java.net.URI;
-import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.CopyOnWriteArrayList;
@@ -40,32 +38,14 @@ final class DefaultHttpServerRoutes implements HttpServerRoutes {
 	private final CopyOnWriteArrayList<HttpRouteHandler> handlers =
 			new CopyOnWriteArrayList<>();
 
+	private volatile HttpRouteTree tree;
+
 	@Override
 	public HttpServerRoutes directory(String uri, Path directory,
 			Function<HttpServerResponse, HttpServerResponse> interceptor) {
 		Objects.requireNonNull(directory, "directory");
-		return route(HttpPredicate.prefix(uri), (req, resp) -> {
-
-			String prefix = URI.create(req.uri())
-			                   .getPath()
-			                   .replaceFirst(uri, "");
-
-			if(prefix.charAt(0) == '/'){
-				prefix = prefix.substring(1);
-			}
-
-			Path p = directory.resolve(prefix);
-			if (Files.isReadable(p)) {
-
-				if (interceptor != null) {
-					return interceptor.apply(resp)
-					                  .sendFile(p);
-				}
-				return resp.sendFile(p);
-			}
-
-			return resp.sendNotFound();
-		});
+		return route(HttpPredicate.prefix(uri),
+				StaticFiles.directory(uri, directory, interceptor, null));
 	}
 
 	@Override
@@ -87,15 +67,30 @@ final class DefaultHttpServerRoutes implements HttpServerRoutes {
 
 	@Override
 	public Publisher<Void> apply(HttpServerRequest request, HttpServerResponse response) {
-		final Iterator<HttpRouteHandler> iterator = handlers.iterator();
-		HttpRouteHandler cursor;
+		HttpRouteTree tree = this.tree;
+		if (tree == null || tree.size != handlers.size()) {
+			tree = HttpRouteTree.compile(handlers);
+			this.tree = tree;
+		}
 
 		try {
-			while (iterator.hasNext()) {
-				cursor = iterator.next();
-				if (cursor.test(request)) {
-					return cursor.apply(request, response);
+			HttpRouteTree.Match match = tree.find(request.method(), request.uri());
+			int matchIndex = match != null ? match.index : Integer.MAX_VALUE;
+
+			List<HttpRouteTree.Route> fallbacks = tree.fallbacks;
+			for (int i = 0; i < fallbacks.size(); i++) {
+				HttpRouteTree.Route cursor = fallbacks.get(i);
+				if (cursor.index > matchIndex) {
+					break;
 				}
+				if (cursor.handler.test(request)) {
+					return cursor.handler.apply(request, response);
+				}
+			}
+
+			if (match != null) {
+				return match.route.handler.handler.apply(
+						request.paramsResolver(uri -> match.params()), response);
 			}
 		}
 		catch (Throwable t) {
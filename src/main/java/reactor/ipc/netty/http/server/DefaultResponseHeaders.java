@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2011-2018 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.ipc.netty.http.server;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.util.AsciiString;
+import io.netty.util.concurrent.FastThreadLocal;
+
+/**
+ * The headers every response of a server starts with: the
+ * {@link HttpServerOptions#defaultResponseHeaders() configured headers}, whose
+ * {@link AsciiString} names and values the HTTP/1.1 encoder copies as bytes, and a
+ * {@code Date} header formatted at most once per second and event loop.
+ */
+final class DefaultResponseHeaders {
+
+	/**
+	 * The IMF-fixdate format of RFC 7231, with a two digits day of month
+	 */
+	static final DateTimeFormatter IMF_FIXDATE =
+			DateTimeFormatter.ofPattern("EEE, dd MMM yyyy HH:mm:ss 'GMT'", Locale.US)
+			                 .withZone(ZoneOffset.UTC);
+
+	static final FastThreadLocal<CachedDate> DATE = new FastThreadLocal<CachedDate>() {
+		@Override
+		protected CachedDate initialValue() {
+			return new CachedDate();
+		}
+	};
+
+	final HttpHeaders headers;
+	final boolean     date;
+
+	DefaultResponseHeaders(HttpServerOptions options) {
+		HttpHeaders headers = options.defaultResponseHeaders();
+		this.headers = headers.isEmpty() ? null : headers;
+		this.date = options.dateHeader();
+	}
+
+	/**
+	 * Add the default headers to the headers of a new response.
+	 *
+	 * @param responseHeaders the response headers
+	 */
+	void applyTo(HttpHeaders responseHeaders) {
+		if (headers != null) {
+			responseHeaders.add(headers);
+		}
+		if (date) {
+			responseHeaders.set(HttpHeaderNames.DATE, date());
+		}
+	}
+
+	/**
+	 * Return the current date as an IMF-fixdate {@code Date} header value, formatted
+	 * once per second by each thread.
+	 *
+	 * @return the current date header value
+	 */
+	static AsciiString date() {
+		return DATE.get()
+		           .get(System.currentTimeMillis());
+	}
+
+	static final class CachedDate {
+
+		long        second = Long.MIN_VALUE;
+		AsciiString value;
+
+		AsciiString get(long now) {
+			long second = now / 1000;
+			if (second != this.second) {
+				this.value = new AsciiString(IMF_FIXDATE.format(Instant.ofEpochMilli(now)));
+				this.second = second;
+			}
+			return value;
+		}
+	}
+}
@@ -0,0 +1,210 @@
+/*
+ * Copyright (c) 2011-2018 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.ipc.netty.http.server;
+
+import java.util.ArrayDeque;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.netty.util.concurrent.FastThreadLocal;
+
+/**
+ * A gzip or deflate {@link ContentEncoder} over {@link Deflater} instances pooled per
+ * thread, hence per event loop. One instance is shared per wrapper and level.
+ */
+final class DeflateEncoder implements ContentEncoder {
+
+	static final int MAX_POOLED_DEFLATERS = 16;
+
+	static final byte[] GZIP_HEADER =
+			{0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0};
+
+	static final DeflateEncoder[] GZIP    = new DeflateEncoder[10];
+	static final DeflateEncoder[] DEFLATE = new DeflateEncoder[10];
+
+	static {
+		for (int level = 0; level < 10; level++) {
+			GZIP[level] = new DeflateEncoder(true, level);
+			DEFLATE[level] = new DeflateEncoder(false, level);
+		}
+	}
+
+	static DeflateEncoder get(boolean gzip, int level) {
+		if (level < 0 || level > 9) {
+			throw new IllegalArgumentException("level must be between 0 and 9");
+		}
+		return gzip ? GZIP[level] : DEFLATE[level];
+	}
+
+	final boolean gzip;
+	final int     level;
+
+	final FastThreadLocal<ArrayDeque<Deflater>> deflaters =
+			new FastThreadLocal<ArrayDeque<Deflater>>() {
+				@Override
+				protected ArrayDeque<Deflater> initialValue() {
+					return new ArrayDeque<>();
+				}
+
+				@Override
+				protected void onRemoval(ArrayDeque<Deflater> deflaters) {
+					deflaters.forEach(Deflater::end);
+				}
+			};
+
+	DeflateEncoder(boolean gzip, int level) {
+		this.gzip = gzip;
+		this.level = level;
+	}
+
+	@Override
+	public String encoding() {
+		return gzip ? "gzip" : "deflate";
+	}
+
+	@Override
+	public Stream newStream() {
+		Deflater deflater = deflaters.get()
+		                             .poll();
+		if (deflater == null) {
+			// gzip header and trailer are written by the stream
+			deflater = new Deflater(level, gzip);
+		}
+		return new DeflateStream(deflater);
+	}
+
+	@Override
+	public String toString() {
+		return encoding() + "(" + level + ")";
+	}
+
+	/**
+	 * Flush the compressed bytes of each encoded buffer, giving the {@link Deflater}
+	 * back to the pool once ended.
+	 */
+	final class DeflateStream implements Stream {
+
+		final Deflater deflater;
+		final CRC32    crc;
+		boolean        headerWritten;
+		boolean        released;
+
+		DeflateStream(Deflater deflater) {
+			this.deflater = deflater;
+			this.crc = gzip ? new CRC32() : null;
+		}
+
+		@Override
+		public ByteBuf encode(ByteBufAllocator alloc, ByteBuf in, boolean last) {
+			int length = in.readableBytes();
+			if (length == 0 && !last && headerWritten) {
+				return Unpooled.EMPTY_BUFFER;
+			}
+			ByteBuf out = alloc.heapBuffer((int) Math.ceil(length * 1.001) + 32);
+			try {
+				if (!headerWritten) {
+					headerWritten = true;
+					if (crc != null) {
+						out.writeBytes(GZIP_HEADER);
+					}
+				}
+				if (length != 0) {
+					byte[] array;
+					int offset;
+					if (in.hasArray()) {
+						array = in.array();
+						offset = in.arrayOffset() + in.readerIndex();
+					}
+					else {
+						array = new byte[length];
+						in.getBytes(in.readerIndex(), array);
+						offset = 0;
+					}
+					if (crc != null) {
+						crc.update(array, offset, length);
+					}
+					deflater.setInput(array, offset, length);
+					for (; ; ) {
+						deflate(out);
+						if (!out.isWritable()) {
+							out.ensureWritable(out.writerIndex());
+						}
+						else if (deflater.needsInput()) {
+							break;
+						}
+					}
+				}
+				if (last) {
+					finish(out);
+				}
+				return out;
+			}
+			catch (Throwable t) {
+				out.release();
+				release();
+				throw t;
+			}
+		}
+
+		void finish(ByteBuf out) {
+			deflater.finish();
+			while (!deflater.finished()) {
+				deflate(out);
+				if (!out.isWritable()) {
+					out.ensureWritable(out.writerIndex());
+				}
+			}
+			if (crc != null) {
+				out.writeIntLE((int) crc.getValue());
+				out.writeIntLE((int) deflater.getBytesRead());
+			}
+			release();
+		}
+
+		void deflate(ByteBuf out) {
+			int numBytes;
+			do {
+				int writerIndex = out.writerIndex();
+				numBytes = deflater.deflate(out.array(),
+						out.arrayOffset() + writerIndex,
+						out.writableBytes(),
+						Deflater.SYNC_FLUSH);
+				out.writerIndex(writerIndex + numBytes);
+			}
+			while (numBytes > 0);
+		}
+
+		@Override
+		public void release() {
+			if (released) {
+				return;
+			}
+			released = true;
+			deflater.reset();
+			ArrayDeque<Deflater> pool = deflaters.get();
+			if (pool.size() < MAX_POOLED_DEFLATERS) {
+				pool.offer(deflater);
+			}
+			else {
+				deflater.end();
+			}
+		}
+	}
+}
@@ -0,0 +1,479 @@
+/*
+ * Copyright (c) 2011-2018 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.ipc.netty.http.server;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.DefaultFileRegion;
+import io.netty.handler.codec.DateFormatter;
+import reactor.util.Logger;
+import reactor.util.Loggers;
+
+/**
+ * A size bounded cache of open {@link FileChannel} and metadata of the static files
+ * served by {@link StaticFiles}, sparing an open and a stat per request of a hot file.
+ * <p>
+ * Cached files are reference counted: each request and each
+ * {@link CachedFileRegion region} being written holds a reference, the channel being
+ * closed once the file is evicted or invalidated and no longer in use. Files are
+ * invalidated when a {@link WatchService} reports a change of their directory. Files
+ * that cannot be watched, e.g. outside of the default file system, are opened per
+ * request. Eviction approximates LRU with a second chance policy.
+ * <p>
+ * A directory is only watched while it has cached files, here or in a registered
+ * {@link StaticContentCache}, and the watcher thread only runs while a directory is
+ * watched. {@link #clear()} releases everything.
+ */
+final class FileCache {
+
+	static final Logger log = Loggers.getLogger(FileCache.class);
+
+	/**
+	 * Default maximum number of files kept open
+	 */
+	static final int DEFAULT_CACHE_SIZE = Integer.parseInt(System.getProperty(
+			"reactor.ipc.netty.http.server.fileCacheSize",
+			"256"));
+
+	static final FileCache DEFAULT = new FileCache(DEFAULT_CACHE_SIZE);
+
+	final int                                 maxSize;
+	final ConcurrentHashMap<Path, CachedFile> entries     = new ConcurrentHashMap<>();
+	final ConcurrentHashMap<Path, WatchedDir> watchedDirs = new ConcurrentHashMap<>();
+	final AtomicLong                          generation  = new AtomicLong();
+	final LongAdder                           hits        = new LongAdder();
+	final LongAdder                           misses      = new LongAdder();
+	final Set<StaticContentCache>             contentCaches =
+			ConcurrentHashMap.newKeySet();
+
+	WatchService watchService;
+	boolean      watchUnavailable;
+
+	FileCache(int maxSize) {
+		this.maxSize = maxSize;
+	}
+
+	/**
+	 * Acquire a reference to the given file, opening it if not cached. The caller
+	 * must {@link CachedFile#release() release} it once done.
+	 *
+	 * @param path the file to open
+	 *
+	 * @return the acquired file
+	 *
+	 * @throws IOException if the file cannot be opened
+	 */
+	CachedFile acquire(Path path) throws IOException {
+		Path key = path.toAbsolutePath()
+		               .normalize();
+		if (maxSize <= 0) {
+			return CachedFile.open(key);
+		}
+		CachedFile file = entries.get(key);
+		if (file != null && file.tryRetain()) {
+			file.referenced = true;
+			hits.increment();
+			return file;
+		}
+		WatchedDir dir = watch(key.getParent());
+		if (dir == null) {
+			return CachedFile.open(key);
+		}
+		misses.increment();
+		long openGeneration = generation.get();
+		try {
+			file = CachedFile.open(key);
+		}
+		catch (Throwable t) {
+			dir.release();
+			throw t;
+		}
+		file.dir = dir;
+		// one reference for the caller, one for the cache
+		file.retain();
+		CachedFile previous = entries.put(key, file);
+		if (previous != null) {
+			uncache(previous);
+		}
+		// a change reported while opening may not have seen the new entry
+		if (generation.get() != openGeneration && entries.remove(key, file)) {
+			uncache(file);
+		}
+		if (entries.size() > maxSize) {
+			evict();
+		}
+		return file;
+	}
+
+	void evict() {
+		for (int pass = 0; pass < 2; pass++) {
+			Iterator<Map.Entry<Path, CachedFile>> it = entries.entrySet()
+			                                                  .iterator();
+			while (it.hasNext()) {
+				Map.Entry<Path, CachedFile> entry = it.next();
+				CachedFile file = entry.getValue();
+				if (pass == 0 && file.referenced) {
+					file.referenced = false;
+				}
+				else if (entries.remove(entry.getKey(), file)) {
+					uncache(file);
+					return;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Release the cache reference of a file removed from the entries, and of its
+	 * directory.
+	 *
+	 * @param file the removed file
+	 */
+	void uncache(CachedFile file) {
+		file.release();
+		file.dir.release();
+	}
+
+	/**
+	 * Release all the cached files, including the ones of the registered content
+	 * caches, which stops watching their directories. The files being written are
+	 * closed once written.
+	 */
+	void clear() {
+		for (StaticContentCache contentCache : contentCaches) {
+			contentCache.clear();
+		}
+		for (Map.Entry<Path, CachedFile> entry : entries.entrySet()) {
+			if (entries.remove(entry.getKey(), entry.getValue())) {
+				uncache(entry.getValue());
+			}
+		}
+	}
+
+	/**
+	 * Register a content cache to clear and invalidate along with this cache, until
+	 * it is disposed.
+	 *
+	 * @param contentCache the content cache
+	 */
+	void register(StaticContentCache contentCache) {
+		contentCaches.add(contentCache);
+	}
+
+	void unregister(StaticContentCache contentCache) {
+		contentCaches.remove(contentCache);
+	}
+
+	void invalidate(Path path) {
+		generation.incrementAndGet();
+		CachedFile file = entries.remove(path);
+		if (file != null) {
+			uncache(file);
+		}
+		for (StaticContentCache contentCache : contentCaches) {
+			contentCache.invalidate(path);
+		}
+	}
+
+	void invalidateAll(Path dir) {
+		generation.incrementAndGet();
+		for (StaticContentCache contentCache : contentCaches) {
+			contentCache.invalidateAll(dir);
+		}
+		for (Map.Entry<Path, CachedFile> entry : entries.entrySet()) {
+			if (dir.equals(entry.getKey()
+			                    .getParent()) && entries.remove(entry.getKey(),
+					entry.getValue())) {
+				uncache(entry.getValue());
+			}
+		}
+	}
+
+	/**
+	 * Watch the given directory so its cached files are invalidated on change. The
+	 * caller must {@link WatchedDir#release() release} the returned reference once the
+	 * files cached with it are removed.
+	 *
+	 * @param dir the parent directory of a file to cache
+	 *
+	 * @return the acquired watch, or null if the files of the directory must not be
+	 * cached
+	 */
+	WatchedDir watch(Path dir) {
+		if (dir == null || dir.getFileSystem() != FileSystems.getDefault()) {
+			return null;
+		}
+		WatchedDir watched = watchedDirs.get(dir);
+		if (watched != null && watched.tryRetain()) {
+			return watched;
+		}
+		synchronized (this) {
+			watched = watchedDirs.get(dir);
+			if (watched != null) {
+				if (watched.tryRetain()) {
+					return watched;
+				}
+				// released but not yet unwatched, the key must not be shared
+				watchedDirs.remove(dir, watched);
+				watched.key.cancel();
+			}
+			if (watchService == null) {
+				if (watchUnavailable) {
+					return null;
+				}
+				WatchService service;
+				try {
+					service = FileSystems.getDefault()
+					                     .newWatchService();
+				}
+				catch (IOException | UnsupportedOperationException e) {
+					log.debug("Static files are not cached, no watch service available", e);
+					watchUnavailable = true;
+					return null;
+				}
+				Thread watcher = new Thread(() -> processEvents(service),
+						"reactor-http-file-watcher");
+				watcher.setDaemon(true);
+				watcher.start();
+				watchService = service;
+			}
+			WatchKey key;
+			try {
+				key = dir.register(watchService,
+						StandardWatchEventKinds.ENTRY_CREATE,
+						StandardWatchEventKinds.ENTRY_DELETE,
+						StandardWatchEventKinds.ENTRY_MODIFY);
+			}
+			catch (IOException | UnsupportedOperationException e) {
+				log.debug("Static files of {} are not cached, the directory cannot be watched",
+						dir, e);
+				closeIfUnused();
+				return null;
+			}
+			watched = new WatchedDir(dir, key);
+			watchedDirs.put(dir, watched);
+			return watched;
+		}
+	}
+
+	synchronized void unwatch(WatchedDir watched) {
+		if (watchedDirs.remove(watched.dir, watched)) {
+			watched.key.cancel();
+			closeIfUnused();
+		}
+	}
+
+	/**
+	 * Close the watch service, stopping the watcher thread, when no directory is
+	 * watched. It is created again on demand.
+	 */
+	void closeIfUnused() {
+		if (watchService != null && watchedDirs.isEmpty()) {
+			try {
+				watchService.close();
+			}
+			catch (IOException ioe) {/*IGNORE*/}
+			watchService = null;
+		}
+	}
+
+	void processEvents(WatchService service) {
+		for (; ; ) {
+			WatchKey key;
+			try {
+				key = service.take();
+			}
+			catch (InterruptedException | ClosedWatchServiceException e) {
+				return;
+			}
+			Path dir = (Path) key.watchable();
+			for (WatchEvent<?> event : key.pollEvents()) {
+				if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+					invalidateAll(dir);
+				}
+				else {
+					invalidate(dir.resolve((Path) event.context()));
+				}
+			}
+			if (!key.reset()) {
+				// the directory is gone, new files are cached with a new watch
+				synchronized (this) {
+					WatchedDir watched = watchedDirs.get(dir);
+					if (watched != null && watched.key == key) {
+						watchedDirs.remove(dir, watched);
+						closeIfUnused();
+					}
+				}
+				invalidateAll(dir);
+			}
+		}
+	}
+
+	/**
+	 * A watched directory, reference counted by the files cached in it.
+	 */
+	final class WatchedDir {
+
+		final Path          dir;
+		final WatchKey      key;
+		final AtomicInteger refCnt = new AtomicInteger(1);
+
+		WatchedDir(Path dir, WatchKey key) {
+			this.dir = dir;
+			this.key = key;
+		}
+
+		boolean tryRetain() {
+			for (; ; ) {
+				int count = refCnt.get();
+				if (count == 0) {
+					return false;
+				}
+				if (refCnt.compareAndSet(count, count + 1)) {
+					return true;
+				}
+			}
+		}
+
+		void release() {
+			if (refCnt.decrementAndGet() == 0) {
+				unwatch(this);
+			}
+		}
+	}
+
+	/**
+	 * An open file and the metadata read when opening it, or the content of a small
+	 * file held by a {@link StaticContentCache}.
+	 */
+	static final class CachedFile {
+
+		static CachedFile open(Path path) throws IOException {
+			FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+			try {
+				BasicFileAttributes attributes =
+						Files.readAttributes(path, BasicFileAttributes.class);
+				return new CachedFile(path,
+						channel,
+						null,
+						attributes.size(),
+						attributes.lastModifiedTime()
+						          .toMillis());
+			}
+			catch (Throwable t) {
+				channel.close();
+				throw t;
+			}
+		}
+
+		final Path          path;
+		final FileChannel   channel;
+		final ByteBuf       content;
+		final long          size;
+		final long          lastModified;
+		final String        etag;
+		final String        lastModifiedHeader;
+		final AtomicInteger refCnt = new AtomicInteger(1);
+
+		WatchedDir       dir;
+		volatile boolean referenced;
+
+		CachedFile(Path path,
+				FileChannel channel,
+				ByteBuf content,
+				long size,
+				long lastModified) {
+			this.path = path;
+			this.channel = channel;
+			this.content = content;
+			this.size = size;
+			this.lastModified = lastModified;
+			this.etag = '"' + Long.toHexString(size) + '-' + Long.toHexString(lastModified) + '"';
+			this.lastModifiedHeader = DateFormatter.format(new Date(lastModified));
+		}
+
+		void retain() {
+			refCnt.incrementAndGet();
+		}
+
+		boolean tryRetain() {
+			for (; ; ) {
+				int count = refCnt.get();
+				if (count == 0) {
+					return false;
+				}
+				if (refCnt.compareAndSet(count, count + 1)) {
+					return true;
+				}
+			}
+		}
+
+		void release() {
+			if (refCnt.decrementAndGet() == 0) {
+				if (content != null) {
+					content.release();
+				}
+				if (channel != null) {
+					try {
+						channel.close();
+					}
+					catch (IOException ioe) {/*IGNORE*/}
+				}
+			}
+		}
+	}
+
+	/**
+	 * A zero-copy region of a {@link CachedFile}, releasing its reference instead of
+	 * closing the shared channel once written.
+	 */
+	static final class CachedFileRegion extends DefaultFileRegion {
+
+		final CachedFile file;
+
+		CachedFileRegion(CachedFile file, long position, long count) {
+			super(file.channel, position, count);
+			this.file = file;
+			file.retain();
+		}
+
+		@Override
+		protected void deallocate() {
+			file.release();
+		}
+	}
+}
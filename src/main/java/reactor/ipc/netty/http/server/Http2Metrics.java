@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2011-2018 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.ipc.netty.http.server;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import io.netty.channel.Channel;
+
+/**
+ * Connection and stream counters of the HTTP/2 traffic served by an
+ * {@link HttpServer}.
+ *
+ * @since 0.7.8
+ * @see HttpServer#http2Metrics()
+ */
+public final class Http2Metrics {
+
+	final LongAdder connections       = new LongAdder();
+	final LongAdder activeConnections = new LongAdder();
+	final LongAdder streams           = new LongAdder();
+	final LongAdder activeStreams     = new LongAdder();
+
+	Http2Metrics() {
+	}
+
+	/**
+	 * Return the number of connections switched to HTTP/2 since the server started,
+	 * whether negotiated with ALPN, with prior knowledge or upgraded from HTTP/1.1.
+	 *
+	 * @return the number of HTTP/2 connections
+	 */
+	public long connections() {
+		return connections.sum();
+	}
+
+	/**
+	 * Return the number of currently open HTTP/2 connections.
+	 *
+	 * @return the number of open HTTP/2 connections
+	 */
+	public long activeConnections() {
+		return activeConnections.sum();
+	}
+
+	/**
+	 * Return the number of HTTP/2 streams opened by clients since the server started.
+	 *
+	 * @return the number of HTTP/2 streams
+	 */
+	public long streams() {
+		return streams.sum();
+	}
+
+	/**
+	 * Return the number of currently open HTTP/2 streams across all connections.
+	 *
+	 * @return the number of open HTTP/2 streams
+	 */
+	public long activeStreams() {
+		return activeStreams.sum();
+	}
+
+	void onConnection(Channel connection) {
+		connections.increment();
+		activeConnections.increment();
+		connection.closeFuture()
+		          .addListener(f -> activeConnections.decrement());
+	}
+
+	void onStream(Channel stream) {
+		streams.increment();
+		activeStreams.increment();
+		stream.closeFuture()
+		      .addListener(f -> activeStreams.decrement());
+	}
+
+	@Override
+	public String toString() {
+		return "Http2Metrics{" + "connections=" + connections() + ", activeConnections=" +
+				activeConnections() + ", streams=" + streams() + ", activeStreams=" +
+				activeStreams() + '}';
+	}
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2011-2018 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.ipc.netty.http.server;
+
+import java.util.function.BiConsumer;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelPipeline;
+import io.netty.handler.codec.http2.Http2StreamFrameToHttpObjectCodec;
+import reactor.ipc.netty.NettyPipeline;
+import reactor.ipc.netty.channel.ContextHandler;
+import reactor.ipc.netty.http.Http2Handlers;
+
+/**
+ * Initialize each HTTP/2 stream child channel of a connection as an HTTP/1.1-like
+ * exchange: stream frames are converted to and from {@link io.netty.handler.codec.http.HttpObject}
+ * so a stream is served by the usual {@link HttpServerHandler} and
+ * {@link HttpServerOperations}.
+ * <p>
+ * Streams do not read automatically: the stream flow control window is only
+ * replenished as the request body is read, following the demand of the handler.
+ */
+final class Http2StreamInitializer extends ChannelInitializer<Channel>
+		implements BiConsumer<ChannelPipeline, ContextHandler<Channel>> {
+
+	final ContextHandler<Channel> parentContext;
+	final boolean                 validateHeaders;
+	final Http2Metrics            metrics;
+
+	Http2StreamInitializer(ContextHandler<Channel> parentContext,
+			boolean validateHeaders,
+			Http2Metrics metrics) {
+		this.parentContext = parentContext;
+		this.validateHeaders = validateHeaders;
+		this.metrics = metrics;
+	}
+
+	@Override
+	protected void initChannel(Channel ch) {
+		metrics.onStream(ch);
+		ch.config()
+		  .setAutoRead(false);
+		parentContext.acceptStream(ch, this);
+	}
+
+	@Override
+	public void accept(ChannelPipeline p, ContextHandler<Channel> c) {
+		p.addLast(NettyPipeline.HttpCodec,
+				new Http2StreamFrameToHttpObjectCodec(true, validateHeaders));
+		p.addLast(NettyPipeline.H2StreamBridge, Http2Handlers.streamBridge());
+		p.addLast(NettyPipeline.HttpServerHandler, new HttpServerHandler(c));
+	}
+}
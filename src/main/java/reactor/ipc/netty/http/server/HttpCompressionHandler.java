@@ -0,0 +1,531 @@
+/*
+ * Copyright (c) 2011-2018 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.ipc.netty.http.server;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.ChannelPromise;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.DefaultHttpContent;
+import io.netty.handler.codec.http.DefaultLastHttpContent;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpStatusClass;
+import io.netty.handler.codec.http.HttpUtil;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.util.ReferenceCountUtil;
+import reactor.ipc.netty.NettyPipeline;
+
+/**
+ * A per-connection response compression stage. Unlike
+ * {@link io.netty.handler.codec.http.HttpContentCompressor} it stays in the pipeline
+ * between responses and only encodes a response when
+ * {@link #compressNextResponse(ContentEncoder, int) armed} by its operations before
+ * the headers are written, with the {@link ContentEncoder} negotiated for the request.
+ * <p>
+ * Responses of an excluded content type are sent as is. A streamed response without
+ * {@code Content-Length} is held until its body reaches the minimum response size,
+ * and sent uncompressed if it completes before. The writes of a held response are
+ * acknowledged as they are held, since the operations wait for them before writing
+ * more of the body. A response still held at the end of the event loop iteration of
+ * a flush is compressed and written, so that event streams and slow producers still
+ * reach the client as they are written.
+ */
+final class HttpCompressionHandler extends ChannelDuplexHandler {
+
+	/**
+	 * Return the compression stage of the given pipeline, adding it right after the
+	 * HTTP handlers if missing, so that the chunked writer and the user handlers
+	 * write through it. The stage is not removed when the current operations
+	 * terminate, the next responses of the connection reuse it.
+	 *
+	 * @param pipeline the pipeline of an HTTP connection or stream
+	 * @param settings the compression settings of the server
+	 *
+	 * @return the compression stage of the pipeline
+	 */
+	static HttpCompressionHandler get(ChannelPipeline pipeline, Settings settings) {
+		HttpCompressionHandler handler =
+				(HttpCompressionHandler) pipeline.get(NettyPipeline.CompressionHandler);
+		if (handler == null) {
+			handler = new HttpCompressionHandler(settings);
+			pipeline.addAfter(NettyPipeline.HttpServerHandler,
+					NettyPipeline.CompressionHandler,
+					handler);
+		}
+		return handler;
+	}
+
+	final Settings settings;
+
+	// armed by the operations right before writing the response headers, the write
+	// being then ordered after it on the event loop
+	ContentEncoder        next;
+	int                   nextMinResponseSize;
+	ContentEncoder.Stream stream;
+	HeldResponse          held;
+
+	HttpCompressionHandler(Settings settings) {
+		this.settings = settings;
+	}
+
+	/**
+	 * Encode the next response written through this stage, unless it is not
+	 * compressible (no content, already encoded, excluded content type...).
+	 *
+	 * @param encoder the encoder of the next response
+	 * @param minResponseSize the body size under which a streamed response without
+	 * {@code Content-Length} is sent as is, 0 to always compress it
+	 */
+	void compressNextResponse(ContentEncoder encoder, int minResponseSize) {
+		this.next = encoder;
+		this.nextMinResponseSize = minResponseSize;
+	}
+
+	@Override
+	public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+		if (msg instanceof HttpResponse) {
+			writeResponse(ctx, (HttpResponse) msg, promise);
+			return;
+		}
+		if (held != null) {
+			hold(ctx, msg, promise);
+			return;
+		}
+		ContentEncoder.Stream stream = this.stream;
+		if (stream == null) {
+			ctx.write(msg, promise);
+			return;
+		}
+		if (msg instanceof LastHttpContent) {
+			LastHttpContent last = (LastHttpContent) msg;
+			DefaultLastHttpContent encoded;
+			try {
+				ByteBuf content = encode(ctx, stream, last.content(), true);
+				this.stream = null;
+				stream.release();
+				encoded = new DefaultLastHttpContent(content);
+				encoded.trailingHeaders()
+				       .set(last.trailingHeaders());
+			}
+			finally {
+				last.release();
+			}
+			ctx.write(encoded, promise);
+		}
+		else if (msg instanceof HttpContent) {
+			HttpContent httpContent = (HttpContent) msg;
+			ByteBuf content;
+			try {
+				content = encode(ctx, stream, httpContent.content(), false);
+			}
+			finally {
+				httpContent.release();
+			}
+			ctx.write(new DefaultHttpContent(content), promise);
+		}
+		else if (msg instanceof ByteBuf) {
+			ByteBuf content;
+			try {
+				content = encode(ctx, stream, (ByteBuf) msg, false);
+			}
+			finally {
+				((ByteBuf) msg).release();
+			}
+			ctx.write(new DefaultHttpContent(content), promise);
+		}
+		else {
+			ctx.write(msg, promise);
+		}
+	}
+
+	final ByteBuf encode(ChannelHandlerContext ctx, ContentEncoder.Stream stream,
+			ByteBuf in, boolean last) {
+		int length = in.readableBytes();
+		long start = System.nanoTime();
+		ByteBuf out;
+		try {
+			out = stream.encode(ctx.alloc(), in, last);
+		}
+		catch (Throwable t) {
+			this.stream = null;
+			stream.release();
+			throw t;
+		}
+		settings.metrics.onEncode(length, out.readableBytes(), System.nanoTime() - start);
+		return out;
+	}
+
+	final void writeResponse(ChannelHandlerContext ctx, HttpResponse response,
+			ChannelPromise promise) {
+		if (held != null) {
+			// the previous response was not completed
+			writeHeld(ctx);
+		}
+		if (stream != null) {
+			stream.release();
+			stream = null;
+		}
+		ContentEncoder encoder = next;
+		if (encoder == null) {
+			ctx.write(response, promise);
+			return;
+		}
+		if (!HttpResponseStatus.CONTINUE.equals(response.status())) {
+			next = null;
+		}
+		if (!isCompressible(response)) {
+			ctx.write(response, promise);
+			return;
+		}
+		if (settings.isExcluded(response.headers()
+		                                .get(HttpHeaderNames.CONTENT_TYPE))) {
+			settings.metrics.skippedResponses.increment();
+			ctx.write(response, promise);
+			return;
+		}
+
+		if (response instanceof FullHttpResponse) {
+			FullHttpResponse full = (FullHttpResponse) response;
+			HttpHeaders headers = full.headers();
+			settings.metrics.responses.increment();
+			FullHttpResponse encoded;
+			try {
+				ContentEncoder.Stream stream = encoder.newStream();
+				ByteBuf content = encode(ctx, stream, full.content(), true);
+				stream.release();
+				headers.set(HttpHeaderNames.CONTENT_ENCODING, encoder.encoding())
+				       .remove(HttpHeaderNames.TRANSFER_ENCODING)
+				       .setInt(HttpHeaderNames.CONTENT_LENGTH, content.readableBytes());
+				encoded = new DefaultFullHttpResponse(full.protocolVersion(),
+						full.status(),
+						content,
+						headers,
+						full.trailingHeaders());
+			}
+			finally {
+				full.release();
+			}
+			ctx.write(encoded, promise);
+			return;
+		}
+
+		if (nextMinResponseSize > 0 && !HttpUtil.isContentLengthSet(response)) {
+			held = new HeldResponse(response, encoder, nextMinResponseSize);
+			promise.trySuccess();
+			return;
+		}
+		startStream(ctx, response, promise, encoder);
+	}
+
+	final void startStream(ChannelHandlerContext ctx, HttpResponse response,
+			ChannelPromise promise, ContentEncoder encoder) {
+		response.headers()
+		        .set(HttpHeaderNames.CONTENT_ENCODING, encoder.encoding())
+		        .remove(HttpHeaderNames.CONTENT_LENGTH)
+		        .set(HttpHeaderNames.TRANSFER_ENCODING, HttpHeaderValues.CHUNKED);
+		settings.metrics.responses.increment();
+		stream = encoder.newStream();
+		ctx.write(response, promise);
+	}
+
+	final void hold(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+		HeldResponse held = this.held;
+		ByteBuf content;
+		if (msg instanceof HttpContent) {
+			content = ((HttpContent) msg).content();
+		}
+		else if (msg instanceof ByteBuf) {
+			content = (ByteBuf) msg;
+		}
+		else {
+			writeHeld(ctx);
+			ctx.write(msg, promise);
+			return;
+		}
+		held.bytes += content.readableBytes();
+		if (held.bytes >= held.minResponseSize) {
+			writeHeldCompressed(ctx);
+			write(ctx, msg, promise);
+		}
+		else if (msg instanceof LastHttpContent) {
+			if (((LastHttpContent) msg).trailingHeaders()
+			                           .isEmpty()) {
+				// the whole body is known, no need to stream it
+				held.response.headers()
+				             .remove(HttpHeaderNames.TRANSFER_ENCODING)
+				             .setInt(HttpHeaderNames.CONTENT_LENGTH, held.bytes);
+			}
+			writeHeld(ctx);
+			ctx.write(msg, promise);
+		}
+		else {
+			held.messages.add(msg);
+			promise.trySuccess();
+		}
+	}
+
+	@Override
+	public void flush(ChannelHandlerContext ctx) {
+		HeldResponse held = this.held;
+		if (held != null && !held.flushScheduled) {
+			// the written body is awaited, stop waiting for the minimum size unless the
+			// response completes during the current event loop iteration
+			held.flushScheduled = true;
+			ctx.executor()
+			   .execute(() -> {
+				   if (this.held == held) {
+					   writeHeldCompressed(ctx);
+					   ctx.flush();
+				   }
+			   });
+		}
+		ctx.flush();
+	}
+
+	/**
+	 * Start compressing the held response and write its body.
+	 */
+	final void writeHeldCompressed(ChannelHandlerContext ctx) {
+		HeldResponse held = this.held;
+		this.held = null;
+		startStream(ctx, held.response, ctx.newPromise(), held.encoder);
+		for (Object message : held.messages) {
+			write(ctx, message, ctx.newPromise());
+		}
+	}
+
+	/**
+	 * Send the held response and its body as is.
+	 */
+	final void writeHeld(ChannelHandlerContext ctx) {
+		HeldResponse held = this.held;
+		this.held = null;
+		settings.metrics.skippedResponses.increment();
+		ctx.write(held.response, ctx.newPromise());
+		for (Object message : held.messages) {
+			ctx.write(message, ctx.newPromise());
+		}
+	}
+
+	static boolean isCompressible(HttpResponse response) {
+		HttpResponseStatus status = response.status();
+		if (status.codeClass() == HttpStatusClass.INFORMATIONAL ||
+				status.code() == HttpResponseStatus.NO_CONTENT.code() ||
+				status.code() == HttpResponseStatus.PARTIAL_CONTENT.code() ||
+				status.code() == HttpResponseStatus.NOT_MODIFIED.code()) {
+			return false;
+		}
+		String contentEncoding = response.headers()
+		                                 .get(HttpHeaderNames.CONTENT_ENCODING);
+		if (contentEncoding != null &&
+				!HttpHeaderValues.IDENTITY.contentEqualsIgnoreCase(contentEncoding)) {
+			return false;
+		}
+		return !(response instanceof FullHttpResponse) ||
+				((FullHttpResponse) response).content()
+				                             .isReadable();
+	}
+
+	@Override
+	public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+		cleanup();
+		super.channelInactive(ctx);
+	}
+
+	@Override
+	public void handlerRemoved(ChannelHandlerContext ctx) {
+		cleanup();
+	}
+
+	final void cleanup() {
+		next = null;
+		if (stream != null) {
+			stream.release();
+			stream = null;
+		}
+		HeldResponse held = this.held;
+		if (held != null) {
+			this.held = null;
+			ReferenceCountUtil.release(held.response);
+			held.messages.forEach(ReferenceCountUtil::release);
+		}
+	}
+
+	/**
+	 * Select a content coding from an {@code Accept-Encoding} header value: the coding
+	 * with the highest quality value is selected, ties being broken by the order of
+	 * the given codings.
+	 *
+	 * @param acceptEncoding the {@code Accept-Encoding} header value, possibly null
+	 * @param encodings the available content codings by order of preference, null
+	 * elements being skipped
+	 *
+	 * @return the index of the selected coding, or -1 if none is acceptable
+	 */
+	static int negotiate(String acceptEncoding, String[] encodings) {
+		if (acceptEncoding == null) {
+			return -1;
+		}
+		float[] qs = new float[encodings.length];
+		for (int i = 0; i < qs.length; i++) {
+			qs[i] = -1.0f;
+		}
+		float starQ = -1.0f;
+		for (String coding : acceptEncoding.split(",")) {
+			float q = 1.0f;
+			int semicolon = coding.indexOf(';');
+			String name = semicolon == -1 ? coding : coding.substring(0, semicolon);
+			name = name.trim();
+			if (semicolon != -1) {
+				int equalsPos = coding.indexOf('=', semicolon);
+				if (equalsPos != -1) {
+					try {
+						q = Float.parseFloat(coding.substring(equalsPos + 1)
+						                           .trim());
+					}
+					catch (NumberFormatException e) {
+						q = 0.0f;
+					}
+				}
+			}
+			if ("*".equals(name)) {
+				starQ = Math.max(starQ, q);
+				continue;
+			}
+			for (int i = 0; i < encodings.length; i++) {
+				if (name.equalsIgnoreCase(encodings[i])) {
+					qs[i] = Math.max(qs[i], q);
+				}
+			}
+		}
+		int selected = -1;
+		float selectedQ = 0.0f;
+		for (int i = 0; i < encodings.length; i++) {
+			if (encodings[i] == null) {
+				continue;
+			}
+			float q = qs[i] == -1.0f ? starQ : qs[i];
+			if (q > selectedQ) {
+				selected = i;
+				selectedQ = q;
+			}
+		}
+		return selected;
+	}
+
+	/**
+	 * A streamed response waiting for its body to reach the minimum response size.
+	 */
+	static final class HeldResponse {
+
+		final HttpResponse   response;
+		final ContentEncoder encoder;
+		final int            minResponseSize;
+		final List<Object>   messages = new ArrayList<>(4);
+		int                  bytes;
+		boolean              flushScheduled;
+
+		HeldResponse(HttpResponse response, ContentEncoder encoder, int minResponseSize) {
+			this.response = response;
+			this.encoder = encoder;
+			this.minResponseSize = minResponseSize;
+		}
+	}
+
+	/**
+	 * The compression configuration of a server, shared by the stages of its
+	 * connections.
+	 */
+	static final class Settings {
+
+		final ContentEncoder[]   encoders;
+		final String[]           encodings;
+		final Set<String>        excludedContentTypes;
+		final int                minResponseSize;
+		final CompressionMetrics metrics;
+
+		Settings(HttpServerOptions options, CompressionMetrics metrics) {
+			this.encoders = options.compressionEncoders()
+			                       .toArray(new ContentEncoder[0]);
+			this.encodings = new String[encoders.length];
+			for (int i = 0; i < encoders.length; i++) {
+				encodings[i] = encoders[i].encoding();
+			}
+			this.excludedContentTypes = options.compressionExcludedContentTypes();
+			this.minResponseSize = Math.max(0, options.minCompressionResponseSize());
+			this.metrics = metrics;
+		}
+
+		/**
+		 * Negotiate the encoder of a response to the given request from its
+		 * {@code Accept-Encoding} header.
+		 *
+		 * @param request the request
+		 *
+		 * @return the encoder of the response, or null if it must not be compressed
+		 * @see HttpCompressionHandler#negotiate(String, String[])
+		 */
+		ContentEncoder negotiate(HttpRequest request) {
+			HttpMethod method = request.method();
+			if (HttpMethod.HEAD.equals(method) || HttpMethod.CONNECT.equals(method)) {
+				return null;
+			}
+			String acceptEncoding = request.headers()
+			                               .get(HttpHeaderNames.ACCEPT_ENCODING);
+			int selected = HttpCompressionHandler.negotiate(acceptEncoding, encodings);
+			return selected == -1 ? null : encoders[selected];
+		}
+
+		/**
+		 * Return true if responses of the given content type must not be compressed.
+		 *
+		 * @param contentType the {@code Content-Type} header value, possibly null
+		 *
+		 * @return true if the content type is excluded from compression
+		 */
+		boolean isExcluded(String contentType) {
+			if (contentType == null || excludedContentTypes.isEmpty()) {
+				return false;
+			}
+			int semicolon = contentType.indexOf(';');
+			String mediaType = (semicolon == -1 ? contentType :
+					contentType.substring(0, semicolon)).trim()
+					                                    .toLowerCase(Locale.ROOT);
+			if (excludedContentTypes.contains(mediaType)) {
+				return true;
+			}
+			int slash = mediaType.indexOf('/');
+			return slash != -1 &&
+					excludedContentTypes.contains(mediaType.substring(0, slash + 1) + '*');
+		}
+	}
+}
@@ -17,10 +17,14 @@
 package reactor.ipc.netty.http.server;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.regex.Matcher;
@@ -223,12 +227,8 @@ final class HttpPredicate
 		private static final String  NAME_REPLACEMENT = "(?<%NAME%>[^\\/]*)";
 		//private static final String  NAME_REPLACEMENT = "([^\\/]*)";
 
-		private final List<String>                         pathVariables =
-				new ArrayList<>();
-		private final HashMap<String, Matcher>             matchers      =
-				new HashMap<>();
-		private final HashMap<String, Map<String, String>> vars          =
-				new HashMap<>();
+		private final List<String> pathVariables = new ArrayList<>();
+		private final MatchCache   cache         = new MatchCache(DEFAULT_CACHE_SIZE);
 
 		private final Pattern uriPattern;
 
@@ -291,36 +291,126 @@ final class HttpPredicate
 		 * @return the path parameters from the uri. Never {@code null}.
 		 */
 		final Map<String, String> match(String uri) {
-			Map<String, String> pathParameters = vars.get(uri);
+			Map<String, String> pathParameters = cache.get(uri);
 			if (null != pathParameters) {
 				return pathParameters;
 			}
 
-			pathParameters = new HashMap<>();
 			Matcher m = matcher(uri);
-			if (m.matches()) {
-				int i = 1;
-				for (String name : pathVariables) {
-					String val = m.group(i++);
-					pathParameters.put(name, val);
-				}
+			if (!m.matches()) {
+				return Collections.emptyMap();
 			}
-			synchronized (vars) {
-				vars.put(uri, pathParameters);
+
+			pathParameters = new HashMap<>();
+			int i = 1;
+			for (String name : pathVariables) {
+				String val = m.group(i++);
+				pathParameters.put(name, val);
 			}
+			pathParameters = Collections.unmodifiableMap(pathParameters);
+			cache.put(uri, pathParameters);
 
 			return pathParameters;
 		}
 
+		/**
+		 * Return the number of {@link #match(String)} calls served from the cache
+		 *
+		 * @return the number of cache hits
+		 */
+		final long cacheHits() {
+			return cache.hits.sum();
+		}
+
+		/**
+		 * Return the number of {@link #match(String)} calls not served from the cache
+		 *
+		 * @return the number of cache misses
+		 */
+		final long cacheMisses() {
+			return cache.misses.sum();
+		}
+
 		private Matcher matcher(String uri) {
-			Matcher m = matchers.get(uri);
-			if (null == m) {
-				m = uriPattern.matcher(uri);
-				synchronized (matchers) {
-					matchers.put(uri, m);
+			return uriPattern.matcher(uri);
+		}
+
+		/**
+		 * Default maximum number of resolved uris cached per template
+		 */
+		static final int DEFAULT_CACHE_SIZE = Integer.parseInt(System.getProperty(
+				"reactor.ipc.netty.http.server.uriTemplateCacheSize",
+				"256"));
+
+		/**
+		 * A size bounded concurrent cache of resolved path parameters. Eviction
+		 * approximates LRU with a second chance policy: entries read since the last
+		 * eviction pass are skipped once before being removed.
+		 */
+		static final class MatchCache {
+
+			final int                                   maxSize;
+			final ConcurrentHashMap<String, CacheEntry> entries;
+			final LongAdder                             hits   = new LongAdder();
+			final LongAdder                             misses = new LongAdder();
+
+			MatchCache(int maxSize) {
+				this.maxSize = maxSize;
+				this.entries = new ConcurrentHashMap<>();
+			}
+
+			Map<String, String> get(String uri) {
+				CacheEntry entry = entries.get(uri);
+				if (entry == null) {
+					misses.increment();
+					return null;
 				}
+				entry.referenced = true;
+				hits.increment();
+				return entry.params;
+			}
+
+			void put(String uri, Map<String, String> params) {
+				if (maxSize <= 0) {
+					return;
+				}
+				if (entries.size() >= maxSize) {
+					evict();
+				}
+				entries.putIfAbsent(uri, new CacheEntry(params));
+			}
+
+			void evict() {
+				Iterator<CacheEntry> it = entries.values()
+				                                 .iterator();
+				while (it.hasNext()) {
+					CacheEntry entry = it.next();
+					if (entry.referenced) {
+						entry.referenced = false;
+					}
+					else {
+						it.remove();
+						return;
+					}
+				}
+				it = entries.values()
+				            .iterator();
+				if (it.hasNext()) {
+					it.next();
+					it.remove();
+				}
+			}
+		}
+
+		static final class CacheEntry {
+
+			final Map<String, String> params;
+
+			volatile boolean referenced;
+
+			CacheEntry(Map<String, String> params) {
+				this.params = params;
 			}
-			return m;
 		}
 
 	}
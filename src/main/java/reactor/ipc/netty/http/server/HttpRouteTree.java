@@ -0,0 +1,459 @@
+/*
+ * Copyright (c) 2011-2018 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.ipc.netty.http.server;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.netty.handler.codec.http.HttpMethod;
+
+/**
+ * A compiled index of the {@link HttpPredicate} and
+ * {@link HttpPredicate.HttpPrefixPredicate} routes registered in a
+ * {@link DefaultHttpServerRoutes}. Each {@link HttpMethod} gets its own radix tree of
+ * literal path fragments, {@code {name}} segment captures and {@code **} /
+ * {@code {name}**} tail captures, so that resolving a route does not require a regex
+ * match per registered route.
+ * <p>
+ * Matching follows the {@link HttpPredicate.UriPathTemplate} semantics: the whole
+ * request uri is matched, segment captures are greedy and, when several routes match,
+ * the route registered first wins. Routes using arbitrary predicates are not indexed
+ * and are evaluated in registration order around the indexed match.
+ */
+final class HttpRouteTree {
+
+	/**
+	 * Compile the given routes, in registration order.
+	 *
+	 * @param handlers the registered routes
+	 *
+	 * @return a new compiled route index
+	 */
+	static HttpRouteTree compile(List<DefaultHttpServerRoutes.HttpRouteHandler> handlers) {
+		List<DefaultHttpServerRoutes.HttpRouteHandler> snapshot = new ArrayList<>(handlers);
+		HttpRouteTree tree = new HttpRouteTree(snapshot.size());
+		for (int i = 0; i < snapshot.size(); i++) {
+			tree.add(i, snapshot.get(i));
+		}
+		return tree;
+	}
+
+	final int                   size;
+	final Map<HttpMethod, Node> methodRoots;
+	final List<Route>           fallbacks;
+
+	Node anyMethodRoot;
+	int  maxCaptures;
+
+	HttpRouteTree(int size) {
+		this.size = size;
+		this.methodRoots = new HashMap<>();
+		this.fallbacks = new ArrayList<>();
+	}
+
+	/**
+	 * Find the first registered indexed route matching the given method and uri.
+	 *
+	 * @param method the request method
+	 * @param uri the request uri
+	 *
+	 * @return the first matching indexed route or null
+	 */
+	Match find(HttpMethod method, String uri) {
+		Match best = new Match(maxCaptures);
+		Node root = methodRoots.get(method);
+		if (root != null) {
+			match(root, uri, 0, 0, best);
+		}
+		if (anyMethodRoot != null) {
+			match(anyMethodRoot, uri, 0, 0, best);
+		}
+		return best.route != null ? best : null;
+	}
+
+	void add(int index, DefaultHttpServerRoutes.HttpRouteHandler handler) {
+		List<Token> tokens = null;
+		HttpMethod method = null;
+		boolean prefix = false;
+
+		if (handler.condition instanceof HttpPredicate) {
+			HttpPredicate predicate = (HttpPredicate) handler.condition;
+			if (predicate.protocol == null && predicate.uri != null) {
+				tokens = parse(predicate.uri);
+				method = predicate.method;
+			}
+		}
+		else if (handler.condition instanceof HttpPredicate.HttpPrefixPredicate) {
+			HttpPredicate.HttpPrefixPredicate predicate =
+					(HttpPredicate.HttpPrefixPredicate) handler.condition;
+			tokens = Collections.singletonList(Token.literal(predicate.prefix));
+			method = predicate.method;
+			prefix = true;
+		}
+
+		if (tokens == null) {
+			fallbacks.add(new Route(index, handler, null));
+			return;
+		}
+
+		Node root;
+		if (method == null) {
+			if (anyMethodRoot == null) {
+				anyMethodRoot = new Node("");
+			}
+			root = anyMethodRoot;
+		}
+		else {
+			root = methodRoots.computeIfAbsent(method, m -> new Node(""));
+		}
+
+		List<String> names = new ArrayList<>();
+		Node n = root;
+		n.minIndex = Math.min(n.minIndex, index);
+		for (Token t : tokens) {
+			if (t.type == Token.LITERAL) {
+				n = insertLiteral(n, t.value, index);
+			}
+			else {
+				names.add(t.value);
+				if (t.type == Token.SEGMENT) {
+					if (n.segment == null) {
+						n.segment = new Node("");
+					}
+					n = n.segment;
+				}
+				else {
+					if (n.tail == null) {
+						n.tail = new Node("");
+					}
+					n = n.tail;
+				}
+				n.minIndex = Math.min(n.minIndex, index);
+			}
+		}
+		maxCaptures = Math.max(maxCaptures, names.size());
+
+		Route route = new Route(index, handler, names.toArray(new String[0]));
+		if (prefix) {
+			if (n.prefixRoute == null) {
+				n.prefixRoute = route;
+			}
+		}
+		else if (n.route == null) {
+			n.route = route;
+		}
+	}
+
+	static Node insertLiteral(Node parent, String literal, int index) {
+		Node n = parent;
+		int pos = 0;
+		while (pos < literal.length()) {
+			Node child = n.child(literal.charAt(pos));
+			if (child == null) {
+				child = new Node(literal.substring(pos));
+				child.minIndex = index;
+				n.addChild(child);
+				return child;
+			}
+			int common = commonPrefix(child.label, literal, pos);
+			if (common < child.label.length()) {
+				child = n.split(child, common);
+			}
+			child.minIndex = Math.min(child.minIndex, index);
+			pos += common;
+			n = child;
+		}
+		return n;
+	}
+
+	static int commonPrefix(String label, String literal, int offset) {
+		int max = Math.min(label.length(), literal.length() - offset);
+		int i = 0;
+		while (i < max && label.charAt(i) == literal.charAt(offset + i)) {
+			i++;
+		}
+		return i;
+	}
+
+	static void match(Node n, String uri, int pos, int depth, Match best) {
+		if (n.minIndex >= best.index) {
+			return;
+		}
+
+		Route r = n.prefixRoute;
+		if (r != null && r.index < best.index) {
+			best.set(r, uri, depth);
+		}
+
+		int length = uri.length();
+		r = n.route;
+		if (pos == length && r != null && r.index < best.index) {
+			best.set(r, uri, depth);
+		}
+
+		if (pos < length && n.children != null) {
+			Node child = n.child(uri.charAt(pos));
+			if (child != null && uri.startsWith(child.label, pos)) {
+				match(child, uri, pos + child.label.length(), depth, best);
+			}
+		}
+
+		int[] captures = best.captures;
+		Node segment = n.segment;
+		if (segment != null) {
+			int end = pos;
+			while (end < length && uri.charAt(end) != '/') {
+				end++;
+			}
+			for (int e = end; e >= pos; e--) {
+				captures[depth << 1] = pos;
+				captures[(depth << 1) + 1] = e;
+				match(segment, uri, e, depth + 1, best);
+			}
+		}
+
+		Node tail = n.tail;
+		if (tail != null) {
+			for (int e = length; e >= pos; e--) {
+				captures[depth << 1] = pos;
+				captures[(depth << 1) + 1] = e;
+				match(tail, uri, e, depth + 1, best);
+			}
+		}
+	}
+
+	/**
+	 * Split a template into literal, segment capture and tail capture tokens following
+	 * the {@link HttpPredicate.UriPathTemplate} syntax.
+	 *
+	 * @param template the uri template
+	 *
+	 * @return the template tokens or null if the template uses regex constructs that
+	 * cannot be indexed
+	 */
+	static List<Token> parse(String template) {
+		List<Token> tokens = new ArrayList<>();
+		StringBuilder literal = new StringBuilder();
+		int length = template.length();
+		int i = 0;
+		while (i < length) {
+			char c = template.charAt(i);
+			if (c == '{') {
+				int close = template.indexOf('}', i + 1);
+				if (close < 0) {
+					return null;
+				}
+				String name = template.substring(i + 1, close);
+				if (name.isEmpty() || !isGroupName(name)) {
+					return null;
+				}
+				if (literal.length() > 0) {
+					tokens.add(Token.literal(literal.toString()));
+					literal.setLength(0);
+				}
+				if (template.startsWith("**", close + 1)) {
+					tokens.add(new Token(Token.TAIL, name));
+					i = close + 3;
+				}
+				else {
+					tokens.add(new Token(Token.SEGMENT, name));
+					i = close + 1;
+				}
+			}
+			else if (c == '*') {
+				if (!template.startsWith("**", i)) {
+					return null;
+				}
+				if (literal.length() > 0) {
+					tokens.add(Token.literal(literal.toString()));
+					literal.setLength(0);
+				}
+				tokens.add(new Token(Token.TAIL, null));
+				i += 2;
+			}
+			else if (REGEX_CHARS.indexOf(c) >= 0) {
+				return null;
+			}
+			else {
+				literal.append(c);
+				i++;
+			}
+		}
+		if (literal.length() > 0) {
+			tokens.add(Token.literal(literal.toString()));
+		}
+		return tokens;
+	}
+
+	static boolean isGroupName(String name) {
+		if (!Character.isLetter(name.charAt(0))) {
+			return false;
+		}
+		for (int i = 1; i < name.length(); i++) {
+			if (!Character.isLetterOrDigit(name.charAt(i))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Regex constructs that would change the template meaning, "." is considered a
+	 * literal dot.
+	 */
+	static final String REGEX_CHARS = "\\^$|?+()[]";
+
+	static final class Token {
+
+		static final int LITERAL = 0;
+		static final int SEGMENT = 1;
+		static final int TAIL    = 2;
+
+		static Token literal(String value) {
+			return new Token(LITERAL, value);
+		}
+
+		final int    type;
+		final String value;
+
+		Token(int type, String value) {
+			this.type = type;
+			this.value = value;
+		}
+	}
+
+	static final class Route {
+
+		final int                                      index;
+		final DefaultHttpServerRoutes.HttpRouteHandler handler;
+		final String[]                                 names;
+
+		Route(int index, DefaultHttpServerRoutes.HttpRouteHandler handler, String[] names) {
+			this.index = index;
+			this.handler = handler;
+			this.names = names;
+		}
+	}
+
+	static final class Node {
+
+		String label;
+		Node[] children;
+		Node   segment;
+		Node   tail;
+		Route  route;
+		Route  prefixRoute;
+		int    minIndex = Integer.MAX_VALUE;
+
+		Node(String label) {
+			this.label = label;
+		}
+
+		Node child(char c) {
+			Node[] children = this.children;
+			if (children != null) {
+				for (Node child : children) {
+					if (child.label.charAt(0) == c) {
+						return child;
+					}
+				}
+			}
+			return null;
+		}
+
+		void addChild(Node child) {
+			Node[] children = this.children;
+			if (children == null) {
+				this.children = new Node[]{child};
+			}
+			else {
+				Node[] copy = new Node[children.length + 1];
+				System.arraycopy(children, 0, copy, 0, children.length);
+				copy[children.length] = child;
+				this.children = copy;
+			}
+		}
+
+		Node split(Node child, int at) {
+			Node head = new Node(child.label.substring(0, at));
+			head.minIndex = child.minIndex;
+			child.label = child.label.substring(at);
+			head.children = new Node[]{child};
+			for (int i = 0; i < children.length; i++) {
+				if (children[i] == child) {
+					children[i] = head;
+				}
+			}
+			return head;
+		}
+	}
+
+	/**
+	 * The first registered route matching a request and the bounds of its captured
+	 * path variables, the variables themselves are only extracted on demand.
+	 */
+	static final class Match {
+
+		static final int[] NO_BOUNDS = new int[0];
+
+		final int[] captures;
+
+		Route               route;
+		int                 index = Integer.MAX_VALUE;
+		String              uri;
+		int[]               bounds;
+		Map<String, String> params;
+
+		Match(int maxCaptures) {
+			this.captures = new int[Math.max(maxCaptures, 1) << 1];
+		}
+
+		void set(Route route, String uri, int depth) {
+			this.route = route;
+			this.index = route.index;
+			this.uri = uri;
+			this.bounds = depth == 0 ? NO_BOUNDS : Arrays.copyOf(captures, depth << 1);
+		}
+
+		/**
+		 * Return the named path variables or null if the route has none
+		 *
+		 * @return the named path variables or null
+		 */
+		Map<String, String> params() {
+			Map<String, String> params = this.params;
+			if (params != null || bounds.length == 0) {
+				return params;
+			}
+			String[] names = route.names;
+			for (int i = 0; i < names.length; i++) {
+				if (names[i] != null) {
+					if (params == null) {
+						params = new HashMap<>();
+					}
+					params.put(names[i], uri.substring(bounds[i << 1], bounds[(i << 1) + 1]));
+				}
+			}
+			this.params = params;
+			return params;
+		}
+	}
+}
@@ -17,18 +17,34 @@
 package reactor.ipc.netty.http.server;
 
 import java.net.InetSocketAddress;
+import java.util.List;
 import java.util.Objects;
+import java.util.Set;
 import java.util.function.BiConsumer;
 import java.util.function.BiFunction;
 import java.util.function.BiPredicate;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
 import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelPipeline;
+import io.netty.handler.codec.ByteToMessageDecoder;
+import io.netty.handler.codec.http.FullHttpRequest;
 import io.netty.handler.codec.http.HttpHeaderNames;
 import io.netty.handler.codec.http.HttpServerCodec;
+import io.netty.handler.codec.http.HttpServerUpgradeHandler;
+import io.netty.handler.codec.http2.Http2CodecUtil;
+import io.netty.handler.codec.http2.Http2MultiplexCodec;
+import io.netty.handler.codec.http2.Http2MultiplexCodecBuilder;
+import io.netty.handler.codec.http2.Http2ServerUpgradeCodec;
 import io.netty.handler.logging.LoggingHandler;
+import io.netty.handler.ssl.ApplicationProtocolNames;
+import io.netty.handler.ssl.ApplicationProtocolNegotiationHandler;
+import io.netty.util.AsciiString;
 import io.netty.util.NetUtil;
 import org.reactivestreams.Publisher;
 import reactor.core.publisher.Mono;
@@ -39,6 +55,8 @@ import reactor.ipc.netty.NettyInbound;
 import reactor.ipc.netty.NettyOutbound;
 import reactor.ipc.netty.NettyPipeline;
 import reactor.ipc.netty.channel.ContextHandler;
+import reactor.ipc.netty.http.Http2Handlers;
+import reactor.ipc.netty.http.HttpProtocol;
 import reactor.ipc.netty.http.HttpResources;
 import reactor.ipc.netty.options.ServerOptions;
 import reactor.ipc.netty.tcp.BlockingNettyContext;
@@ -118,8 +136,21 @@ public final class HttpServer
 		return new HttpServer.Builder();
 	}
 
+	/**
+	 * Close the static files kept open by the
+	 * {@link HttpServerRoutes#directory(String, java.nio.file.Path) directory routes}
+	 * of every server, release the content of the {@link StaticContentCache}s not yet
+	 * disposed and stop watching their directories. Files being written are closed
+	 * once written, and files are cached again on the next requests.
+	 */
+	public static void clearFileCache() {
+		FileCache.DEFAULT.clear();
+	}
+
 	private final TcpBridgeServer server;
 	final HttpServerOptions options;
+	final Http2Metrics      http2Metrics = new Http2Metrics();
+	final CompressionMetrics compressionMetrics = new CompressionMetrics();
 
 	private HttpServer(HttpServer.Builder builder) {
 		HttpServerOptions.Builder serverOptionsBuilder = HttpServerOptions.builder();
@@ -150,6 +181,26 @@ public final class HttpServer
 		return this.options.duplicate();
 	}
 
+	/**
+	 * Get the counters of the HTTP/2 connections and streams served so far.
+	 *
+	 * @return the HTTP/2 metrics
+	 * @see HttpServerOptions.Builder#protocols(HttpProtocol...)
+	 */
+	public final Http2Metrics http2Metrics() {
+		return this.http2Metrics;
+	}
+
+	/**
+	 * Get the counters of the responses compressed so far.
+	 *
+	 * @return the compression metrics
+	 * @see HttpServerOptions.Builder#compressionEncoders(ContentEncoder...)
+	 */
+	public final CompressionMetrics compressionMetrics() {
+		return this.compressionMetrics;
+	}
+
 	@Override
 	public String toString() {
 		return "HttpServer: " + options.asSimpleString();
@@ -234,6 +285,11 @@ public final class HttpServer
 
 	static final LoggingHandler loggingHandler = new LoggingHandler(HttpServer.class);
 
+	static final ByteBuf CONNECTION_PREFACE =
+			Unpooled.unreleasableBuffer(Http2CodecUtil.connectionPrefaceBuf());
+
+	static final int MAX_UPGRADE_CONTENT_LENGTH = 65536;
+
 	static BiPredicate<HttpServerRequest, HttpServerResponse> compressPredicate(
 			HttpServerOptions options) {
 
@@ -288,6 +344,11 @@ public final class HttpServer
 
 			boolean alwaysCompress = compressPredicate == null && options.minCompressionResponseSize() == 0;
 
+			HttpCompressionHandler.Settings compressionSettings =
+					new HttpCompressionHandler.Settings(options, compressionMetrics);
+			DefaultResponseHeaders defaultResponseHeaders =
+					new DefaultResponseHeaders(options);
+
 			return ContextHandler.newServerContext(sink,
 					options,
 					loggingHandler,
@@ -297,6 +358,8 @@ public final class HttpServer
 								handler,
 								c,
 								compressPredicate,
+								compressionSettings,
+								defaultResponseHeaders,
 								msg);
 
 						if (alwaysCompress) {
@@ -309,17 +372,156 @@ public final class HttpServer
 			                     .autoCreateOperations(false);
 		}
 
-        @Override
-        public void accept(ChannelPipeline p, ContextHandler<Channel> c) {
-            p.addLast(NettyPipeline.HttpCodec, new HttpServerCodec(
-            		options.httpCodecMaxInitialLineLength(),
-		            options.httpCodecMaxHeaderSize(),
-		            options.httpCodecMaxChunkSize(),
-		            options.httpCodecValidateHeaders(),
-		            options.httpCodecInitialBufferSize()));
-
-            p.addLast(NettyPipeline.HttpServerHandler, new HttpServerHandler(c));
-        }
+		@Override
+		public void accept(ChannelPipeline p, ContextHandler<Channel> c) {
+			Set<HttpProtocol> protocols = options.protocols();
+			if (p.get(NettyPipeline.SslHandler) != null) {
+				if (protocols.contains(HttpProtocol.H2)) {
+					p.addLast(NettyPipeline.H2OrHttp11Codec, new H2OrHttp11Codec(c));
+					return;
+				}
+			}
+			else if (protocols.contains(HttpProtocol.H2C)) {
+				if (!protocols.contains(HttpProtocol.HTTP11)) {
+					p.addLast(NettyPipeline.HttpCodec, newHttp2Codec(c));
+					onHttp2(p);
+					return;
+				}
+				HttpServerCodec httpServerCodec = newHttpServerCodec();
+				p.addLast(NettyPipeline.H2CPriorKnowledge, new H2CPriorKnowledge(c));
+				p.addLast(NettyPipeline.HttpCodec, httpServerCodec);
+				p.addLast(NettyPipeline.H2CUpgradeHandler,
+						new HttpServerUpgradeHandler(httpServerCodec,
+								protocol -> AsciiString.contentEquals(
+										Http2CodecUtil.HTTP_UPGRADE_PROTOCOL_NAME, protocol) ?
+										new H2CUpgradeCodec(newHttp2Codec(c)) : null,
+								MAX_UPGRADE_CONTENT_LENGTH));
+				p.addLast(NettyPipeline.HttpServerHandler, new HttpServerHandler(c));
+				return;
+			}
+
+			p.addLast(NettyPipeline.HttpCodec, newHttpServerCodec());
+
+			p.addLast(NettyPipeline.HttpServerHandler, new HttpServerHandler(c));
+		}
+
+		HttpServerCodec newHttpServerCodec() {
+			return new HttpServerCodec(options.httpCodecMaxInitialLineLength(),
+					options.httpCodecMaxHeaderSize(),
+					options.httpCodecMaxChunkSize(),
+					options.httpCodecValidateHeaders(),
+					options.httpCodecInitialBufferSize());
+		}
+
+		Http2MultiplexCodec newHttp2Codec(ContextHandler<Channel> c) {
+			return Http2MultiplexCodecBuilder.forServer(new Http2StreamInitializer(c,
+					options.httpCodecValidateHeaders(),
+					http2Metrics))
+			                                 .initialSettings(options.http2Settings())
+			                                 .validateHeaders(options.httpCodecValidateHeaders())
+			                                 .build();
+		}
+
+		/**
+		 * Switch a connection to HTTP/2 once its codec is installed: requests are
+		 * now served by the stream child channels, and the connection reads freely
+		 * since each stream applies its own flow control.
+		 */
+		void onHttp2(ChannelPipeline p) {
+			if (p.get(NettyPipeline.HttpServerHandler) != null) {
+				p.remove(NettyPipeline.HttpServerHandler);
+			}
+			p.addAfter(NettyPipeline.HttpCodec,
+					NettyPipeline.H2ConnectionFrames,
+					Http2Handlers.connectionFrames());
+			http2Metrics.onConnection(p.channel());
+			p.channel()
+			 .config()
+			 .setAutoRead(true);
+		}
+
+		/**
+		 * Install the HTTP/2 or HTTP/1.1 codecs as negotiated by ALPN.
+		 */
+		final class H2OrHttp11Codec extends ApplicationProtocolNegotiationHandler {
+
+			final ContextHandler<Channel> c;
+
+			H2OrHttp11Codec(ContextHandler<Channel> c) {
+				super(ApplicationProtocolNames.HTTP_1_1);
+				this.c = c;
+			}
+
+			@Override
+			protected void configurePipeline(ChannelHandlerContext ctx, String protocol) {
+				ChannelPipeline p = ctx.pipeline();
+				if (ApplicationProtocolNames.HTTP_2.equals(protocol)) {
+					p.addBefore(NettyPipeline.ReactiveBridge,
+							NettyPipeline.HttpCodec,
+							newHttp2Codec(c));
+					onHttp2(p);
+					return;
+				}
+				p.addBefore(NettyPipeline.ReactiveBridge,
+						NettyPipeline.HttpCodec,
+						newHttpServerCodec());
+				p.addBefore(NettyPipeline.ReactiveBridge,
+						NettyPipeline.HttpServerHandler,
+						new HttpServerHandler(c));
+			}
+		}
+
+		/**
+		 * Detect the HTTP/2 connection preface of a cleartext client with prior
+		 * knowledge, replacing the HTTP/1.1 codecs with the HTTP/2 codec.
+		 */
+		final class H2CPriorKnowledge extends ByteToMessageDecoder {
+
+			final ContextHandler<Channel> c;
+
+			H2CPriorKnowledge(ContextHandler<Channel> c) {
+				this.c = c;
+			}
+
+			@Override
+			protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) {
+				int prefaceLength = CONNECTION_PREFACE.readableBytes();
+				int bytesRead = Math.min(in.readableBytes(), prefaceLength);
+				ChannelPipeline p = ctx.pipeline();
+
+				if (!ByteBufUtil.equals(CONNECTION_PREFACE,
+						CONNECTION_PREFACE.readerIndex(),
+						in,
+						in.readerIndex(),
+						bytesRead)) {
+					p.remove(this);
+				}
+				else if (bytesRead == prefaceLength) {
+					p.remove(NettyPipeline.HttpCodec);
+					p.remove(NettyPipeline.H2CUpgradeHandler);
+					p.addAfter(ctx.name(), NettyPipeline.HttpCodec, newHttp2Codec(c));
+					onHttp2(p);
+					p.remove(this);
+				}
+			}
+		}
+
+		/**
+		 * Switch a connection to HTTP/2 after an HTTP/1.1 {@code Upgrade: h2c} request,
+		 * which is then served as the first HTTP/2 stream.
+		 */
+		final class H2CUpgradeCodec extends Http2ServerUpgradeCodec {
+
+			H2CUpgradeCodec(Http2MultiplexCodec http2Codec) {
+				super(NettyPipeline.HttpCodec, http2Codec);
+			}
+
+			@Override
+			public void upgradeTo(ChannelHandlerContext ctx, FullHttpRequest upgradeRequest) {
+				super.upgradeTo(ctx, upgradeRequest);
+				onHttp2(ctx.pipeline());
+			}
+		}
 
 		@Override
 		protected LoggingHandler loggingHandler() {
@@ -22,17 +22,20 @@ import java.nio.file.Path;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.Callable;
 import java.util.function.BiFunction;
 import java.util.function.BiPredicate;
 import java.util.function.Consumer;
 import java.util.function.Function;
 
+import io.netty.buffer.ByteBuf;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.http.DefaultFullHttpResponse;
 import io.netty.handler.codec.http.DefaultHttpResponse;
+import io.netty.handler.codec.http.EmptyHttpHeaders;
 import io.netty.handler.codec.http.FullHttpResponse;
 import io.netty.handler.codec.http.HttpContent;
 import io.netty.handler.codec.http.HttpHeaderNames;
@@ -80,8 +83,11 @@ class HttpServerOperations extends HttpOperations<HttpServerRequest, HttpServerR
 			BiFunction<? super HttpServerRequest, ? super HttpServerResponse, ? extends Publisher<Void>> handler,
 			ContextHandler<?> context,
 			BiPredicate<HttpServerRequest, HttpServerResponse> compressionPredicate,
+			HttpCompressionHandler.Settings compressionSettings,
+			DefaultResponseHeaders defaultResponseHeaders,
 			Object msg) {
-		return new HttpServerOperations(channel, handler, context, compressionPredicate,(HttpRequest) msg);
+		return new HttpServerOperations(channel, handler, context, compressionPredicate,
+				compressionSettings, defaultResponseHeaders, (HttpRequest) msg);
 	}
 
 	final HttpResponse nettyResponse;
@@ -90,9 +96,12 @@ class HttpServerOperations extends HttpOperations<HttpServerRequest, HttpServerR
 	final HttpRequest nettyRequest;
 
 	final BiPredicate<HttpServerRequest, HttpServerResponse> compressionPredicate;
+	final HttpCompressionHandler.Settings                    compressionSettings;
 
 	Function<? super String, Map<String, String>> paramsResolver;
 
+	boolean compress;
+
 	HttpServerOperations(Channel ch, HttpServerOperations replaced) {
 		super(ch, replaced);
 		this.cookieHolder = replaced.cookieHolder;
@@ -101,18 +110,24 @@ class HttpServerOperations extends HttpOperations<HttpServerRequest, HttpServerR
 		this.paramsResolver = replaced.paramsResolver;
 		this.nettyRequest = replaced.nettyRequest;
 		this.compressionPredicate = replaced.compressionPredicate;
+		this.compressionSettings = replaced.compressionSettings;
+		this.compress = replaced.compress;
 	}
 
 	HttpServerOperations(Channel ch,
 			BiFunction<? super HttpServerRequest, ? super HttpServerResponse, ? extends Publisher<Void>> handler,
 			ContextHandler<?> context,
 			BiPredicate<HttpServerRequest, HttpServerResponse> compressionPredicate,
+			HttpCompressionHandler.Settings compressionSettings,
+			DefaultResponseHeaders defaultResponseHeaders,
 			HttpRequest nettyRequest) {
 		super(ch, handler, context);
 		this.nettyRequest = Objects.requireNonNull(nettyRequest, "nettyRequest");
 		this.nettyResponse = new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK);
 		this.responseHeaders = nettyResponse.headers();
+		defaultResponseHeaders.applyTo(responseHeaders);
 		this.compressionPredicate = compressionPredicate;
+		this.compressionSettings = Objects.requireNonNull(compressionSettings, "compressionSettings");
 		this.cookieHolder = Cookies.newServerRequestHolder(requestHeaders());
 		chunkedTransfer(true);
 
@@ -295,6 +310,54 @@ class HttpServerOperations extends HttpOperations<HttpServerRequest, HttpServerR
 		}
 	}
 
+	@Override
+	public NettyOutbound sendObject(Publisher<?> dataStream) {
+		if (!hasSentHeaders() && !isWebsocket() &&
+				(dataStream instanceof Mono || dataStream instanceof Callable)) {
+			return new SingleBodyOutbound(this, dataStream);
+		}
+		return sendStream(dataStream);
+	}
+
+	final NettyOutbound sendStream(Publisher<?> dataStream) {
+		return then(FutureMono.disposableWriteAndFlush(channel(), dataStream));
+	}
+
+	/**
+	 * Write a single body buffer along with the status and headers as one
+	 * {@link FullHttpResponse} of known length, sparing the chunked encoding and the
+	 * separate writes of the headers and last content. Responses that may be
+	 * compressed, delimited by the connection close, or whose headers are already
+	 * sent, write the message as content. A HEAD response gets the same headers as
+	 * a GET, the server codec dropping its body.
+	 *
+	 * @param msg the single body message
+	 *
+	 * @return the write completion
+	 */
+	final Mono<Void> sendSingle(Object msg) {
+		if (msg instanceof ByteBuf &&
+				!compress &&
+				compressionPredicate == null &&
+				(HttpUtil.isTransferEncodingChunked(nettyResponse) ||
+						HttpUtil.isContentLengthSet(nettyResponse)) &&
+				markSentHeaderAndBody()) {
+			ByteBuf body = (ByteBuf) msg;
+			responseHeaders.remove(HttpHeaderNames.TRANSFER_ENCODING);
+			if (!HttpUtil.isContentLengthSet(nettyResponse)) {
+				responseHeaders.setInt(HttpHeaderNames.CONTENT_LENGTH, body.readableBytes());
+			}
+			preSendHeadersAndStatus();
+			FullHttpResponse response = new DefaultFullHttpResponse(version(),
+					status(),
+					body,
+					responseHeaders,
+					EmptyHttpHeaders.INSTANCE);
+			return FutureMono.deferFuture(() -> channel().writeAndFlush(response));
+		}
+		return then().then(FutureMono.deferFuture(() -> channel().writeAndFlush(msg)));
+	}
+
 	@Override
 	public NettyOutbound sendFile(Path file) {
 		try {
@@ -372,27 +435,22 @@ class HttpServerOperations extends HttpOperations<HttpServerRequest, HttpServerR
 
 	@Override
 	public HttpServerResponse compression(boolean compress) {
-		if (!compress) {
-			removeHandler(NettyPipeline.CompressionHandler);
-		}
-		else if (channel().pipeline()
-		                  .get(NettyPipeline.CompressionHandler) == null) {
-			SimpleCompressionHandler handler = new SimpleCompressionHandler();
-
-			try {
-				handler.channelRead(channel().pipeline()
-				                             .context(NettyPipeline.ReactiveBridge),
-						nettyRequest);
-
-				addHandlerFirst(NettyPipeline.CompressionHandler, handler);
-			}
-			catch (Throwable e) {
-				log.error("", e);
-			}
+		// applied by the compression stage of the connection when the headers are sent
+		this.compress = compress;
+		if (compress) {
+			HttpCompressionHandler.get(channel().pipeline(), compressionSettings);
 		}
 		return this;
 	}
 
+	@Override
+	protected boolean isCompressing() {
+		return (compress || (compressionPredicate != null && compressionPredicate.test(this, this))) &&
+				!responseHeaders.contains(HttpHeaderNames.CONTENT_ENCODING) &&
+				!compressionSettings.isExcluded(responseHeaders.get(HttpHeaderNames.CONTENT_TYPE)) &&
+				compressionSettings.negotiate(nettyRequest) != null;
+	}
+
 	@Override
 	protected void onHandlerStart() {
 		applyHandler();
@@ -423,8 +481,18 @@ class HttpServerOperations extends HttpOperations<HttpServerRequest, HttpServerR
 				nettyResponse)) {
 			markPersistent(false);
 		}
-		if (compressionPredicate != null && compressionPredicate.test(this, this)) {
+		// a response forced to compress does not wait for the minimum size
+		int minResponseSize = 0;
+		if (!compress && compressionPredicate != null && compressionPredicate.test(this, this)) {
 			compression(true);
+			minResponseSize = compressionSettings.minResponseSize;
+		}
+		if (compress) {
+			ContentEncoder encoder = compressionSettings.negotiate(nettyRequest);
+			if (encoder != null) {
+				HttpCompressionHandler.get(channel().pipeline(), compressionSettings)
+				                      .compressNextResponse(encoder, minResponseSize);
+			}
 		}
 	}
 
@@ -461,6 +529,55 @@ class HttpServerOperations extends HttpOperations<HttpServerRequest, HttpServerR
 
 	}
 
+	/**
+	 * The outbound of a {@link Mono} or scalar body sent before the headers, written
+	 * as one full response unless more is sent after it, in which case the body is
+	 * streamed after the headers as usual.
+	 */
+	static final class SingleBodyOutbound implements NettyOutbound {
+
+		final HttpServerOperations parent;
+		final Publisher<?>         body;
+
+		SingleBodyOutbound(HttpServerOperations parent, Publisher<?> body) {
+			this.parent = parent;
+			this.body = body;
+		}
+
+		@Override
+		public NettyContext context() {
+			return parent.context();
+		}
+
+		@Override
+		public Mono<Void> then() {
+			// a failed body still fails after the headers, as a streamed body does
+			return Mono.<Object>from(body)
+			           .onErrorResume(e -> parent.then()
+			                                     .then(Mono.error(e)))
+			           .defaultIfEmpty(EMPTY_BUFFER)
+			           .flatMap(parent::sendSingle);
+		}
+
+		@Override
+		public NettyOutbound then(Publisher<Void> other) {
+			return parent.sendStream(body)
+			             .then(other);
+		}
+
+		@Override
+		public NettyOutbound sendObject(Publisher<?> dataStream) {
+			return parent.sendStream(body)
+			             .sendObject(dataStream);
+		}
+
+		@Override
+		public NettyOutbound sendObject(Object msg) {
+			return parent.sendStream(body)
+			             .sendObject(msg);
+		}
+	}
+
 	static void cleanHandlerTerminate(Channel ch){
 		ChannelOperations<?, ?> ops = get(ch);
 
@@ -16,10 +16,23 @@
 
 package reactor.ipc.netty.http.server;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
 import java.util.Objects;
+import java.util.Set;
 import java.util.function.BiPredicate;
 
 import io.netty.bootstrap.ServerBootstrap;
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http2.Http2Settings;
+import io.netty.util.AsciiString;
+import reactor.ipc.netty.http.HttpProtocol;
 import reactor.ipc.netty.options.ServerOptions;
 
 /**
@@ -43,21 +56,36 @@ public final class HttpServerOptions extends ServerOptions {
 	private final BiPredicate<HttpServerRequest, HttpServerResponse> compressionPredicate;
 
 	private final int minCompressionResponseSize;
+	private final List<ContentEncoder> compressionEncoders;
+	private final Set<String> compressionExcludedContentTypes;
 	private final int maxInitialLineLength;
 	private final int maxHeaderSize;
 	private final int maxChunkSize;
 	private final int initialBufferSize;
 	private final boolean validateHeaders;
+	private final Set<HttpProtocol> protocols;
+	private final long http2MaxConcurrentStreams;
+	private final int http2InitialWindowSize;
+	private final HttpHeaders defaultResponseHeaders;
+	private final boolean dateHeader;
 
 	private HttpServerOptions(HttpServerOptions.Builder builder) {
 		super(builder);
 		this.minCompressionResponseSize = builder.minCompressionResponseSize;
+		this.compressionEncoders = Collections.unmodifiableList(builder.compressionEncoders);
+		this.compressionExcludedContentTypes =
+				Collections.unmodifiableSet(builder.compressionExcludedContentTypes);
 		this.maxInitialLineLength = builder.maxInitialLineLength;
 		this.maxHeaderSize = builder.maxHeaderSize;
 		this.maxChunkSize = builder.maxChunkSize;
 		this.validateHeaders = builder.validateHeaders;
 		this.initialBufferSize = builder.initialBufferSize;
 		this.compressionPredicate = builder.compressionPredicate;
+		this.protocols = Collections.unmodifiableSet(EnumSet.copyOf(builder.protocols));
+		this.http2MaxConcurrentStreams = builder.http2MaxConcurrentStreams;
+		this.http2InitialWindowSize = builder.http2InitialWindowSize;
+		this.defaultResponseHeaders = builder.defaultResponseHeaders.copy();
+		this.dateHeader = builder.dateHeader;
 	}
 
 	/**
@@ -80,6 +108,26 @@ public final class HttpServerOptions extends ServerOptions {
 		return minCompressionResponseSize;
 	}
 
+	/**
+	 * Returns the encoders responses may be compressed with, in their order of
+	 * preference when negotiating the {@code Accept-Encoding} request header.
+	 *
+	 * @return the compression encoders
+	 */
+	public List<ContentEncoder> compressionEncoders() {
+		return compressionEncoders;
+	}
+
+	/**
+	 * Returns the media types, or {@code type/*} ranges, of the responses never
+	 * compressed.
+	 *
+	 * @return the excluded content types, in lower case
+	 */
+	public Set<String> compressionExcludedContentTypes() {
+		return compressionExcludedContentTypes;
+	}
+
 	/**
 	 * Returns the maximum length configured for the initial HTTP line.
 	 *
@@ -129,6 +177,56 @@ public final class HttpServerOptions extends ServerOptions {
 		return initialBufferSize;
 	}
 
+	/**
+	 * Returns the HTTP protocols the server accepts. By default only
+	 * {@link HttpProtocol#HTTP11}.
+	 *
+	 * @return the accepted HTTP protocols
+	 */
+	public Set<HttpProtocol> protocols() {
+		return protocols;
+	}
+
+	/**
+	 * Returns the HTTP/2 settings the server advertises on new HTTP/2 connections.
+	 *
+	 * @return the HTTP/2 settings
+	 * @see Builder#http2MaxConcurrentStreams(long)
+	 * @see Builder#http2InitialWindowSize(int)
+	 */
+	public Http2Settings http2Settings() {
+		Http2Settings settings = Http2Settings.defaultSettings();
+		if (http2MaxConcurrentStreams != -1) {
+			settings.maxConcurrentStreams(http2MaxConcurrentStreams);
+		}
+		if (http2InitialWindowSize != -1) {
+			settings.initialWindowSize(http2InitialWindowSize);
+		}
+		return settings;
+	}
+
+	/**
+	 * Returns the headers every response starts with, before the handler sets its
+	 * own.
+	 *
+	 * @return a copy of the default response headers, with {@link AsciiString} names
+	 * and values
+	 * @see Builder#defaultResponseHeader(CharSequence, CharSequence)
+	 */
+	public HttpHeaders defaultResponseHeaders() {
+		return defaultResponseHeaders.copy();
+	}
+
+	/**
+	 * Returns true if every response starts with a {@code Date} header. By default
+	 * responses have no {@code Date} header.
+	 *
+	 * @return true if responses have a {@code Date} header
+	 */
+	public boolean dateHeader() {
+		return dateHeader;
+	}
+
 	@Override
 	public HttpServerOptions duplicate() {
 		return builder().from(this).build();
@@ -169,14 +267,51 @@ public final class HttpServerOptions extends ServerOptions {
 		public static final boolean DEFAULT_VALIDATE_HEADERS    = true;
 		public static final int DEFAULT_INITIAL_BUFFER_SIZE     = 128;
 
+		/**
+		 * The default compression encoders: gzip then deflate, at level 6.
+		 */
+		public static final List<ContentEncoder> DEFAULT_COMPRESSION_ENCODERS =
+				Collections.unmodifiableList(Arrays.asList(ContentEncoder.gzip(6),
+						ContentEncoder.deflate(6)));
+
+		/**
+		 * The default content types excluded from compression, formats that are
+		 * already compressed.
+		 */
+		public static final Set<String> DEFAULT_COMPRESSION_EXCLUDED_CONTENT_TYPES =
+				Collections.unmodifiableSet(new HashSet<>(Arrays.asList("image/png",
+						"image/jpeg",
+						"image/gif",
+						"image/webp",
+						"video/*",
+						"audio/*",
+						"font/woff",
+						"font/woff2",
+						"application/zip",
+						"application/gzip",
+						"application/x-gzip",
+						"application/x-bzip2",
+						"application/x-xz",
+						"application/x-7z-compressed",
+						"application/x-rar-compressed",
+						"application/zstd")));
+
 		private BiPredicate<HttpServerRequest, HttpServerResponse> compressionPredicate;
 
 		private int minCompressionResponseSize = -1;
+		private List<ContentEncoder> compressionEncoders = DEFAULT_COMPRESSION_ENCODERS;
+		private Set<String> compressionExcludedContentTypes =
+				DEFAULT_COMPRESSION_EXCLUDED_CONTENT_TYPES;
 		private int maxInitialLineLength = DEFAULT_MAX_INITIAL_LINE_LENGTH;
 		private int maxHeaderSize = DEFAULT_MAX_HEADER_SIZE;
 		private int maxChunkSize = DEFAULT_MAX_CHUNK_SIZE;
 		private boolean validateHeaders = DEFAULT_VALIDATE_HEADERS;
 		private int initialBufferSize = DEFAULT_INITIAL_BUFFER_SIZE;
+		private Set<HttpProtocol> protocols = EnumSet.of(HttpProtocol.HTTP11);
+		private long http2MaxConcurrentStreams = -1;
+		private int http2InitialWindowSize = -1;
+		private HttpHeaders defaultResponseHeaders = new DefaultHttpHeaders();
+		private boolean dateHeader;
 
 		private Builder(){
 			super(new ServerBootstrap());
@@ -220,6 +355,10 @@ public final class HttpServerOptions extends ServerOptions {
 		 * headers
 		 * AND the response reaches a minimum threshold
 		 *
+		 * <p>A streamed response without {@code Content-Length} is held until its body
+		 * reaches the threshold, then compressed. If it completes before, it is sent as
+		 * is.
+		 *
 		 * @param minResponseSize compression is performed once response size exceeds given
 		 * value in byte
 		 * @return {@code this}
@@ -232,6 +371,57 @@ public final class HttpServerOptions extends ServerOptions {
 			return get();
 		}
 
+		/**
+		 * Configure the encoders responses may be compressed with, in their order of
+		 * preference: the encoding accepted by the client with the highest quality value
+		 * is selected, ties being broken by this order. Defaults to
+		 * {@link #DEFAULT_COMPRESSION_ENCODERS}.
+		 * <p>Codings such as {@code br} or {@code zstd} are added by implementing
+		 * {@link ContentEncoder} over their library, along with the levels and window
+		 * sizes it supports.
+		 *
+		 * @param encoders the compression encoders, by order of preference
+		 * @return {@code this}
+		 */
+		public final Builder compressionEncoders(ContentEncoder... encoders) {
+			Objects.requireNonNull(encoders, "encoders");
+			if (encoders.length == 0) {
+				throw new IllegalArgumentException("encoders must not be empty");
+			}
+			List<ContentEncoder> list = new ArrayList<>(encoders.length);
+			for (ContentEncoder encoder : encoders) {
+				list.add(Objects.requireNonNull(encoder, "encoder"));
+			}
+			this.compressionEncoders = list;
+			return get();
+		}
+
+		/**
+		 * Configure the content types of the responses never compressed, as media
+		 * types such as {@code image/png} or ranges such as {@code video/*}, replacing
+		 * {@link #DEFAULT_COMPRESSION_EXCLUDED_CONTENT_TYPES}. Invoking it without any
+		 * argument allows compressing all content types.
+		 *
+		 * @param contentTypes the excluded media types or ranges
+		 * @return {@code this}
+		 */
+		public final Builder compressionExcludedContentTypes(String... contentTypes) {
+			Objects.requireNonNull(contentTypes, "contentTypes");
+			Set<String> set = new HashSet<>();
+			for (String contentType : contentTypes) {
+				Objects.requireNonNull(contentType, "contentType");
+				int slash = contentType.indexOf('/');
+				if (slash <= 0 || slash == contentType.length() - 1) {
+					throw new IllegalArgumentException(
+							"contentType must be a media type or range");
+				}
+				set.add(contentType.trim()
+				                   .toLowerCase(Locale.ROOT));
+			}
+			this.compressionExcludedContentTypes = set;
+			return get();
+		}
+
 		/**
 		 * Configure the maximum length that can be decoded for the HTTP request's initial
 		 * line. Defaults to {@code #DEFAULT_MAX_INITIAL_LINE_LENGTH}.
@@ -305,6 +495,98 @@ public final class HttpServerOptions extends ServerOptions {
 			return get();
 		}
 
+		/**
+		 * Configure the HTTP protocols the server accepts. Defaults to
+		 * {@link HttpProtocol#HTTP11}.
+		 * <p>Each HTTP/2 stream is served as its own {@link HttpServerRequest} and
+		 * {@link HttpServerResponse} pair, reading the request body as the response
+		 * handler consumes it: the HTTP/2 flow control window of a stream is only
+		 * replenished once its content has been read.
+		 *
+		 * @param supportedProtocols the accepted protocols, {@link HttpProtocol#H2}
+		 * requiring an {@link #sslContext(io.netty.handler.ssl.SslContext) SSL context}
+		 * @return {@code this}
+		 */
+		public final Builder protocols(HttpProtocol... supportedProtocols) {
+			Objects.requireNonNull(supportedProtocols, "supportedProtocols");
+			if (supportedProtocols.length == 0) {
+				throw new IllegalArgumentException("supportedProtocols must not be empty");
+			}
+			Set<HttpProtocol> protocols = EnumSet.noneOf(HttpProtocol.class);
+			for (HttpProtocol protocol : supportedProtocols) {
+				protocols.add(Objects.requireNonNull(protocol, "protocol"));
+			}
+			this.protocols = protocols;
+			return get();
+		}
+
+		/**
+		 * Configure the maximum number of concurrent streams a client may open on an
+		 * HTTP/2 connection. Defaults to no limit.
+		 *
+		 * @param value the maximum number of concurrent streams (strictly positive)
+		 * @return {@code this}
+		 */
+		public final Builder http2MaxConcurrentStreams(long value) {
+			if (value <= 0) {
+				throw new IllegalArgumentException(
+						"http2MaxConcurrentStreams must be strictly positive");
+			}
+			this.http2MaxConcurrentStreams = value;
+			return get();
+		}
+
+		/**
+		 * Configure the initial HTTP/2 flow control window of each stream, that is the
+		 * number of request body bytes a client may send ahead of the handler reading
+		 * them. Defaults to 65535.
+		 *
+		 * @param value the initial stream window size in bytes (strictly positive)
+		 * @return {@code this}
+		 */
+		public final Builder http2InitialWindowSize(int value) {
+			if (value <= 0) {
+				throw new IllegalArgumentException(
+						"http2InitialWindowSize must be strictly positive");
+			}
+			this.http2InitialWindowSize = value;
+			return get();
+		}
+
+		/**
+		 * Add a header every response starts with, such as {@code Server}, that the
+		 * handler may still replace or remove. The name and value are encoded once to
+		 * {@link AsciiString}, sparing their encoding on each response.
+		 *
+		 * @param name the header name
+		 * @param value the header value
+		 * @return {@code this}
+		 */
+		public final Builder defaultResponseHeader(CharSequence name, CharSequence value) {
+			Objects.requireNonNull(name, "name");
+			Objects.requireNonNull(value, "value");
+			for (int i = 0; i < value.length(); i++) {
+				char c = value.charAt(i);
+				if (c == '\r' || c == '\n') {
+					throw new IllegalArgumentException("value must not contain CR or LF");
+				}
+			}
+			this.defaultResponseHeaders.add(AsciiString.of(name), AsciiString.of(value));
+			return get();
+		}
+
+		/**
+		 * Configure whether every response starts with a {@code Date} header, formatted
+		 * at most once per second by each event loop. Defaults to false.
+		 *
+		 * @param enabled true to add a {@code Date} header to responses
+		 * @return {@code this}
+		 */
+		public final Builder dateHeader(boolean enabled) {
+			this.dateHeader = enabled;
+			return get();
+		}
+
 		/**
 		 * Fill the builder with attribute values from the provided options.
 		 *
@@ -314,18 +596,30 @@ public final class HttpServerOptions extends ServerOptions {
 		public final Builder from(HttpServerOptions options) {
 			super.from(options);
 			this.minCompressionResponseSize = options.minCompressionResponseSize;
+			this.compressionEncoders = options.compressionEncoders;
+			this.compressionExcludedContentTypes = options.compressionExcludedContentTypes;
 			this.maxInitialLineLength = options.maxInitialLineLength;
 			this.maxHeaderSize = options.maxHeaderSize;
 			this.maxChunkSize = options.maxChunkSize;
 			this.validateHeaders = options.validateHeaders;
 			this.initialBufferSize = options.initialBufferSize;
+			this.protocols = EnumSet.copyOf(options.protocols);
+			this.http2MaxConcurrentStreams = options.http2MaxConcurrentStreams;
+			this.http2InitialWindowSize = options.http2InitialWindowSize;
+			this.defaultResponseHeaders = options.defaultResponseHeaders.copy();
+			this.dateHeader = options.dateHeader;
 			return get();
 		}
 
 		@Override
 		public HttpServerOptions build() {
 			super.build();
-			return new HttpServerOptions(this);
+			HttpServerOptions options = new HttpServerOptions(this);
+			if (options.protocols.contains(HttpProtocol.H2) && !options.isSecure()) {
+				throw new IllegalArgumentException(
+						"Configured H2 protocol without an SSL context");
+			}
+			return options;
 		}
 	}
 }
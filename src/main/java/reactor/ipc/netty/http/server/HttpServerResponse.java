@@ -74,7 +74,9 @@ public interface HttpServerResponse extends NettyOutbound, HttpInfos {
 	}
 
 	/**
-	 * Enable/Disable compression handling (gzip/deflate) for the underlying response
+	 * Enable/Disable compression handling for the underlying response, with the
+	 * encoder negotiated among the
+	 * {@link HttpServerOptions.Builder#compressionEncoders(ContentEncoder...) configured encoders}
 	 *
 	 * @param compress should handle compression
 	 *
@@ -99,6 +99,31 @@ public interface HttpServerRoutes extends
 	HttpServerRoutes directory(String uri, Path directory,
 			Function<HttpServerResponse, HttpServerResponse> interceptor);
 
+	/**
+	 * Listen for HTTP GET on the passed path to be used as a routing condition. The
+	 * content of the provided {@link Path directory} will be served, small files
+	 * being kept in memory by the given {@link StaticContentCache}.
+	 * <p>
+	 * Additional regex matching is available, e.g. "/test/{param}". Params are resolved
+	 * using {@link HttpServerRequest#param(CharSequence)}
+	 *
+	 * @param uri The GET path used by clients
+	 * @param directory the root prefix to serve from in file system, e.g.
+	 * "/Users/me/resources"
+	 * @param interceptor a pre response processor, may be null
+	 * @param cache the content cache, that may be shared between routes
+	 *
+	 * @return this {@link HttpServerRoutes}
+	 */
+	default HttpServerRoutes directory(String uri, Path directory,
+			Function<HttpServerResponse, HttpServerResponse> interceptor,
+			StaticContentCache cache) {
+		Objects.requireNonNull(directory, "directory");
+		Objects.requireNonNull(cache, "cache");
+		return route(HttpPredicate.prefix(uri),
+				StaticFiles.directory(uri, directory, interceptor, cache));
+	}
+
 	/**
 	 * Listen for HTTP GET on the passed path to be used as a routing condition. The
 	 * provided {@link java.io.File} will be served.
@@ -152,11 +177,7 @@ public interface HttpServerRoutes extends
 			if (!Files.isReadable(path)) {
 				return resp.send(ByteBufFlux.fromPath(path));
 			}
-			if (interceptor != null) {
-				return interceptor.apply(resp)
-				                  .sendFile(path);
-			}
-			return resp.sendFile(path);
+			return StaticFiles.send(req, resp, path, interceptor);
 		});
 	}
 
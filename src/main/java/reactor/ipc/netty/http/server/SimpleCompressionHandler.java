@@ -23,7 +23,10 @@ import io.netty.handler.codec.http.HttpContentCompressor;
 
 /**
  * @author Stephane Maldini
+ * @deprecated no longer installed by the server, which compresses responses with a
+ * per-connection stage toggled by {@link HttpServerResponse#compression(boolean)}
  */
+@Deprecated
 public class SimpleCompressionHandler extends HttpContentCompressor {
 
 	@Override
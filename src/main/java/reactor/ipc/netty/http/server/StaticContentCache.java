@@ -0,0 +1,409 @@
+/*
+ * Copyright (c) 2011-2018 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.ipc.netty.http.server;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import reactor.core.Disposable;
+
+/**
+ * A byte bounded off-heap cache of the content of small static files served by
+ * {@link HttpServerRoutes#directory(String, Path, Function, StaticContentCache)}.
+ * <p>
+ * A cached file is held in a direct buffer along with its precompressed siblings and
+ * their validators, each response writing a retained duplicate of the buffer instead
+ * of opening and transferring the file. Files larger than the maximum file size, or
+ * with a sibling larger than it, are served from disk. Cached files are invalidated
+ * when a {@link java.nio.file.WatchService} reports a change of their directory,
+ * files that cannot be watched are never cached. Eviction approximates LRU with a
+ * second chance policy.
+ * <p>
+ * A cache holds its content until {@link #dispose() disposed}, after which its
+ * routes serve files from disk.
+ *
+ * @since 0.7.8
+ */
+public final class StaticContentCache implements Disposable {
+
+	/**
+	 * Default maximum size of a cached file
+	 */
+	public static final int DEFAULT_MAX_FILE_SIZE = 64 * 1024;
+
+	/**
+	 * Create a cache of at most the given number of bytes, holding files of at most
+	 * {@link #DEFAULT_MAX_FILE_SIZE} bytes.
+	 *
+	 * @param maxBytes the maximum number of cached bytes
+	 *
+	 * @return a new cache to share between routes
+	 */
+	public static StaticContentCache create(long maxBytes) {
+		return create(maxBytes, DEFAULT_MAX_FILE_SIZE);
+	}
+
+	/**
+	 * Create a cache of at most the given number of bytes.
+	 *
+	 * @param maxBytes the maximum number of cached bytes
+	 * @param maxFileSize the maximum size of a cached file
+	 *
+	 * @return a new cache to share between routes
+	 */
+	public static StaticContentCache create(long maxBytes, int maxFileSize) {
+		if (maxBytes <= 0) {
+			throw new IllegalArgumentException("maxBytes must be strictly positive");
+		}
+		if (maxFileSize <= 0) {
+			throw new IllegalArgumentException("maxFileSize must be strictly positive");
+		}
+		StaticContentCache cache = new StaticContentCache(maxBytes, maxFileSize);
+		FileCache.DEFAULT.register(cache);
+		return cache;
+	}
+
+	final long                              maxBytes;
+	final int                               maxFileSize;
+	final ConcurrentHashMap<Path, Resource> entries       = new ConcurrentHashMap<>();
+	final AtomicLong                        residentBytes = new AtomicLong();
+	final AtomicLong                        generation    = new AtomicLong();
+	final LongAdder                         hits          = new LongAdder();
+	final LongAdder                         misses        = new LongAdder();
+
+	volatile boolean disposed;
+
+	StaticContentCache(long maxBytes, int maxFileSize) {
+		this.maxBytes = maxBytes;
+		this.maxFileSize = maxFileSize;
+	}
+
+	/**
+	 * Return the number of requests served from the cache.
+	 *
+	 * @return the number of cache hits
+	 */
+	public long hits() {
+		return hits.sum();
+	}
+
+	/**
+	 * Return the number of requests that looked up a file not in the cache.
+	 *
+	 * @return the number of cache misses
+	 */
+	public long misses() {
+		return misses.sum();
+	}
+
+	/**
+	 * Return the ratio of the lookups served from the cache, or 0 if no lookup
+	 * happened.
+	 *
+	 * @return the hit ratio between 0 and 1
+	 */
+	public double hitRatio() {
+		long hits = hits();
+		long total = hits + misses();
+		return total == 0 ? 0d : (double) hits / total;
+	}
+
+	/**
+	 * Return the number of off-heap bytes held by the cache.
+	 *
+	 * @return the resident bytes
+	 */
+	public long residentBytes() {
+		return residentBytes.get();
+	}
+
+	/**
+	 * Return the number of cached files, not counting their precompressed siblings.
+	 *
+	 * @return the number of cached files
+	 */
+	public int size() {
+		return entries.size();
+	}
+
+	/**
+	 * Release all the cached files, the responses being written keeping their buffer
+	 * until completion.
+	 */
+	public void clear() {
+		generation.incrementAndGet();
+		for (Map.Entry<Path, Resource> entry : entries.entrySet()) {
+			remove(entry.getKey(), entry.getValue());
+		}
+	}
+
+	/**
+	 * Release all the cached files and stop caching, the routes using this cache
+	 * serving files from disk from now on.
+	 */
+	@Override
+	public void dispose() {
+		disposed = true;
+		FileCache.DEFAULT.unregister(this);
+		clear();
+	}
+
+	@Override
+	public boolean isDisposed() {
+		return disposed;
+	}
+
+	@Override
+	public String toString() {
+		return "StaticContentCache{" + "maxBytes=" + maxBytes + ", maxFileSize=" +
+				maxFileSize + ", size=" + size() + ", residentBytes=" + residentBytes() +
+				", hitRatio=" + hitRatio() + '}';
+	}
+
+	/**
+	 * Return the cached file and siblings of the given path, loading them if the
+	 * file is small enough.
+	 *
+	 * @param path the requested file
+	 *
+	 * @return the cached resource or null if the file must be served from disk
+	 */
+	Resource get(Path path) {
+		if (disposed) {
+			return null;
+		}
+		Path key = path.toAbsolutePath()
+		               .normalize();
+		Resource resource = entries.get(key);
+		if (resource != null) {
+			resource.referenced = true;
+			hits.increment();
+			return resource;
+		}
+		misses.increment();
+		long loadGeneration = generation.get();
+		resource = load(key);
+		if (resource == null) {
+			return null;
+		}
+		// spare the new entry from the eviction it may trigger
+		resource.referenced = true;
+		residentBytes.addAndGet(resource.bytes);
+		Resource previous = entries.put(key, resource);
+		if (previous != null) {
+			residentBytes.addAndGet(-previous.bytes);
+			previous.release();
+		}
+		// a change or disposal while loading may not have seen the new entry
+		if (generation.get() != loadGeneration) {
+			remove(key, resource);
+		}
+		while (residentBytes.get() > maxBytes && evict()) {
+			// evict until under budget
+		}
+		return resource;
+	}
+
+	Resource load(Path path) {
+		FileCache.WatchedDir dir = FileCache.DEFAULT.watch(path.getParent());
+		if (dir == null) {
+			return null;
+		}
+		FileCache.CachedFile identity = read(path);
+		if (identity == null) {
+			dir.release();
+			return null;
+		}
+		long bytes = identity.size;
+		FileCache.CachedFile[] encoded = null;
+		String[] available = null;
+		String fileName = path.getFileName()
+		                      .toString();
+		for (int i = 0; i < StaticFiles.ENCODINGS.length; i++) {
+			Path sibling = path.resolveSibling(fileName + StaticFiles.EXTENSIONS[i]);
+			if (!Files.isReadable(sibling)) {
+				continue;
+			}
+			FileCache.CachedFile variant = read(sibling);
+			if (variant == null) {
+				// every variant must be served from the same place
+				new Resource(identity, encoded, available, bytes, dir).release();
+				return null;
+			}
+			if (encoded == null) {
+				encoded = new FileCache.CachedFile[StaticFiles.ENCODINGS.length];
+				available = new String[StaticFiles.ENCODINGS.length];
+			}
+			encoded[i] = variant;
+			available[i] = StaticFiles.ENCODINGS[i];
+			bytes += variant.size;
+		}
+		Resource resource = new Resource(identity, encoded, available, bytes, dir);
+		if (bytes > maxBytes) {
+			resource.release();
+			return null;
+		}
+		return resource;
+	}
+
+	/**
+	 * Read a regular file of at most the maximum file size into a direct buffer.
+	 */
+	FileCache.CachedFile read(Path path) {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			BasicFileAttributes attributes =
+					Files.readAttributes(path, BasicFileAttributes.class);
+			if (!attributes.isRegularFile() || attributes.size() > maxFileSize) {
+				return null;
+			}
+			int size = (int) attributes.size();
+			ByteBuf content = Unpooled.directBuffer(size, size);
+			try {
+				while (content.isWritable()) {
+					if (content.writeBytes(channel, content.writerIndex(),
+							content.writableBytes()) == -1) {
+						// truncated while reading, the change will be reported
+						content.release();
+						return null;
+					}
+				}
+			}
+			catch (IOException | RuntimeException e) {
+				content.release();
+				throw e;
+			}
+			return new FileCache.CachedFile(path,
+					null,
+					content,
+					size,
+					attributes.lastModifiedTime()
+					          .toMillis());
+		}
+		catch (IOException e) {
+			return null;
+		}
+	}
+
+	boolean evict() {
+		for (int pass = 0; pass < 2; pass++) {
+			Iterator<Map.Entry<Path, Resource>> it = entries.entrySet()
+			                                                .iterator();
+			while (it.hasNext()) {
+				Map.Entry<Path, Resource> entry = it.next();
+				Resource resource = entry.getValue();
+				if (pass == 0 && resource.referenced) {
+					resource.referenced = false;
+				}
+				else if (remove(entry.getKey(), resource)) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	boolean remove(Path path, Resource resource) {
+		if (entries.remove(path, resource)) {
+			residentBytes.addAndGet(-resource.bytes);
+			resource.release();
+			return true;
+		}
+		return false;
+	}
+
+	void invalidate(Path path) {
+		generation.incrementAndGet();
+		invalidate0(path);
+		// a precompressed sibling changed the variants of its identity file
+		String fileName = path.getFileName()
+		                      .toString();
+		for (String extension : StaticFiles.EXTENSIONS) {
+			if (fileName.endsWith(extension)) {
+				invalidate0(path.resolveSibling(fileName.substring(0,
+						fileName.length() - extension.length())));
+			}
+		}
+	}
+
+	void invalidate0(Path path) {
+		Resource resource = entries.get(path);
+		if (resource != null) {
+			remove(path, resource);
+		}
+	}
+
+	void invalidateAll(Path dir) {
+		generation.incrementAndGet();
+		for (Map.Entry<Path, Resource> entry : entries.entrySet()) {
+			if (dir.equals(entry.getKey()
+			                    .getParent())) {
+				remove(entry.getKey(), entry.getValue());
+			}
+		}
+	}
+
+	/**
+	 * A cached file and its precompressed siblings, indexed as
+	 * {@link StaticFiles#ENCODINGS}, keeping their directory watched.
+	 */
+	static final class Resource {
+
+		final FileCache.CachedFile   identity;
+		final FileCache.CachedFile[] encoded;
+		final String[]               available;
+		final long                   bytes;
+		final FileCache.WatchedDir   dir;
+
+		volatile boolean referenced;
+
+		Resource(FileCache.CachedFile identity,
+				FileCache.CachedFile[] encoded,
+				String[] available,
+				long bytes,
+				FileCache.WatchedDir dir) {
+			this.identity = identity;
+			this.encoded = encoded;
+			this.available = available;
+			this.bytes = bytes;
+			this.dir = dir;
+		}
+
+		void release() {
+			dir.release();
+			identity.release();
+			if (encoded != null) {
+				for (FileCache.CachedFile variant : encoded) {
+					if (variant != null) {
+						variant.release();
+					}
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,496 @@
+/*
+ * Copyright (c) 2011-2018 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.ipc.netty.http.server;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Date;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.handler.codec.DateFormatter;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http2.Http2StreamChannel;
+import io.netty.handler.ssl.SslHandler;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.ipc.netty.FutureMono;
+import reactor.ipc.netty.NettyOutbound;
+
+/**
+ * Serve the static files of {@link HttpServerRoutes#directory(String, Path, Function)}
+ * and {@link HttpServerRoutes#file(java.util.function.Predicate, Path, Function)}.
+ * <ul>
+ * <li>A precompressed sibling of the requested file, e.g. {@code app.js.br} or
+ * {@code app.js.gz} for {@code app.js}, is preferred when the client accepts its
+ * encoding. The sibling is sent as is, without being compressed again on each
+ * request.</li>
+ * <li>Conditional requests are answered from the {@code ETag} and
+ * {@code Last-Modified} validators of the file.</li>
+ * <li>Single and multiple byte ranges are served as {@code 206 Partial Content}.</li>
+ * </ul>
+ * Files are read through the open channels of the {@link FileCache}, and written as
+ * zero-copy regions unless the connection encrypts, compresses or frames the body.
+ * Small files of directories served with a {@link StaticContentCache} are written
+ * from memory.
+ */
+final class StaticFiles {
+
+	/**
+	 * The content codings of the precompressed siblings, by order of preference.
+	 */
+	static final String[] ENCODINGS  = {"br", "zstd", "gzip"};
+	static final String[] EXTENSIONS = {".br", ".zst", ".gz"};
+
+	/**
+	 * Maximum number of ranges of a request, more being ignored to serve the whole
+	 * file.
+	 */
+	static final int MAX_RANGES = 16;
+
+	static final int CHUNK_SIZE = 8192;
+
+	/**
+	 * Return the handler of {@link HttpServerRoutes#directory(String, Path, Function)}
+	 * routes, serving the files of the directory resolved against the request path
+	 * after the route prefix.
+	 *
+	 * @param uri the route prefix
+	 * @param directory the served directory
+	 * @param interceptor the optional pre response processor
+	 * @param cache the optional content cache
+	 *
+	 * @return the route handler
+	 */
+	static BiFunction<HttpServerRequest, HttpServerResponse, Publisher<Void>> directory(
+			String uri,
+			Path directory,
+			Function<HttpServerResponse, HttpServerResponse> interceptor,
+			StaticContentCache cache) {
+		return (req, resp) -> {
+			String prefix = URI.create(req.uri())
+			                   .getPath()
+			                   .replaceFirst(uri, "");
+
+			if(prefix.charAt(0) == '/'){
+				prefix = prefix.substring(1);
+			}
+
+			Path p = directory.resolve(prefix);
+			if (cache != null) {
+				StaticContentCache.Resource resource = cache.get(p);
+				if (resource != null) {
+					return send(req, resp, resource, interceptor);
+				}
+			}
+			if (Files.isReadable(p)) {
+				return send(req, resp, p, interceptor);
+			}
+
+			return resp.sendNotFound();
+		};
+	}
+
+	/**
+	 * Send the given readable file, or its precompressed sibling negotiated against
+	 * the {@code Accept-Encoding} request header. A {@code Vary} header is added
+	 * whenever a precompressed sibling exists, as the response then depends on the
+	 * request encodings.
+	 *
+	 * @param request the request
+	 * @param response the response
+	 * @param path the requested file
+	 * @param interceptor the optional pre response processor
+	 *
+	 * @return the send completion
+	 */
+	static Publisher<Void> send(HttpServerRequest request,
+			HttpServerResponse response,
+			Path path,
+			Function<HttpServerResponse, HttpServerResponse> interceptor) {
+		String acceptEncoding = request.requestHeaders()
+		                               .get(HttpHeaderNames.ACCEPT_ENCODING);
+		String[] available = null;
+		Path[] siblings = null;
+		// without Accept-Encoding the identity file is always the right variant
+		if (acceptEncoding != null) {
+			String fileName = path.getFileName()
+			                      .toString();
+			for (int i = 0; i < ENCODINGS.length; i++) {
+				Path sibling = path.resolveSibling(fileName + EXTENSIONS[i]);
+				if (Files.isReadable(sibling)) {
+					if (available == null) {
+						available = new String[ENCODINGS.length];
+						siblings = new Path[ENCODINGS.length];
+					}
+					available[i] = ENCODINGS[i];
+					siblings[i] = sibling;
+				}
+			}
+		}
+
+		HttpServerResponse res = interceptor != null ? interceptor.apply(response) : response;
+		Path file = path;
+		if (available != null) {
+			res.addHeader(HttpHeaderNames.VARY, HttpHeaderNames.ACCEPT_ENCODING);
+			int selected = HttpCompressionHandler.negotiate(acceptEncoding, available);
+			if (selected != -1) {
+				res.header(HttpHeaderNames.CONTENT_ENCODING, available[selected]);
+				file = siblings[selected];
+			}
+		}
+
+		if (!(res instanceof HttpServerOperations) ||
+				file.getFileSystem() != FileSystems.getDefault()) {
+			return res.sendFile(file);
+		}
+		HttpServerOperations ops = (HttpServerOperations) res;
+		Path target = file;
+		return Mono.using(() -> FileCache.DEFAULT.acquire(target),
+				f -> send(request, ops, f),
+				FileCache.CachedFile::release);
+	}
+
+	/**
+	 * Send a file of a {@link StaticContentCache}, or its cached precompressed
+	 * sibling negotiated against the {@code Accept-Encoding} request header, without
+	 * accessing the file system.
+	 *
+	 * @param request the request
+	 * @param response the response
+	 * @param resource the cached file and siblings
+	 * @param interceptor the optional pre response processor
+	 *
+	 * @return the send completion
+	 */
+	static Publisher<Void> send(HttpServerRequest request,
+			HttpServerResponse response,
+			StaticContentCache.Resource resource,
+			Function<HttpServerResponse, HttpServerResponse> interceptor) {
+		HttpServerResponse res = interceptor != null ? interceptor.apply(response) : response;
+		FileCache.CachedFile file = resource.identity;
+		if (resource.available != null) {
+			res.addHeader(HttpHeaderNames.VARY, HttpHeaderNames.ACCEPT_ENCODING);
+			String acceptEncoding = request.requestHeaders()
+			                               .get(HttpHeaderNames.ACCEPT_ENCODING);
+			int selected = acceptEncoding == null ? -1 :
+					HttpCompressionHandler.negotiate(acceptEncoding, resource.available);
+			if (selected != -1) {
+				res.header(HttpHeaderNames.CONTENT_ENCODING, resource.available[selected]);
+				file = resource.encoded[selected];
+			}
+		}
+
+		// evicted since the lookup, the file is read again from disk
+		if (!(res instanceof HttpServerOperations) || !file.tryRetain()) {
+			return res.sendFile(file.path);
+		}
+		HttpServerOperations ops = (HttpServerOperations) res;
+		FileCache.CachedFile retained = file;
+		return Mono.using(() -> retained,
+				f -> send(request, ops, f),
+				FileCache.CachedFile::release);
+	}
+
+	static Mono<Void> send(HttpServerRequest request,
+			HttpServerOperations response,
+			FileCache.CachedFile file) {
+		HttpHeaders headers = request.requestHeaders();
+		HttpMethod method = request.method();
+		boolean getOrHead = HttpMethod.GET.equals(method) || HttpMethod.HEAD.equals(method);
+
+		response.header(HttpHeaderNames.LAST_MODIFIED, file.lastModifiedHeader)
+		        .header(HttpHeaderNames.ACCEPT_RANGES, HttpHeaderValues.BYTES)
+		        .header(HttpHeaderNames.CONTENT_LENGTH, Long.toString(file.size));
+		// a compressed body is not byte for byte the file, its validator is weak
+		boolean compressing = response.isCompressing();
+		response.header(HttpHeaderNames.ETAG, compressing ? "W/" + file.etag : file.etag);
+
+		String ifMatch = headers.get(HttpHeaderNames.IF_MATCH);
+		if (ifMatch != null ? !matches(ifMatch, file.etag, false) :
+				isModifiedSince(headers.get(HttpHeaderNames.IF_UNMODIFIED_SINCE), file)) {
+			return sendEmpty(response, HttpResponseStatus.PRECONDITION_FAILED);
+		}
+		String ifNoneMatch = headers.get(HttpHeaderNames.IF_NONE_MATCH);
+		if (ifNoneMatch != null ? matches(ifNoneMatch, file.etag, true) :
+				getOrHead && isNotModifiedSince(headers.get(HttpHeaderNames.IF_MODIFIED_SINCE), file)) {
+			return sendEmpty(response, getOrHead ? HttpResponseStatus.NOT_MODIFIED :
+					HttpResponseStatus.PRECONDITION_FAILED);
+		}
+
+		String range = headers.get(HttpHeaderNames.RANGE);
+		long[] ranges = null;
+		if (range != null && HttpMethod.GET.equals(method) &&
+				isCurrent(headers.get(HttpHeaderNames.IF_RANGE), file)) {
+			ranges = parseRanges(range, file.size);
+		}
+		if (ranges != null && ranges.length == 0) {
+			response.header(HttpHeaderNames.CONTENT_RANGE, "bytes */" + file.size);
+			return sendEmpty(response, HttpResponseStatus.REQUESTED_RANGE_NOT_SATISFIABLE);
+		}
+
+		if (HttpMethod.HEAD.equals(method)) {
+			return Mono.empty();
+		}
+
+		if (ranges == null) {
+			return sendRegion(response, response, file, 0, file.size).then();
+		}
+
+		response.status(HttpResponseStatus.PARTIAL_CONTENT);
+		if (ranges.length == 2) {
+			long start = ranges[0];
+			long end = ranges[1];
+			response.header(HttpHeaderNames.CONTENT_RANGE,
+					"bytes " + start + "-" + end + "/" + file.size)
+			        .header(HttpHeaderNames.CONTENT_LENGTH, Long.toString(end - start + 1));
+			return sendRegion(response, response, file, start, end - start + 1).then();
+		}
+
+		String boundary = Long.toHexString(ThreadLocalRandom.current()
+		                                                    .nextLong());
+		String contentType = response.responseHeaders()
+		                             .get(HttpHeaderNames.CONTENT_TYPE);
+		byte[][] parts = new byte[ranges.length / 2][];
+		long length = 0;
+		for (int i = 0; i < ranges.length; i += 2) {
+			StringBuilder part = new StringBuilder("\r\n--").append(boundary)
+			                                                .append("\r\n");
+			if (contentType != null) {
+				part.append("content-type: ")
+				    .append(contentType)
+				    .append("\r\n");
+			}
+			part.append("content-range: bytes ")
+			    .append(ranges[i])
+			    .append('-')
+			    .append(ranges[i + 1])
+			    .append('/')
+			    .append(file.size)
+			    .append("\r\n\r\n");
+			parts[i / 2] = part.toString()
+			                   .getBytes(StandardCharsets.US_ASCII);
+			length += parts[i / 2].length + ranges[i + 1] - ranges[i] + 1;
+		}
+		byte[] end = ("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII);
+		length += end.length;
+
+		response.header(HttpHeaderNames.CONTENT_TYPE, "multipart/byteranges; boundary=" + boundary)
+		        .header(HttpHeaderNames.CONTENT_LENGTH, Long.toString(length));
+		NettyOutbound out = response;
+		for (int i = 0; i < ranges.length; i += 2) {
+			out = out.sendObject(Unpooled.wrappedBuffer(parts[i / 2]));
+			out = sendRegion(response, out, file, ranges[i], ranges[i + 1] - ranges[i] + 1);
+		}
+		return out.sendObject(Unpooled.wrappedBuffer(end))
+		          .then();
+	}
+
+	static Mono<Void> sendEmpty(HttpServerOperations response, HttpResponseStatus status) {
+		response.status(status)
+		        .responseHeaders()
+		        .remove(HttpHeaderNames.CONTENT_LENGTH)
+		        .remove(HttpHeaderNames.CONTENT_ENCODING);
+		// the operations complete with an empty body message
+		return Mono.empty();
+	}
+
+	/**
+	 * Write a region of the file, as a retained slice of its content if cached in
+	 * memory, as a zero-copy {@link FileCache.CachedFileRegion} if the connection
+	 * writes the file bytes as they are, or by reading chunks of the shared channel
+	 * otherwise.
+	 */
+	static NettyOutbound sendRegion(HttpServerOperations response,
+			NettyOutbound out,
+			FileCache.CachedFile file,
+			long position,
+			long count) {
+		if (file.content != null) {
+			return out.sendObject(position == 0 && count == file.size ?
+					file.content.retainedDuplicate() :
+					file.content.retainedSlice((int) position, (int) count));
+		}
+		Channel channel = response.channel();
+		if (!(channel instanceof Http2StreamChannel) &&
+				channel.pipeline()
+				       .get(SslHandler.class) == null &&
+				!response.isCompressing()) {
+			return out.then(FutureMono.deferFuture(() ->
+					channel.writeAndFlush(new FileCache.CachedFileRegion(file, position, count))));
+		}
+		return out.send(Flux.generate(() -> position, (offset, sink) -> {
+			long remaining = position + count - offset;
+			if (remaining <= 0) {
+				sink.complete();
+				return offset;
+			}
+			int length = (int) Math.min(CHUNK_SIZE, remaining);
+			ByteBuf buf = channel.alloc()
+			                     .ioBuffer(length);
+			try {
+				ByteBuffer nioBuffer = buf.nioBuffer(0, length);
+				int read = 0;
+				while (read < length) {
+					int n = file.channel.read(nioBuffer, offset + read);
+					if (n == -1) {
+						throw new IOException("Unexpected end of file " + file.path);
+					}
+					read += n;
+				}
+				buf.writerIndex(length);
+				sink.next(buf);
+			}
+			catch (IOException e) {
+				buf.release();
+				sink.error(e);
+			}
+			return offset + length;
+		}));
+	}
+
+	/**
+	 * Match an {@code If-Match} or {@code If-None-Match} header value against the
+	 * entity tag of a file.
+	 */
+	static boolean matches(String header, String etag, boolean weak) {
+		for (String tag : header.split(",")) {
+			tag = tag.trim();
+			if ("*".equals(tag)) {
+				return true;
+			}
+			if (tag.startsWith("W/")) {
+				if (!weak) {
+					continue;
+				}
+				tag = tag.substring(2);
+			}
+			if (tag.equals(etag)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	static boolean isModifiedSince(String date, FileCache.CachedFile file) {
+		Date since = date == null ? null : DateFormatter.parseHttpDate(date);
+		return since != null && file.lastModified / 1000 > since.getTime() / 1000;
+	}
+
+	static boolean isNotModifiedSince(String date, FileCache.CachedFile file) {
+		Date since = date == null ? null : DateFormatter.parseHttpDate(date);
+		return since != null && file.lastModified / 1000 <= since.getTime() / 1000;
+	}
+
+	/**
+	 * Return true if the {@code If-Range} validator, if any, designates the current
+	 * file, in which case the requested ranges apply.
+	 */
+	static boolean isCurrent(String ifRange, FileCache.CachedFile file) {
+		if (ifRange == null) {
+			return true;
+		}
+		ifRange = ifRange.trim();
+		if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+			return ifRange.equals(file.etag);
+		}
+		Date date = DateFormatter.parseHttpDate(ifRange);
+		return date != null && date.getTime() / 1000 == file.lastModified / 1000;
+	}
+
+	/**
+	 * Parse a {@code Range} header value into the first and last offsets of each
+	 * satisfiable range.
+	 *
+	 * @param range the {@code Range} header value
+	 * @param size the size of the file
+	 *
+	 * @return the inclusive offsets pairs, empty if no range is satisfiable, or null if
+	 * the header must be ignored
+	 */
+	static long[] parseRanges(String range, long size) {
+		if (!range.startsWith("bytes=")) {
+			return null;
+		}
+		String[] specs = range.substring(6)
+		                      .split(",");
+		if (specs.length > MAX_RANGES) {
+			return null;
+		}
+		long[] ranges = new long[specs.length * 2];
+		int count = 0;
+		try {
+			for (String spec : specs) {
+				spec = spec.trim();
+				int dash = spec.indexOf('-');
+				if (dash == -1) {
+					return null;
+				}
+				long start;
+				long end;
+				if (dash == 0) {
+					long suffix = Long.parseLong(spec.substring(1));
+					if (suffix <= 0) {
+						continue;
+					}
+					start = Math.max(0, size - suffix);
+					end = size - 1;
+				}
+				else {
+					start = Long.parseLong(spec.substring(0, dash));
+					end = dash == spec.length() - 1 ? Long.MAX_VALUE :
+							Long.parseLong(spec.substring(dash + 1));
+					if (end < start) {
+						return null;
+					}
+					end = Math.min(size - 1, end);
+				}
+				if (start >= size) {
+					continue;
+				}
+				ranges[count++] = start;
+				ranges[count++] = end;
+			}
+		}
+		catch (NumberFormatException e) {
+			return null;
+		}
+		if (count == ranges.length) {
+			return ranges;
+		}
+		long[] satisfiable = new long[count];
+		System.arraycopy(ranges, 0, satisfiable, 0, count);
+		return satisfiable;
+	}
+
+	StaticFiles() {
+	}
+}
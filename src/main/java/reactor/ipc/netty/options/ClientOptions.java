@@ -18,6 +18,7 @@ package reactor.ipc.netty.options;
 
 import java.net.InetSocketAddress;
 import java.net.SocketAddress;
+import java.time.Duration;
 import java.util.Objects;
 import java.util.function.Consumer;
 import java.util.function.Function;
@@ -37,6 +38,7 @@ import io.netty.resolver.DefaultAddressResolverGroup;
 import io.netty.resolver.NoopAddressResolverGroup;
 import io.netty.util.NetUtil;
 import reactor.core.Exceptions;
+import reactor.ipc.netty.resources.HappyEyeballsConnector;
 import reactor.ipc.netty.resources.LoopResources;
 import reactor.ipc.netty.resources.PoolResources;
 
@@ -82,6 +84,7 @@ public class ClientOptions extends NettyOptions<Bootstrap, ClientOptions> {
 
 	private final InternetProtocolFamily protocolFamily;
 	private final Supplier<? extends SocketAddress> connectAddress;
+	private final Duration connectionAttemptDelay;
 
 	/**
 	 * Deep-copy all references from the passed builder into this new
@@ -110,6 +113,7 @@ public class ClientOptions extends NettyOptions<Bootstrap, ClientOptions> {
 		}
 		this.poolResources = builder.poolResources;
 		this.protocolFamily = builder.protocolFamily;
+		this.connectionAttemptDelay = builder.connectionAttemptDelay;
 	}
 
 	@Override
@@ -121,6 +125,9 @@ public class ClientOptions extends NettyOptions<Bootstrap, ClientOptions> {
 	public Bootstrap get() {
 		Bootstrap b = super.get();
 		groupAndChannel(b);
+		if (connectionAttemptDelay != null && protocolFamily == null) {
+			b.attr(HappyEyeballsConnector.CONNECTION_ATTEMPT_DELAY, connectionAttemptDelay.toNanos());
+		}
 		return b;
 	}
 
@@ -142,6 +149,18 @@ public class ClientOptions extends NettyOptions<Bootstrap, ClientOptions> {
 		return this.proxyOptions;
 	}
 
+	/**
+	 * Return the delay before starting a connection attempt to the next address of a
+	 * host name while the previous attempts are pending, or null if connecting to the
+	 * addresses one at a time.
+	 *
+	 * @return the connection attempt delay or null
+	 * @see Builder#happyEyeballs(Duration)
+	 */
+	public final Duration connectionAttemptDelay() {
+		return connectionAttemptDelay;
+	}
+
 	/**
 	 * Return true if {@link io.netty.channel.socket.DatagramChannel} should be used
 	 *
@@ -258,6 +277,7 @@ public class ClientOptions extends NettyOptions<Bootstrap, ClientOptions> {
 		private PoolResources poolResources;
 		private boolean poolDisabled = false;
 		private InternetProtocolFamily protocolFamily;
+		private Duration connectionAttemptDelay;
 		private String host;
 		private int port = -1;
 		private Supplier<? extends SocketAddress> connectAddress;
@@ -287,6 +307,7 @@ public class ClientOptions extends NettyOptions<Bootstrap, ClientOptions> {
 		 *
 		 * @param resolver the new {@link AddressResolverGroup}
 		 * @return {@code this}
+		 * @see reactor.ipc.netty.resources.CachingAddressResolverGroup
 		 */
 		public final BUILDER resolver(AddressResolverGroup<?> resolver) {
 			Objects.requireNonNull(resolver, "resolver");
@@ -339,6 +360,28 @@ public class ClientOptions extends NettyOptions<Bootstrap, ClientOptions> {
 			return get();
 		}
 
+		/**
+		 * Race connection attempts to all the addresses a host name resolves to, as
+		 * described by RFC 8305 (Happy Eyeballs): attempts alternate IPv6 and IPv4
+		 * addresses and start one after the other, each time the previous attempt
+		 * failed or after the given delay. The first established connection is used
+		 * and the other attempts are cancelled. RFC 8305 recommends a 250 ms delay.
+		 * <p>Ignored when a {@link #protocolFamily(InternetProtocolFamily) protocol
+		 * family} is configured or when connecting through a proxy.
+		 *
+		 * @param connectionAttemptDelay the delay before starting a connection attempt
+		 * to the next address while the previous attempts are pending
+		 * @return {@code this}
+		 */
+		public final BUILDER happyEyeballs(Duration connectionAttemptDelay) {
+			Objects.requireNonNull(connectionAttemptDelay, "connectionAttemptDelay");
+			if (connectionAttemptDelay.isNegative()) {
+				throw new IllegalArgumentException("connectionAttemptDelay must be positive");
+			}
+			this.connectionAttemptDelay = connectionAttemptDelay;
+			return get();
+		}
+
 		/**
 		 * Enable default sslContext support
 		 *
@@ -430,6 +473,7 @@ public class ClientOptions extends NettyOptions<Bootstrap, ClientOptions> {
 			this.connectAddress = options.connectAddress;
 			this.poolResources = options.poolResources;
 			this.protocolFamily = options.protocolFamily;
+			this.connectionAttemptDelay = options.connectionAttemptDelay;
 			return get();
 		}
 
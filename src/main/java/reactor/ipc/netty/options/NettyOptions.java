@@ -59,6 +59,31 @@ public abstract class NettyOptions<BOOTSTRAP extends AbstractBootstrap<BOOTSTRAP
 			System.getenv("PORT") != null ? Integer.parseInt(System.getenv("PORT")) :
 					12012;
 
+	/**
+	 * Default number of items initially requested from a sent
+	 * {@link org.reactivestreams.Publisher} (reactor.ipc.netty.sendPrefetch), 32 by
+	 * default
+	 */
+	public static final int DEFAULT_SEND_PREFETCH =
+			Integer.parseInt(System.getProperty("reactor.ipc.netty.sendPrefetch", "32"));
+
+	/**
+	 * Default number of bytes buffered by a connection inbound receiver above which
+	 * reading is suspended (reactor.ipc.netty.receive.highWaterMark), 1MB by default
+	 */
+	public static final int DEFAULT_RECEIVE_HIGH_WATER_MARK =
+			Integer.parseInt(System.getProperty("reactor.ipc.netty.receive.highWaterMark",
+					"" + 1024 * 1024));
+
+	/**
+	 * Default number of bytes buffered by a connection inbound receiver below which
+	 * suspended reading resumes (reactor.ipc.netty.receive.lowWaterMark), 256KB by
+	 * default
+	 */
+	public static final int DEFAULT_RECEIVE_LOW_WATER_MARK =
+			Integer.parseInt(System.getProperty("reactor.ipc.netty.receive.lowWaterMark",
+					"" + 256 * 1024));
+
 	private final BOOTSTRAP                        bootstrapTemplate;
 	private final boolean                          preferNative;
 	private final LoopResources                    loopResources;
@@ -66,6 +91,11 @@ public abstract class NettyOptions<BOOTSTRAP extends AbstractBootstrap<BOOTSTRAP
 	private final long                             sslHandshakeTimeoutMillis;
 	private final long                             sslCloseNotifyFlushTimeoutMillis;
 	private final long                             sslCloseNotifyReadTimeoutMillis;
+	private final int                              sendPrefetch;
+	private final int                              sendReplenish;
+	private final int                              receiveLowWaterMark;
+	private final int                              receiveHighWaterMark;
+	private final ReceiveOverflow                  receiveOverflow;
 	protected final Consumer<? super Channel>      afterChannelInit;
 	protected final Consumer<? super NettyContext> afterNettyContextInit;
 	private final Predicate<? super Channel>       onChannelInit;
@@ -78,6 +108,11 @@ public abstract class NettyOptions<BOOTSTRAP extends AbstractBootstrap<BOOTSTRAP
 		this.sslHandshakeTimeoutMillis = builder.sslHandshakeTimeoutMillis;
 		this.sslCloseNotifyFlushTimeoutMillis = builder.sslCloseNotifyFlushTimeoutMillis;
 		this.sslCloseNotifyReadTimeoutMillis = builder.sslCloseNotifyReadTimeoutMillis;
+		this.sendPrefetch = builder.sendPrefetch;
+		this.sendReplenish = builder.sendReplenish;
+		this.receiveLowWaterMark = builder.receiveLowWaterMark;
+		this.receiveHighWaterMark = builder.receiveHighWaterMark;
+		this.receiveOverflow = builder.receiveOverflow;
 		this.afterNettyContextInit = builder.afterNettyContextInit;
 		this.onChannelInit = builder.onChannelInit;
 
@@ -245,7 +280,87 @@ public abstract class NettyOptions<BOOTSTRAP extends AbstractBootstrap<BOOTSTRAP
 	 * @return the SSL close_notify read timeout in millis
 	 */
 	public final long sslCloseNotifyReadTimeoutMillis() {
-		return this.sslCloseNotifyReadTimeoutMillis;
+		return sslCloseNotifyReadTimeoutMillis;
+	}
+
+	/**
+	 * Return the number of items initially requested from a {@link org.reactivestreams.Publisher}
+	 * sent over a connection.
+	 *
+	 * @return the send prefetch
+	 * @see reactor.ipc.netty.NettyPipeline.SendOptions#prefetch(int, int)
+	 */
+	public final int sendPrefetch() {
+		return sendPrefetch;
+	}
+
+	/**
+	 * Return the number of written items requested back at once from a
+	 * {@link org.reactivestreams.Publisher} sent over a connection.
+	 *
+	 * @return the send replenish amount
+	 * @see reactor.ipc.netty.NettyPipeline.SendOptions#prefetch(int, int)
+	 */
+	public final int sendReplenish() {
+		return sendReplenish;
+	}
+
+	/**
+	 * Return the number of buffered inbound bytes below which a suspended connection
+	 * resumes reading.
+	 *
+	 * @return the receive buffer low water mark in bytes
+	 */
+	public final int receiveLowWaterMark() {
+		return receiveLowWaterMark;
+	}
+
+	/**
+	 * Return the number of buffered inbound bytes above which a connection stops
+	 * reading or applies its {@link #receiveOverflow()} policy.
+	 *
+	 * @return the receive buffer high water mark in bytes
+	 */
+	public final int receiveHighWaterMark() {
+		return receiveHighWaterMark;
+	}
+
+	/**
+	 * Return the policy applied to inbound messages received while the receive
+	 * buffer is above its high water mark.
+	 *
+	 * @return the receive overflow policy
+	 */
+	public final ReceiveOverflow receiveOverflow() {
+		return receiveOverflow;
+	}
+
+	/**
+	 * Return the default replenish amount for the given prefetch, 75% of the prefetch
+	 * similarly to {@link reactor.core.publisher.Flux#limitRate(int)}.
+	 *
+	 * @param prefetch the prefetch
+	 *
+	 * @return the default replenish amount
+	 */
+	public static int defaultReplenish(int prefetch) {
+		return prefetch - (prefetch >> 2);
+	}
+
+	/**
+	 * Validate a prefetch and replenish pair.
+	 *
+	 * @param prefetch the prefetch
+	 * @param replenish the replenish amount
+	 */
+	public static void validatePrefetch(int prefetch, int replenish) {
+		if (prefetch <= 0) {
+			throw new IllegalArgumentException("prefetch must be strictly positive, was: " + prefetch);
+		}
+		if (replenish <= 0 || replenish > prefetch) {
+			throw new IllegalArgumentException("replenish must be strictly positive and " +
+					"lower than or equal to prefetch, was: " + replenish);
+		}
 	}
 
 	/**
@@ -268,6 +383,11 @@ public abstract class NettyOptions<BOOTSTRAP extends AbstractBootstrap<BOOTSTRAP
 				", sslCloseNotifyReadTimeoutMillis=" + sslCloseNotifyReadTimeoutMillis +
 				", sslContext=" + sslContext +
 				", preferNative=" + preferNative +
+				", sendPrefetch=" + sendPrefetch +
+				", sendReplenish=" + sendReplenish +
+				", receiveLowWaterMark=" + receiveLowWaterMark +
+				", receiveHighWaterMark=" + receiveHighWaterMark +
+				", receiveOverflow=" + receiveOverflow +
 				", afterChannelInit=" + afterChannelInit +
 				", onChannelInit=" + onChannelInit +
 				", loopResources=" + loopResources;
@@ -311,6 +431,11 @@ public abstract class NettyOptions<BOOTSTRAP extends AbstractBootstrap<BOOTSTRAP
 		private long                           sslHandshakeTimeoutMillis        = 10000L;
 		private long                           sslCloseNotifyFlushTimeoutMillis = 3000L;
 		private long                           sslCloseNotifyReadTimeoutMillis  = 0L;
+		private int                            sendPrefetch                     = DEFAULT_SEND_PREFETCH;
+		private int                            sendReplenish                    = defaultReplenish(DEFAULT_SEND_PREFETCH);
+		private int                            receiveLowWaterMark              = DEFAULT_RECEIVE_LOW_WATER_MARK;
+		private int                            receiveHighWaterMark             = DEFAULT_RECEIVE_HIGH_WATER_MARK;
+		private ReceiveOverflow                receiveOverflow                  = ReceiveOverflow.BACKPRESSURE;
 		private Consumer<? super Channel>      afterChannelInit                 = null;
 		private Consumer<? super NettyContext> afterNettyContextInit            = null;
 		private Predicate<? super Channel>     onChannelInit                    = null;
@@ -505,6 +630,78 @@ public abstract class NettyOptions<BOOTSTRAP extends AbstractBootstrap<BOOTSTRAP
 			return get();
 		}
 
+		/**
+		 * Set the number of items initially requested from a
+		 * {@link org.reactivestreams.Publisher} sent over a connection, 75% of which
+		 * are requested back at once when written. Default to 32 or the
+		 * {@code reactor.ipc.netty.sendPrefetch} system property.
+		 *
+		 * @param sendPrefetch the number of items to prefetch (strictly positive)
+		 * @return {@code this}
+		 */
+		public final BUILDER sendPrefetch(int sendPrefetch) {
+			return sendPrefetch(sendPrefetch, defaultReplenish(sendPrefetch));
+		}
+
+		/**
+		 * Set the number of items initially requested from a
+		 * {@link org.reactivestreams.Publisher} sent over a connection and the number
+		 * of written items requested back at once. Replenishment is deferred to the
+		 * write completion while the outbound buffer holds more than the channel write
+		 * buffer low water mark.
+		 *
+		 * @param sendPrefetch the number of items to prefetch (strictly positive)
+		 * @param sendReplenish the number of written items to request back at once
+		 * (strictly positive, lower than or equal to sendPrefetch)
+		 * @return {@code this}
+		 */
+		public final BUILDER sendPrefetch(int sendPrefetch, int sendReplenish) {
+			validatePrefetch(sendPrefetch, sendReplenish);
+			this.sendPrefetch = sendPrefetch;
+			this.sendReplenish = sendReplenish;
+			return get();
+		}
+
+		/**
+		 * Set the number of inbound bytes a connection may buffer for its receiver.
+		 * Once the buffered bytes reach <code>highWaterMark</code> the connection stops
+		 * reading, or applies the {@link #receiveOverflow(ReceiveOverflow)} policy, until
+		 * the receiver drains them below <code>lowWaterMark</code>. Default to 256KB and
+		 * 1MB or the {@code reactor.ipc.netty.receive.lowWaterMark} and
+		 * {@code reactor.ipc.netty.receive.highWaterMark} system properties.
+		 *
+		 * @param lowWaterMark the number of bytes below which reading resumes
+		 * (positive, lower than or equal to highWaterMark)
+		 * @param highWaterMark the number of bytes above which reading is suspended
+		 * (strictly positive)
+		 * @return {@code this}
+		 */
+		public final BUILDER receiveBufferWaterMark(int lowWaterMark, int highWaterMark) {
+			if (highWaterMark <= 0) {
+				throw new IllegalArgumentException("highWaterMark must be strictly positive, was: " + highWaterMark);
+			}
+			if (lowWaterMark < 0 || lowWaterMark > highWaterMark) {
+				throw new IllegalArgumentException("lowWaterMark must be positive and " +
+						"lower than or equal to highWaterMark, was: " + lowWaterMark);
+			}
+			this.receiveLowWaterMark = lowWaterMark;
+			this.receiveHighWaterMark = highWaterMark;
+			return get();
+		}
+
+		/**
+		 * Set the policy applied to inbound messages received while the receive buffer
+		 * is above its high water mark. Default to {@link ReceiveOverflow#BACKPRESSURE}.
+		 *
+		 * @param receiveOverflow the receive overflow policy
+		 * @return {@code this}
+		 * @see #receiveBufferWaterMark(int, int)
+		 */
+		public final BUILDER receiveOverflow(ReceiveOverflow receiveOverflow) {
+			this.receiveOverflow = Objects.requireNonNull(receiveOverflow, "receiveOverflow");
+			return get();
+		}
+
 		/**
 		 * Setup a callback called after each {@link Channel} initialization, once
 		 * reactor-netty pipeline handlers have been registered.
@@ -562,10 +759,38 @@ public abstract class NettyOptions<BOOTSTRAP extends AbstractBootstrap<BOOTSTRAP
 			this.sslHandshakeTimeoutMillis = options.sslHandshakeTimeoutMillis();
 			this.sslCloseNotifyFlushTimeoutMillis = options.sslCloseNotifyFlushTimeoutMillis();
 			this.sslCloseNotifyReadTimeoutMillis = options.sslCloseNotifyReadTimeoutMillis();
+			this.sendPrefetch = options.sendPrefetch();
+			this.sendReplenish = options.sendReplenish();
+			this.receiveLowWaterMark = options.receiveLowWaterMark();
+			this.receiveHighWaterMark = options.receiveHighWaterMark();
+			this.receiveOverflow = options.receiveOverflow();
 			this.afterChannelInit = options.afterChannelInit();
 			this.onChannelInit = options.onChannelInit();
 			this.afterNettyContextInit = options.afterNettyContextInit();
 			return get();
 		}
 	}
+
+	/**
+	 * The policy applied to inbound messages received while a connection receive buffer
+	 * is above its high water mark.
+	 */
+	public enum ReceiveOverflow {
+
+		/**
+		 * Buffer the message and stop reading until the receiver drains the buffer
+		 * below its low water mark (default).
+		 */
+		BACKPRESSURE,
+
+		/**
+		 * Release the message and terminate the receiver with an overflow error.
+		 */
+		ERROR,
+
+		/**
+		 * Release the message and keep reading, the dropped bytes are counted.
+		 */
+		DROP
+	}
 }
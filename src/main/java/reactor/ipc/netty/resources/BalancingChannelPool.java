@@ -0,0 +1,345 @@
+/*
+ * Copyright (c) 2011-2018 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.ipc.netty.resources;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.pool.ChannelPool;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.GenericFutureListener;
+import io.netty.util.concurrent.Promise;
+import reactor.core.Disposable;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.Logger;
+import reactor.util.Loggers;
+
+/**
+ * A {@link ChannelPool} spreading acquisitions over the pools of every address a
+ * remote address resolves to.
+ * <p>
+ * Each acquire selects one of the resolved addresses according to the
+ * {@link PoolResources.LoadBalancing} strategy, comparing their outstanding
+ * acquisitions, acquired or pending. An address failing to connect a number of
+ * consecutive times is ejected from the rotation for a time growing with its number
+ * of consecutive ejections. When every address is ejected, all of them are used again.
+ * <p>
+ * The addresses are resolved on creation and, optionally, periodically refreshed,
+ * on an elastic scheduler since the resolver may block. Until the first resolution
+ * completes, acquisitions use the remote address itself. Released channels go back
+ * to the pool of their address.
+ */
+final class BalancingChannelPool implements DeadlineChannelPool {
+
+	final DefaultPoolResources          parent;
+	final SocketAddress                 remoteAddress;
+	final Supplier<? extends Bootstrap> bootstrap;
+	final Consumer<? super Channel>     onChannelCreate;
+	final EventLoopGroup                group;
+	final Disposable                    refreshTask;
+
+	volatile Endpoint[] endpoints;
+
+	BalancingChannelPool(DefaultPoolResources parent,
+			SocketAddress remoteAddress,
+			Supplier<? extends Bootstrap> bootstrap,
+			Consumer<? super Channel> onChannelCreate,
+			EventLoopGroup group) {
+		this.parent = parent;
+		this.remoteAddress = remoteAddress;
+		this.bootstrap = bootstrap;
+		this.onChannelCreate = onChannelCreate;
+		this.group = group;
+		this.endpoints = new Endpoint[]{new Endpoint(remoteAddress)};
+		long refreshNanos = parent.addressRefreshNanos;
+		if (refreshNanos > 0) {
+			this.refreshTask = Schedulers.elastic()
+			                             .schedulePeriodically(this::refresh,
+					                             0L,
+					                             refreshNanos,
+					                             TimeUnit.NANOSECONDS);
+		}
+		else {
+			this.refreshTask = Schedulers.elastic()
+			                             .schedule(this::refresh);
+		}
+	}
+
+	@Override
+	public Future<Channel> acquire() {
+		return acquire(group.next().newPromise());
+	}
+
+	@Override
+	public Future<Channel> acquire(Promise<Channel> promise) {
+		return acquire(promise, -1L);
+	}
+
+	@Override
+	public Future<Channel> acquire(Instant deadline) {
+		return acquire(group.next().newPromise(), DefaultPoolResources.timeoutNanos(deadline));
+	}
+
+	/**
+	 * Acquire a channel from the pool of the selected address.
+	 *
+	 * @param promise the promise notified with the acquired channel
+	 * @param timeoutNanos the maximum time in nanos to wait, -1 to wait as long as
+	 * the selected pool does
+	 * @return the given promise
+	 */
+	Future<Channel> acquire(Promise<Channel> promise, long timeoutNanos) {
+		Endpoint endpoint = select();
+		promise.addListener(endpoint);
+		return endpoint.pool()
+		               .acquire(promise, timeoutNanos);
+	}
+
+	@Override
+	public Future<Void> release(Channel channel) {
+		return release(channel, channel.eventLoop().newPromise());
+	}
+
+	@Override
+	public Future<Void> release(Channel channel, Promise<Void> promise) {
+		DefaultPoolResources.Pool owner = channel.attr(DefaultPoolResources.OWNER).get();
+		if (owner == null) {
+			channel.close();
+			promise.tryFailure(new IllegalArgumentException("Channel " + channel +
+					" was not acquired from this ChannelPool"));
+			return promise;
+		}
+		return owner.release(channel, promise);
+	}
+
+	@Override
+	public void close() {
+		refreshTask.dispose();
+	}
+
+	/**
+	 * Select the address to acquire from, ignoring the ejected addresses unless all
+	 * of them are.
+	 *
+	 * @return the selected {@link Endpoint}
+	 */
+	Endpoint select() {
+		Endpoint[] endpoints = this.endpoints;
+		if (endpoints.length == 1) {
+			return endpoints[0];
+		}
+		long now = System.nanoTime();
+		if (parent.loadBalancing == PoolResources.LoadBalancing.POWER_OF_TWO_CHOICES) {
+			ThreadLocalRandom random = ThreadLocalRandom.current();
+			int a = random.nextInt(endpoints.length);
+			int b = random.nextInt(endpoints.length - 1);
+			if (b >= a) {
+				b++;
+			}
+			Endpoint first = endpoints[a];
+			Endpoint second = endpoints[b];
+			boolean firstAvailable = first.isAvailable(now);
+			boolean secondAvailable = second.isAvailable(now);
+			if (firstAvailable && secondAvailable) {
+				return first.outstanding() <= second.outstanding() ? first : second;
+			}
+			if (firstAvailable) {
+				return first;
+			}
+			if (secondAvailable) {
+				return second;
+			}
+		}
+		Endpoint selected = leastOutstanding(endpoints, now, true);
+		return selected != null ? selected : leastOutstanding(endpoints, now, false);
+	}
+
+	static Endpoint leastOutstanding(Endpoint[] endpoints, long now, boolean availableOnly) {
+		Endpoint selected = null;
+		int min = Integer.MAX_VALUE;
+		for (Endpoint endpoint : endpoints) {
+			if (availableOnly && !endpoint.isAvailable(now)) {
+				continue;
+			}
+			int outstanding = endpoint.outstanding();
+			if (outstanding < min) {
+				min = outstanding;
+				selected = endpoint;
+			}
+		}
+		return selected;
+	}
+
+	void refresh() {
+		Endpoint[] current = endpoints;
+		Endpoint[] refreshed = resolve(current);
+		if (refreshed != current) {
+			if (log.isDebugEnabled()) {
+				log.debug("Balancing {} over {} addresses", remoteAddress, refreshed.length);
+			}
+			endpoints = refreshed;
+		}
+	}
+
+	/**
+	 * Resolve the remote address, keeping the state of the addresses already known.
+	 *
+	 * @param current the current endpoints
+	 * @return the resolved endpoints or the current ones when unchanged or failing to
+	 * resolve
+	 */
+	Endpoint[] resolve(Endpoint[] current) {
+		List<? extends SocketAddress> addresses;
+		try {
+			addresses = parent.addressResolver.apply(remoteAddress);
+		}
+		catch (Throwable t) {
+			if (log.isDebugEnabled()) {
+				log.debug("Failed to resolve the addresses of {}", remoteAddress, t);
+			}
+			addresses = null;
+		}
+		if (addresses == null || addresses.isEmpty()) {
+			return current;
+		}
+		return resolved(current, addresses);
+	}
+
+	Endpoint[] resolved(Endpoint[] current, List<? extends SocketAddress> addresses) {
+		if (current.length == addresses.size()) {
+			boolean unchanged = true;
+			for (Endpoint endpoint : current) {
+				if (!addresses.contains(endpoint.address)) {
+					unchanged = false;
+					break;
+				}
+			}
+			if (unchanged) {
+				return current;
+			}
+		}
+		List<Endpoint> endpoints = new ArrayList<>(addresses.size());
+		for (SocketAddress address : addresses) {
+			Endpoint endpoint = null;
+			for (Endpoint e : current) {
+				if (e.address.equals(address)) {
+					endpoint = e;
+					break;
+				}
+			}
+			endpoints.add(endpoint != null ? endpoint : new Endpoint(address));
+		}
+		return endpoints.toArray(new Endpoint[0]);
+	}
+
+	@Override
+	public String toString() {
+		return "BalancingChannelPool{" + "remoteAddress=" + remoteAddress +
+				", addresses=" + endpoints.length + '}';
+	}
+
+	/**
+	 * A resolved address, its pool and its outlier detection state.
+	 */
+	final class Endpoint implements GenericFutureListener<Future<Channel>> {
+
+		final SocketAddress address;
+		final AtomicInteger consecutiveFailures = new AtomicInteger();
+
+		volatile DefaultPoolResources.Pool pool;
+		volatile long                      ejectedUntilNanos;
+		volatile int                       ejections;
+
+		Endpoint(SocketAddress address) {
+			this.address = address;
+		}
+
+		/**
+		 * Return the pool of this address, selecting a new one when the current pool
+		 * was disposed.
+		 *
+		 * @return the pool of this address
+		 */
+		DefaultPoolResources.Pool pool() {
+			DefaultPoolResources.Pool pool = this.pool;
+			if (pool == null || pool.get()) {
+				pool = parent.selectOrCreatePool(address, bootstrap, onChannelCreate, group);
+				this.pool = pool;
+			}
+			return pool;
+		}
+
+		/**
+		 * Return the acquired and pending connections of this address, without
+		 * creating its pool when not selected yet.
+		 *
+		 * @return the outstanding acquisitions
+		 */
+		int outstanding() {
+			DefaultPoolResources.Pool pool = this.pool;
+			if (pool == null || pool.get()) {
+				return 0;
+			}
+			return pool.activeConnections() + pool.pendingAcquires();
+		}
+
+		boolean isAvailable(long now) {
+			return ejections == 0 || now - ejectedUntilNanos >= 0;
+		}
+
+		@Override
+		public void operationComplete(Future<Channel> future) {
+			if (future.isSuccess()) {
+				consecutiveFailures.set(0);
+				ejections = 0;
+			}
+			// only connection failures denote an unhealthy address
+			else if (future.cause() instanceof IOException &&
+					consecutiveFailures.incrementAndGet() >= parent.outlierConsecutiveFailures) {
+				consecutiveFailures.set(0);
+				int ejections = Math.min(this.ejections + 1, MAX_EJECTION_MULTIPLIER);
+				this.ejectedUntilNanos = System.nanoTime() + parent.outlierEjectionNanos * ejections;
+				this.ejections = ejections;
+				if (log.isDebugEnabled()) {
+					log.debug("Ejecting {} of {} for {} ms after consecutive failures",
+							address, remoteAddress,
+							TimeUnit.NANOSECONDS.toMillis(parent.outlierEjectionNanos * ejections));
+				}
+			}
+		}
+
+		@Override
+		public String toString() {
+			return "Endpoint{" + "address=" + address + ", ejections=" + ejections + '}';
+		}
+	}
+
+	static final int MAX_EJECTION_MULTIPLIER = 10;
+
+	static final Logger log = Loggers.getLogger(BalancingChannelPool.class);
+}
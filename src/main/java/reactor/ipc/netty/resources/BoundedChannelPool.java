@@ -0,0 +1,265 @@
+/*
+ * Copyright (c) 2011-2018 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.ipc.netty.resources;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+import io.netty.channel.Channel;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.pool.ChannelPool;
+import io.netty.channel.pool.FixedChannelPool;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.Promise;
+
+/**
+ * A {@link ChannelPool} admitting at most a given number of acquired or being acquired
+ * channels into a delegate pool, such as a {@link FixedChannelPool} bounded by the same
+ * number, and queuing the other acquirers in front of it.
+ * <p>
+ * The delegate never queues acquirers itself, so a queued acquirer whose time is up is
+ * failed and dequeued rather than later handed a channel it cannot use. A permit is
+ * given back once the delegate released the channel or failed to acquire one.
+ */
+final class BoundedChannelPool implements TimedChannelPool {
+
+	final ChannelPool     pool;
+	final EventLoopGroup  group;
+	final int             maxConnections;
+	final long            acquireTimeout;
+	final Queue<Acquirer> acquirers;
+
+	volatile int permits;
+	volatile int wip;
+
+	volatile boolean closed;
+	volatile boolean purge;
+
+	/**
+	 * Create a new {@link BoundedChannelPool}.
+	 *
+	 * @param pool the delegate {@link ChannelPool}
+	 * @param group the {@link EventLoopGroup} scheduling the acquire timeouts
+	 * @param maxConnections the maximum number of acquired or being acquired channels
+	 * @param acquireTimeout the maximum time in millis an acquirer waits for a
+	 * channel, -1 to wait indefinitely
+	 */
+	BoundedChannelPool(ChannelPool pool,
+			EventLoopGroup group,
+			int maxConnections,
+			long acquireTimeout) {
+		this.pool = pool;
+		this.group = group;
+		this.maxConnections = maxConnections;
+		this.acquireTimeout = acquireTimeout;
+		this.permits = maxConnections;
+		this.acquirers = new ConcurrentLinkedQueue<>();
+	}
+
+	@Override
+	public Future<Channel> acquire() {
+		return acquire(group.next().newPromise());
+	}
+
+	@Override
+	public Future<Channel> acquire(Promise<Channel> promise) {
+		return acquire(promise, acquireTimeoutNanos());
+	}
+
+	@Override
+	public long acquireTimeoutNanos() {
+		return acquireTimeout >= 0 ? TimeUnit.MILLISECONDS.toNanos(acquireTimeout) : -1L;
+	}
+
+	@Override
+	public Future<Channel> acquire(Promise<Channel> promise, long timeoutNanos) {
+		if (closed) {
+			promise.tryFailure(new IllegalStateException("ChannelPool was closed"));
+			return promise;
+		}
+		// serve the queued acquirers first
+		if (acquirers.isEmpty() && tryAcquirePermit()) {
+			delegate(promise);
+			return promise;
+		}
+		Acquirer acquirer = new Acquirer(promise);
+		if (timeoutNanos >= 0) {
+			acquirer.timeout = group.next()
+			                        .schedule(acquirer, timeoutNanos, TimeUnit.NANOSECONDS);
+		}
+		acquirers.offer(acquirer);
+		drain();
+		return promise;
+	}
+
+	@Override
+	public Future<Void> release(Channel channel) {
+		return release(channel, channel.eventLoop().newPromise());
+	}
+
+	@Override
+	public Future<Void> release(Channel channel, Promise<Void> promise) {
+		pool.release(channel)
+		    .addListener(f -> {
+			    // a channel not acquired from the delegate does not hold a permit
+			    if (f.isSuccess() || !(f.cause() instanceof IllegalArgumentException)) {
+				    releasePermit();
+				    drain();
+			    }
+			    if (f.isSuccess()) {
+				    promise.trySuccess(null);
+			    }
+			    else {
+				    promise.tryFailure(f.cause());
+			    }
+		    });
+		return promise;
+	}
+
+	@Override
+	public void close() {
+		closed = true;
+		Acquirer acquirer;
+		while ((acquirer = acquirers.poll()) != null) {
+			acquirer.cancelTimeout();
+			acquirer.promise.tryFailure(new IllegalStateException("ChannelPool was closed"));
+		}
+		pool.close();
+	}
+
+	/**
+	 * Return the number of acquirers waiting for a permit.
+	 *
+	 * @return the number of pending acquirers
+	 */
+	int pendingAcquireSize() {
+		return acquirers.size();
+	}
+
+	boolean tryAcquirePermit() {
+		for (;;) {
+			int p = permits;
+			if (p <= 0) {
+				return false;
+			}
+			if (PERMITS.compareAndSet(this, p, p - 1)) {
+				return true;
+			}
+		}
+	}
+
+	void releasePermit() {
+		PERMITS.incrementAndGet(this);
+	}
+
+	void delegate(Promise<Channel> promise) {
+		Future<Channel> f;
+		try {
+			f = pool.acquire();
+		}
+		catch (Throwable t) {
+			releasePermit();
+			promise.tryFailure(t);
+			drain();
+			return;
+		}
+		f.addListener((Future<Channel> future) -> {
+			if (future.isSuccess()) {
+				if (!promise.trySuccess(future.getNow())) {
+					release(future.getNow());
+				}
+			}
+			else {
+				releasePermit();
+				promise.tryFailure(future.cause());
+				drain();
+			}
+		});
+	}
+
+	void drain() {
+		if (WIP.getAndIncrement(this) != 0) {
+			return;
+		}
+		int missed = 1;
+		for (;;) {
+			if (purge) {
+				purge = false;
+				acquirers.removeIf(a -> a.promise.isDone());
+			}
+			Acquirer acquirer;
+			while ((acquirer = acquirers.peek()) != null) {
+				if (acquirer.promise.isDone()) {
+					acquirers.poll();
+					continue;
+				}
+				if (!tryAcquirePermit()) {
+					break;
+				}
+				acquirers.poll();
+				acquirer.cancelTimeout();
+				delegate(acquirer.promise);
+			}
+			missed = WIP.addAndGet(this, -missed);
+			if (missed == 0) {
+				break;
+			}
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "BoundedChannelPool{" + "permits=" + permits + ", pending=" +
+				pendingAcquireSize() + ", pool=" + pool + '}';
+	}
+
+	final class Acquirer implements Runnable {
+
+		final Promise<Channel> promise;
+
+		Future<?> timeout;
+
+		Acquirer(Promise<Channel> promise) {
+			this.promise = promise;
+		}
+
+		void cancelTimeout() {
+			Future<?> timeout = this.timeout;
+			if (timeout != null) {
+				timeout.cancel(false);
+			}
+		}
+
+		@Override
+		public void run() {
+			if (promise.tryFailure(new TimeoutException("Acquire operation took " +
+					"longer then configured maximum time"))) {
+				purge = true;
+				drain();
+			}
+		}
+	}
+
+	static final AtomicIntegerFieldUpdater<BoundedChannelPool> PERMITS =
+			AtomicIntegerFieldUpdater.newUpdater(BoundedChannelPool.class, "permits");
+
+	static final AtomicIntegerFieldUpdater<BoundedChannelPool> WIP =
+			AtomicIntegerFieldUpdater.newUpdater(BoundedChannelPool.class, "wip");
+}
@@ -0,0 +1,410 @@
+/*
+ * Copyright (c) 2011-2018 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.ipc.netty.resources;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import io.netty.resolver.AddressResolver;
+import io.netty.resolver.AddressResolverGroup;
+import io.netty.resolver.HostsFileEntriesResolver;
+import io.netty.resolver.InetNameResolver;
+import io.netty.resolver.ResolvedAddressTypes;
+import io.netty.util.NetUtil;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.Promise;
+import io.netty.util.internal.PlatformDependent;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoProcessor;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.Logger;
+import reactor.util.Loggers;
+
+/**
+ * An {@link AddressResolverGroup} caching the addresses of each host name, to assign
+ * with {@link reactor.ipc.netty.options.ClientOptions.Builder#resolver(AddressResolverGroup)}.
+ * <p>
+ * IP literals and the entries of the hosts file are resolved immediately. Other host
+ * names are looked up off the event loops, by default with the JDK resolver on the
+ * {@link Schedulers#elastic() elastic} scheduler, concurrent lookups of a same host
+ * name sharing the same result. Resolved addresses are cached for a time to live, and
+ * looked up again in the background when used past their refresh time so frequently
+ * used host names never wait for a lookup. If a lookup fails, the expired addresses are
+ * still served up to their stale time to live.
+ *
+ * @since 0.7.8
+ */
+public final class CachingAddressResolverGroup extends AddressResolverGroup<InetSocketAddress> {
+
+	/**
+	 * Create a {@link Builder} to configure a {@link CachingAddressResolverGroup}.
+	 *
+	 * @return a new {@link Builder}
+	 */
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	final Function<? super String, ? extends Mono<List<InetAddress>>> lookup;
+	final HostsFileEntriesResolver                                     hostsFileEntriesResolver;
+	final long                                                         ttlNanos;
+	final long                                                         refreshAfterNanos;
+	final long                                                         staleTtlNanos;
+	final int                                                          maxEntries;
+
+	final ConcurrentMap<String, Entry>                                  cache;
+	final ConcurrentMap<String, MonoProcessor<List<InetAddress>>>       lookups;
+	final LatencyHistogram resolutionLatency = new LatencyHistogram();
+	final LongAdder        cacheHits         = new LongAdder();
+	final LongAdder        cacheMisses       = new LongAdder();
+	final LongAdder        staleResolutions  = new LongAdder();
+
+	CachingAddressResolverGroup(Builder builder) {
+		this.lookup = builder.lookup;
+		this.hostsFileEntriesResolver = builder.hostsFileEntriesResolver;
+		this.ttlNanos = builder.ttl.toNanos();
+		this.refreshAfterNanos = builder.refreshAfter != null ?
+				builder.refreshAfter.toNanos() : ttlNanos / 5 * 4;
+		this.staleTtlNanos = builder.staleTtl.toNanos();
+		this.maxEntries = builder.maxEntries;
+		this.cache = PlatformDependent.newConcurrentHashMap();
+		this.lookups = PlatformDependent.newConcurrentHashMap();
+	}
+
+	@Override
+	protected AddressResolver<InetSocketAddress> newResolver(EventExecutor executor) {
+		return new CachingNameResolver(executor).asAddressResolver();
+	}
+
+	/**
+	 * Resolve all the addresses of the given host name.
+	 *
+	 * @param inetHost the host name to resolve
+	 * @return a {@link Mono} of the resolved addresses
+	 */
+	public Mono<List<InetAddress>> resolveAll(String inetHost) {
+		return Mono.defer(() -> {
+			List<InetAddress> addresses = resolveNow(inetHost);
+			return addresses != null ? Mono.just(addresses) : lookup(inetHost);
+		});
+	}
+
+	/**
+	 * Return the latency of the host name lookups, cache hits excluded.
+	 *
+	 * @return the lookup latency histogram
+	 */
+	public LatencyHistogram resolutionLatency() {
+		return resolutionLatency;
+	}
+
+	/**
+	 * Return the number of resolutions served from the cache.
+	 *
+	 * @return the number of cache hits
+	 */
+	public long cacheHits() {
+		return cacheHits.sum();
+	}
+
+	/**
+	 * Return the number of resolutions waiting for a lookup.
+	 *
+	 * @return the number of cache misses
+	 */
+	public long cacheMisses() {
+		return cacheMisses.sum();
+	}
+
+	/**
+	 * Return the number of resolutions served with expired addresses because their
+	 * lookup failed.
+	 *
+	 * @return the number of stale resolutions
+	 */
+	public long staleResolutions() {
+		return staleResolutions.sum();
+	}
+
+	@Override
+	public void close() {
+		super.close();
+		cache.clear();
+	}
+
+	/**
+	 * Return the addresses of the given host name available without lookup, or null.
+	 *
+	 * @param inetHost the host name to resolve
+	 * @return the addresses or null if a lookup is required
+	 */
+	List<InetAddress> resolveNow(String inetHost) {
+		byte[] bytes = NetUtil.createByteArrayFromIpAddressString(inetHost);
+		if (bytes != null) {
+			try {
+				return Collections.singletonList(InetAddress.getByAddress(bytes));
+			}
+			catch (UnknownHostException e) {
+				// cannot happen with a valid IP address length
+				throw new IllegalStateException(e);
+			}
+		}
+		if (hostsFileEntriesResolver != null) {
+			InetAddress address = hostsFileEntriesResolver.address(inetHost,
+					ResolvedAddressTypes.IPV4_PREFERRED);
+			if (address != null) {
+				return Collections.singletonList(address);
+			}
+		}
+		Entry entry = cache.get(inetHost);
+		if (entry == null) {
+			return null;
+		}
+		long now = System.nanoTime();
+		if (now - entry.expiresAt >= 0) {
+			return null;
+		}
+		cacheHits.increment();
+		if (now - entry.refreshAt >= 0 && entry.compareAndSet(false, true)) {
+			if (log.isDebugEnabled()) {
+				log.debug("Refreshing the addresses of {}", inetHost);
+			}
+			lookup(inetHost).subscribe(null, e -> {});
+		}
+		return entry.addresses;
+	}
+
+	Mono<List<InetAddress>> lookup(String inetHost) {
+		MonoProcessor<List<InetAddress>> processor = MonoProcessor.create();
+		MonoProcessor<List<InetAddress>> pending = lookups.putIfAbsent(inetHost, processor);
+		if (pending != null) {
+			return pending;
+		}
+		cacheMisses.increment();
+		long start = System.nanoTime();
+		Mono<List<InetAddress>> lookup;
+		try {
+			lookup = Objects.requireNonNull(this.lookup.apply(inetHost), "lookup");
+		}
+		catch (Throwable t) {
+			lookup = Mono.error(t);
+		}
+		// an empty lookup result is a failure, never handed out to resolvers
+		lookup.filter(addresses -> !addresses.isEmpty())
+		      .switchIfEmpty(Mono.defer(() -> Mono.error(new UnknownHostException(inetHost))))
+		      .subscribe(addresses -> {
+			      long now = System.nanoTime();
+			      resolutionLatency.record(now - start);
+			      cache(inetHost, addresses, now);
+			      lookups.remove(inetHost, processor);
+			      processor.onNext(addresses);
+		      }, e -> {
+			      resolutionLatency.record(System.nanoTime() - start);
+			      lookups.remove(inetHost, processor);
+			      Entry stale = cache.get(inetHost);
+			      if (stale != null && System.nanoTime() - stale.staleUntil < 0) {
+				      if (log.isDebugEnabled()) {
+					      log.debug("Failed to look up {}, serving stale addresses", inetHost, e);
+				      }
+				      staleResolutions.increment();
+				      processor.onNext(stale.addresses);
+			      }
+			      else {
+				      processor.onError(e);
+			      }
+		      });
+		return processor;
+	}
+
+	void cache(String inetHost, List<InetAddress> addresses, long now) {
+		if (cache.size() >= maxEntries && !cache.containsKey(inetHost)) {
+			cache.values()
+			     .removeIf(entry -> now - entry.staleUntil >= 0);
+			if (cache.size() >= maxEntries) {
+				return;
+			}
+		}
+		cache.put(inetHost, new Entry(addresses, now, this));
+	}
+
+	static final class Entry extends AtomicBoolean {
+
+		final List<InetAddress> addresses;
+		final long              refreshAt;
+		final long              expiresAt;
+		final long              staleUntil;
+
+		Entry(List<InetAddress> addresses, long now, CachingAddressResolverGroup group) {
+			this.addresses = Collections.unmodifiableList(addresses);
+			this.refreshAt = now + group.refreshAfterNanos;
+			this.expiresAt = now + group.ttlNanos;
+			this.staleUntil = expiresAt + group.staleTtlNanos;
+		}
+	}
+
+	final class CachingNameResolver extends InetNameResolver {
+
+		CachingNameResolver(EventExecutor executor) {
+			super(executor);
+		}
+
+		@Override
+		protected void doResolve(String inetHost, Promise<InetAddress> promise) {
+			List<InetAddress> addresses = resolveNow(inetHost);
+			if (addresses != null) {
+				promise.trySuccess(addresses.get(0));
+				return;
+			}
+			lookup(inetHost).subscribe(a -> promise.trySuccess(a.get(0)), promise::tryFailure);
+		}
+
+		@Override
+		protected void doResolveAll(String inetHost, Promise<List<InetAddress>> promise) {
+			List<InetAddress> addresses = resolveNow(inetHost);
+			if (addresses != null) {
+				promise.trySuccess(addresses);
+				return;
+			}
+			lookup(inetHost).subscribe(promise::trySuccess, promise::tryFailure);
+		}
+	}
+
+	/**
+	 * A {@link CachingAddressResolverGroup} builder.
+	 */
+	public static final class Builder {
+
+		Duration ttl          = Duration.ofSeconds(30);
+		Duration refreshAfter;
+		Duration staleTtl     = Duration.ofMinutes(1);
+		int      maxEntries   = 4096;
+
+		HostsFileEntriesResolver hostsFileEntriesResolver = HostsFileEntriesResolver.DEFAULT;
+
+		Function<? super String, ? extends Mono<List<InetAddress>>> lookup =
+				CachingAddressResolverGroup::jdkLookup;
+
+		Builder() {
+		}
+
+		/**
+		 * Set the time the addresses of a host name are cached. Default to 30 seconds.
+		 *
+		 * @param ttl the addresses time to live
+		 * @return {@code this}
+		 */
+		public Builder ttl(Duration ttl) {
+			this.ttl = PoolResources.Builder.validate(ttl, "ttl");
+			return this;
+		}
+
+		/**
+		 * Set the time after which cached addresses still in use are looked up again
+		 * in the background. Default to 80% of the {@link #ttl(Duration) time to live}.
+		 *
+		 * @param refreshAfter the time after which cached addresses are refreshed
+		 * @return {@code this}
+		 */
+		public Builder refreshAfter(Duration refreshAfter) {
+			this.refreshAfter = PoolResources.Builder.validate(refreshAfter, "refreshAfter");
+			return this;
+		}
+
+		/**
+		 * Set the time expired addresses are still served when their lookup fails.
+		 * Default to 1 minute.
+		 *
+		 * @param staleTtl the expired addresses time to live
+		 * @return {@code this}
+		 */
+		public Builder staleTtl(Duration staleTtl) {
+			this.staleTtl = PoolResources.Builder.validate(staleTtl, "staleTtl");
+			return this;
+		}
+
+		/**
+		 * Set the maximum number of cached host names. Default to 4096.
+		 *
+		 * @param maxEntries the maximum number of cached host names
+		 * @return {@code this}
+		 */
+		public Builder maxEntries(int maxEntries) {
+			if (maxEntries <= 0) {
+				throw new IllegalArgumentException("maxEntries must be strictly positive, " +
+						"was: " + maxEntries);
+			}
+			this.maxEntries = maxEntries;
+			return this;
+		}
+
+		/**
+		 * Set the {@link HostsFileEntriesResolver} consulted before the cache, null to
+		 * disable. Default to the system hosts file.
+		 *
+		 * @param hostsFileEntriesResolver the hosts file resolver
+		 * @return {@code this}
+		 */
+		public Builder hostsFileEntriesResolver(HostsFileEntriesResolver hostsFileEntriesResolver) {
+			this.hostsFileEntriesResolver = hostsFileEntriesResolver;
+			return this;
+		}
+
+		/**
+		 * Set the function looking up the addresses of a host name on cache misses
+		 * and refreshes. Default to the JDK resolver, on the
+		 * {@link Schedulers#elastic() elastic} scheduler.
+		 *
+		 * @param lookup the function returning a {@link Mono} of the addresses of a
+		 * host name
+		 * @return {@code this}
+		 */
+		public Builder lookup(Function<? super String, ? extends Mono<List<InetAddress>>> lookup) {
+			this.lookup = Objects.requireNonNull(lookup, "lookup");
+			return this;
+		}
+
+		/**
+		 * Build a new {@link CachingAddressResolverGroup}.
+		 *
+		 * @return a new {@link CachingAddressResolverGroup}
+		 */
+		public CachingAddressResolverGroup build() {
+			if (refreshAfter != null && refreshAfter.compareTo(ttl) > 0) {
+				throw new IllegalArgumentException("refreshAfter must be lower than or " +
+						"equal to ttl, was: " + refreshAfter);
+			}
+			return new CachingAddressResolverGroup(this);
+		}
+	}
+
+	static Mono<List<InetAddress>> jdkLookup(String inetHost) {
+		return Mono.fromCallable(() -> Arrays.asList(InetAddress.getAllByName(inetHost)))
+		           .subscribeOn(Schedulers.elastic());
+	}
+
+	static final Logger log = Loggers.getLogger(CachingAddressResolverGroup.class);
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2011-2018 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.ipc.netty.resources;
+
+import java.time.Instant;
+
+import io.netty.channel.Channel;
+import io.netty.channel.pool.ChannelPool;
+import io.netty.util.concurrent.Future;
+import reactor.util.context.Context;
+
+/**
+ * A {@link ChannelPool} able to fail an acquisition still pending past a deadline,
+ * such as the {@link PoolResources#ACQUIRE_DEADLINE} of a subscriber
+ * {@link Context}.
+ *
+ * @since 0.7.8
+ */
+public interface DeadlineChannelPool extends ChannelPool {
+
+	/**
+	 * Acquire a channel from the given {@link ChannelPool}, honoring the
+	 * {@link PoolResources#ACQUIRE_DEADLINE} found in the given {@link Context} when
+	 * the pool is a {@link DeadlineChannelPool}.
+	 *
+	 * @param pool the {@link ChannelPool} to acquire from
+	 * @param context the subscriber {@link Context} of the acquisition
+	 *
+	 * @return a {@link Future} of the acquired channel
+	 */
+	static Future<Channel> acquire(ChannelPool pool, Context context) {
+		Instant deadline = context.getOrDefault(PoolResources.ACQUIRE_DEADLINE, null);
+		if (deadline != null && pool instanceof DeadlineChannelPool) {
+			return ((DeadlineChannelPool) pool).acquire(deadline);
+		}
+		return pool.acquire();
+	}
+
+	/**
+	 * Acquire a channel before the given deadline. An acquisition pending past its
+	 * deadline is failed with a {@link java.util.concurrent.TimeoutException}, and a
+	 * channel obtained after that is released back to the pool.
+	 *
+	 * @param deadline the instant after which the acquisition fails
+	 *
+	 * @return a {@link Future} of the acquired channel
+	 */
+	Future<Channel> acquire(Instant deadline);
+}
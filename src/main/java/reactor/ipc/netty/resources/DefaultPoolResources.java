@@ -16,12 +16,28 @@
 
 package reactor.ipc.netty.resources;
 
+import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.net.SocketAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.function.Supplier;
 
 import io.netty.bootstrap.Bootstrap;
@@ -33,9 +49,14 @@ import io.netty.channel.pool.ChannelPoolHandler;
 import io.netty.util.AttributeKey;
 import io.netty.util.concurrent.Future;
 import io.netty.util.concurrent.GenericFutureListener;
+import io.netty.util.concurrent.ImmediateEventExecutor;
 import io.netty.util.concurrent.Promise;
+import io.netty.util.concurrent.ScheduledFuture;
 import io.netty.util.internal.PlatformDependent;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoProcessor;
+import reactor.ipc.netty.FutureMono;
 import reactor.ipc.netty.NettyPipeline;
 import reactor.util.Logger;
 import reactor.util.Loggers;
@@ -55,11 +76,56 @@ final class DefaultPoolResources implements PoolResources {
 	final ConcurrentMap<SocketAddressHolder, Pool> channelPools;
 	final String                             name;
 	final PoolFactory                        provider;
+	final long                               maxIdleTimeNanos;
+	final long                               maxLifeTimeNanos;
+	final long                               evictionIntervalNanos;
+	final PoolMetricsRecorder                metricsRecorder;
+	final int                                maxConnections;
+	final int                                minIdle;
+	final int                                maxPendingAcquires;
+	final long                               poolInactivityNanos;
+	final int                                maxPools;
+	final LongAdder                          createdPools = new LongAdder();
+	final LongAdder                          disposedPools = new LongAdder();
+	final PoolResources.LoadBalancing        loadBalancing;
+	final long                               addressRefreshNanos;
+	final int                                outlierConsecutiveFailures;
+	final long                               outlierEjectionNanos;
+
+	final Function<? super SocketAddress, ? extends List<? extends SocketAddress>> addressResolver;
+
+	final ConcurrentMap<SocketAddressHolder, BalancingChannelPool> balancedPools;
+
+	final ConcurrentMap<SocketAddressHolder, PendingWarmup> pendingWarmups;
 
 	DefaultPoolResources(String name, PoolFactory provider) {
-		this.name = name;
+		this(PoolResources.builder(name), provider);
+	}
+
+	DefaultPoolResources(PoolResources.Builder builder, PoolFactory provider) {
+		this.name = builder.name;
 		this.provider = provider;
+		this.maxIdleTimeNanos = builder.maxIdleTime != null ? builder.maxIdleTime.toNanos() : -1L;
+		this.maxLifeTimeNanos = builder.maxLifeTime != null ? builder.maxLifeTime.toNanos() : -1L;
+		this.evictionIntervalNanos = builder.evictionInterval != null ?
+				builder.evictionInterval.toNanos() : -1L;
+		this.metricsRecorder = builder.metricsRecorder;
+		this.maxConnections = builder.maxConnections;
+		this.minIdle = builder.minIdle;
+		this.maxPendingAcquires = builder.maxPendingAcquires;
+		this.poolInactivityNanos = builder.poolInactivityTimeout != null ?
+				builder.poolInactivityTimeout.toNanos() : -1L;
+		this.maxPools = builder.maxPools;
+		this.loadBalancing = builder.loadBalancing;
+		this.addressResolver = builder.addressResolver != null ? builder.addressResolver :
+				DefaultPoolResources::resolveAll;
+		this.addressRefreshNanos = builder.addressRefreshInterval != null ?
+				builder.addressRefreshInterval.toNanos() : -1L;
+		this.outlierConsecutiveFailures = builder.outlierConsecutiveFailures;
+		this.outlierEjectionNanos = builder.outlierEjectionTime.toNanos();
+		this.balancedPools = PlatformDependent.newConcurrentHashMap();
 		this.channelPools = PlatformDependent.newConcurrentHashMap();
+		this.pendingWarmups = PlatformDependent.newConcurrentHashMap();
 	}
 
 	@Override
@@ -67,53 +133,523 @@ final class DefaultPoolResources implements PoolResources {
 			Supplier<? extends Bootstrap> bootstrap,
 			Consumer<? super Channel> onChannelCreate,
 			EventLoopGroup group) {
+		if (loadBalancing == null) {
+			return selectOrCreatePool(remote, bootstrap, onChannelCreate, group);
+		}
+		SocketAddressHolder holder = new SocketAddressHolder(remote);
+		BalancingChannelPool pool = balancedPools.get(holder);
+		if (pool != null) {
+			return pool;
+		}
+		if (log.isDebugEnabled()) {
+			log.debug("New {} balancing client pool for {}", name, remote);
+		}
+		pool = new BalancingChannelPool(this, remote, bootstrap, onChannelCreate, group);
+		BalancingChannelPool existing = balancedPools.putIfAbsent(holder, pool);
+		if (existing != null) {
+			pool.close();
+			return existing;
+		}
+		return pool;
+	}
+
+	/**
+	 * Return the existing or new pool of a single remote address.
+	 *
+	 * @param remote the remote address
+	 * @param bootstrap the {@link Bootstrap} supplier if the pool must be created
+	 * @param onChannelCreate callback only when new connection is made
+	 * @param group the pool event loop group
+	 * @return the pool of the remote address
+	 */
+	Pool selectOrCreatePool(SocketAddress remote,
+			Supplier<? extends Bootstrap> bootstrap,
+			Consumer<? super Channel> onChannelCreate,
+			EventLoopGroup group) {
 		SocketAddressHolder holder = new SocketAddressHolder(remote);
 		for (; ; ) {
 			Pool pool = channelPools.get(holder);
 			if (pool != null) {
-				return pool;
+				if (pool.pendingAcquires.get() >= 0) {
+					return pool;
+				}
+				// disposed but not yet unmapped
+				channelPools.remove(holder, pool);
+				continue;
 			}
 			if (log.isDebugEnabled()) {
 				log.debug("New {} client pool for {}", name, remote);
 			}
-			pool = new Pool(bootstrap.get().remoteAddress(remote), provider, onChannelCreate, group);
+			pool = new Pool(this, remote, bootstrap.get().remoteAddress(remote), onChannelCreate, group);
 			if (channelPools.putIfAbsent(holder, pool) == null) {
+				createdPools.increment();
+				if (maxPools != -1 && channelPools.size() > maxPools) {
+					disposeLeastRecentlyUsed(pool);
+				}
+				if (metricsRecorder != null) {
+					pool.registered = true;
+					metricsRecorder.registerPool(name, pool);
+				}
+				PendingWarmup warmup = pendingWarmups.remove(holder);
+				if (warmup != null) {
+					pool.warmup(warmup.connections)
+					    .subscribe(warmup.processor);
+				}
+				pool.ensureMinIdle();
 				return pool;
 			}
 			pool.close();
 		}
 	}
 
+	/**
+	 * Dispose the least recently used pool other than the given one, skipping pools
+	 * with acquired connections or pending acquisitions.
+	 *
+	 * @param created the pool just created
+	 */
+	void disposeLeastRecentlyUsed(Pool created) {
+		Pool lru = null;
+		for (Pool pool : channelPools.values()) {
+			if (pool != created && pool.isUnused() &&
+					(lru == null || pool.lastActiveNanos - lru.lastActiveNanos < 0)) {
+				lru = pool;
+			}
+		}
+		if (lru != null && lru.tryDispose()) {
+			if (log.isDebugEnabled()) {
+				log.debug("Disposed {} client pool for {}, more than {} pools",
+						name, lru.remoteAddress, maxPools);
+			}
+		}
+		else if (log.isDebugEnabled()) {
+			log.debug("All {} client pools are in use, exceeding {} pools", name, maxPools);
+		}
+	}
+
+	@Override
+	public Mono<Integer> warmup(SocketAddress address, int connections) {
+		if (connections <= 0) {
+			return Mono.error(new IllegalArgumentException("connections must be " +
+					"strictly positive, was: " + connections));
+		}
+		return Mono.defer(() -> {
+			SocketAddressHolder holder = new SocketAddressHolder(address);
+			Pool pool = channelPools.get(holder);
+			if (pool != null) {
+				return pool.warmup(connections);
+			}
+			PendingWarmup warmup = pendingWarmups.compute(holder,
+					(k, pending) -> pending == null ? new PendingWarmup(connections) :
+							pending.merge(connections));
+			// the pool may have been created concurrently
+			pool = channelPools.get(holder);
+			if (pool != null && pendingWarmups.remove(holder, warmup)) {
+				pool.warmup(warmup.connections)
+				    .subscribe(warmup.processor);
+			}
+			else if (log.isDebugEnabled()) {
+				log.debug("Deferring warmup of {} connections to {} until its pool is created",
+						warmup.connections, address);
+			}
+			return warmup.processor;
+		});
+	}
+
+	static final class PendingWarmup {
+
+		final int                     connections;
+		final MonoProcessor<Integer> processor;
+
+		PendingWarmup(int connections) {
+			this(connections, MonoProcessor.create());
+		}
+
+		PendingWarmup(int connections, MonoProcessor<Integer> processor) {
+			this.connections = connections;
+			this.processor = processor;
+		}
+
+		PendingWarmup merge(int connections) {
+			return connections > this.connections ?
+					new PendingWarmup(connections, processor) : this;
+		}
+	}
+
 	final static class Pool extends AtomicBoolean
-			implements ChannelPoolHandler, ChannelPool, ChannelHealthChecker,
-			           GenericFutureListener<Future<Channel>> {
+			implements ChannelPoolHandler, DeadlineChannelPool, ChannelHealthChecker,
+			           GenericFutureListener<Future<Channel>>, PoolMetrics {
 
 		final ChannelPool               pool;
+		final String                    poolName;
+		final SocketAddress             remoteAddress;
 		final Consumer<? super Channel> onChannelCreate;
 		final EventLoopGroup            defaultGroup;
+		final long                      maxIdleTimeNanos;
+		final long                      maxLifeTimeNanos;
+		final PoolMetricsRecorder       metricsRecorder;
+		final int                       maxConnections;
+		final int                       minIdle;
+		final int                       maxPendingAcquires;
+		final DefaultPoolResources      parent;
+		final Bootstrap                 bootstrap;
 
-		final AtomicInteger activeConnections = new AtomicInteger();
+		final AtomicInteger    activeConnections  = new AtomicInteger();
+		final AtomicInteger    openConnections    = new AtomicInteger();
+		final AtomicInteger    pendingAcquires    = new AtomicInteger();
+		final AtomicInteger    warmingUp          = new AtomicInteger();
+		final AtomicBoolean    minIdleScheduled   = new AtomicBoolean();
+		final LongAdder        evictedConnections = new LongAdder();
+		final LatencyHistogram acquireLatency     = new LatencyHistogram();
+		final LatencyHistogram connectLatency     = new LatencyHistogram();
+
+		/**
+		 * Released channels not yet acquired again, only tracked when a background
+		 * sweep runs over a pool not exposing its idle channels.
+		 */
+		final Set<Channel>          idleChannels;
+		final ScheduledFuture<?>    evictionTask;
+		final ScheduledFuture<?>    inactivityTask;
 
 		final Future<Boolean> HEALTHY;
 		final Future<Boolean> UNHEALTHY;
 
-		@SuppressWarnings("unchecked")
+		boolean registered;
+
+		volatile long minIdleRetryNanos;
+		volatile long lastActiveNanos;
+
 		Pool(Bootstrap bootstrap,
 				PoolFactory provider,
 				Consumer<? super Channel> onChannelCreate,
 				EventLoopGroup group) {
-			this.pool = provider.newPool(bootstrap, this, this);
+			this(new DefaultPoolResources("pool", provider),
+					bootstrap.config().remoteAddress(),
+					bootstrap,
+					onChannelCreate,
+					group);
+		}
+
+		@SuppressWarnings("unchecked")
+		Pool(DefaultPoolResources parent,
+				SocketAddress remoteAddress,
+				Bootstrap bootstrap,
+				Consumer<? super Channel> onChannelCreate,
+				EventLoopGroup group) {
+			this.pool = parent.provider.newPool(bootstrap, this, this);
+			this.poolName = parent.name;
+			this.remoteAddress = remoteAddress;
 			this.onChannelCreate = onChannelCreate;
 			this.defaultGroup = group;
+			this.maxIdleTimeNanos = parent.maxIdleTimeNanos;
+			this.maxLifeTimeNanos = parent.maxLifeTimeNanos;
+			this.metricsRecorder = parent.metricsRecorder;
+			this.maxConnections = parent.maxConnections;
+			this.minIdle = parent.minIdle;
+			this.maxPendingAcquires = parent.maxPendingAcquires;
+			this.parent = parent;
+			this.bootstrap = bootstrap;
+			this.minIdleRetryNanos = System.nanoTime();
+			this.lastActiveNanos = minIdleRetryNanos;
+			long evictionIntervalNanos = parent.evictionIntervalNanos;
 			HEALTHY = group.next()
 			               .newSucceededFuture(true);
 			UNHEALTHY = group.next()
 			                 .newSucceededFuture(false);
+
+			if (evictionIntervalNanos > 0 && (maxIdleTimeNanos >= 0 || maxLifeTimeNanos >= 0)) {
+				this.idleChannels = pool instanceof EventLoopChannelPool ? null :
+						ConcurrentHashMap.newKeySet();
+				this.evictionTask = group.next()
+				                         .scheduleAtFixedRate(this::evictExpired,
+						                         evictionIntervalNanos,
+						                         evictionIntervalNanos,
+						                         TimeUnit.NANOSECONDS);
+			}
+			else {
+				this.idleChannels = null;
+				this.evictionTask = null;
+			}
+
+			long inactivityNanos = parent.poolInactivityNanos;
+			if (inactivityNanos > 0) {
+				this.inactivityTask = group.next()
+				                           .scheduleAtFixedRate(() -> disposeIfInactive(inactivityNanos),
+						                           inactivityNanos,
+						                           inactivityNanos,
+						                           TimeUnit.NANOSECONDS);
+			}
+			else {
+				this.inactivityTask = null;
+			}
+		}
+
+		/**
+		 * Return true if no connection is acquired, being acquired or warming up.
+		 *
+		 * @return true if this pool is unused
+		 */
+		boolean isUnused() {
+			return activeConnections.get() == 0 && pendingAcquires.get() == 0 &&
+					warmingUp.get() == 0;
+		}
+
+		void disposeIfInactive(long inactivityNanos) {
+			if (isUnused() && System.nanoTime() - lastActiveNanos >= inactivityNanos &&
+					tryDispose() && log.isDebugEnabled()) {
+				log.debug("Disposed inactive {} client pool for {}", poolName, remoteAddress);
+			}
+		}
+
+		/**
+		 * Remove this unused pool from its parent and close it. Acquisitions racing
+		 * with the disposal are redirected to a new pool for the same address.
+		 *
+		 * @return true if the pool was disposed
+		 */
+		boolean tryDispose() {
+			if (activeConnections.get() != 0 || !pendingAcquires.compareAndSet(0, DISPOSED)) {
+				return false;
+			}
+			// from now on, acquisitions observe a negative pending count and the pool
+			// is never mapped again, so a replacement cannot be shadowed
+			parent.channelPools.remove(new SocketAddressHolder(remoteAddress), this);
+			parent.disposedPools.increment();
+			// otherwise an acquisition completed just before the CAS, the pool is closed
+			// when that channel is released
+			if (activeConnections.get() == 0) {
+				close();
+			}
+			return true;
 		}
 
 		@Override
 		public Future<Boolean> isHealthy(Channel channel) {
-			return channel.isActive() ? HEALTHY : UNHEALTHY;
+			if (!channel.isActive()) {
+				return UNHEALTHY;
+			}
+			if (isExpired(channel, System.nanoTime())) {
+				evict(channel);
+				return UNHEALTHY;
+			}
+			// an idle channel claimed by the background sweep is being evicted
+			if (idleChannels != null && channel.attr(RELEASED_AT).get() != null &&
+					!idleChannels.remove(channel)) {
+				return UNHEALTHY;
+			}
+			return HEALTHY;
+		}
+
+		/**
+		 * Return true if the given channel exceeded its max life time or, when idle,
+		 * its max idle time.
+		 *
+		 * @param channel the pooled channel
+		 * @param now the current {@link System#nanoTime()}
+		 * @return true if the channel must be evicted
+		 */
+		boolean isExpired(Channel channel, long now) {
+			if (maxLifeTimeNanos >= 0) {
+				Long createdAt = channel.attr(CREATED_AT).get();
+				if (createdAt != null && now - createdAt >= maxLifeTimeNanos) {
+					return true;
+				}
+			}
+			if (maxIdleTimeNanos >= 0) {
+				Long releasedAt = channel.attr(RELEASED_AT).get();
+				return releasedAt != null && now - releasedAt >= maxIdleTimeNanos;
+			}
+			return false;
+		}
+
+		void evict(Channel channel) {
+			onEvict(channel);
+			channel.close();
+		}
+
+		void onEvict(Channel channel) {
+			evictedConnections.increment();
+			if (log.isDebugEnabled()) {
+				log.debug("Evicting expired pooled channel {}", channel.toString());
+			}
+		}
+
+		/**
+		 * Close the idle channels that exceeded their max idle or life time, run
+		 * periodically on the pool {@link EventLoopGroup}.
+		 */
+		void evictExpired() {
+			long now = System.nanoTime();
+			if (pool instanceof EventLoopChannelPool) {
+				((EventLoopChannelPool) pool).evictIdle(ch -> isExpired(ch, now), this::onEvict);
+			}
+			else if (idleChannels != null) {
+				for (Channel ch : idleChannels) {
+					if (!ch.isActive()) {
+						idleChannels.remove(ch);
+					}
+					else if (isExpired(ch, now) && idleChannels.remove(ch)) {
+						evict(ch);
+					}
+				}
+			}
+		}
+
+		@Override
+		public SocketAddress remoteAddress() {
+			return remoteAddress;
+		}
+
+		@Override
+		public int activeConnections() {
+			return activeConnections.get();
+		}
+
+		@Override
+		public int idleConnections() {
+			return Math.max(0, openConnections.get() - activeConnections.get());
+		}
+
+		@Override
+		public int pendingAcquires() {
+			// the counter is negative once disposed
+			return Math.max(0, pendingAcquires.get());
+		}
+
+		@Override
+		public int warmingUpConnections() {
+			return warmingUp.get();
+		}
+
+		@Override
+		public long evictedConnections() {
+			return evictedConnections.sum();
+		}
+
+		@Override
+		public LatencyHistogram acquireLatency() {
+			return acquireLatency;
+		}
+
+		@Override
+		public LatencyHistogram connectLatency() {
+			return connectLatency;
+		}
+
+		/**
+		 * Acquire the given number of channels in parallel, opening new connections
+		 * when not enough are idle, then release them all to the pool.
+		 *
+		 * @param connections the number of channels to make available
+		 * @return a {@link Mono} of the number of newly opened connections
+		 */
+		Mono<Integer> warmup(int connections) {
+			return Mono.create(sink -> {
+				int n = connections;
+				if (maxConnections != -1) {
+					n = Math.min(n, maxConnections - activeConnections.get());
+				}
+				if (n <= 0 || get()) {
+					sink.success(0);
+					return;
+				}
+				if (log.isDebugEnabled()) {
+					log.debug("Warming up {} connections to {}", n, remoteAddress);
+				}
+				long start = System.nanoTime();
+				Channel[] channels = new Channel[n];
+				AtomicInteger remaining = new AtomicInteger(n);
+				AtomicInteger created = new AtomicInteger();
+				AtomicReference<Throwable> error = new AtomicReference<>();
+				warmingUp.addAndGet(n);
+				for (int i = 0; i < n; i++) {
+					int index = i;
+					Promise<Channel> promise = defaultGroup.next().newPromise();
+					promise.addListener(this);
+					promise.addListener((Future<Channel> f) -> {
+						warmingUp.decrementAndGet();
+						if (f.isSuccess()) {
+							Channel ch = f.getNow();
+							channels[index] = ch;
+							Long createdAt = ch.attr(CREATED_AT).get();
+							if (createdAt != null && createdAt - start >= 0) {
+								created.incrementAndGet();
+							}
+						}
+						else {
+							error.compareAndSet(null, f.cause());
+						}
+						if (remaining.decrementAndGet() == 0) {
+							Flux.fromArray(channels)
+							    .filter(Objects::nonNull)
+							    .flatMap(ch -> FutureMono.from(release(ch)))
+							    .subscribe(null, sink::error, () -> {
+								    if (log.isDebugEnabled()) {
+									    log.debug("Warmed up {} new connections to {}",
+											    created, remoteAddress);
+								    }
+								    Throwable e = error.get();
+								    if (e != null && created.get() == 0) {
+									    sink.error(e);
+								    }
+								    else {
+									    sink.success(created.get());
+								    }
+							    });
+						}
+					});
+					pool.acquire(promise);
+				}
+			});
+		}
+
+		/**
+		 * Open new connections in the background when the idle connections are below
+		 * the configured minimum.
+		 */
+		void ensureMinIdle() {
+			if (minIdle <= 0 || get()) {
+				return;
+			}
+			long backoff = minIdleRetryNanos - System.nanoTime();
+			if (backoff > 0) {
+				scheduleMinIdle(backoff);
+				return;
+			}
+			int idle = idleConnections();
+			int deficit = minIdle - idle - warmingUp.get();
+			if (deficit > 0) {
+				warmup(idle + deficit).subscribe(null, e -> {
+					if (log.isDebugEnabled()) {
+						log.debug("Failed to maintain {} idle connections to {}",
+								minIdle, remoteAddress, e);
+					}
+					// do not reconnect in a tight loop while the remote is unreachable
+					minIdleRetryNanos = System.nanoTime() + MIN_IDLE_RETRY_NANOS;
+					scheduleMinIdle(MIN_IDLE_RETRY_NANOS);
+				});
+			}
+		}
+
+		void scheduleMinIdle() {
+			scheduleMinIdle(0L);
+		}
+
+		void scheduleMinIdle(long delayNanos) {
+			if (minIdle > 0 && !get() && minIdleScheduled.compareAndSet(false, true)) {
+				Runnable task = () -> {
+					minIdleScheduled.set(false);
+					ensureMinIdle();
+				};
+				if (delayNanos > 0) {
+					defaultGroup.next()
+					            .schedule(task, delayNanos, TimeUnit.NANOSECONDS);
+				}
+				else {
+					defaultGroup.next()
+					            .execute(task);
+				}
+			}
 		}
 
 		@Override
@@ -123,7 +659,105 @@ final class DefaultPoolResources implements PoolResources {
 
 		@Override
 		public Future<Channel> acquire(Promise<Channel> promise) {
-			return pool.acquire(promise).addListener(this);
+			return acquire(promise, -1L);
+		}
+
+		@Override
+		public Future<Channel> acquire(Instant deadline) {
+			return acquire(defaultGroup.next().newPromise(), timeoutNanos(deadline));
+		}
+
+		/**
+		 * Acquire a channel, failing the given promise with a {@link TimeoutException}
+		 * once the given time is elapsed. A {@link TimedChannelPool} dequeues its
+		 * expired acquirers, other pools may still be connecting at that point, in
+		 * which case the channel is released as soon as obtained.
+		 *
+		 * @param promise the promise notified with the acquired channel
+		 * @param timeoutNanos the maximum time in nanos to wait, -1 to wait as long as
+		 * the underlying pool does
+		 * @return the given promise
+		 */
+		Future<Channel> acquire(Promise<Channel> promise, long timeoutNanos) {
+			if (timeoutNanos == 0L) {
+				promise.tryFailure(deadlineExpired());
+				return promise;
+			}
+			lastActiveNanos = System.nanoTime();
+			int pending = pendingAcquires.incrementAndGet();
+			if (pending < 0) {
+				pendingAcquires.decrementAndGet();
+				return parent.selectOrCreatePool(remoteAddress,
+						() -> bootstrap,
+						onChannelCreate,
+						defaultGroup).acquire(promise, timeoutNanos);
+			}
+			if (maxPendingAcquires != -1 && pending > maxPendingAcquires) {
+				pendingAcquires.decrementAndGet();
+				if (log.isDebugEnabled()) {
+					log.debug("Rejecting acquisition, {} acquisitions to {} are pending",
+							maxPendingAcquires, remoteAddress);
+				}
+				promise.tryFailure(new PoolAcquirePendingLimitException("Pending " +
+						"acquisitions to " + remoteAddress + " reached the maximum of " +
+						maxPendingAcquires));
+				return promise;
+			}
+			// account for the acquired channel before the caller is notified
+			long start = System.nanoTime();
+			Promise<Channel> acquired = ImmediateEventExecutor.INSTANCE.newPromise();
+			// pending until acquired or expired, whichever comes first
+			AtomicBoolean counted = new AtomicBoolean(true);
+			ScheduledFuture<?> deadline;
+			if (timeoutNanos > 0L && !(pool instanceof TimedChannelPool)) {
+				deadline = defaultGroup.next()
+				                       .schedule(() -> {
+					                       if (counted.compareAndSet(true, false)) {
+						                       pendingAcquires.decrementAndGet();
+						                       promise.tryFailure(deadlineExpired());
+					                       }
+				                       }, timeoutNanos, TimeUnit.NANOSECONDS);
+			}
+			else {
+				deadline = null;
+			}
+			acquired.addListener(this);
+			acquired.addListener((Future<Channel> f) -> {
+				if (counted.compareAndSet(true, false)) {
+					pendingAcquires.decrementAndGet();
+				}
+				if (deadline != null) {
+					deadline.cancel(false);
+				}
+				if (f.isSuccess()) {
+					long latency = System.nanoTime() - start;
+					acquireLatency.record(latency);
+					if (metricsRecorder != null) {
+						metricsRecorder.recordAcquireTime(poolName, remoteAddress, latency);
+					}
+					scheduleMinIdle();
+					if (!promise.trySuccess(f.getNow())) {
+						release(f.getNow());
+					}
+				}
+				else {
+					promise.tryFailure(f.cause());
+				}
+			});
+			if (timeoutNanos > 0L && pool instanceof TimedChannelPool) {
+				TimedChannelPool timedPool = (TimedChannelPool) pool;
+				long poolTimeoutNanos = timedPool.acquireTimeoutNanos();
+				timedPool.acquire(acquired, poolTimeoutNanos >= 0 ?
+						Math.min(timeoutNanos, poolTimeoutNanos) : timeoutNanos);
+			}
+			else {
+				pool.acquire(acquired);
+			}
+			return promise;
+		}
+
+		TimeoutException deadlineExpired() {
+			return new TimeoutException("Acquire deadline to " + remoteAddress + " expired");
 		}
 
 		@Override
@@ -139,6 +773,16 @@ final class DefaultPoolResources implements PoolResources {
 
 
 				if(c.attr(CLOSE_HANDLER_ADDED).setIfAbsent(true) == null) {
+					// first acquire of a new connection
+					c.attr(OWNER).set(this);
+					Long createdAt = c.attr(CREATED_AT).get();
+					if (createdAt != null) {
+						long latency = System.nanoTime() - createdAt;
+						connectLatency.record(latency);
+						if (metricsRecorder != null) {
+							metricsRecorder.recordConnectTime(poolName, remoteAddress, latency);
+						}
+					}
 					if (log.isDebugEnabled()) {
 						log.debug("Registering close event to pool release: {}", c.toString());
 					}
@@ -150,23 +794,65 @@ final class DefaultPoolResources implements PoolResources {
 
 		@Override
 		public Future<Void> release(Channel channel) {
-			return pool.release(channel);
+			Pool owner = channel.attr(OWNER).get();
+			if (owner != null && owner != this) {
+				// acquired from the pool replacing this disposed one
+				return owner.release(channel);
+			}
+			return closeIfDisposed(pool.release(channel));
 		}
 
 		@Override
 		public Future<Void> release(Channel channel, Promise<Void> promise) {
-			return pool.release(channel, promise);
+			Pool owner = channel.attr(OWNER).get();
+			if (owner != null && owner != this) {
+				return owner.release(channel, promise);
+			}
+			return closeIfDisposed(pool.release(channel, promise));
+		}
+
+		/**
+		 * Close this pool once its last channel is released if it was disposed while
+		 * the channel was acquired.
+		 *
+		 * @param release the release future
+		 * @return the given future
+		 */
+		Future<Void> closeIfDisposed(Future<Void> release) {
+			if (pendingAcquires.get() < 0) {
+				release.addListener(f -> {
+					if (activeConnections.get() == 0) {
+						close();
+					}
+				});
+			}
+			return release;
 		}
 
 		@Override
 		public void close() {
 			if(compareAndSet(false, true)) {
+				if (evictionTask != null) {
+					evictionTask.cancel(false);
+				}
+				if (inactivityTask != null) {
+					inactivityTask.cancel(false);
+				}
 				pool.close();
+				if (registered) {
+					metricsRecorder.unregisterPool(poolName, this);
+				}
 			}
 		}
 
 		@Override
 		public void channelReleased(Channel ch) throws Exception {
+			long now = System.nanoTime();
+			ch.attr(RELEASED_AT).set(now);
+			lastActiveNanos = now;
+			if (idleChannels != null && ch.isActive()) {
+				idleChannels.add(ch);
+			}
 			activeConnections.decrementAndGet();
 			if (log.isDebugEnabled()) {
 				log.debug("Released {}, now {} active connections",
@@ -177,7 +863,10 @@ final class DefaultPoolResources implements PoolResources {
 
 		@Override
 		public void channelAcquired(Channel ch) throws Exception {
-
+			ch.attr(RELEASED_AT).set(null);
+			if (idleChannels != null) {
+				idleChannels.remove(ch);
+			}
 		}
 
 		@Override
@@ -194,6 +883,13 @@ final class DefaultPoolResources implements PoolResources {
 				see https://github.com/reactor/reactor-netty/issues/289
 			 */
 
+			ch.attr(CREATED_AT).set(System.nanoTime());
+			openConnections.incrementAndGet();
+			ch.closeFuture()
+			  .addListener(f -> {
+				  openConnections.decrementAndGet();
+				  scheduleMinIdle();
+			  });
 			if (log.isDebugEnabled()) {
 				log.debug("Created new pooled channel {}, now {} active connections",
 						ch.toString(),
@@ -207,7 +903,10 @@ final class DefaultPoolResources implements PoolResources {
 		@Override
 		public String toString() {
 			return pool.getClass()
-			           .getSimpleName() + "{" + "activeConnections=" + activeConnections + '}';
+			           .getSimpleName() + "{" + "activeConnections=" + activeConnections +
+					", idleConnections=" + idleConnections() +
+					", pendingAcquires=" + pendingAcquires +
+					", evictedConnections=" + evictedConnections + '}';
 		}
 	}
 
@@ -219,16 +918,38 @@ final class DefaultPoolResources implements PoolResources {
 	@Override
 	public Mono<Void> disposeLater() {
 		return Mono.fromRunnable(() -> {
+			for (SocketAddressHolder key : balancedPools.keySet()) {
+				BalancingChannelPool balancingPool = balancedPools.remove(key);
+				if (balancingPool != null) {
+					balancingPool.close();
+				}
+			}
 			Pool pool;
 			for (SocketAddressHolder key: channelPools.keySet()) {
 				pool = channelPools.remove(key);
 				if(pool != null){
+					disposedPools.increment();
 					pool.close();
 				}
 			}
 		});
 	}
 
+	@Override
+	public Collection<PoolMetrics> metrics() {
+		return Collections.unmodifiableCollection(channelPools.values());
+	}
+
+	@Override
+	public long createdPools() {
+		return createdPools.sum();
+	}
+
+	@Override
+	public long disposedPools() {
+		return disposedPools.sum();
+	}
+
 	@Override
 	public boolean isDisposed() {
 		return channelPools.isEmpty() || channelPools.values()
@@ -241,6 +962,65 @@ final class DefaultPoolResources implements PoolResources {
 	static final AttributeKey<Boolean> CLOSE_HANDLER_ADDED = AttributeKey.valueOf
 			("closeHandlerAdded");
 
+	static final long MIN_IDLE_RETRY_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+	/**
+	 * Resolve the given address to all the IP addresses of its host name.
+	 *
+	 * @param address the address to resolve
+	 * @return the resolved addresses, or the given one if not an
+	 * {@link InetSocketAddress} or failing to resolve
+	 */
+	static List<SocketAddress> resolveAll(SocketAddress address) {
+		if (!(address instanceof InetSocketAddress)) {
+			return Collections.singletonList(address);
+		}
+		InetSocketAddress inet = (InetSocketAddress) address;
+		InetAddress[] resolved;
+		try {
+			resolved = InetAddress.getAllByName(inet.getHostString());
+		}
+		catch (UnknownHostException e) {
+			if (log.isDebugEnabled()) {
+				log.debug("Failed to resolve {}", inet.getHostString(), e);
+			}
+			return Collections.singletonList(address);
+		}
+		List<SocketAddress> addresses = new ArrayList<>(resolved.length);
+		for (InetAddress a : resolved) {
+			addresses.add(new InetSocketAddress(a, inet.getPort()));
+		}
+		return addresses;
+	}
+
+	/**
+	 * Return the time left until the given deadline.
+	 *
+	 * @param deadline an acquisition deadline
+	 * @return the time left in nanos, 0 if the deadline passed or -1 if too far to
+	 * be represented
+	 */
+	static long timeoutNanos(Instant deadline) {
+		Duration remaining = Duration.between(Instant.now(), deadline);
+		if (remaining.isNegative()) {
+			return 0L;
+		}
+		if (remaining.getSeconds() >= MAX_TIMEOUT_SECONDS) {
+			return -1L;
+		}
+		return remaining.toNanos();
+	}
+
+	static final int DISPOSED = Integer.MIN_VALUE / 2;
+
+	static final long MAX_TIMEOUT_SECONDS = TimeUnit.NANOSECONDS.toSeconds(Long.MAX_VALUE);
+
+	static final AttributeKey<Long> CREATED_AT = AttributeKey.valueOf("pooledCreatedAt");
+
+	static final AttributeKey<Long> RELEASED_AT = AttributeKey.valueOf("pooledReleasedAt");
+
+	static final AttributeKey<Pool> OWNER = AttributeKey.valueOf("pooledOwner");
+
 
 	final static class SocketAddressHolder {
 		final SocketAddress holder;
@@ -0,0 +1,517 @@
+/*
+ * Copyright (c) 2011-2018 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.ipc.netty.resources;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.EventLoop;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.pool.ChannelHealthChecker;
+import io.netty.channel.pool.ChannelPool;
+import io.netty.channel.pool.ChannelPoolHandler;
+import io.netty.util.AttributeKey;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.Promise;
+import reactor.util.Logger;
+import reactor.util.Loggers;
+
+/**
+ * A {@link ChannelPool} keeping idle channels in a stack per {@link EventLoop}.
+ * <p>
+ * An acquire first pops the most recently released channel of the caller event loop,
+ * then steals the least recently released channel of a sibling event loop, and finally
+ * opens a new connection on the caller event loop if a permit is available. Permits
+ * are shared by all the event loops and bound the number of open channels, idle or
+ * acquired. Acquirers are queued when no channel nor permit is available and served
+ * in order on release.
+ * <p>
+ * None of the acquire or release paths take a lock: idle stacks are lock-free deques,
+ * permits a CAS counter and pending acquirers are drained by a single thread at a time.
+ */
+final class EventLoopChannelPool implements TimedChannelPool {
+
+	final Bootstrap            bootstrap;
+	final ChannelPoolHandler   handler;
+	final ChannelHealthChecker checker;
+	final int                  maxConnections;
+	final long                 acquireTimeout;
+
+	final LocalStack[]                       stacks;
+	final Map<EventExecutor, LocalStack>     stacksByLoop;
+	final Queue<Acquirer>                    acquirers;
+
+	volatile int permits;
+	volatile int wip;
+	volatile int next;
+
+	volatile boolean closed;
+	volatile boolean purge;
+
+	/**
+	 * Create a new {@link EventLoopChannelPool}.
+	 *
+	 * @param bootstrap the {@link Bootstrap} used to open new connections, its group
+	 * defines the event loops holding idle channels
+	 * @param handler the {@link ChannelPoolHandler} notified of pool events
+	 * @param checker the {@link ChannelHealthChecker} applied on idle channels
+	 * @param maxConnections the maximum number of open channels, -1 for unbounded
+	 * @param acquireTimeout the maximum time in millis an acquirer waits for a
+	 * channel, -1 to wait indefinitely
+	 */
+	EventLoopChannelPool(Bootstrap bootstrap,
+			ChannelPoolHandler handler,
+			ChannelHealthChecker checker,
+			int maxConnections,
+			long acquireTimeout) {
+		this.handler = handler;
+		this.checker = checker;
+		this.maxConnections = maxConnections;
+		this.acquireTimeout = acquireTimeout;
+		this.permits = maxConnections;
+		this.acquirers = new ConcurrentLinkedQueue<>();
+		this.bootstrap = bootstrap.clone();
+		this.bootstrap.handler(new ChannelInitializer<Channel>() {
+			@Override
+			protected void initChannel(Channel ch) throws Exception {
+				handler.channelCreated(ch);
+			}
+		});
+
+		List<LocalStack> stacks = new ArrayList<>();
+		Map<EventExecutor, LocalStack> stacksByLoop = new IdentityHashMap<>();
+		EventLoopGroup group = bootstrap.config()
+		                                .group();
+		if (group != null) {
+			for (EventExecutor executor : group) {
+				if (executor instanceof EventLoop && !stacksByLoop.containsKey(executor)) {
+					LocalStack stack = new LocalStack((EventLoop) executor, stacks.size());
+					stacks.add(stack);
+					stacksByLoop.put(executor, stack);
+				}
+			}
+		}
+		if (stacks.isEmpty()) {
+			throw new IllegalArgumentException("Bootstrap " + bootstrap + " must be " +
+					"configured with an EventLoopGroup");
+		}
+		this.stacks = stacks.toArray(new LocalStack[0]);
+		this.stacksByLoop = stacksByLoop;
+	}
+
+	@Override
+	public Future<Channel> acquire() {
+		return acquire(localStack().loop.newPromise());
+	}
+
+	@Override
+	public Future<Channel> acquire(Promise<Channel> promise) {
+		return acquire(promise, acquireTimeoutNanos());
+	}
+
+	@Override
+	public long acquireTimeoutNanos() {
+		return acquireTimeout >= 0 ? TimeUnit.MILLISECONDS.toNanos(acquireTimeout) : -1L;
+	}
+
+	/**
+	 * Acquire a channel, waiting at most the given time when none is idle and no
+	 * permit is available. A waiting acquirer whose time is up is failed and skipped
+	 * rather than handed a channel.
+	 *
+	 * @param promise the promise notified with the acquired channel
+	 * @param timeoutNanos the maximum time in nanos to wait, -1 to wait indefinitely
+	 * @return the given promise
+	 */
+	@Override
+	public Future<Channel> acquire(Promise<Channel> promise, long timeoutNanos) {
+		if (closed) {
+			promise.tryFailure(new IllegalStateException("ChannelPool was closed"));
+			return promise;
+		}
+		LocalStack local = localStack();
+
+		Channel ch = pollIdle(local);
+		if (ch != null) {
+			notifyAcquired(ch, promise);
+			return promise;
+		}
+
+		if (tryAcquirePermit()) {
+			connect(local, promise);
+			return promise;
+		}
+
+		Acquirer acquirer = new Acquirer(local, promise, timeoutNanos);
+		if (timeoutNanos >= 0) {
+			acquirer.timeout = local.loop.schedule(acquirer, timeoutNanos, TimeUnit.NANOSECONDS);
+		}
+		acquirers.offer(acquirer);
+		drain();
+		return promise;
+	}
+
+	@Override
+	public Future<Void> release(Channel channel) {
+		return release(channel, channel.eventLoop().newPromise());
+	}
+
+	@Override
+	public Future<Void> release(Channel channel, Promise<Void> promise) {
+		if (channel.attr(POOL_KEY).getAndSet(null) != this) {
+			channel.close();
+			promise.tryFailure(new IllegalArgumentException("Channel " + channel +
+					" was not acquired from this ChannelPool"));
+			return promise;
+		}
+		try {
+			handler.channelReleased(channel);
+		}
+		catch (Throwable t) {
+			closeChannel(channel);
+			promise.tryFailure(t);
+			return promise;
+		}
+		if (closed || !channel.isActive()) {
+			closeChannel(channel);
+		}
+		else {
+			offerIdle(channel);
+		}
+		promise.trySuccess(null);
+		drain();
+		return promise;
+	}
+
+	@Override
+	public void close() {
+		closed = true;
+		for (LocalStack stack : stacks) {
+			Channel ch;
+			while ((ch = stack.idle.pollFirst()) != null) {
+				closeChannel(ch);
+			}
+		}
+		Acquirer acquirer;
+		while ((acquirer = acquirers.poll()) != null) {
+			acquirer.cancelTimeout();
+			acquirer.promise.tryFailure(new IllegalStateException("ChannelPool was closed"));
+		}
+	}
+
+	/**
+	 * Close and remove the idle channels matching the given predicate, giving back
+	 * their permits.
+	 *
+	 * @param expired the predicate selecting the idle channels to evict
+	 * @param onEvict the callback notified of each evicted channel before it is closed
+	 * @return the number of evicted channels
+	 */
+	int evictIdle(Predicate<? super Channel> expired, Consumer<? super Channel> onEvict) {
+		int evicted = 0;
+		for (LocalStack stack : stacks) {
+			for (Channel ch : stack.idle) {
+				if (expired.test(ch) && stack.idle.removeFirstOccurrence(ch)) {
+					onEvict.accept(ch);
+					closeChannel(ch);
+					evicted++;
+				}
+			}
+		}
+		if (evicted != 0) {
+			drain();
+		}
+		return evicted;
+	}
+
+	/**
+	 * Return the number of idle channels across all event loops.
+	 *
+	 * @return the number of idle channels
+	 */
+	int idleSize() {
+		int size = 0;
+		for (LocalStack stack : stacks) {
+			size += stack.idle.size();
+		}
+		return size;
+	}
+
+	/**
+	 * Return the number of acquirers waiting for a channel.
+	 *
+	 * @return the number of pending acquirers
+	 */
+	int pendingAcquireSize() {
+		return acquirers.size();
+	}
+
+	LocalStack localStack() {
+		for (LocalStack stack : stacks) {
+			if (stack.loop.inEventLoop()) {
+				return stack;
+			}
+		}
+		int index = NEXT.getAndIncrement(this) & Integer.MAX_VALUE;
+		return stacks[index % stacks.length];
+	}
+
+	Channel pollIdle(LocalStack local) {
+		Channel ch;
+		while ((ch = local.idle.pollFirst()) != null) {
+			if (isHealthy(ch)) {
+				return ch;
+			}
+			closeChannel(ch);
+		}
+		for (int i = 1; i < stacks.length; i++) {
+			LocalStack sibling = stacks[(local.index + i) % stacks.length];
+			while ((ch = sibling.idle.pollLast()) != null) {
+				if (isHealthy(ch)) {
+					if (log.isDebugEnabled()) {
+						log.debug("Stole idle channel {} from {} for {}", ch, sibling.loop, local.loop);
+					}
+					return ch;
+				}
+				closeChannel(ch);
+			}
+		}
+		return null;
+	}
+
+	void offerIdle(Channel ch) {
+		stacksByLoop.getOrDefault(ch.eventLoop(), stacks[0]).idle.offerFirst(ch);
+	}
+
+	boolean isHealthy(Channel ch) {
+		Future<Boolean> healthy = checker.isHealthy(ch);
+		if (healthy.isDone()) {
+			return healthy.isSuccess() && Boolean.TRUE.equals(healthy.getNow());
+		}
+		return ch.isActive();
+	}
+
+	boolean tryAcquirePermit() {
+		if (maxConnections < 0) {
+			return true;
+		}
+		for (;;) {
+			int p = permits;
+			if (p <= 0) {
+				return false;
+			}
+			if (PERMITS.compareAndSet(this, p, p - 1)) {
+				return true;
+			}
+		}
+	}
+
+	void releasePermit() {
+		if (maxConnections >= 0) {
+			PERMITS.incrementAndGet(this);
+		}
+	}
+
+	void closeChannel(Channel ch) {
+		releasePermit();
+		ch.close();
+	}
+
+	void connect(LocalStack local, Promise<Channel> promise) {
+		ChannelFuture f;
+		try {
+			f = HappyEyeballsConnector.connect(bootstrap.clone(local.loop));
+		}
+		catch (Throwable t) {
+			releasePermit();
+			promise.tryFailure(t);
+			drain();
+			return;
+		}
+		if (f.isDone()) {
+			onConnect(f, promise);
+		}
+		else {
+			f.addListener(future -> onConnect(f, promise));
+		}
+	}
+
+	void onConnect(ChannelFuture f, Promise<Channel> promise) {
+		if (f.isSuccess()) {
+			notifyAcquired(f.channel(), promise);
+		}
+		else {
+			releasePermit();
+			promise.tryFailure(f.cause());
+			drain();
+		}
+	}
+
+	void notifyAcquired(Channel ch, Promise<Channel> promise) {
+		ch.attr(POOL_KEY).set(this);
+		try {
+			handler.channelAcquired(ch);
+		}
+		catch (Throwable t) {
+			ch.attr(POOL_KEY).set(null);
+			closeChannel(ch);
+			promise.tryFailure(t);
+			drain();
+			return;
+		}
+		if (!promise.trySuccess(ch)) {
+			release(ch);
+		}
+	}
+
+	void drain() {
+		if (WIP.getAndIncrement(this) != 0) {
+			return;
+		}
+		int missed = 1;
+		for (;;) {
+			if (purge) {
+				purge = false;
+				acquirers.removeIf(a -> a.promise.isDone());
+			}
+			Acquirer acquirer;
+			while ((acquirer = acquirers.peek()) != null) {
+				if (acquirer.promise.isDone()) {
+					acquirers.poll();
+					continue;
+				}
+				if (acquirer.isExpired()) {
+					acquirers.poll();
+					acquirer.cancelTimeout();
+					acquirer.fail();
+					continue;
+				}
+				Channel ch = pollIdle(acquirer.local);
+				if (ch != null) {
+					acquirers.poll();
+					acquirer.cancelTimeout();
+					if (!acquirer.promise.isDone()) {
+						notifyAcquired(ch, acquirer.promise);
+					}
+					else {
+						offerIdle(ch);
+					}
+				}
+				else if (tryAcquirePermit()) {
+					acquirers.poll();
+					acquirer.cancelTimeout();
+					connect(acquirer.local, acquirer.promise);
+				}
+				else {
+					break;
+				}
+			}
+			missed = WIP.addAndGet(this, -missed);
+			if (missed == 0) {
+				break;
+			}
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "EventLoopChannelPool{" + "loops=" + stacks.length + ", permits=" + permits +
+				", idle=" + idleSize() + ", pending=" + pendingAcquireSize() + '}';
+	}
+
+	static final class LocalStack {
+
+		final EventLoop                     loop;
+		final int                           index;
+		final ConcurrentLinkedDeque<Channel> idle = new ConcurrentLinkedDeque<>();
+
+		LocalStack(EventLoop loop, int index) {
+			this.loop = loop;
+			this.index = index;
+		}
+	}
+
+	final class Acquirer implements Runnable {
+
+		final LocalStack       local;
+		final Promise<Channel> promise;
+		final long             deadlineNanos;
+		final boolean          timed;
+
+		Future<?> timeout;
+
+		Acquirer(LocalStack local, Promise<Channel> promise, long timeoutNanos) {
+			this.local = local;
+			this.promise = promise;
+			this.timed = timeoutNanos >= 0;
+			this.deadlineNanos = timed ? System.nanoTime() + timeoutNanos : 0L;
+		}
+
+		boolean isExpired() {
+			return timed && deadlineNanos - System.nanoTime() <= 0;
+		}
+
+		boolean fail() {
+			return promise.tryFailure(new TimeoutException("Acquire operation took " +
+					"longer then configured maximum time"));
+		}
+
+		void cancelTimeout() {
+			Future<?> timeout = this.timeout;
+			if (timeout != null) {
+				timeout.cancel(false);
+			}
+		}
+
+		@Override
+		public void run() {
+			if (fail()) {
+				purge = true;
+				drain();
+			}
+		}
+	}
+
+	static final Logger log = Loggers.getLogger(EventLoopChannelPool.class);
+
+	static final AttributeKey<EventLoopChannelPool> POOL_KEY =
+			AttributeKey.valueOf("eventLoopChannelPool");
+
+	static final AtomicIntegerFieldUpdater<EventLoopChannelPool> PERMITS =
+			AtomicIntegerFieldUpdater.newUpdater(EventLoopChannelPool.class, "permits");
+
+	static final AtomicIntegerFieldUpdater<EventLoopChannelPool> WIP =
+			AtomicIntegerFieldUpdater.newUpdater(EventLoopChannelPool.class, "wip");
+
+	static final AtomicIntegerFieldUpdater<EventLoopChannelPool> NEXT =
+			AtomicIntegerFieldUpdater.newUpdater(EventLoopChannelPool.class, "next");
+}
@@ -0,0 +1,395 @@
+/*
+ * Copyright (c) 2011-2018 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.ipc.netty.resources;
+
+import java.net.Inet6Address;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.EventLoop;
+import io.netty.resolver.AddressResolver;
+import io.netty.resolver.AddressResolverGroup;
+import io.netty.resolver.NoopAddressResolverGroup;
+import io.netty.util.AttributeKey;
+import io.netty.util.concurrent.DefaultPromise;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.GenericFutureListener;
+import io.netty.util.concurrent.ScheduledFuture;
+import reactor.util.Logger;
+import reactor.util.Loggers;
+
+/**
+ * Connect a {@link Bootstrap} racing connection attempts to all the addresses of its
+ * remote host name, as described by <a href="https://tools.ietf.org/html/rfc8305">RFC
+ * 8305 (Happy Eyeballs)</a>.
+ * <p>
+ * The resolved addresses are ordered alternating IPv6 and IPv4, starting with the
+ * family of the first one. A new attempt starts whenever the previous one failed or
+ * did not succeed within the connection attempt delay. The first established
+ * connection wins, the other attempts are cancelled and their channels closed.
+ * <p>
+ * Attempts only carry a placeholder handler: the {@link Bootstrap} handler is added to
+ * the winning channel alone, which then observes the usual channel active event.
+ *
+ * @since 0.7.8
+ */
+public final class HappyEyeballsConnector {
+
+	/**
+	 * {@link Bootstrap} attribute holding the connection attempt delay in nanos,
+	 * enabling the racing connect when present.
+	 */
+	public static final AttributeKey<Long> CONNECTION_ATTEMPT_DELAY =
+			AttributeKey.valueOf("happyEyeballsConnectionAttemptDelay");
+
+	/**
+	 * Connect the given {@link Bootstrap}, racing connection attempts when its
+	 * {@link #CONNECTION_ATTEMPT_DELAY} attribute is set and its remote address is an
+	 * unresolved host name, or with {@link Bootstrap#connect()} otherwise.
+	 *
+	 * @param bootstrap the {@link Bootstrap} to connect
+	 * @return a {@link ChannelFuture} of the connected channel
+	 */
+	public static ChannelFuture connect(Bootstrap bootstrap) {
+		Long delay = (Long) bootstrap.config()
+		                             .attrs()
+		                             .get(CONNECTION_ATTEMPT_DELAY);
+		SocketAddress remote = bootstrap.config()
+		                                .remoteAddress();
+		AddressResolverGroup<?> resolver = bootstrap.config()
+		                                            .resolver();
+		if (delay == null || !(remote instanceof InetSocketAddress) ||
+				!((InetSocketAddress) remote).isUnresolved() ||
+				resolver instanceof NoopAddressResolverGroup) {
+			return bootstrap.connect();
+		}
+		EventLoop loop = bootstrap.config()
+		                          .group()
+		                          .next();
+		Race race = new Race(bootstrap, loop, remote, delay);
+		if (loop.inEventLoop()) {
+			race.start();
+		}
+		else {
+			loop.execute(race::start);
+		}
+		return race;
+	}
+
+	/**
+	 * Order the given addresses alternating address families, starting with the
+	 * family of the first address.
+	 *
+	 * @param addresses the resolved addresses
+	 * @return the interleaved addresses
+	 */
+	static List<InetSocketAddress> interleave(List<InetSocketAddress> addresses) {
+		if (addresses.isEmpty()) {
+			return addresses;
+		}
+		boolean firstV6 = addresses.get(0).getAddress() instanceof Inet6Address;
+		List<InetSocketAddress> first = new ArrayList<>();
+		List<InetSocketAddress> second = new ArrayList<>();
+		for (InetSocketAddress address : addresses) {
+			boolean v6 = address.getAddress() instanceof Inet6Address;
+			(v6 == firstV6 ? first : second).add(address);
+		}
+		List<InetSocketAddress> interleaved = new ArrayList<>(addresses.size());
+		for (int i = 0; i < Math.max(first.size(), second.size()); i++) {
+			if (i < first.size()) {
+				interleaved.add(first.get(i));
+			}
+			if (i < second.size()) {
+				interleaved.add(second.get(i));
+			}
+		}
+		return interleaved;
+	}
+
+	/**
+	 * The racing connect, notified once an attempt wins or all failed. Only accessed
+	 * from its event loop.
+	 */
+	static final class Race extends DefaultPromise<Void> implements ChannelFuture {
+
+		final Bootstrap            bootstrap;
+		final EventLoop            loop;
+		final SocketAddress        remote;
+		final long                 delayNanos;
+		final ChannelHandler       handler;
+		final List<ChannelFuture>  attempts = new ArrayList<>();
+
+		List<InetSocketAddress> addresses;
+		int                     next;
+		int                     failed;
+		Throwable               lastError;
+		ScheduledFuture<?>      timer;
+
+		volatile Channel channel;
+
+		Race(Bootstrap bootstrap, EventLoop loop, SocketAddress remote, long delayNanos) {
+			super(loop);
+			this.bootstrap = bootstrap;
+			this.loop = loop;
+			this.remote = remote;
+			this.delayNanos = delayNanos;
+			this.handler = bootstrap.config()
+			                        .handler();
+		}
+
+		@SuppressWarnings("unchecked")
+		void start() {
+			if (isDone()) {
+				return;
+			}
+			super.addListener(f -> {
+				if (f.isCancelled()) {
+					cancelAttempts(null);
+				}
+			});
+			AddressResolver<SocketAddress> resolver;
+			try {
+				resolver = (AddressResolver<SocketAddress>) bootstrap.config()
+				                                                     .resolver()
+				                                                     .getResolver(loop);
+			}
+			catch (Throwable t) {
+				tryFailure(t);
+				return;
+			}
+			resolver.resolveAll(remote)
+			        .addListener((Future<List<SocketAddress>> f) -> {
+				        if (!f.isSuccess()) {
+					        tryFailure(f.cause());
+					        return;
+				        }
+				        List<InetSocketAddress> resolved = new ArrayList<>();
+				        for (SocketAddress address : f.getNow()) {
+					        resolved.add((InetSocketAddress) address);
+				        }
+				        if (resolved.isEmpty()) {
+					        tryFailure(new UnknownHostException(remote.toString()));
+					        return;
+				        }
+				        addresses = interleave(resolved);
+				        if (log.isDebugEnabled()) {
+					        log.debug("Racing connection attempts to {} over {}", remote, addresses);
+				        }
+				        nextAttempt();
+			        });
+		}
+
+		void nextAttempt() {
+			if (timer != null) {
+				timer.cancel(false);
+				timer = null;
+			}
+			if (isDone() || next >= addresses.size()) {
+				return;
+			}
+			InetSocketAddress address = addresses.get(next++);
+			Placeholder placeholder = new Placeholder();
+			ChannelFuture attempt;
+			try {
+				attempt = bootstrap.clone(loop)
+				                   .remoteAddress(address)
+				                   .handler(placeholder)
+				                   .connect();
+			}
+			catch (Throwable t) {
+				onAttemptFailure(t);
+				return;
+			}
+			attempts.add(attempt);
+			if (next < addresses.size()) {
+				timer = loop.schedule(this::nextAttempt, delayNanos, TimeUnit.NANOSECONDS);
+			}
+			attempt.addListener(f -> {
+				if (f.isSuccess()) {
+					onAttemptSuccess(attempt, placeholder);
+				}
+				else if (!f.isCancelled()) {
+					onAttemptFailure(f.cause());
+				}
+			});
+		}
+
+		void onAttemptSuccess(ChannelFuture attempt, Placeholder placeholder) {
+			Channel ch = attempt.channel();
+			if (isDone()) {
+				ch.close();
+				return;
+			}
+			if (timer != null) {
+				timer.cancel(false);
+				timer = null;
+			}
+			cancelAttempts(attempt);
+			try {
+				ChannelPipeline pipeline = ch.pipeline();
+				if (handler != null) {
+					pipeline.addLast(handler);
+				}
+				pipeline.remove(placeholder);
+				channel = ch;
+				if (log.isDebugEnabled()) {
+					log.debug("Connected to {} through {}", remote, ch.remoteAddress());
+				}
+				if (placeholder.active) {
+					pipeline.fireChannelActive();
+				}
+			}
+			catch (Throwable t) {
+				ch.close();
+				tryFailure(t);
+				return;
+			}
+			if (!trySuccess(null)) {
+				ch.close();
+			}
+		}
+
+		void onAttemptFailure(Throwable cause) {
+			lastError = cause;
+			failed++;
+			if (isDone()) {
+				return;
+			}
+			if (next < addresses.size()) {
+				nextAttempt();
+			}
+			else if (failed == next) {
+				tryFailure(lastError);
+			}
+		}
+
+		void cancelAttempts(ChannelFuture winner) {
+			if (!loop.inEventLoop()) {
+				loop.execute(() -> cancelAttempts(winner));
+				return;
+			}
+			if (timer != null) {
+				timer.cancel(false);
+				timer = null;
+			}
+			for (ChannelFuture attempt : attempts) {
+				if (attempt != winner) {
+					attempt.cancel(false);
+					attempt.channel()
+					       .close();
+				}
+			}
+		}
+
+		@Override
+		public Channel channel() {
+			return channel;
+		}
+
+		@Override
+		public boolean isVoid() {
+			return false;
+		}
+
+		@Override
+		public Race addListener(GenericFutureListener<? extends Future<? super Void>> listener) {
+			super.addListener(listener);
+			return this;
+		}
+
+		@Override
+		@SafeVarargs
+		@SuppressWarnings("varargs")
+		public final Race addListeners(GenericFutureListener<? extends Future<? super Void>>... listeners) {
+			super.addListeners(listeners);
+			return this;
+		}
+
+		@Override
+		public Race removeListener(GenericFutureListener<? extends Future<? super Void>> listener) {
+			super.removeListener(listener);
+			return this;
+		}
+
+		@Override
+		@SafeVarargs
+		@SuppressWarnings("varargs")
+		public final Race removeListeners(GenericFutureListener<? extends Future<? super Void>>... listeners) {
+			super.removeListeners(listeners);
+			return this;
+		}
+
+		@Override
+		public Race sync() throws InterruptedException {
+			super.sync();
+			return this;
+		}
+
+		@Override
+		public Race syncUninterruptibly() {
+			super.syncUninterruptibly();
+			return this;
+		}
+
+		@Override
+		public Race await() throws InterruptedException {
+			super.await();
+			return this;
+		}
+
+		@Override
+		public Race awaitUninterruptibly() {
+			super.awaitUninterruptibly();
+			return this;
+		}
+
+		@Override
+		public String toString() {
+			return "HappyEyeballsConnector{" + "remote=" + remote + ", attempts=" +
+					attempts.size() + ", channel=" + channel + '}';
+		}
+	}
+
+	/**
+	 * Hold back the channel active event of an attempt until it wins.
+	 */
+	static final class Placeholder extends ChannelInboundHandlerAdapter {
+
+		boolean active;
+
+		@Override
+		public void channelActive(ChannelHandlerContext ctx) {
+			active = true;
+		}
+	}
+
+	private HappyEyeballsConnector() {
+	}
+
+	static final Logger log = Loggers.getLogger(HappyEyeballsConnector.class);
+}
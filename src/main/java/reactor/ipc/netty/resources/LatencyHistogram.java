@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) 2011-2018 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.ipc.netty.resources;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A low-overhead, lock-free histogram of latencies in nanoseconds.
+ * <p>
+ * Values are counted in log-linear buckets: each power of two range is split into
+ * {@value #SUB_BUCKETS} linear sub-buckets, bounding the relative error of a reported
+ * percentile to about 6%, similarly to a HdrHistogram with one significant digit.
+ * Recording a value is a handful of arithmetic operations and atomic increments, and
+ * never allocates. Values above {@link #MAX_TRACKABLE_NANOS} are counted in the
+ * highest bucket.
+ *
+ * @since 0.7.8
+ */
+public final class LatencyHistogram {
+
+	/**
+	 * Number of linear sub-buckets per power of two range.
+	 */
+	static final int SUB_BUCKET_BITS = 4;
+	static final int SUB_BUCKETS     = 1 << SUB_BUCKET_BITS;
+
+	/**
+	 * Highest value tracked with the nominal precision, about 18 minutes.
+	 */
+	public static final long MAX_TRACKABLE_NANOS = (1L << 40) - 1;
+
+	static final int BUCKETS = bucketIndex(MAX_TRACKABLE_NANOS) + 1;
+
+	final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+	final LongAdder       count  = new LongAdder();
+	final LongAdder       total  = new LongAdder();
+
+	volatile long max;
+
+	/**
+	 * Record a latency.
+	 *
+	 * @param nanos the latency in nanoseconds, negative values are ignored
+	 */
+	public void record(long nanos) {
+		if (nanos < 0) {
+			return;
+		}
+		counts.incrementAndGet(bucketIndex(Math.min(nanos, MAX_TRACKABLE_NANOS)));
+		count.increment();
+		total.add(nanos);
+		long m;
+		while (nanos > (m = max) && !MAX.compareAndSet(this, m, nanos)) {
+			// retry
+		}
+	}
+
+	/**
+	 * Return the number of recorded latencies.
+	 *
+	 * @return the number of recorded latencies
+	 */
+	public long count() {
+		return count.sum();
+	}
+
+	/**
+	 * Return the sum of recorded latencies.
+	 *
+	 * @param unit the unit of the returned value
+	 * @return the sum of recorded latencies
+	 */
+	public long totalTime(TimeUnit unit) {
+		return unit.convert(total.sum(), TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Return the highest recorded latency.
+	 *
+	 * @param unit the unit of the returned value
+	 * @return the highest recorded latency
+	 */
+	public long max(TimeUnit unit) {
+		return unit.convert(max, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Return an approximation of the latency below which the given percentage of
+	 * recorded latencies fall, or 0 if none were recorded.
+	 *
+	 * @param percentile the percentile, between 0 and 100
+	 * @param unit the unit of the returned value
+	 * @return the latency at the given percentile
+	 */
+	public long valueAtPercentile(double percentile, TimeUnit unit) {
+		if (percentile < 0d || percentile > 100d) {
+			throw new IllegalArgumentException("percentile must be between 0 and 100, " +
+					"was: " + percentile);
+		}
+		long[] snapshot = new long[BUCKETS];
+		long total = 0L;
+		for (int i = 0; i < BUCKETS; i++) {
+			snapshot[i] = counts.get(i);
+			total += snapshot[i];
+		}
+		if (total == 0L) {
+			return 0L;
+		}
+		long rank = Math.max(1L, (long) Math.ceil(percentile / 100d * total));
+		long seen = 0L;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += snapshot[i];
+			if (seen >= rank) {
+				return unit.convert(Math.min(highestEquivalentValue(i), max),
+						TimeUnit.NANOSECONDS);
+			}
+		}
+		return unit.convert(max, TimeUnit.NANOSECONDS);
+	}
+
+	@Override
+	public String toString() {
+		return "LatencyHistogram{" + "count=" + count() +
+				", p50=" + valueAtPercentile(50d, TimeUnit.MICROSECONDS) + "us" +
+				", p99=" + valueAtPercentile(99d, TimeUnit.MICROSECONDS) + "us" +
+				", max=" + max(TimeUnit.MICROSECONDS) + "us" + '}';
+	}
+
+	static int bucketIndex(long value) {
+		if (value < SUB_BUCKETS) {
+			return (int) value;
+		}
+		int exponent = 63 - Long.numberOfLeadingZeros(value);
+		int shift = exponent - SUB_BUCKET_BITS;
+		int subBucket = (int) (value >>> shift) & (SUB_BUCKETS - 1);
+		return (shift + 1) * SUB_BUCKETS + subBucket;
+	}
+
+	static long highestEquivalentValue(int index) {
+		if (index < SUB_BUCKETS) {
+			return index;
+		}
+		int shift = index / SUB_BUCKETS - 1;
+		long lowest = ((long) (SUB_BUCKETS + index % SUB_BUCKETS)) << shift;
+		return lowest + (1L << shift) - 1;
+	}
+
+	static final AtomicLongFieldUpdater<LatencyHistogram> MAX =
+			AtomicLongFieldUpdater.newUpdater(LatencyHistogram.class, "max");
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright (c) 2011-2018 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.ipc.netty.resources;
+
+/**
+ * An exception signalled when acquiring a pooled connection is rejected because the
+ * pool already has its maximum number of pending acquisitions.
+ * <p>The rejection happens without waiting, the exception does not capture a stack
+ * trace.
+ *
+ * @since 0.7.8
+ * @see PoolResources.Builder#maxPendingAcquires(int)
+ */
+public class PoolAcquirePendingLimitException extends RuntimeException {
+
+	public PoolAcquirePendingLimitException(String message) {
+		super(message);
+	}
+
+	@Override
+	public synchronized Throwable fillInStackTrace() {
+		return this;
+	}
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2011-2018 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.ipc.netty.resources;
+
+import java.net.SocketAddress;
+
+/**
+ * A live view of the state of the {@link io.netty.channel.pool.ChannelPool} bound to
+ * a remote address by a {@link PoolResources}. Gauges are computed on each call and
+ * can be polled by a metrics registry.
+ *
+ * @since 0.7.8
+ * @see PoolMetricsRecorder
+ */
+public interface PoolMetrics {
+
+	/**
+	 * Return the remote address served by the pool.
+	 *
+	 * @return the remote address
+	 */
+	SocketAddress remoteAddress();
+
+	/**
+	 * Return the number of connections currently acquired.
+	 *
+	 * @return the number of acquired connections
+	 */
+	int activeConnections();
+
+	/**
+	 * Return the number of open connections currently idle in the pool.
+	 *
+	 * @return the number of idle connections
+	 */
+	int idleConnections();
+
+	/**
+	 * Return the number of acquire operations not yet completed, either waiting for
+	 * a connection to be released or for a new connection to be opened.
+	 *
+	 * @return the number of pending acquire operations
+	 */
+	int pendingAcquires();
+
+	/**
+	 * Return the number of connections being opened or handed over by an ongoing
+	 * warm-up.
+	 *
+	 * @return the number of warming up connections
+	 * @see PoolResources#warmup(SocketAddress, int)
+	 */
+	int warmingUpConnections();
+
+	/**
+	 * Return the number of connections closed because they exceeded their max idle
+	 * or life time.
+	 *
+	 * @return the number of evicted connections
+	 */
+	long evictedConnections();
+
+	/**
+	 * Return the histogram of successful acquire latencies, from the acquire call
+	 * to the connection being handed over.
+	 *
+	 * @return the acquire latency histogram
+	 */
+	LatencyHistogram acquireLatency();
+
+	/**
+	 * Return the histogram of latencies to open new connections.
+	 *
+	 * @return the connect latency histogram
+	 */
+	LatencyHistogram connectLatency();
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2011-2018 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.ipc.netty.resources;
+
+import java.net.SocketAddress;
+
+/**
+ * Receive the metrics of the connection pools created by a {@link PoolResources},
+ * typically to bridge them to a metrics library such as Micrometer: gauges can be
+ * registered against the {@link PoolMetrics} given on {@link #registerPool}, and
+ * latencies forwarded to timers.
+ * <p>
+ * Latencies are recorded from the acquiring or connecting thread, often an event
+ * loop, and implementations must not block.
+ *
+ * @since 0.7.8
+ * @see PoolResources.Builder#metricsRecorder(PoolMetricsRecorder)
+ */
+public interface PoolMetricsRecorder {
+
+	/**
+	 * Called when a pool for a new remote address is created.
+	 *
+	 * @param poolName the {@link PoolResources} name
+	 * @param metrics the live pool metrics
+	 */
+	void registerPool(String poolName, PoolMetrics metrics);
+
+	/**
+	 * Called when a pool is closed.
+	 *
+	 * @param poolName the {@link PoolResources} name
+	 * @param metrics the pool metrics previously registered
+	 */
+	default void unregisterPool(String poolName, PoolMetrics metrics) {
+	}
+
+	/**
+	 * Record a successful acquire latency.
+	 *
+	 * @param poolName the {@link PoolResources} name
+	 * @param remoteAddress the pool remote address
+	 * @param nanos the acquire latency in nanoseconds
+	 */
+	default void recordAcquireTime(String poolName, SocketAddress remoteAddress, long nanos) {
+	}
+
+	/**
+	 * Record the latency of a new connection.
+	 *
+	 * @param poolName the {@link PoolResources} name
+	 * @param remoteAddress the pool remote address
+	 * @param nanos the connect latency in nanoseconds
+	 */
+	default void recordConnectTime(String poolName, SocketAddress remoteAddress, long nanos) {
+	}
+}
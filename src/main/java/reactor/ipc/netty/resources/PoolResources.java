@@ -17,11 +17,18 @@
 package reactor.ipc.netty.resources;
 
 import java.net.SocketAddress;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
 import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.function.Supplier;
 
 import io.netty.bootstrap.Bootstrap;
 import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
 import io.netty.channel.EventLoopGroup;
 import io.netty.channel.pool.ChannelPool;
 import io.netty.channel.pool.FixedChannelPool;
@@ -57,6 +64,17 @@ public interface PoolResources extends Disposable {
 			"reactor.ipc.netty.pool.acquireTimeout",
 			"" + 45000));
 
+	/**
+	 * Key of an {@link java.time.Instant} in the subscriber
+	 * {@link reactor.util.context.Context} of a pooled connection, after which
+	 * acquiring the connection fails with a
+	 * {@link java.util.concurrent.TimeoutException} instead of waiting further. The
+	 * deadline applies in addition to the pool acquire timeout.
+	 *
+	 * @see DeadlineChannelPool#acquire(ChannelPool, reactor.util.context.Context)
+	 */
+	String ACQUIRE_DEADLINE = "reactor.ipc.netty.pool.acquireDeadline";
+
 	/**
 	 * Create an uncapped {@link PoolResources} to provide automatically for {@link
 	 * ChannelPool}.
@@ -70,7 +88,8 @@ public interface PoolResources extends Disposable {
 	 * ChannelPool}
 	 */
 	static PoolResources elastic(String name) {
-		return new DefaultPoolResources(name, SimpleChannelPool::new);
+		return builder(name).maxConnections(-1)
+		                    .build();
 	}
 
 	/**
@@ -126,18 +145,63 @@ public interface PoolResources extends Disposable {
 		if (maxConnections <= 0) {
 			throw new IllegalArgumentException("Max Connections value must be strictly " + "positive");
 		}
-		if (acquireTimeout != -1L && acquireTimeout < 0) {
-			throw new IllegalArgumentException("Acquire Timeout value must " + "be " + "positive");
-		}
-		return new DefaultPoolResources(name,
-				(bootstrap, handler, checker) -> new FixedChannelPool(bootstrap,
-						handler,
-						checker,
-						FixedChannelPool.AcquireTimeoutAction.FAIL,
-						acquireTimeout,
-						maxConnections,
-						Integer.MAX_VALUE
-						));
+		return builder(name).maxConnections(maxConnections)
+		                    .acquireTimeout(acquireTimeout)
+		                    .build();
+	}
+
+	/**
+	 * Create a capped {@link PoolResources} keeping idle connections per event loop.
+	 * <p>Such a {@link PoolResources} will open up to the given max number of
+	 * processors observed by this jvm (minimum 4).
+	 * Further connections will be pending acquisition indefinitely.
+	 *
+	 * @param name the channel pool map name
+	 *
+	 * @return a new {@link PoolResources} to provide automatically for {@link
+	 * ChannelPool}
+	 * @see #perEventLoop(String, int, long)
+	 */
+	static PoolResources perEventLoop(String name) {
+		return perEventLoop(name, DEFAULT_POOL_MAX_CONNECTION, DEFAULT_POOL_ACQUIRE_TIMEOUT);
+	}
+
+	/**
+	 * Create a capped {@link PoolResources} keeping idle connections per event loop.
+	 * <p>Acquiring from an event loop reuses a connection released on that same loop
+	 * without locking, steals an idle connection from a sibling loop otherwise, and
+	 * finally opens a new connection on the acquiring loop. The given max connection
+	 * value bounds the number of open connections, idle or acquired, shared by all the
+	 * event loops. Further connections will be pending acquisition up to the given
+	 * timeout.
+	 *
+	 * @param name the channel pool map name
+	 * @param maxConnections the maximum number of open connections, -1 for unbounded
+	 * @param acquireTimeout the maximum time in millis to wait for aquiring, -1 to
+	 * wait indefinitely
+	 *
+	 * @return a new {@link PoolResources} to provide automatically for {@link
+	 * ChannelPool}
+	 */
+	static PoolResources perEventLoop(String name, int maxConnections, long acquireTimeout) {
+		return builder(name).maxConnections(maxConnections)
+		                    .acquireTimeout(acquireTimeout)
+		                    .perEventLoop(true)
+		                    .build();
+	}
+
+	/**
+	 * Create a {@link Builder} to configure a {@link PoolResources} beyond the
+	 * {@link #fixed(String, int, long)}, {@link #elastic(String)} and
+	 * {@link #perEventLoop(String, int, long)} defaults, such as connection
+	 * eviction.
+	 *
+	 * @param name the channel pool map name
+	 *
+	 * @return a new {@link Builder}
+	 */
+	static Builder builder(String name) {
+		return new Builder(name);
 	}
 
 	/**
@@ -157,6 +221,63 @@ public interface PoolResources extends Disposable {
 			Consumer<? super Channel> onChannelCreate,
 			EventLoopGroup group);
 
+	/**
+	 * Return the live metrics of each {@link ChannelPool} currently selected by
+	 * this {@link PoolResources}, one per remote address.
+	 *
+	 * @return the metrics of each current pool
+	 * @since 0.7.8
+	 */
+	default Collection<PoolMetrics> metrics() {
+		return Collections.emptyList();
+	}
+
+	/**
+	 * Return the number of {@link ChannelPool} created by this {@link PoolResources}
+	 * since its creation, one per selected remote address.
+	 *
+	 * @return the number of created pools
+	 * @since 0.7.8
+	 */
+	default long createdPools() {
+		return 0L;
+	}
+
+	/**
+	 * Return the number of {@link ChannelPool} disposed by this {@link PoolResources}
+	 * since its creation, whether inactive, evicted to respect the maximum number of
+	 * pools, or disposed with this {@link PoolResources}.
+	 *
+	 * @return the number of disposed pools
+	 * @since 0.7.8
+	 */
+	default long disposedPools() {
+		return 0L;
+	}
+
+	/**
+	 * Open connections to the given remote address ahead of their first use, so they
+	 * are immediately available for acquisition. Connections are opened in parallel
+	 * on the pool event loops and released to the idle connections once all are
+	 * established. Connections already idle count toward the requested number, and a
+	 * capped pool does not open more than its max connections.
+	 * <p>If the pool for this address has not been created yet, the warm-up starts as
+	 * soon as it is on its first {@link #selectOrCreate selection}.
+	 * Progress can be observed with {@link PoolMetrics#warmingUpConnections()}.
+	 * <p>Warm-up is optional: implementations that do not support it open no
+	 * connection and emit 0, as by default.
+	 *
+	 * @param address the remote address to connect to
+	 * @param connections the number of connections to make available
+	 *
+	 * @return a {@link Mono} emitting the number of newly opened connections once the
+	 * warm-up completes
+	 * @since 0.7.8
+	 */
+	default Mono<Integer> warmup(SocketAddress address, int connections) {
+		return Mono.just(0);
+	}
+
 	@Override
 	default void dispose() {
 		//noop default
@@ -171,4 +292,356 @@ public interface PoolResources extends Disposable {
 	default Mono<Void> disposeLater() {
 		return Mono.empty(); //noop default
 	}
+
+	/**
+	 * The strategy selecting the address to acquire from, among the addresses a remote
+	 * address resolves to.
+	 *
+	 * @see Builder#loadBalancing(LoadBalancing)
+	 */
+	enum LoadBalancing {
+
+		/**
+		 * Select the address with the least outstanding acquisitions, acquired or
+		 * pending.
+		 */
+		LEAST_OUTSTANDING,
+
+		/**
+		 * Select the address with the least outstanding acquisitions among two picked
+		 * at random, avoiding to direct every new acquisition to the same address.
+		 */
+		POWER_OF_TWO_CHOICES
+	}
+
+	/**
+	 * A {@link PoolResources} builder.
+	 */
+	final class Builder {
+
+		final String name;
+
+		int      maxConnections = DEFAULT_POOL_MAX_CONNECTION;
+		long     acquireTimeout = DEFAULT_POOL_ACQUIRE_TIMEOUT;
+		boolean  perEventLoop;
+		Duration maxIdleTime;
+		Duration maxLifeTime;
+		Duration evictionInterval;
+		int      minIdle;
+		int      maxPendingAcquires = -1;
+		Duration poolInactivityTimeout;
+		int      maxPools = -1;
+		Duration addressRefreshInterval;
+		int      outlierConsecutiveFailures = 5;
+		Duration outlierEjectionTime = Duration.ofSeconds(30);
+
+		LoadBalancing loadBalancing;
+		Function<? super SocketAddress, ? extends List<? extends SocketAddress>> addressResolver;
+
+		PoolMetricsRecorder metricsRecorder;
+
+		Builder(String name) {
+			this.name = Objects.requireNonNull(name, "name");
+		}
+
+		/**
+		 * Set the maximum number of connections per remote address before starting
+		 * pending acquisition on existing ones, -1 for an elastic pool never waiting
+		 * before opening a new connection.
+		 *
+		 * @param maxConnections the maximum number of connections
+		 * @return {@code this}
+		 */
+		public Builder maxConnections(int maxConnections) {
+			if (maxConnections != -1 && maxConnections <= 0) {
+				throw new IllegalArgumentException("Max Connections value must be strictly " + "positive");
+			}
+			this.maxConnections = maxConnections;
+			return this;
+		}
+
+		/**
+		 * Set the maximum time in millis to wait for acquiring a connection.
+		 *
+		 * @param acquireTimeout the maximum time in millis to wait for aquiring
+		 * @return {@code this}
+		 */
+		public Builder acquireTimeout(long acquireTimeout) {
+			if (acquireTimeout != -1L && acquireTimeout < 0) {
+				throw new IllegalArgumentException("Acquire Timeout value must " + "be " + "positive");
+			}
+			this.acquireTimeout = acquireTimeout;
+			return this;
+		}
+
+		/**
+		 * Keep idle connections per event loop.
+		 *
+		 * @param perEventLoop true to keep idle connections per event loop
+		 * @return {@code this}
+		 * @see #perEventLoop(String, int, long)
+		 */
+		public Builder perEventLoop(boolean perEventLoop) {
+			this.perEventLoop = perEventLoop;
+			return this;
+		}
+
+		/**
+		 * Set the maximum time a connection can stay idle in the pool before being
+		 * closed instead of reused.
+		 *
+		 * @param maxIdleTime the maximum idle time
+		 * @return {@code this}
+		 * @see #evictionInterval(Duration)
+		 */
+		public Builder maxIdleTime(Duration maxIdleTime) {
+			this.maxIdleTime = validate(maxIdleTime, "maxIdleTime");
+			return this;
+		}
+
+		/**
+		 * Set the maximum time a connection can live, after which it is closed
+		 * instead of reused.
+		 *
+		 * @param maxLifeTime the maximum life time
+		 * @return {@code this}
+		 * @see #evictionInterval(Duration)
+		 */
+		public Builder maxLifeTime(Duration maxLifeTime) {
+			this.maxLifeTime = validate(maxLifeTime, "maxLifeTime");
+			return this;
+		}
+
+		/**
+		 * Set the interval at which each pool closes its idle connections exceeding
+		 * their {@link #maxIdleTime(Duration) max idle time} or {@link
+		 * #maxLifeTime(Duration) max life time}. The sweep runs on the pool event loop
+		 * group, otherwise expired connections are only closed when they are about to
+		 * be acquired or released.
+		 *
+		 * @param evictionInterval the background eviction interval
+		 * @return {@code this}
+		 */
+		public Builder evictionInterval(Duration evictionInterval) {
+			this.evictionInterval = validate(evictionInterval, "evictionInterval");
+			if (evictionInterval.isZero()) {
+				throw new IllegalArgumentException("evictionInterval must be strictly positive");
+			}
+			return this;
+		}
+
+		/**
+		 * Set the minimum number of idle connections each pool maintains once created,
+		 * opening new connections in the background when acquisitions, evictions or
+		 * closures make it drop below. Default to 0.
+		 *
+		 * @param minIdle the minimum number of idle connections per remote address
+		 * @return {@code this}
+		 * @see PoolResources#warmup(SocketAddress, int)
+		 */
+		public Builder minIdle(int minIdle) {
+			if (minIdle < 0) {
+				throw new IllegalArgumentException("minIdle must be positive, was: " + minIdle);
+			}
+			this.minIdle = minIdle;
+			return this;
+		}
+
+		/**
+		 * Set the maximum number of acquisitions per remote address outstanding at
+		 * once, waiting for a connection or for a new one to be established. Further
+		 * acquisitions fail immediately with a {@link PoolAcquirePendingLimitException}
+		 * rather than waiting. Default to -1 for unbounded.
+		 *
+		 * @param maxPendingAcquires the maximum number of pending acquisitions per
+		 * remote address, -1 for unbounded
+		 * @return {@code this}
+		 * @see PoolMetrics#pendingAcquires()
+		 */
+		public Builder maxPendingAcquires(int maxPendingAcquires) {
+			if (maxPendingAcquires != -1 && maxPendingAcquires <= 0) {
+				throw new IllegalArgumentException("maxPendingAcquires must be strictly " +
+						"positive, was: " + maxPendingAcquires);
+			}
+			this.maxPendingAcquires = maxPendingAcquires;
+			return this;
+		}
+
+		/**
+		 * Set the time after which the pool of a remote address is disposed when none
+		 * of its connections were acquired nor released meanwhile. Its remaining idle
+		 * connections are closed, and a later acquisition for this address creates a
+		 * new pool. Inactivity is checked at this same interval, on the pool event
+		 * loop group. Default to never dispose pools.
+		 *
+		 * @param poolInactivityTimeout the inactivity time before disposing a pool
+		 * @return {@code this}
+		 */
+		public Builder poolInactivityTimeout(Duration poolInactivityTimeout) {
+			this.poolInactivityTimeout = validate(poolInactivityTimeout, "poolInactivityTimeout");
+			if (poolInactivityTimeout.isZero()) {
+				throw new IllegalArgumentException("poolInactivityTimeout must be strictly positive");
+			}
+			return this;
+		}
+
+		/**
+		 * Set the maximum number of distinct remote addresses with a pool. Creating a
+		 * pool beyond that number disposes the least recently used pool without
+		 * acquired connections nor pending acquisitions. The bound is exceeded while
+		 * every pool is in use. Default to -1 for unbounded.
+		 *
+		 * @param maxPools the maximum number of pools, -1 for unbounded
+		 * @return {@code this}
+		 */
+		public Builder maxPools(int maxPools) {
+			if (maxPools != -1 && maxPools <= 0) {
+				throw new IllegalArgumentException("maxPools must be strictly positive, " +
+						"was: " + maxPools);
+			}
+			this.maxPools = maxPools;
+			return this;
+		}
+
+		/**
+		 * Spread the acquisitions for a remote address over all the addresses it
+		 * resolves to, each with its own pool, using the given strategy. An address
+		 * failing to connect is taken out of the rotation, see
+		 * {@link #outlierDetection(int, Duration)}. Default to a single pool per
+		 * remote address.
+		 *
+		 * @param loadBalancing the strategy selecting the address to acquire from
+		 * @return {@code this}
+		 * @see #addressResolver(Function)
+		 */
+		public Builder loadBalancing(LoadBalancing loadBalancing) {
+			this.loadBalancing = Objects.requireNonNull(loadBalancing, "loadBalancing");
+			return this;
+		}
+
+		/**
+		 * Set the function resolving a remote address to the addresses balanced by
+		 * {@link #loadBalancing(LoadBalancing)}. Default to all the IP addresses of an
+		 * {@link java.net.InetSocketAddress} host name.
+		 *
+		 * @param addressResolver the function returning the addresses of a remote
+		 * address
+		 * @return {@code this}
+		 */
+		public Builder addressResolver(Function<? super SocketAddress, ? extends List<? extends SocketAddress>> addressResolver) {
+			this.addressResolver = Objects.requireNonNull(addressResolver, "addressResolver");
+			return this;
+		}
+
+		/**
+		 * Set the interval at which the addresses balanced by
+		 * {@link #loadBalancing(LoadBalancing)} are resolved again. Default to
+		 * resolving them once.
+		 *
+		 * @param addressRefreshInterval the address refresh interval
+		 * @return {@code this}
+		 */
+		public Builder addressRefreshInterval(Duration addressRefreshInterval) {
+			this.addressRefreshInterval = validate(addressRefreshInterval, "addressRefreshInterval");
+			if (addressRefreshInterval.isZero()) {
+				throw new IllegalArgumentException("addressRefreshInterval must be strictly positive");
+			}
+			return this;
+		}
+
+		/**
+		 * Set when an address balanced by {@link #loadBalancing(LoadBalancing)} is
+		 * ejected from the rotation: after the given number of consecutive connection
+		 * failures, for the given base time multiplied by its number of consecutive
+		 * ejections. Default to 5 failures and 30 seconds.
+		 *
+		 * @param consecutiveFailures the number of consecutive failures ejecting an
+		 * address
+		 * @param baseEjectionTime the base ejection time
+		 * @return {@code this}
+		 */
+		public Builder outlierDetection(int consecutiveFailures, Duration baseEjectionTime) {
+			if (consecutiveFailures <= 0) {
+				throw new IllegalArgumentException("consecutiveFailures must be strictly " +
+						"positive, was: " + consecutiveFailures);
+			}
+			this.outlierConsecutiveFailures = consecutiveFailures;
+			this.outlierEjectionTime = validate(baseEjectionTime, "baseEjectionTime");
+			return this;
+		}
+
+		/**
+		 * Set a {@link PoolMetricsRecorder} notified of each pool creation and
+		 * closure, and of acquire and connect latencies.
+		 *
+		 * @param metricsRecorder the metrics recorder
+		 * @return {@code this}
+		 * @see PoolResources#metrics()
+		 */
+		public Builder metricsRecorder(PoolMetricsRecorder metricsRecorder) {
+			this.metricsRecorder = Objects.requireNonNull(metricsRecorder, "metricsRecorder");
+			return this;
+		}
+
+		/**
+		 * Build a new {@link PoolResources}.
+		 *
+		 * @return a new {@link PoolResources}
+		 */
+		public PoolResources build() {
+			if (maxConnections != -1 && minIdle > maxConnections) {
+				throw new IllegalArgumentException("minIdle must be lower than or equal to " +
+						"maxConnections, was: " + minIdle);
+			}
+			DefaultPoolResources.PoolFactory provider;
+			int maxConnections = this.maxConnections;
+			long acquireTimeout = this.acquireTimeout;
+			if (perEventLoop) {
+				provider = (bootstrap, handler, checker) -> new EventLoopChannelPool(bootstrap,
+						handler,
+						checker,
+						maxConnections,
+						acquireTimeout);
+			}
+			else if (maxConnections == -1) {
+				provider = (bootstrap, handler, checker) -> new SimpleChannelPool(bootstrap,
+						handler,
+						checker) {
+					@Override
+					protected ChannelFuture connectChannel(Bootstrap bs) {
+						return HappyEyeballsConnector.connect(bs);
+					}
+				};
+			}
+			else {
+				// acquirers wait in front of the fixed pool to be dequeued on timeout
+				provider = (bootstrap, handler, checker) -> new BoundedChannelPool(
+						new FixedChannelPool(bootstrap,
+								handler,
+								checker,
+								FixedChannelPool.AcquireTimeoutAction.FAIL,
+								acquireTimeout,
+								maxConnections,
+								Integer.MAX_VALUE) {
+							@Override
+							protected ChannelFuture connectChannel(Bootstrap bs) {
+								return HappyEyeballsConnector.connect(bs);
+							}
+						},
+						bootstrap.config()
+						         .group(),
+						maxConnections,
+						acquireTimeout);
+			}
+			return new DefaultPoolResources(this, provider);
+		}
+
+		static Duration validate(Duration duration, String name) {
+			Objects.requireNonNull(duration, name);
+			if (duration.isNegative()) {
+				throw new IllegalArgumentException(name + " must be positive");
+			}
+			return duration;
+		}
+	}
 }
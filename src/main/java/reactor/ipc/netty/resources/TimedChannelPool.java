@@ -0,0 +1,45 @@
+/*
+ * Copyright (c) 2011-2018 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.ipc.netty.resources;
+
+import io.netty.channel.Channel;
+import io.netty.channel.pool.ChannelPool;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.Promise;
+
+/**
+ * A {@link ChannelPool} bounding the time an acquirer waits for a channel. A waiting
+ * acquirer whose time is up is failed and dequeued rather than handed a channel.
+ */
+interface TimedChannelPool extends ChannelPool {
+
+	/**
+	 * Return the maximum time in nanos an acquirer waits by default.
+	 *
+	 * @return the default acquire timeout in nanos, -1 to wait indefinitely
+	 */
+	long acquireTimeoutNanos();
+
+	/**
+	 * Acquire a channel, waiting at most the given time.
+	 *
+	 * @param promise the promise notified with the acquired channel
+	 * @param timeoutNanos the maximum time in nanos to wait, -1 to wait indefinitely
+	 * @return the given promise
+	 */
+	Future<Channel> acquire(Promise<Channel> promise, long timeoutNanos);
+}
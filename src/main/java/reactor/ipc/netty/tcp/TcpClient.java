@@ -40,6 +40,8 @@ import reactor.ipc.netty.channel.ChannelOperations;
 import reactor.ipc.netty.channel.ContextHandler;
 import reactor.ipc.netty.options.ClientOptions;
 import reactor.ipc.netty.options.NettyOptions;
+import reactor.ipc.netty.resources.DeadlineChannelPool;
+import reactor.ipc.netty.resources.HappyEyeballsConnector;
 import reactor.ipc.netty.resources.PoolResources;
 
 /**
@@ -178,9 +180,7 @@ public class TcpClient implements NettyConnector<NettyInbound, NettyOutbound> {
 
 			PoolResources poolResources = options.getPoolResources();
 			if (poolResources != null) {
-				pool = poolResources.selectOrCreate(remote, options,
-						doHandler(null, sink, secure, remote, null, null),
-						options.getLoopResources().onClient(options.preferNative()));
+				pool = selectOrCreatePool(poolResources, remote, secure, sink);
 			}
 
 			ContextHandler<SocketChannel> contextHandler =
@@ -191,14 +191,34 @@ public class TcpClient implements NettyConnector<NettyInbound, NettyOutbound> {
 				Bootstrap b = options.get();
 				b.remoteAddress(remote);
 				b.handler(contextHandler);
-				contextHandler.setFuture(b.connect());
+				contextHandler.setFuture(HappyEyeballsConnector.connect(b));
 			}
 			else {
-				contextHandler.setFuture(pool.acquire());
+				contextHandler.setFuture(DeadlineChannelPool.acquire(pool, sink.currentContext()));
 			}
 		});
 	}
 
+	/**
+	 * Select the {@link ChannelPool} serving the remote address, creating it when
+	 * needed. Subclasses may decorate the returned pool.
+	 *
+	 * @param poolResources the pool resources in use
+	 * @param remote the remote address
+	 * @param secure if operation should be secured
+	 * @param sink user provided bind handler
+	 *
+	 * @return the {@link ChannelPool} to acquire from
+	 */
+	protected ChannelPool selectOrCreatePool(PoolResources poolResources,
+			SocketAddress remote,
+			boolean secure,
+			MonoSink<NettyContext> sink) {
+		return poolResources.selectOrCreate(remote, options,
+				doHandler(null, sink, secure, remote, null, null),
+				options.getLoopResources().onClient(options.preferNative()));
+	}
+
 	/**
 	 * Create a {@link ContextHandler} for {@link Bootstrap#handler()}
 	 *
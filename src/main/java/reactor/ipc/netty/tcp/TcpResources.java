@@ -17,6 +17,7 @@
 package reactor.ipc.netty.tcp;
 
 import java.net.SocketAddress;
+import java.util.Collection;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.BiFunction;
 import java.util.function.Consumer;
@@ -30,6 +31,7 @@ import io.netty.channel.pool.ChannelPool;
 import io.netty.channel.socket.DatagramChannel;
 import reactor.core.publisher.Mono;
 import reactor.ipc.netty.resources.LoopResources;
+import reactor.ipc.netty.resources.PoolMetrics;
 import reactor.ipc.netty.resources.PoolResources;
 
 /**
@@ -155,6 +157,26 @@ public class TcpResources implements PoolResources, LoopResources {
 		return defaultPools.selectOrCreate(address, bootstrap, onChannelCreate, group);
 	}
 
+	@Override
+	public Collection<PoolMetrics> metrics() {
+		return defaultPools.metrics();
+	}
+
+	@Override
+	public long createdPools() {
+		return defaultPools.createdPools();
+	}
+
+	@Override
+	public long disposedPools() {
+		return defaultPools.disposedPools();
+	}
+
+	@Override
+	public Mono<Integer> warmup(SocketAddress address, int connections) {
+		return defaultPools.warmup(address, connections);
+	}
+
 	@Override
 	public Class<? extends Channel> onChannel(EventLoopGroup group) {
 		return defaultLoops.onChannel(group);
@@ -23,24 +23,35 @@ import java.nio.channels.ServerSocketChannel;
 import java.nio.channels.SocketChannel;
 import java.nio.charset.Charset;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
 import io.netty.channel.embedded.EmbeddedChannel;
 import org.junit.Ignore;
 import org.junit.Test;
+import reactor.core.publisher.DirectProcessor;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.core.scheduler.Schedulers;
 import reactor.ipc.netty.FutureMono;
 import reactor.ipc.netty.NettyContext;
+import reactor.ipc.netty.NettyPipeline;
 import reactor.ipc.netty.SocketUtils;
 import reactor.ipc.netty.http.client.HttpClient;
 import reactor.ipc.netty.http.client.HttpClientResponse;
 import reactor.ipc.netty.http.server.HttpServer;
 import reactor.ipc.netty.resources.PoolResources;
+import reactor.ipc.netty.tcp.TcpClient;
+import reactor.ipc.netty.tcp.TcpServer;
 import reactor.test.StepVerifier;
 import reactor.util.Logger;
 import reactor.util.Loggers;
@@ -114,6 +125,237 @@ public class ChannelOperationsHandlerTest {
 		assertThat(handler.prefetch == (handler.inner.requested - handler.inner.produced)).isTrue();
 	}
 
+	@Test
+	public void prefetchReplenishesInBatches() {
+		ChannelOperationsHandler handler = new ChannelOperationsHandler(null);
+		handler.prefetch(8, 4);
+		EmbeddedChannel channel = new EmbeddedChannel(handler);
+
+		List<Long> requests = new ArrayList<>();
+		StepVerifier.create(FutureMono.deferFuture(() -> channel.writeAndFlush(
+				Flux.range(0, 20)
+				    .doOnRequest(requests::add))))
+		            .expectComplete()
+		            .verify(Duration.ofSeconds(30));
+
+		assertThat(requests).startsWith(8L, 4L, 4L, 4L);
+		assertThat(requests).allMatch(r -> r >= 4L);
+		assertThat(handler.prefetch == (handler.inner.requested - handler.inner.produced)).isTrue();
+	}
+
+	@Test
+	public void prefetchChangeAdjustsOutstandingDemand() {
+		ChannelOperationsHandler handler = new ChannelOperationsHandler(null);
+		EmbeddedChannel channel = new EmbeddedChannel(handler);
+		handler.prefetch(64);
+
+		assertThat(handler.inner.requested - handler.inner.produced).isEqualTo(64);
+
+		StepVerifier.create(FutureMono.deferFuture(() -> channel.writeAndFlush(Flux.range(0, 100))))
+		            .expectComplete()
+		            .verify(Duration.ofSeconds(30));
+
+		assertThat(handler.prefetch == (handler.inner.requested - handler.inner.produced)).isTrue();
+	}
+
+	@Test
+	public void aggregateWritesMergesSmallBuffers() {
+		ChannelOperationsHandler handler = new ChannelOperationsHandler(null);
+		EmbeddedChannel channel = new EmbeddedChannel(handler);
+		handler.aggregateWrites(8);
+
+		StepVerifier.create(FutureMono.deferFuture(() -> channel.writeAndFlush(
+				Flux.range(0, 10)
+				    .map(i -> Unpooled.copiedBuffer("ab", Charset.defaultCharset())))))
+		            .expectComplete()
+		            .verify(Duration.ofSeconds(30));
+
+		assertThat(channel.outboundMessages()).hasSize(3);
+		ByteBuf first = channel.readOutbound();
+		assertThat(first.toString(Charset.defaultCharset())).isEqualTo("abababab");
+		first.release();
+		channel.finishAndReleaseAll();
+	}
+
+	@Test
+	public void aggregateWritesKeepsOrderWithLargeBuffers() {
+		ChannelOperationsHandler handler = new ChannelOperationsHandler(null);
+		EmbeddedChannel channel = new EmbeddedChannel(handler);
+		handler.aggregateWrites(8);
+
+		StepVerifier.create(FutureMono.deferFuture(() -> channel.writeAndFlush(
+				Flux.just("a", "b", "0123456789", "c")
+				    .map(s -> Unpooled.copiedBuffer(s, Charset.defaultCharset())))))
+		            .expectComplete()
+		            .verify(Duration.ofSeconds(30));
+
+		StringBuilder received = new StringBuilder();
+		ByteBuf buf;
+		while ((buf = channel.readOutbound()) != null) {
+			received.append(buf.toString(Charset.defaultCharset()))
+			        .append('|');
+			buf.release();
+		}
+		assertThat(received.toString()).isEqualTo("ab|0123456789|c|");
+		channel.finishAndReleaseAll();
+	}
+
+	@Test
+	public void aggregateWritesOverTcp() {
+		NettyContext server =
+				TcpServer.create(0)
+				         .newHandler((in, out) -> out.options(o -> o.aggregateWrites(256)
+				                                                    .flushAdaptive())
+				                                     .sendString(Flux.range(0, 1000)
+				                                                     .map(i -> "a")
+				                                                     .subscribeOn(Schedulers.parallel())))
+				         .block(Duration.ofSeconds(30));
+
+		AtomicInteger received = new AtomicInteger();
+		NettyContext client =
+				TcpClient.create(server.address().getPort())
+				         .newHandler((in, out) -> in.receive()
+				                                    .asString()
+				                                    .doOnNext(s -> received.addAndGet(s.length()))
+				                                    .then())
+				         .block(Duration.ofSeconds(30));
+
+		Flux.interval(Duration.ofMillis(10))
+		    .filter(i -> received.get() >= 1000)
+		    .blockFirst(Duration.ofSeconds(30));
+		assertThat(received.get()).isEqualTo(1000);
+
+		client.dispose();
+		server.dispose();
+	}
+
+	@Test
+	public void flushOnBytesCoalescesWrites() {
+		ChannelOperationsHandler handler = new ChannelOperationsHandler(null);
+		FlushCounter counter = new FlushCounter();
+		EmbeddedChannel channel = new EmbeddedChannel(counter, handler);
+		handler.flushOnBytes(64);
+
+		DirectProcessor<ByteBuf> source = DirectProcessor.create();
+		channel.writeAndFlush(source);
+
+		for (int i = 0; i < 10; i++) {
+			source.onNext(Unpooled.wrappedBuffer(new byte[16]));
+		}
+		assertThat(counter.flushes).isEqualTo(2);
+
+		channel.pipeline().fireChannelReadComplete();
+		assertThat(counter.flushes).isEqualTo(3);
+		assertThat(channel.outboundMessages()).hasSize(10);
+
+		source.onComplete();
+		channel.finishAndReleaseAll();
+	}
+
+	@Test
+	public void flushOnIntervalCoalescesWrites() throws Exception {
+		ChannelOperationsHandler handler = new ChannelOperationsHandler(null);
+		FlushCounter counter = new FlushCounter();
+		EmbeddedChannel channel = new EmbeddedChannel(counter, handler);
+		handler.flushOnInterval(Duration.ofMillis(10));
+
+		DirectProcessor<ByteBuf> source = DirectProcessor.create();
+		channel.writeAndFlush(source);
+
+		for (int i = 0; i < 10; i++) {
+			source.onNext(Unpooled.wrappedBuffer(new byte[16]));
+		}
+		assertThat(counter.flushes).isZero();
+
+		Thread.sleep(50);
+		channel.runScheduledPendingTasks();
+		assertThat(counter.flushes).isEqualTo(1);
+		assertThat(channel.outboundMessages()).hasSize(10);
+
+		source.onComplete();
+		channel.finishAndReleaseAll();
+	}
+
+	@Test
+	public void flushAdaptiveFlushesOnEventLoopIteration() {
+		ChannelOperationsHandler handler = new ChannelOperationsHandler(null);
+		FlushCounter counter = new FlushCounter();
+		EmbeddedChannel channel = new EmbeddedChannel(counter, handler);
+		handler.flushAdaptive();
+
+		DirectProcessor<ByteBuf> source = DirectProcessor.create();
+		channel.writeAndFlush(source);
+
+		for (int i = 0; i < 10; i++) {
+			source.onNext(Unpooled.wrappedBuffer(new byte[16]));
+		}
+		channel.runPendingTasks();
+		assertThat(counter.flushes).isPositive();
+		assertThat(channel.outboundMessages()).hasSize(10);
+
+		source.onComplete();
+		channel.finishAndReleaseAll();
+	}
+
+	@Test
+	public void flushAdaptiveDeliversNeverEndingStream() {
+		NettyContext server =
+				TcpServer.create(0)
+				         .newHandler((in, out) -> out.options(NettyPipeline.SendOptions::flushAdaptive)
+				                                     .sendString(Flux.range(0, 1000)
+				                                                     .map(i -> "a")
+				                                                     .concatWith(Flux.never())))
+				         .block(Duration.ofSeconds(30));
+
+		AtomicInteger received = new AtomicInteger();
+		NettyContext client =
+				TcpClient.create(server.address().getPort())
+				         .newHandler((in, out) -> in.receive()
+				                                    .asString()
+				                                    .doOnNext(s -> received.addAndGet(s.length()))
+				                                    .then())
+				         .block(Duration.ofSeconds(30));
+
+		Flux.interval(Duration.ofMillis(10))
+		    .filter(i -> received.get() >= 1000)
+		    .blockFirst(Duration.ofSeconds(30));
+		assertThat(received.get()).isEqualTo(1000);
+
+		client.dispose();
+		server.dispose();
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void flushOnBytesRejectsNonPositiveThreshold() {
+		new ChannelOperationsHandler(null).flushOnBytes(0);
+	}
+
+	@Test
+	public void flushOnBytesAndIntervalResetFlushOnEach() {
+		ChannelOperationsHandler handler = new ChannelOperationsHandler(null);
+
+		handler.flushOnEach(true)
+		       .flushOnBytes(64);
+		assertThat(handler.flushOnEach).isFalse();
+		assertThat(handler.flushOnEachWithEventLoop).isFalse();
+
+		handler.flushOnEach(true)
+		       .flushOnInterval(Duration.ofMillis(10));
+		assertThat(handler.flushOnEach).isFalse();
+		assertThat(handler.flushOnEachWithEventLoop).isFalse();
+	}
+
+	static final class FlushCounter extends ChannelOutboundHandlerAdapter {
+
+		int flushes;
+
+		@Override
+		public void flush(ChannelHandlerContext ctx) throws Exception {
+			flushes++;
+			super.flush(ctx);
+		}
+	}
+
 	@Test
 	public void testChannelInactiveThrowsIOException() throws Exception {
 		ExecutorService threadPool = Executors.newCachedThreadPool();
@@ -17,16 +17,26 @@ package reactor.ipc.netty.channel;
 
 import java.time.Duration;
 import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.junit.Test;
 
+import io.netty.buffer.ByteBuf;
 import io.netty.util.ResourceLeakDetector;
 import io.netty.util.ResourceLeakDetector.Level;
+import reactor.core.Exceptions;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.ipc.netty.NettyContext;
 import reactor.ipc.netty.http.client.HttpClient;
 import reactor.ipc.netty.http.server.HttpServer;
+import reactor.ipc.netty.options.NettyOptions;
+import reactor.ipc.netty.tcp.TcpClient;
+import reactor.ipc.netty.tcp.TcpServer;
+
+import static org.assertj.core.api.Assertions.assertThat;
 
 public class FluxReceiveTest {
 
@@ -71,4 +81,92 @@ public class FluxReceiveTest {
 
 		ResourceLeakDetector.setLevel(Level.SIMPLE);
 	}
+
+	@Test
+	public void receiveBufferSuspendsReadAtHighWaterMark() throws Exception {
+		ReceiveResult result = receiveWithSlowSubscriber(NettyOptions.ReceiveOverflow.BACKPRESSURE);
+
+		assertThat(result.error.get()).isNull();
+		assertThat(result.received.get()).isEqualTo(TOTAL_SENT);
+		assertThat(result.dropped.get()).isZero();
+		assertThat(result.maxBuffered.get()).isLessThan(4096L + 65536L);
+	}
+
+	@Test
+	public void receiveBufferErrorsOnOverflow() throws Exception {
+		ReceiveResult result = receiveWithSlowSubscriber(NettyOptions.ReceiveOverflow.ERROR);
+
+		assertThat(Exceptions.isOverflow(result.error.get())).isTrue();
+	}
+
+	@Test
+	public void receiveBufferDropsOnOverflow() throws Exception {
+		ReceiveResult result = receiveWithSlowSubscriber(NettyOptions.ReceiveOverflow.DROP);
+
+		assertThat(result.error.get()).isNull();
+		assertThat(result.dropped.get()).isPositive();
+		assertThat(result.received.get() + result.dropped.get()).isEqualTo(TOTAL_SENT);
+		assertThat(result.maxBuffered.get()).isLessThanOrEqualTo(4096L);
+	}
+
+	static final long TOTAL_SENT = 64 * 16384;
+
+	static final class ReceiveResult {
+
+		final AtomicLong                               received    = new AtomicLong();
+		final AtomicLong                               dropped     = new AtomicLong();
+		final AtomicLong                               maxBuffered = new AtomicLong();
+		final AtomicReference<Throwable>               error       = new AtomicReference<>();
+		final AtomicReference<ChannelOperations<?, ?>> ops         = new AtomicReference<>();
+	}
+
+	private ReceiveResult receiveWithSlowSubscriber(NettyOptions.ReceiveOverflow overflow)
+			throws Exception {
+		ReceiveResult result = new ReceiveResult();
+
+		NettyContext server =
+				TcpServer.create(opts -> opts.port(0)
+				                             .receiveBufferWaterMark(1024, 4096)
+				                             .receiveOverflow(overflow)
+				                             .afterChannelInit(ch -> ch.config()
+				                                                       .setAutoRead(true)))
+				         .newHandler((in, out) -> {
+				             ChannelOperations<?, ?> ops = (ChannelOperations<?, ?>) in;
+				             result.ops.set(ops);
+				             return in.receive()
+				                      .map(ByteBuf::readableBytes)
+				                      .concatMap(n -> Mono.delay(Duration.ofMillis(10))
+				                                          .thenReturn(n), 1)
+				                      .doOnNext(n -> {
+				                          result.maxBuffered.accumulateAndGet(ops.inboundBufferedBytes(), Math::max);
+				                          result.received.addAndGet(n);
+				                      })
+				                      .doOnError(result.error::set)
+				                      .then()
+				                      .onErrorResume(t -> Mono.empty());
+				         })
+				         .block(Duration.ofSeconds(30));
+
+		NettyContext client =
+				TcpClient.create(server.address().getPort())
+				         .newHandler((in, out) -> out.sendByteArray(Flux.range(0, 64)
+				                                                        .map(i -> new byte[16384]))
+				                                     .then(in.receive().then()))
+				         .block(Duration.ofSeconds(30));
+
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+		while (result.error.get() == null &&
+				result.received.get() + result.dropped.get() < TOTAL_SENT &&
+				System.nanoTime() < deadline) {
+			Thread.sleep(10);
+			ChannelOperations<?, ?> ops = result.ops.get();
+			if (ops != null) {
+				result.dropped.set(ops.inboundDroppedBytes());
+			}
+		}
+
+		client.dispose();
+		server.dispose();
+		return result;
+	}
 }
@@ -16,12 +16,23 @@
 package reactor.ipc.netty.http;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
 import java.net.InetSocketAddress;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.DataFormatException;
 import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
 import io.netty.handler.codec.http.HttpHeaders;
 import org.junit.Assert;
 import org.junit.Ignore;
@@ -29,9 +40,12 @@ import org.junit.Test;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.ipc.netty.NettyContext;
+import reactor.ipc.netty.NettyPipeline;
 import reactor.ipc.netty.http.client.HttpClient;
 import reactor.ipc.netty.http.client.HttpClientResponse;
+import reactor.ipc.netty.http.server.ContentEncoder;
 import reactor.ipc.netty.http.server.HttpServer;
+import reactor.ipc.netty.resources.PoolResources;
 import reactor.test.StepVerifier;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -451,4 +465,311 @@ public class HttpCompressionClientServerTests {
 
 		server.dispose();
 	}
+
+	@Test
+	public void compressionToggledPerResponseOnKeepAliveConnection() throws Exception {
+		StringBuilder body = new StringBuilder();
+		for (int i = 0; i < 1000; i++) {
+			body.append("compressible body ").append(i).append('\n');
+		}
+		String expected = body.toString();
+		AtomicReference<Channel> connection = new AtomicReference<>();
+		NettyContext server =
+				HttpServer.create(0)
+				          .newHandler((req, res) -> {
+				              connection.set(req.context().channel());
+				              return res.compression(!req.uri().contains("plain"))
+				                        .sendString(Flux.just(expected.substring(0, 10),
+				                                expected.substring(10)));
+				          })
+				          .block(Duration.ofSeconds(30));
+
+		PoolResources pool = PoolResources.fixed("compressionToggled", 1);
+		HttpClient client =
+				HttpClient.create(o -> o.connectAddress(() -> address(server))
+				                        .poolResources(pool));
+		try {
+			for (String encoding : new String[]{"gzip", "plain", "deflate", "gzip"}) {
+				HttpClientResponse res =
+						client.get("/" + encoding,
+								req -> req.header("Accept-Encoding", "plain".equals(encoding) ?
+										"gzip" : encoding))
+						      .block(Duration.ofSeconds(30));
+				byte[] reply = res.receive()
+				                  .aggregate()
+				                  .asByteArray()
+				                  .block(Duration.ofSeconds(30));
+
+				assertThat(res.responseHeaders().get("content-encoding"))
+						.isEqualTo("plain".equals(encoding) ? null : encoding);
+				assertThat(decode(reply, res.responseHeaders().get("content-encoding")))
+						.isEqualTo(expected);
+			}
+
+			assertThat(connection.get()
+			                     .pipeline()
+			                     .get(NettyPipeline.CompressionHandler)).isNotNull();
+		}
+		finally {
+			pool.dispose();
+			server.dispose();
+		}
+	}
+
+	@Test
+	public void contentReleasedWhenEncoderFails() throws Exception {
+		ContentEncoder failing = new ContentEncoder() {
+			@Override
+			public String encoding() {
+				return "fail";
+			}
+
+			@Override
+			public Stream newStream() {
+				return new Stream() {
+					@Override
+					public ByteBuf encode(ByteBufAllocator alloc, ByteBuf in, boolean last) {
+						throw new IllegalStateException("encoder failure");
+					}
+
+					@Override
+					public void release() {
+					}
+				};
+			}
+		};
+		ByteBuf body = Unpooled.copiedBuffer(compressibleBody(), StandardCharsets.UTF_8);
+		NettyContext server =
+				HttpServer.create(o -> o.port(0)
+				                        .compression(true)
+				                        .compressionEncoders(failing))
+				          .newHandler((req, res) -> res.send(Mono.just(body)))
+				          .block(Duration.ofSeconds(30));
+
+		try {
+			HttpClient.create(o -> o.connectAddress(() -> address(server)))
+			          .get("/", req -> req.header("Accept-Encoding", "fail"))
+			          .flatMap(res -> res.receive()
+			                             .aggregate()
+			                             .asString())
+			          .onErrorResume(e -> Mono.empty())
+			          .block(Duration.ofSeconds(30));
+
+			long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+			while (body.refCnt() != 0 && System.nanoTime() < deadline) {
+				Thread.sleep(10);
+			}
+			assertThat(body.refCnt()).isZero();
+		}
+		finally {
+			server.dispose();
+		}
+	}
+
+	@Test
+	public void eventStreamUnderMinResponseSizeFlushedAsWritten() throws Exception {
+		NettyContext server =
+				HttpServer.create(o -> o.port(0)
+				                        .compression(1024))
+				          .newHandler((req, res) -> res.sse()
+				                                       .sendString(Flux.just("data: 1\n\n")
+				                                                       .concatWith(Flux.never())))
+				          .block(Duration.ofSeconds(30));
+
+		HttpClient client = HttpClient.create(o -> o.connectAddress(() -> address(server)));
+		try {
+			HttpClientResponse res =
+					client.get("/", req -> req.header("Accept-Encoding", "deflate"))
+					      .block(Duration.ofSeconds(5));
+			assertThat(res.responseHeaders().get("content-encoding")).isEqualTo("deflate");
+
+			//the encoder flushes each chunk, so the event decodes before the stream ends
+			Inflater inflater = new Inflater();
+			StringBuilder events = new StringBuilder();
+			String event = res.receive()
+			                  .asByteArray()
+			                  .map(bytes -> {
+				                  inflater.setInput(bytes);
+				                  byte[] buffer = new byte[1024];
+				                  try {
+					                  int n;
+					                  while ((n = inflater.inflate(buffer)) > 0) {
+						                  events.append(new String(buffer, 0, n, StandardCharsets.UTF_8));
+					                  }
+				                  }
+				                  catch (DataFormatException e) {
+					                  throw new IllegalStateException(e);
+				                  }
+				                  return events.toString();
+			                  })
+			                  .filter(text -> text.contains("data: 1"))
+			                  .next()
+			                  .block(Duration.ofSeconds(5));
+			assertThat(event).isEqualTo("data: 1\n\n");
+			inflater.end();
+		}
+		finally {
+			server.dispose();
+		}
+	}
+
+	@Test
+	public void compressionEncodersNegotiatedByQualityThenPreference() throws Exception {
+		String expected = compressibleBody();
+		HttpServer httpServer =
+				HttpServer.create(o -> o.port(0)
+				                        .compression(true)
+				                        .compressionEncoders(ContentEncoder.deflate(9),
+				                                ContentEncoder.gzip(1)));
+		NettyContext server =
+				httpServer.newHandler((req, res) -> res.sendString(Mono.just(expected)))
+				          .block(Duration.ofSeconds(30));
+
+		HttpClient client = HttpClient.create(o -> o.connectAddress(() -> address(server)));
+		try {
+			String[][] cases = {{"gzip, deflate", "deflate"},
+					{"gzip;q=1.0, deflate;q=0.5", "gzip"},
+					{"*", "deflate"},
+					{"*;q=0.5, gzip", "gzip"},
+					{"deflate;q=0, *", "gzip"},
+					{"br", null}};
+			for (String[] c : cases) {
+				HttpClientResponse res =
+						client.get("/", req -> req.header("Accept-Encoding", c[0]))
+						      .block(Duration.ofSeconds(30));
+				byte[] reply = res.receive()
+				                  .aggregate()
+				                  .asByteArray()
+				                  .block(Duration.ofSeconds(30));
+
+				assertThat(res.responseHeaders().get("content-encoding")).as(c[0])
+				                                                       .isEqualTo(c[1]);
+				assertThat(decode(reply, c[1])).isEqualTo(expected);
+			}
+
+			assertThat(httpServer.compressionMetrics()
+			                     .responses()).isEqualTo(5);
+			assertThat(httpServer.compressionMetrics()
+			                     .compressionRatio()).isGreaterThan(2.0d);
+			assertThat(httpServer.compressionMetrics()
+			                     .encodingNanos()).isGreaterThan(0);
+		}
+		finally {
+			server.dispose();
+		}
+	}
+
+	@Test
+	public void compressionSkipsExcludedContentTypes() throws Exception {
+		String expected = compressibleBody();
+		HttpServer httpServer = HttpServer.create(o -> o.port(0)
+		                                                .compression(true));
+		NettyContext server =
+				httpServer.newHandler((req, res) ->
+				                  res.header("Content-Type", req.uri()
+				                                                .substring(1))
+				                     .sendString(Mono.just(expected)))
+				          .block(Duration.ofSeconds(30));
+
+		HttpClient client = HttpClient.create(o -> o.connectAddress(() -> address(server)));
+		try {
+			String[][] cases = {{"/text/plain;charset=utf-8", "gzip"},
+					{"/image/png", null},
+					{"/video/mp4", null},
+					{"/image/svg+xml", "gzip"}};
+			for (String[] c : cases) {
+				HttpClientResponse res =
+						client.get(c[0], req -> req.header("Accept-Encoding", "gzip"))
+						      .block(Duration.ofSeconds(30));
+				byte[] reply = res.receive()
+				                  .aggregate()
+				                  .asByteArray()
+				                  .block(Duration.ofSeconds(30));
+
+				assertThat(res.responseHeaders().get("content-encoding")).as(c[0])
+				                                                       .isEqualTo(c[1]);
+				assertThat(decode(reply, c[1])).isEqualTo(expected);
+			}
+
+			assertThat(httpServer.compressionMetrics()
+			                     .responses()).isEqualTo(2);
+			assertThat(httpServer.compressionMetrics()
+			                     .skippedResponses()).isEqualTo(2);
+		}
+		finally {
+			server.dispose();
+		}
+	}
+
+	@Test
+	public void streamedResponseUnderMinSizeSentAsIs() throws Exception {
+		String expected = compressibleBody();
+		HttpServer httpServer = HttpServer.create(o -> o.port(0)
+		                                                .compression(100));
+		NettyContext server =
+				httpServer.newHandler((req, res) ->
+				                  res.sendString("/small".equals(req.uri()) ?
+				                          Flux.just("small ", "body") :
+				                          Flux.just(expected.substring(0, 50),
+				                                  expected.substring(50))))
+				          .block(Duration.ofSeconds(30));
+
+		HttpClient client = HttpClient.create(o -> o.connectAddress(() -> address(server)));
+		try {
+			HttpClientResponse res =
+					client.get("/small", req -> req.header("Accept-Encoding", "gzip"))
+					      .block(Duration.ofSeconds(30));
+			byte[] reply = res.receive()
+			                  .aggregate()
+			                  .asByteArray()
+			                  .block(Duration.ofSeconds(30));
+
+			assertThat(res.responseHeaders().get("content-encoding")).isNull();
+			assertThat(res.responseHeaders().get("content-length")).isEqualTo("10");
+			assertThat(new String(reply, StandardCharsets.UTF_8)).isEqualTo("small body");
+
+			res = client.get("/large", req -> req.header("Accept-Encoding", "gzip"))
+			            .block(Duration.ofSeconds(30));
+			reply = res.receive()
+			           .aggregate()
+			           .asByteArray()
+			           .block(Duration.ofSeconds(30));
+
+			assertThat(res.responseHeaders().get("content-encoding")).isEqualTo("gzip");
+			assertThat(decode(reply, "gzip")).isEqualTo(expected);
+
+			assertThat(httpServer.compressionMetrics()
+			                     .responses()).isEqualTo(1);
+			assertThat(httpServer.compressionMetrics()
+			                     .skippedResponses()).isEqualTo(1);
+		}
+		finally {
+			server.dispose();
+		}
+	}
+
+	static String compressibleBody() {
+		StringBuilder body = new StringBuilder();
+		for (int i = 0; i < 1000; i++) {
+			body.append("compressible body ").append(i).append('\n');
+		}
+		return body.toString();
+	}
+
+	static String decode(byte[] reply, String encoding) throws Exception {
+		InputStream in = new ByteArrayInputStream(reply);
+		if ("gzip".equals(encoding)) {
+			in = new GZIPInputStream(in);
+		}
+		else if ("deflate".equals(encoding)) {
+			in = new InflaterInputStream(in);
+		}
+		ByteArrayOutputStream decoded = new ByteArrayOutputStream();
+		byte[] buffer = new byte[4096];
+		int read;
+		while ((read = in.read(buffer)) != -1) {
+			decoded.write(buffer, 0, read);
+		}
+		return new String(decoded.toByteArray(), StandardCharsets.UTF_8);
+	}
 }
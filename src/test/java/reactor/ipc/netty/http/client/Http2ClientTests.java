@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2011-2018 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.ipc.netty.http.client;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.ipc.netty.NettyContext;
+import reactor.ipc.netty.http.HttpProtocol;
+import reactor.ipc.netty.http.server.HttpServer;
+import reactor.ipc.netty.resources.PoolResources;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+public class Http2ClientTests {
+
+	private PoolResources pool;
+
+	@Before
+	public void before() {
+		pool = PoolResources.fixed("http2ClientTests", 10);
+	}
+
+	@After
+	public void after() {
+		pool.dispose();
+	}
+
+	private HttpClient h2cClient(NettyContext server) {
+		return HttpClient.create(opts -> opts.host("127.0.0.1")
+		                                     .port(server.address().getPort())
+		                                     .poolResources(pool)
+		                                     .protocols(HttpProtocol.H2C));
+	}
+
+	private static Mono<String> get(HttpClient client, String uri) {
+		return client.get(uri)
+		             .flatMap(res -> res.receive()
+		                                .aggregate()
+		                                .asString()
+		                                .defaultIfEmpty(""));
+	}
+
+	@Test
+	public void concurrentRequestsShareOneConnection() {
+		HttpServer httpServer =
+				HttpServer.create(opts -> opts.host("127.0.0.1")
+				                              .port(0)
+				                              .protocols(HttpProtocol.H2C));
+		NettyContext server =
+				httpServer.newRouter(r -> r.get("/hello/{name}",
+						(req, res) -> res.sendString(Mono.just("Hello " + req.param("name"))
+						                                 .delayElement(Duration.ofMillis(100)))))
+				          .block(Duration.ofSeconds(30));
+
+		try {
+			HttpClient client = h2cClient(server);
+			// let the server settings reach the client before multiplexing
+			assertThat(get(client, "/hello/first").block(Duration.ofSeconds(30)))
+					.isEqualTo("Hello first");
+
+			List<String> responses =
+					Flux.range(0, 10)
+					    .flatMap(i -> get(client, "/hello/" + i))
+					    .collectList()
+					    .block(Duration.ofSeconds(30));
+
+			assertThat(responses).hasSize(10)
+			                     .contains("Hello 0", "Hello 9");
+			assertThat(httpServer.http2Metrics().connections()).isEqualTo(1);
+			assertThat(httpServer.http2Metrics().streams()).isEqualTo(11);
+		}
+		finally {
+			server.dispose();
+		}
+	}
+
+	@Test
+	public void saturatedConnectionsOpenNewOnes() {
+		HttpServer httpServer =
+				HttpServer.create(opts -> opts.host("127.0.0.1")
+				                              .port(0)
+				                              .protocols(HttpProtocol.H2C)
+				                              .http2MaxConcurrentStreams(2));
+		NettyContext server =
+				httpServer.newHandler((req, res) -> res.sendString(Mono.just("ok")
+				                                                       .delayElement(Duration.ofMillis(200))))
+				          .block(Duration.ofSeconds(30));
+
+		try {
+			HttpClient client = h2cClient(server);
+			assertThat(get(client, "/").block(Duration.ofSeconds(30))).isEqualTo("ok");
+
+			List<String> responses =
+					Flux.range(0, 6)
+					    .flatMap(i -> get(client, "/"))
+					    .collectList()
+					    .block(Duration.ofSeconds(30));
+
+			assertThat(responses).hasSize(6)
+			                     .containsOnly("ok");
+			// 3 connections, one more if the warm-up stream was not closed in time
+			assertThat(httpServer.http2Metrics().connections()).isGreaterThanOrEqualTo(3);
+			assertThat(httpServer.http2Metrics().streams()).isEqualTo(7);
+		}
+		finally {
+			server.dispose();
+		}
+	}
+
+	@Test
+	public void protocolsBadValues() {
+		try {
+			HttpClientOptions.builder()
+			                 .protocols()
+			                 .build();
+			fail("Expected IllegalArgumentException");
+		}
+		catch (IllegalArgumentException e) {
+			assertThat(e).hasMessage("supportedProtocols must not be empty");
+		}
+
+		try {
+			HttpClientOptions.builder()
+			                 .protocols(HttpProtocol.H2C)
+			                 .disablePool()
+			                 .build();
+			fail("Expected IllegalArgumentException");
+		}
+		catch (IllegalArgumentException e) {
+			assertThat(e).hasMessage("Configured HTTP/2 protocols without a connection pool");
+		}
+	}
+}
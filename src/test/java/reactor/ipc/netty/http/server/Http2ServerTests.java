@@ -0,0 +1,287 @@
+/*
+ * Copyright (c) 2011-2018 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.ipc.netty.http.server;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http2.Http2MultiplexCodecBuilder;
+import io.netty.handler.codec.http2.Http2StreamChannel;
+import io.netty.handler.codec.http2.Http2StreamChannelBootstrap;
+import io.netty.handler.codec.http2.Http2StreamFrameToHttpObjectCodec;
+import io.netty.handler.codec.http2.HttpConversionUtil;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import reactor.core.publisher.Mono;
+import reactor.ipc.netty.NettyContext;
+import reactor.ipc.netty.http.HttpProtocol;
+import reactor.ipc.netty.http.client.HttpClient;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class Http2ServerTests {
+
+	private NioEventLoopGroup                   group;
+	private BlockingQueue<FullHttpResponse>     responses;
+
+	@Before
+	public void before() {
+		group = new NioEventLoopGroup(1);
+		responses = new LinkedBlockingQueue<>();
+	}
+
+	@After
+	public void after() {
+		FullHttpResponse response;
+		while ((response = responses.poll()) != null) {
+			response.release();
+		}
+		group.shutdownGracefully(0, 0, TimeUnit.SECONDS);
+	}
+
+	private Channel connectH2c(NettyContext server) throws InterruptedException {
+		return new Bootstrap().group(group)
+		                      .channel(NioSocketChannel.class)
+		                      .handler(new ChannelInitializer<Channel>() {
+			                      @Override
+			                      protected void initChannel(Channel ch) {
+				                      ch.pipeline()
+				                        .addLast(Http2MultiplexCodecBuilder.forClient(
+						                        new ChannelInitializer<Channel>() {
+							                        @Override
+							                        protected void initChannel(Channel ch) {
+							                        }
+						                        })
+				                                                           .build());
+			                      }
+		                      })
+		                      .connect(server.address())
+		                      .sync()
+		                      .channel();
+	}
+
+	private Http2StreamChannel openStream(Channel connection) throws InterruptedException {
+		return new Http2StreamChannelBootstrap(connection)
+				.handler(new ChannelInitializer<Channel>() {
+					@Override
+					protected void initChannel(Channel ch) {
+						ch.pipeline()
+						  .addLast(new Http2StreamFrameToHttpObjectCodec(false))
+						  .addLast(new HttpObjectAggregator(1 << 20))
+						  .addLast(new SimpleChannelInboundHandler<FullHttpResponse>() {
+							  @Override
+							  protected void channelRead0(ChannelHandlerContext ctx,
+									  FullHttpResponse msg) {
+								  responses.add(msg.retain());
+							  }
+						  });
+					}
+				})
+				.open()
+				.sync()
+				.getNow();
+	}
+
+	private static FullHttpRequest request(HttpMethod method, String uri, ByteBuf body) {
+		FullHttpRequest request =
+				new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, method, uri, body);
+		request.headers()
+		       .set(HttpConversionUtil.ExtensionHeaderNames.SCHEME.text(), "http")
+		       .set(HttpHeaderNames.HOST, "localhost")
+		       .setInt(HttpHeaderNames.CONTENT_LENGTH, body.readableBytes());
+		return request;
+	}
+
+	@Test
+	public void priorKnowledgeStreamsServedConcurrently() throws Exception {
+		HttpServer httpServer =
+				HttpServer.create(opts -> opts.host("127.0.0.1")
+				                              .port(0)
+				                              .protocols(HttpProtocol.HTTP11, HttpProtocol.H2C));
+		NettyContext server =
+				httpServer.newRouter(r -> r.get("/hello/{name}",
+						(req, res) -> res.sendString(Mono.just("Hello " + req.param("name"))))
+				                           .post("/echo",
+						(req, res) -> res.send(req.receive()
+						                          .retain())))
+				          .block(Duration.ofSeconds(30));
+		try {
+			Channel connection = connectH2c(server);
+
+			openStream(connection).writeAndFlush(request(HttpMethod.GET, "/hello/h2",
+					Unpooled.EMPTY_BUFFER));
+			openStream(connection).writeAndFlush(request(HttpMethod.POST, "/echo",
+					Unpooled.copiedBuffer("ping", StandardCharsets.UTF_8)));
+
+			String first = poll();
+			String second = poll();
+			assertThat(first + "|" + second).isIn("Hello h2|ping", "ping|Hello h2");
+
+			assertThat(httpServer.http2Metrics().connections()).isEqualTo(1);
+			assertThat(httpServer.http2Metrics().activeConnections()).isEqualTo(1);
+			assertThat(httpServer.http2Metrics().streams()).isEqualTo(2);
+
+			connection.close()
+			          .sync();
+		}
+		finally {
+			server.dispose();
+		}
+	}
+
+	@Test
+	public void requestBodyLargerThanStreamWindow() throws Exception {
+		NettyContext server =
+				HttpServer.create(opts -> opts.host("127.0.0.1")
+				                              .port(0)
+				                              .protocols(HttpProtocol.H2C)
+				                              .http2InitialWindowSize(1024))
+				          .newHandler((req, res) -> res.sendString(req.receive()
+				                                                      .aggregate()
+				                                                      .asString()
+				                                                      .defaultIfEmpty("")
+				                                                      .map(s -> "" + s.length())))
+				          .block(Duration.ofSeconds(30));
+		try {
+			Channel connection = connectH2c(server);
+
+			// a first exchange makes sure the server settings are in effect
+			openStream(connection).writeAndFlush(request(HttpMethod.GET, "/",
+					Unpooled.EMPTY_BUFFER));
+			assertThat(poll()).isEqualTo("0");
+
+			byte[] body = new byte[64 * 1024];
+
+			openStream(connection).writeAndFlush(request(HttpMethod.POST, "/",
+					Unpooled.wrappedBuffer(body)));
+
+			assertThat(poll()).isEqualTo("" + body.length);
+
+			connection.close()
+			          .sync();
+		}
+		finally {
+			server.dispose();
+		}
+	}
+
+	@Test
+	public void http11StillServedWithH2c() {
+		NettyContext server =
+				HttpServer.create(opts -> opts.host("127.0.0.1")
+				                              .port(0)
+				                              .protocols(HttpProtocol.HTTP11, HttpProtocol.H2C))
+				          .newHandler((req, res) -> res.sendString(Mono.just(req.version()
+				                                                                .text())))
+				          .block(Duration.ofSeconds(30));
+		try {
+			String response =
+					HttpClient.create(server.address().getPort())
+					          .get("/")
+					          .flatMap(res -> res.receive()
+					                             .aggregate()
+					                             .asString())
+					          .block(Duration.ofSeconds(30));
+
+			assertThat(response).isEqualTo("HTTP/1.1");
+		}
+		finally {
+			server.dispose();
+		}
+	}
+
+	@Test
+	public void upgradeFromHttp11() throws Exception {
+		HttpServer httpServer =
+				HttpServer.create(opts -> opts.host("127.0.0.1")
+				                              .port(0)
+				                              .protocols(HttpProtocol.HTTP11, HttpProtocol.H2C));
+		NettyContext server =
+				httpServer.newHandler((req, res) -> res.sendString(Mono.just("upgraded")))
+				          .block(Duration.ofSeconds(30));
+		try (Socket socket = new Socket("127.0.0.1", server.address().getPort())) {
+			OutputStream out = socket.getOutputStream();
+			out.write(("GET / HTTP/1.1\r\n" +
+					"Host: localhost\r\n" +
+					"Connection: Upgrade, HTTP2-Settings\r\n" +
+					"Upgrade: h2c\r\n" +
+					"HTTP2-Settings: AAMAAABkAARAAAAAAAIAAAAA\r\n\r\n")
+					.getBytes(StandardCharsets.US_ASCII));
+			out.flush();
+
+			socket.setSoTimeout(30000);
+			InputStream in = socket.getInputStream();
+			byte[] status = new byte[34];
+			int read = 0;
+			while (read < status.length) {
+				int r = in.read(status, read, status.length - read);
+				assertThat(r).isNotEqualTo(-1);
+				read += r;
+			}
+
+			assertThat(new String(status, StandardCharsets.US_ASCII))
+					.isEqualTo("HTTP/1.1 101 Switching Protocols\r\n");
+
+			long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+			while (httpServer.http2Metrics().streams() == 0 && System.nanoTime() < deadline) {
+				Thread.sleep(10);
+			}
+			assertThat(httpServer.http2Metrics().connections()).isEqualTo(1);
+			assertThat(httpServer.http2Metrics().streams()).isEqualTo(1);
+		}
+		finally {
+			server.dispose();
+		}
+	}
+
+	private String poll() throws InterruptedException {
+		FullHttpResponse response = responses.poll(30, TimeUnit.SECONDS);
+		assertThat(response).isNotNull();
+		try {
+			assertThat(response.status()).isEqualTo(HttpResponseStatus.OK);
+			return response.content()
+			               .toString(StandardCharsets.UTF_8);
+		}
+		finally {
+			response.release();
+		}
+	}
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2011-2018 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.ipc.netty.http.server;
+
+import java.nio.charset.StandardCharsets;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class HttpCompressionHandlerTest {
+
+	static final ContentEncoder FAILING = new ContentEncoder() {
+		@Override
+		public String encoding() {
+			return "fail";
+		}
+
+		@Override
+		public Stream newStream() {
+			return new Stream() {
+				@Override
+				public ByteBuf encode(ByteBufAllocator alloc, ByteBuf in, boolean last) {
+					throw new IllegalStateException("encoder failure");
+				}
+
+				@Override
+				public void release() {
+				}
+			};
+		}
+	};
+
+	@Test
+	public void fullResponseReleasedWhenEncoderFails() {
+		HttpServerOptions options = HttpServerOptions.builder()
+		                                             .compression(true)
+		                                             .compressionEncoders(FAILING)
+		                                             .build();
+		HttpCompressionHandler handler = new HttpCompressionHandler(
+				new HttpCompressionHandler.Settings(options, new CompressionMetrics()));
+		EmbeddedChannel channel = new EmbeddedChannel(handler);
+		handler.compressNextResponse(FAILING, 0);
+
+		FullHttpResponse full = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1,
+				HttpResponseStatus.OK,
+				Unpooled.copiedBuffer("body", StandardCharsets.UTF_8));
+		ChannelFuture f = channel.writeAndFlush(full);
+
+		assertThat(f.cause()).isInstanceOf(IllegalStateException.class);
+		assertThat(full.refCnt()).isZero();
+		assertThat(channel.finish()).isFalse();
+	}
+}
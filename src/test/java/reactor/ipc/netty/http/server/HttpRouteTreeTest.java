@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2011-2018 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.ipc.netty.http.server;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+import io.netty.handler.codec.http.HttpMethod;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class HttpRouteTreeTest {
+
+	static DefaultHttpServerRoutes.HttpRouteHandler route(Predicate<? super HttpServerRequest> condition) {
+		return new DefaultHttpServerRoutes.HttpRouteHandler(condition,
+				(req, res) -> res.send(),
+				null);
+	}
+
+	@SafeVarargs
+	private static HttpRouteTree tree(Predicate<? super HttpServerRequest>... conditions) {
+		DefaultHttpServerRoutes.HttpRouteHandler[] handlers =
+				new DefaultHttpServerRoutes.HttpRouteHandler[conditions.length];
+		for (int i = 0; i < conditions.length; i++) {
+			handlers[i] = route(conditions[i]);
+		}
+		return HttpRouteTree.compile(Arrays.asList(handlers));
+	}
+
+	@Test
+	public void literalRoutesAreMatchedPerMethod() {
+		HttpRouteTree tree = tree(HttpPredicate.get("/test"),
+				HttpPredicate.post("/test"),
+				HttpPredicate.get("/test/other"));
+
+		assertThat(tree.find(HttpMethod.GET, "/test").index).isEqualTo(0);
+		assertThat(tree.find(HttpMethod.POST, "/test").index).isEqualTo(1);
+		assertThat(tree.find(HttpMethod.GET, "/test/other").index).isEqualTo(2);
+		assertThat(tree.find(HttpMethod.PUT, "/test")).isNull();
+		assertThat(tree.find(HttpMethod.GET, "/tes")).isNull();
+		assertThat(tree.find(HttpMethod.GET, "/test/")).isNull();
+		assertThat(tree.fallbacks).isEmpty();
+	}
+
+	@Test
+	public void firstRegisteredRouteWins() {
+		HttpRouteTree tree = tree(HttpPredicate.get("/test/{id}"),
+				HttpPredicate.get("/test/static"),
+				HttpPredicate.get("/**"));
+
+		HttpRouteTree.Match match = tree.find(HttpMethod.GET, "/test/static");
+		assertThat(match.index).isEqualTo(0);
+		assertThat(match.params()).containsEntry("id", "static");
+
+		assertThat(tree.find(HttpMethod.GET, "/other").index).isEqualTo(2);
+	}
+
+	@Test
+	public void prefixRoutesMatchAnyRemainder() {
+		HttpRouteTree tree = tree(HttpPredicate.prefix("/static"),
+				HttpPredicate.prefix("/", HttpMethod.POST));
+
+		assertThat(tree.find(HttpMethod.GET, "/static/css/site.css").index).isEqualTo(0);
+		assertThat(tree.find(HttpMethod.GET, "/static").index).isEqualTo(0);
+		assertThat(tree.find(HttpMethod.GET, "/other")).isNull();
+		assertThat(tree.find(HttpMethod.POST, "/other").index).isEqualTo(1);
+		assertThat(tree.find(HttpMethod.POST, "/other").params()).isNull();
+	}
+
+	@Test
+	public void nonTemplatePredicatesAreKeptInOrder() {
+		Predicate<HttpServerRequest> custom = req -> true;
+		HttpRouteTree tree = tree(HttpPredicate.get("/a"),
+				custom,
+				HttpPredicate.get("/a(b)?"),
+				HttpPredicate.http("/b", io.netty.handler.codec.http.HttpVersion.HTTP_1_1, HttpMethod.GET));
+
+		assertThat(tree.fallbacks).extracting(r -> r.index).containsExactly(1, 2, 3);
+		assertThat(tree.find(HttpMethod.GET, "/a").index).isEqualTo(0);
+		assertThat(tree.find(HttpMethod.GET, "/b")).isNull();
+	}
+
+	@Test
+	public void capturesMatchUriPathTemplate() {
+		List<String> templates = Arrays.asList("/test/{order}",
+				"/test/{order}/{id}",
+				"/test/{order}/items",
+				"/file-{name}.txt",
+				"/{first}-{second}",
+				"/static/{path}**",
+				"/static/**",
+				"/{a}**/end",
+				"**",
+				"/1.0/comments");
+		List<String> uris = Arrays.asList("/test/1",
+				"/test/1?x=y",
+				"/test/",
+				"/test/1/2",
+				"/test/1/items",
+				"/file-a.txt",
+				"/file-a.txt.txt",
+				"/a-b-c",
+				"/static/css/site.css",
+				"/static/",
+				"/x/y/end",
+				"/1.0/comments",
+				"");
+
+		for (String template : templates) {
+			HttpPredicate.UriPathTemplate regex = new HttpPredicate.UriPathTemplate(template);
+			HttpRouteTree tree = tree(new HttpPredicate(template, null, HttpMethod.GET));
+			for (String uri : uris) {
+				HttpRouteTree.Match match = tree.find(HttpMethod.GET, uri);
+				assertThat(match != null)
+						.as("%s matches %s", template, uri)
+						.isEqualTo(regex.matches(uri));
+				if (match != null) {
+					Map<String, String> expected = regex.match(uri);
+					Map<String, String> params = match.params();
+					if (expected.isEmpty()) {
+						assertThat(params).as("%s params for %s", template, uri).isNull();
+					}
+					else {
+						assertThat(params).as("%s params for %s", template, uri)
+						                  .isEqualTo(expected);
+					}
+				}
+			}
+		}
+	}
+}
@@ -16,7 +16,10 @@
 
 package reactor.ipc.netty.http.server;
 
+import io.netty.handler.codec.http2.Http2Settings;
+import io.netty.util.AsciiString;
 import org.junit.Test;
+import reactor.ipc.netty.http.HttpProtocol;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
@@ -49,6 +52,86 @@ public class HttpServerOptionsTest {
 		assertThat(builder.build().minCompressionResponseSize()).isEqualTo(10);
 	}
 
+	@Test
+	public void compressionEncoders() {
+		HttpServerOptions.Builder builder = HttpServerOptions.builder();
+
+		assertThat(builder.build().compressionEncoders())
+				.as("default encoders")
+				.containsExactly(ContentEncoder.gzip(6), ContentEncoder.deflate(6));
+
+		builder.compressionEncoders(ContentEncoder.deflate(1), ContentEncoder.gzip(9));
+		HttpServerOptions conf = builder.build();
+
+		assertThat(conf.compressionEncoders()).extracting(ContentEncoder::encoding)
+		                                      .containsExactly("deflate", "gzip");
+	}
+
+	@Test
+	public void compressionEncodersBadValues() {
+		HttpServerOptions.Builder builder = HttpServerOptions.builder();
+
+		assertThatExceptionOfType(IllegalArgumentException.class)
+				.isThrownBy(builder::compressionEncoders)
+				.withMessage("encoders must not be empty");
+
+		assertThatExceptionOfType(NullPointerException.class)
+				.isThrownBy(() -> builder.compressionEncoders(ContentEncoder.gzip(6), null))
+				.withMessage("encoder");
+
+		assertThatExceptionOfType(IllegalArgumentException.class)
+				.isThrownBy(() -> ContentEncoder.gzip(10))
+				.withMessage("level must be between 0 and 9");
+	}
+
+	@Test
+	public void compressionExcludedContentTypes() {
+		HttpServerOptions.Builder builder = HttpServerOptions.builder();
+
+		assertThat(builder.build().compressionExcludedContentTypes())
+				.as("default excluded content types")
+				.contains("image/png", "video/*", "application/zip");
+
+		builder.compressionExcludedContentTypes("Image/*", "application/pdf");
+
+		assertThat(builder.build().compressionExcludedContentTypes())
+				.containsOnly("image/*", "application/pdf");
+
+		builder.compressionExcludedContentTypes();
+
+		assertThat(builder.build().compressionExcludedContentTypes()).isEmpty();
+
+		assertThatExceptionOfType(IllegalArgumentException.class)
+				.isThrownBy(() -> builder.compressionExcludedContentTypes("image"))
+				.withMessage("contentType must be a media type or range");
+	}
+
+	@Test
+	public void defaultResponseHeaders() {
+		HttpServerOptions.Builder builder = HttpServerOptions.builder();
+
+		assertThat(builder.build().defaultResponseHeaders().isEmpty()).isTrue();
+		assertThat(builder.build().dateHeader()).isFalse();
+
+		builder.defaultResponseHeader("Server", "reactor-netty")
+		       .dateHeader(true);
+		HttpServerOptions options = builder.build();
+
+		assertThat(options.defaultResponseHeaders().get("server")).isEqualTo("reactor-netty");
+		assertThat(options.defaultResponseHeaders()
+		                  .iteratorCharSequence()
+		                  .next()
+		                  .getValue()).isInstanceOf(AsciiString.class);
+		assertThat(options.dateHeader()).isTrue();
+
+		options.defaultResponseHeaders().clear();
+		assertThat(options.defaultResponseHeaders().isEmpty()).isFalse();
+
+		assertThatExceptionOfType(IllegalArgumentException.class)
+				.isThrownBy(() -> builder.defaultResponseHeader("X-Test", "a\r\nb"))
+				.withMessage("value must not contain CR or LF");
+	}
+
 	@Test
 	public void maxInitialLineLength() {
 		HttpServerOptions.Builder builder = HttpServerOptions.builder();
@@ -279,4 +362,43 @@ public class HttpServerOptionsTest {
 				.endsWith(", minCompressionResponseSize=534, httpCodecSizes={initialLine=4096,header=8192,chunk=8192}}");
 	}
 
+	@Test
+	public void protocolsDefaultToHttp11() {
+		assertThat(HttpServerOptions.builder()
+		                            .build()
+		                            .protocols()).containsExactly(HttpProtocol.HTTP11);
+	}
+
+	@Test
+	public void protocolsBadValues() {
+		HttpServerOptions.Builder builder = HttpServerOptions.builder();
+
+		assertThatExceptionOfType(IllegalArgumentException.class)
+				.isThrownBy(builder::protocols)
+				.withMessage("supportedProtocols must not be empty");
+
+		assertThatExceptionOfType(IllegalArgumentException.class)
+				.isThrownBy(() -> builder.protocols(HttpProtocol.H2)
+				                         .build())
+				.withMessage("Configured H2 protocol without an SSL context");
+	}
+
+	@Test
+	public void http2Settings() {
+		Http2Settings settings = HttpServerOptions.builder()
+		                                          .protocols(HttpProtocol.H2C)
+		                                          .http2MaxConcurrentStreams(10)
+		                                          .http2InitialWindowSize(1024)
+		                                          .build()
+		                                          .http2Settings();
+
+		assertThat(settings.maxConcurrentStreams()).isEqualTo(10L);
+		assertThat(settings.initialWindowSize()).isEqualTo(1024);
+
+		assertThatExceptionOfType(IllegalArgumentException.class)
+				.isThrownBy(() -> HttpServerOptions.builder()
+				                                   .http2InitialWindowSize(0))
+				.withMessage("http2InitialWindowSize must be strictly positive");
+	}
+
 }
\ No newline at end of file
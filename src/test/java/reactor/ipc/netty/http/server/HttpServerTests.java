@@ -16,13 +16,17 @@
 
 package reactor.ipc.netty.http.server;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.net.URISyntaxException;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.Duration;
+import java.util.Arrays;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -32,9 +36,12 @@ import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
+import java.util.zip.GZIPOutputStream;
 
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
 import io.netty.handler.codec.LineBasedFrameDecoder;
 import io.netty.handler.codec.http.DefaultFullHttpRequest;
 import io.netty.handler.codec.http.DefaultHttpContent;
@@ -61,9 +68,11 @@ import reactor.test.StepVerifier;
 import reactor.util.context.Context;
 import reactor.util.function.Tuple2;
 import reactor.util.function.Tuple3;
+import reactor.util.function.Tuples;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.assertj.core.api.Assertions.within;
 
 /**
  * @author Stephane Maldini
@@ -268,6 +277,422 @@ public class HttpServerTests {
 		c.dispose();
 	}
 
+	@Test
+	public void precompressedSiblingsServedAsIs() throws Exception {
+		Path dir = Files.createTempDirectory("precompressed");
+		byte[] js = "console.log('precompressed');".getBytes(StandardCharsets.UTF_8);
+		ByteArrayOutputStream gz = new ByteArrayOutputStream();
+		try (GZIPOutputStream out = new GZIPOutputStream(gz)) {
+			out.write(js);
+		}
+		Files.write(dir.resolve("app.js"), js);
+		Files.write(dir.resolve("app.js.gz"), gz.toByteArray());
+		Files.write(dir.resolve("app.js.br"), "br-bytes".getBytes(StandardCharsets.UTF_8));
+		Files.write(dir.resolve("plain.txt"), js);
+
+		NettyContext c = HttpServer.create(o -> o.port(0)
+		                                         .compression(true))
+		                           .newRouter(routes -> routes.directory("/static", dir)
+		                                                      .file("/app", dir.resolve("app.js")))
+		                           .block(Duration.ofSeconds(30));
+		HttpClient client = HttpClient.create(c.address()
+		                                       .getPort());
+		try {
+			String[][] cases = {{"/static/app.js", "gzip", "gzip"},
+					{"/static/app.js", "gzip, br", "br"},
+					{"/static/app.js", "br;q=0.5, gzip", "gzip"},
+					{"/static/app.js", "identity", null},
+					{"/app", "gzip", "gzip"}};
+			for (String[] test : cases) {
+				HttpClientResponse response =
+						client.get(test[0], req -> req.header("Accept-Encoding", test[1]))
+						      .block(Duration.ofSeconds(30));
+				byte[] body = response.receive()
+				                      .aggregate()
+				                      .asByteArray()
+				                      .block(Duration.ofSeconds(30));
+
+				HttpHeaders headers = response.responseHeaders();
+				assertThat(headers.get(HttpHeaderNames.CONTENT_ENCODING)).as(test[1])
+				                                                       .isEqualTo(test[2]);
+				assertThat(headers.get(HttpHeaderNames.VARY)).isEqualTo("accept-encoding");
+				byte[] expected = "gzip".equals(test[2]) ? gz.toByteArray() :
+						"br".equals(test[2]) ? "br-bytes".getBytes(StandardCharsets.UTF_8) :
+								js;
+				assertThat(body).isEqualTo(expected);
+			}
+
+			HttpClientResponse response =
+					client.get("/static/plain.txt", req -> req.header("Accept-Encoding", "br"))
+					      .block(Duration.ofSeconds(30));
+			response.dispose();
+			assertThat(response.responseHeaders()
+			                   .get(HttpHeaderNames.VARY)).isNull();
+		}
+		finally {
+			c.dispose();
+		}
+	}
+
+	@Test
+	public void staticFileRangesAndConditionalRequests() throws Exception {
+		Path dir = Files.createTempDirectory("ranges");
+		Path file = dir.resolve("data.txt");
+		StringBuilder content = new StringBuilder();
+		for (int i = 0; i < 100; i++) {
+			content.append("0123456789");
+		}
+		String data = content.toString();
+		Files.write(file, data.getBytes(StandardCharsets.US_ASCII));
+
+		NettyContext c = HttpServer.create(0)
+		                           .newRouter(routes -> routes.directory("/static", dir))
+		                           .block(Duration.ofSeconds(30));
+		HttpClient client = HttpClient.create(c.address()
+		                                       .getPort());
+		try {
+			long hits = FileCache.DEFAULT.hits.sum();
+			Tuple2<HttpHeaders, String> full = getStatic(client, 200);
+			HttpHeaders headers = full.getT1();
+			String etag = headers.get(HttpHeaderNames.ETAG);
+			String lastModified = headers.get(HttpHeaderNames.LAST_MODIFIED);
+			assertThat(etag).isNotNull();
+			assertThat(lastModified).isNotNull();
+			assertThat(headers.get(HttpHeaderNames.ACCEPT_RANGES)).isEqualTo("bytes");
+			assertThat(headers.get(HttpHeaderNames.CONTENT_LENGTH)).isEqualTo("1000");
+			assertThat(full.getT2()).isEqualTo(data);
+
+			assertThat(getStatic(client, 304, "If-None-Match", etag).getT2()).isEmpty();
+			assertThat(getStatic(client, 304, "If-Modified-Since", lastModified).getT2()).isEmpty();
+			getStatic(client, 412, "If-Match", "\"other\"");
+
+			Tuple2<HttpHeaders, String> partial = getStatic(client, 206, "Range", "bytes=10-19");
+			assertThat(partial.getT1()
+			                  .get(HttpHeaderNames.CONTENT_RANGE)).isEqualTo("bytes 10-19/1000");
+			assertThat(partial.getT2()).isEqualTo(data.substring(10, 20));
+
+			assertThat(getStatic(client, 206, "Range", "bytes=-5").getT2())
+					.isEqualTo(data.substring(995));
+
+			assertThat(getStatic(client, 416, "Range", "bytes=2000-").getT1()
+			                                                        .get(HttpHeaderNames.CONTENT_RANGE))
+					.isEqualTo("bytes */1000");
+
+			assertThat(getStatic(client, 200, "Range", "bytes=10-19", "If-Range", "\"stale\"")
+					.getT2()).isEqualTo(data);
+
+			Tuple2<HttpHeaders, String> multipart =
+					getStatic(client, 206, "Range", "bytes=0-1,25-27");
+			String contentType = multipart.getT1()
+			                              .get(HttpHeaderNames.CONTENT_TYPE);
+			assertThat(contentType).startsWith("multipart/byteranges; boundary=");
+			String boundary = contentType.substring(contentType.indexOf('=') + 1);
+			assertThat(multipart.getT2()).isEqualTo(
+					"\r\n--" + boundary + "\r\ncontent-range: bytes 0-1/1000\r\n\r\n01" +
+					"\r\n--" + boundary + "\r\ncontent-range: bytes 25-27/1000\r\n\r\n567" +
+					"\r\n--" + boundary + "--\r\n");
+			assertThat(multipart.getT1()
+			                    .getInt(HttpHeaderNames.CONTENT_LENGTH)).isEqualTo(multipart.getT2()
+			                                                                                .length());
+
+			assertThat(FileCache.DEFAULT.hits.sum() - hits).isGreaterThan(0);
+
+			Files.write(file, "updated".getBytes(StandardCharsets.US_ASCII));
+			String body = null;
+			for (int i = 0; i < 100 && !"updated".equals(body); i++) {
+				Thread.sleep(100);
+				body = getStatic(client, 200).getT2();
+			}
+			assertThat(body).isEqualTo("updated");
+		}
+		finally {
+			c.dispose();
+		}
+	}
+
+	@Test
+	public void clearFileCacheStopsWatchingDirectories() throws Exception {
+		Path dir = Files.createTempDirectory("clear");
+		Path file = dir.resolve("data.txt");
+		Files.write(file, "data".getBytes(StandardCharsets.US_ASCII));
+		StaticContentCache cache = StaticContentCache.create(1024);
+
+		NettyContext c = HttpServer.create(0)
+		                           .newRouter(routes -> routes.directory("/static", dir))
+		                           .block(Duration.ofSeconds(30));
+		HttpClient client = HttpClient.create(c.address()
+		                                       .getPort());
+		try {
+			assertThat(getStatic(client, 200).getT2()).isEqualTo("data");
+			assertThat(cache.get(file)).isNotNull();
+			assertThat(FileCache.DEFAULT.watchedDirs).containsKey(dir.toAbsolutePath()
+			                                                     .normalize());
+
+			HttpServer.clearFileCache();
+			assertThat(FileCache.DEFAULT.entries).isEmpty();
+			assertThat(cache.size()).isZero();
+			assertThat(FileCache.DEFAULT.watchedDirs).isEmpty();
+			assertThat(FileCache.DEFAULT.watchService).isNull();
+
+			//cached and watched again on demand
+			assertThat(getStatic(client, 200).getT2()).isEqualTo("data");
+			assertThat(FileCache.DEFAULT.watchedDirs).containsKey(dir.toAbsolutePath()
+			                                                     .normalize());
+		}
+		finally {
+			HttpServer.clearFileCache();
+			cache.dispose();
+			c.dispose();
+		}
+	}
+
+	@Test
+	public void staticContentCacheServesSmallFilesFromMemory() throws Exception {
+		Path dir = Files.createTempDirectory("content-cache");
+		StringBuilder content = new StringBuilder();
+		for (int i = 0; i < 100; i++) {
+			content.append("0123456789");
+		}
+		String data = content.toString();
+		ByteArrayOutputStream gz = new ByteArrayOutputStream();
+		try (GZIPOutputStream out = new GZIPOutputStream(gz)) {
+			out.write(data.getBytes(StandardCharsets.US_ASCII));
+		}
+		Files.write(dir.resolve("data.txt"), data.getBytes(StandardCharsets.US_ASCII));
+		Files.write(dir.resolve("data.txt.gz"), gz.toByteArray());
+		byte[] big = new byte[4096];
+		Arrays.fill(big, (byte) 'x');
+		Files.write(dir.resolve("big.txt"), big);
+		Files.write(dir.resolve("other.txt"), data.getBytes(StandardCharsets.US_ASCII));
+
+		StaticContentCache cache = StaticContentCache.create(1 << 20, 2048);
+		NettyContext c = HttpServer.create(0)
+		                           .newRouter(routes -> routes.directory("/static", dir, null, cache))
+		                           .block(Duration.ofSeconds(30));
+		HttpClient client = HttpClient.create(c.address()
+		                                       .getPort());
+		try {
+			HttpHeaders headers = getStatic(client, 200).getT1();
+			assertThat(headers.get(HttpHeaderNames.VARY)).isEqualTo("accept-encoding");
+			assertThat(headers.get(HttpHeaderNames.ETAG)).isNotNull();
+			assertThat(getStatic(client, 200).getT2()).isEqualTo(data);
+			assertThat(getStatic(client, 304, "If-None-Match",
+					headers.get(HttpHeaderNames.ETAG)).getT2()).isEmpty();
+			assertThat(getStatic(client, 206, "Range", "bytes=10-19").getT2())
+					.isEqualTo(data.substring(10, 20));
+
+			HttpClientResponse response =
+					client.get("/static/data.txt", req -> req.header("Accept-Encoding", "gzip"))
+					      .block(Duration.ofSeconds(30));
+			byte[] body = response.receive()
+			                      .aggregate()
+			                      .asByteArray()
+			                      .block(Duration.ofSeconds(30));
+			assertThat(response.responseHeaders()
+			                   .get(HttpHeaderNames.CONTENT_ENCODING)).isEqualTo("gzip");
+			assertThat(body).isEqualTo(gz.toByteArray());
+
+			String bigBody = client.get("/static/big.txt")
+			                       .flatMap(r -> r.receive()
+			                                      .aggregate()
+			                                      .asString(StandardCharsets.US_ASCII))
+			                       .block(Duration.ofSeconds(30));
+			assertThat(bigBody).isEqualTo(new String(big, StandardCharsets.US_ASCII));
+
+			assertThat(cache.size()).isEqualTo(1);
+			assertThat(cache.residentBytes()).isEqualTo(1000 + gz.size());
+			assertThat(cache.hits()).isEqualTo(4);
+			assertThat(cache.hitRatio()).isGreaterThan(0.5);
+
+			Files.write(dir.resolve("data.txt"), "updated".getBytes(StandardCharsets.US_ASCII));
+			String updated = null;
+			for (int i = 0; i < 100 && !"updated".equals(updated); i++) {
+				Thread.sleep(100);
+				updated = getStatic(client, 200).getT2();
+			}
+			assertThat(updated).isEqualTo("updated");
+
+			cache.clear();
+			assertThat(cache.size()).isZero();
+			assertThat(cache.residentBytes()).isZero();
+		}
+		finally {
+			cache.dispose();
+			c.dispose();
+		}
+	}
+
+	@Test
+	public void staticContentCacheEvictsOverBudget() throws Exception {
+		Path dir = Files.createTempDirectory("content-cache-budget");
+		byte[] content = new byte[1000];
+		Arrays.fill(content, (byte) 'x');
+		for (int i = 0; i < 4; i++) {
+			Files.write(dir.resolve("file" + i), content);
+		}
+		StaticContentCache cache = StaticContentCache.create(2500);
+		for (int i = 0; i < 4; i++) {
+			assertThat(cache.get(dir.resolve("file" + i))).isNotNull();
+			assertThat(cache.residentBytes()).isLessThanOrEqualTo(2500);
+		}
+		assertThat(cache.size()).isEqualTo(2);
+		assertThat(cache.misses()).isEqualTo(4);
+		cache.dispose();
+
+		assertThatExceptionOfType(IllegalArgumentException.class)
+				.isThrownBy(() -> StaticContentCache.create(0));
+		assertThatExceptionOfType(IllegalArgumentException.class)
+				.isThrownBy(() -> StaticContentCache.create(1, 0));
+	}
+
+	@Test
+	public void staticContentCacheDisposeReleasesContent() throws Exception {
+		Path dir = Files.createTempDirectory("content-cache-dispose");
+		Path file = dir.resolve("data.txt");
+		Files.write(file, "data".getBytes(StandardCharsets.US_ASCII));
+		StaticContentCache cache = StaticContentCache.create(1024);
+		assertThat(FileCache.DEFAULT.contentCaches).contains(cache);
+
+		StaticContentCache.Resource resource = cache.get(file);
+		assertThat(resource).isNotNull();
+		assertThat(FileCache.DEFAULT.watchedDirs).containsKey(dir.toAbsolutePath()
+		                                                     .normalize());
+
+		cache.dispose();
+		assertThat(cache.isDisposed()).isTrue();
+		assertThat(cache.size()).isZero();
+		assertThat(cache.residentBytes()).isZero();
+		assertThat(resource.identity.content.refCnt()).isZero();
+		assertThat(FileCache.DEFAULT.contentCaches).doesNotContain(cache);
+		assertThat(FileCache.DEFAULT.watchedDirs).doesNotContainKey(dir.toAbsolutePath()
+		                                                          .normalize());
+
+		//served from disk once disposed
+		assertThat(cache.get(file)).isNull();
+		assertThat(cache.size()).isZero();
+	}
+
+	@Test
+	public void defaultResponseHeadersAndDate() {
+		NettyContext c = HttpServer.create(o -> o.port(0)
+		                                         .defaultResponseHeader("Server", "reactor-netty")
+		                                         .defaultResponseHeader("X-Frame-Options", "DENY")
+		                                         .dateHeader(true))
+		                           .newRouter(routes -> routes.get("/default",
+		                                                          (req, res) -> res.sendString(Mono.just("ok")))
+		                                                      .get("/override",
+		                                                          (req, res) -> res.header("Server", "custom")
+		                                                                           .send()))
+		                           .block(Duration.ofSeconds(30));
+		HttpClient client = HttpClient.create(c.address()
+		                                       .getPort());
+		try {
+			HttpClientResponse response = client.get("/default")
+			                                    .block(Duration.ofSeconds(30));
+			response.dispose();
+			HttpHeaders headers = response.responseHeaders();
+			assertThat(headers.get(HttpHeaderNames.SERVER)).isEqualTo("reactor-netty");
+			assertThat(headers.get("X-Frame-Options")).isEqualTo("DENY");
+			assertThat(headers.getTimeMillis(HttpHeaderNames.DATE)).isCloseTo(
+					System.currentTimeMillis(), within(5000L));
+
+			response = client.get("/override")
+			                 .block(Duration.ofSeconds(30));
+			response.dispose();
+			assertThat(response.responseHeaders()
+			                   .getAll(HttpHeaderNames.SERVER)).containsExactly("custom");
+		}
+		finally {
+			c.dispose();
+		}
+
+
+		DefaultResponseHeaders.CachedDate date = new DefaultResponseHeaders.CachedDate();
+		assertThat((Object) date.get(1000)).isSameAs(date.get(1999));
+		assertThat(date.get(1999).toString()).isEqualTo("Thu, 01 Jan 1970 00:00:01 GMT");
+		assertThat(date.get(2000).toString()).isEqualTo("Thu, 01 Jan 1970 00:00:02 GMT");
+	}
+
+	@Test
+	public void singleBodyResponseWrittenAsFullResponse() {
+		AtomicInteger flushes = new AtomicInteger();
+		NettyContext c = HttpServer.create(o -> o.port(0)
+		                                         .afterChannelInit(ch -> ch.pipeline()
+		                                                                   .addFirst(new ChannelOutboundHandlerAdapter() {
+			                                                                   @Override
+			                                                                   public void flush(ChannelHandlerContext ctx) throws Exception {
+				                                                                   flushes.incrementAndGet();
+				                                                                   super.flush(ctx);
+			                                                                   }
+		                                                                   })))
+		                           .newRouter(routes -> routes.get("/mono",
+		                                                          (req, res) -> res.sendString(Mono.just("hello")))
+		                                                      .get("/scalar",
+		                                                          (req, res) -> res.send(Flux.just(Unpooled.copiedBuffer("scalar", StandardCharsets.UTF_8))))
+		                                                      .get("/empty",
+		                                                          (req, res) -> res.sendString(Mono.empty()))
+		                                                      .get("/chained",
+		                                                          (req, res) -> res.sendString(Mono.just("hello "))
+		                                                                           .sendString(Mono.just("world")))
+		                                                      .get("/flux",
+		                                                          (req, res) -> res.sendString(Flux.just("a", "b", "c"))))
+		                           .block(Duration.ofSeconds(30));
+		HttpClient client = HttpClient.create(c.address()
+		                                       .getPort());
+		try {
+			String[][] cases = {{"/mono", "hello", "5"},
+					{"/scalar", "scalar", "6"},
+					{"/empty", "", "0"},
+					{"/chained", "hello world", null},
+					{"/flux", "abc", null}};
+			for (String[] test : cases) {
+				flushes.set(0);
+				HttpClientResponse response = client.get(test[0])
+				                                    .block(Duration.ofSeconds(30));
+				String body = response.receive()
+				                      .aggregate()
+				                      .asString(StandardCharsets.UTF_8)
+				                      .defaultIfEmpty("")
+				                      .block(Duration.ofSeconds(30));
+				HttpHeaders headers = response.responseHeaders();
+				assertThat(body).as(test[0]).isEqualTo(test[1]);
+				assertThat(headers.get(HttpHeaderNames.CONTENT_LENGTH)).as(test[0])
+				                                                       .isEqualTo(test[2]);
+				if (test[2] != null) {
+					assertThat(headers.contains(HttpHeaderNames.TRANSFER_ENCODING)).isFalse();
+					assertThat(flushes.get()).as(test[0]).isEqualTo(1);
+				}
+				else {
+					assertThat(headers.contains(HttpHeaderNames.TRANSFER_ENCODING,
+							"chunked", true)).as(test[0]).isTrue();
+				}
+			}
+		}
+		finally {
+			c.dispose();
+		}
+	}
+
+	static Tuple2<HttpHeaders, String> getStatic(HttpClient client, int status,
+			String... headers) {
+		HttpClientResponse response =
+				client.get("/static/data.txt", req -> {
+					for (int i = 0; i < headers.length; i += 2) {
+						req.header(headers[i], headers[i + 1]);
+					}
+					return req.failOnClientError(false);
+				})
+				      .block(Duration.ofSeconds(30));
+		String body = response.receive()
+		                      .aggregate()
+		                      .asString(StandardCharsets.US_ASCII)
+		                      .defaultIfEmpty("")
+		                      .block(Duration.ofSeconds(30));
+		assertThat(response.status()
+		                   .code()).isEqualTo(status);
+		return Tuples.of(response.responseHeaders(), body);
+	}
+
 	@Test
 	public void keepAlive() throws URISyntaxException {
 		Path resource = Paths.get(getClass().getResource("/public").toURI());
@@ -491,8 +916,10 @@ public class HttpServerTests {
 				                           )
 				          .block(Duration.ofSeconds(30));
 
-		doTestContentLengthHeadRequest("/1", server.address(), HttpMethod.GET, true, false);
-		doTestContentLengthHeadRequest("/1", server.address(), HttpMethod.HEAD, true, false);
+		// a single body buffer is written as a full response of known length, the
+		// codec dropping its body for HEAD
+		doTestContentLengthHeadRequest("/1", server.address(), HttpMethod.GET, false, false);
+		doTestContentLengthHeadRequest("/1", server.address(), HttpMethod.HEAD, false, false);
 		doTestContentLengthHeadRequest("/2", server.address(), HttpMethod.GET, false, true);
 		doTestContentLengthHeadRequest("/2", server.address(), HttpMethod.HEAD, false, true);
 		doTestContentLengthHeadRequest("/3", server.address(), HttpMethod.GET, false, false);
@@ -21,9 +21,11 @@ import org.junit.Test;
 import reactor.ipc.netty.http.server.HttpPredicate.UriPathTemplate;
 
 import java.util.Arrays;
+import java.util.Collections;
 
 import static org.hamcrest.CoreMatchers.allOf;
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.hasEntry;
@@ -78,4 +80,26 @@ public class UriPathTemplateTest {
         assertThat(template.match("/tags/v1.0.0").entrySet(), empty());
     }
 
-}
\ No newline at end of file
+    @Test
+    public void resolvedParametersShouldBeCached() {
+        UriPathTemplate template = new UriPathTemplate("/comments/{id}");
+        assertThat(template.match("/comments/1"), hasEntry("id", "1"));
+        assertThat(template.match("/comments/1"), hasEntry("id", "1"));
+        assertThat(template.match("/comments/2"), hasEntry("id", "2"));
+        assertThat(template.cacheHits(), is(1L));
+        assertThat(template.cacheMisses(), is(2L));
+    }
+
+    @Test
+    public void matchCacheShouldBeBounded() {
+        UriPathTemplate.MatchCache cache = new UriPathTemplate.MatchCache(8);
+        for (int i = 0; i < 1000; i++) {
+            cache.put("/comments/" + i, Collections.singletonMap("id", "" + i));
+            cache.get("/comments/0");
+        }
+        assertThat(cache.entries.size(), is(8));
+        assertThat(cache.get("/comments/0"), hasEntry("id", "0"));
+        assertThat(cache.get("/comments/1"), is(nullValue()));
+    }
+
+}
@@ -106,4 +106,42 @@ public class ClientOptionsTest {
 		assertThat(opsBuilder.build().useProxy(new InetSocketAddress("localhost", 8080))).isFalse();
 		assertThat(opsBuilder.build().useProxy(new InetSocketAddress("127.0.0.1", 8080))).isFalse();
 	}
-}
\ No newline at end of file
+	@Test
+	public void sendPrefetch() {
+		assertThat(this.builder.build().sendPrefetch()).isEqualTo(NettyOptions.DEFAULT_SEND_PREFETCH);
+
+		ClientOptions options = this.builder.sendPrefetch(64).build();
+		assertThat(options.sendPrefetch()).isEqualTo(64);
+		assertThat(options.sendReplenish()).isEqualTo(48);
+		assertThat(options.asDetailedString()).contains("sendPrefetch=64, sendReplenish=48");
+
+		options = this.builder.sendPrefetch(8, 1).build();
+		assertThat(options.sendPrefetch()).isEqualTo(8);
+		assertThat(options.sendReplenish()).isEqualTo(1);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void sendReplenishGreaterThanPrefetch() {
+		this.builder.sendPrefetch(8, 16);
+	}
+
+	@Test
+	public void receiveBufferWaterMark() {
+		ClientOptions options = this.builder.build();
+		assertThat(options.receiveHighWaterMark()).isEqualTo(NettyOptions.DEFAULT_RECEIVE_HIGH_WATER_MARK);
+		assertThat(options.receiveLowWaterMark()).isEqualTo(NettyOptions.DEFAULT_RECEIVE_LOW_WATER_MARK);
+		assertThat(options.receiveOverflow()).isEqualTo(NettyOptions.ReceiveOverflow.BACKPRESSURE);
+
+		options = this.builder.receiveBufferWaterMark(1024, 4096)
+		                      .receiveOverflow(NettyOptions.ReceiveOverflow.DROP)
+		                      .build();
+		assertThat(options.receiveLowWaterMark()).isEqualTo(1024);
+		assertThat(options.receiveHighWaterMark()).isEqualTo(4096);
+		assertThat(options.receiveOverflow()).isEqualTo(NettyOptions.ReceiveOverflow.DROP);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void receiveLowWaterMarkGreaterThanHigh() {
+		this.builder.receiveBufferWaterMark(8192, 4096);
+	}
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) 2011-2018 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.ipc.netty.resources;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.ImmediateEventExecutor;
+import org.junit.Before;
+import org.junit.Test;
+import reactor.core.publisher.Mono;
+import reactor.ipc.netty.NettyContext;
+import reactor.ipc.netty.tcp.TcpClient;
+import reactor.ipc.netty.tcp.TcpServer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+public class CachingAddressResolverGroupTest {
+
+	private AtomicInteger                           lookups;
+	private AtomicReference<Mono<List<InetAddress>>> answer;
+	private InetAddress                             address;
+
+	@Before
+	public void before() throws UnknownHostException {
+		lookups = new AtomicInteger();
+		address = InetAddress.getByAddress("stub.test", new byte[]{127, 0, 0, 1});
+		answer = new AtomicReference<>(Mono.just(Collections.singletonList(address)));
+	}
+
+	private CachingAddressResolverGroup.Builder stub() {
+		return CachingAddressResolverGroup.builder()
+		                                  .hostsFileEntriesResolver(null)
+		                                  .lookup(host -> {
+			                                  lookups.incrementAndGet();
+			                                  return answer.get();
+		                                  });
+	}
+
+	@Test
+	public void cachedUntilTtl() throws Exception {
+		CachingAddressResolverGroup group = stub().ttl(Duration.ofMillis(200))
+		                                          .refreshAfter(Duration.ofMillis(200))
+		                                          .build();
+
+		assertThat(group.resolveAll("stub.test").block()).containsExactly(address);
+		assertThat(group.resolveAll("stub.test").block()).containsExactly(address);
+		assertThat(lookups.get()).isEqualTo(1);
+		assertThat(group.cacheHits()).isEqualTo(1);
+		assertThat(group.cacheMisses()).isEqualTo(1);
+		assertThat(group.resolutionLatency().count()).isEqualTo(1);
+
+		Thread.sleep(250);
+		assertThat(group.resolveAll("stub.test").block()).containsExactly(address);
+		assertThat(lookups.get()).isEqualTo(2);
+	}
+
+	@Test
+	public void usedEntriesRefreshedBeforeExpiry() throws Exception {
+		CachingAddressResolverGroup group = stub().ttl(Duration.ofSeconds(10))
+		                                          .refreshAfter(Duration.ofMillis(100))
+		                                          .build();
+
+		group.resolveAll("stub.test").block();
+		Thread.sleep(150);
+
+		//served from the cache while refreshed in the background
+		assertThat(group.resolveAll("stub.test").block()).containsExactly(address);
+		assertThat(lookups.get()).isEqualTo(2);
+		assertThat(group.cacheHits()).isEqualTo(1);
+
+		group.resolveAll("stub.test").block();
+		assertThat(lookups.get()).isEqualTo(2);
+	}
+
+	@Test
+	public void staleServedOnLookupError() throws Exception {
+		CachingAddressResolverGroup group = stub().ttl(Duration.ofMillis(100))
+		                                          .staleTtl(Duration.ofSeconds(10))
+		                                          .build();
+
+		group.resolveAll("stub.test").block();
+		answer.set(Mono.error(new UnknownHostException("stub.test")));
+		Thread.sleep(150);
+
+		assertThat(group.resolveAll("stub.test").block()).containsExactly(address);
+		assertThat(group.staleResolutions()).isEqualTo(1);
+	}
+
+	@Test
+	public void lookupErrorWithoutStaleAddresses() {
+		answer.set(Mono.empty());
+		CachingAddressResolverGroup group = stub().build();
+
+		assertThatExceptionOfType(RuntimeException.class)
+				.isThrownBy(() -> group.resolveAll("stub.test").block())
+				.withCauseInstanceOf(UnknownHostException.class);
+	}
+
+	@Test
+	public void emptyLookupFailsWithUnknownHost() throws Exception {
+		answer.set(Mono.just(Collections.emptyList()));
+		CachingAddressResolverGroup group = stub().build();
+
+		Future<InetSocketAddress> resolved =
+				group.getResolver(ImmediateEventExecutor.INSTANCE)
+				     .resolve(InetSocketAddress.createUnresolved("stub.test", 80))
+				     .await();
+		assertThat(resolved.cause()).isInstanceOf(UnknownHostException.class);
+		assertThatExceptionOfType(RuntimeException.class)
+				.isThrownBy(() -> group.resolveAll("stub.test").block())
+				.withCauseInstanceOf(UnknownHostException.class);
+	}
+
+	@Test
+	public void ipLiteralsAndHostsFileResolvedWithoutLookup() throws Exception {
+		CachingAddressResolverGroup group =
+				stub().hostsFileEntriesResolver((host, types) -> "hosts.test".equals(host) ?
+						address : null)
+				      .build();
+
+		assertThat(group.resolveAll("10.0.0.1").block()).containsExactly(
+				InetAddress.getByAddress(new byte[]{10, 0, 0, 1}));
+		assertThat(group.resolveAll("hosts.test").block()).containsExactly(address);
+
+		InetSocketAddress resolved = group.getResolver(ImmediateEventExecutor.INSTANCE)
+		                                  .resolve(InetSocketAddress.createUnresolved("hosts.test", 80))
+		                                  .get(5, TimeUnit.SECONDS);
+		assertThat(resolved.getAddress()).isEqualTo(address);
+		assertThat(lookups.get()).isZero();
+	}
+
+	@Test
+	public void tcpClientConnectsToResolvedAddress() {
+		NettyContext server = TcpServer.create(0)
+		                               .newHandler((in, out) -> out.sendString(Mono.just("ok")))
+		                               .block(Duration.ofSeconds(30));
+		CachingAddressResolverGroup group = stub().build();
+		try {
+			String received =
+					TcpClient.create(opts -> opts.host("stub.test")
+					                             .port(server.address().getPort())
+					                             .resolver(group)
+					                             .disablePool())
+					         .newHandler((in, out) -> in.receive()
+					                                    .asString()
+					                                    .take(1)
+					                                    .then())
+					         .flatMap(c -> c.onClose()
+					                        .thenReturn("closed"))
+					         .block(Duration.ofSeconds(30));
+
+			assertThat(received).isEqualTo("closed");
+			assertThat(lookups.get()).isEqualTo(1);
+		}
+		finally {
+			group.close();
+			server.dispose();
+		}
+	}
+}
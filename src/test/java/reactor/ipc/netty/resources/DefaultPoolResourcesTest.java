@@ -17,17 +17,28 @@ package reactor.ipc.netty.resources;
 
 import java.io.IOException;
 import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import io.netty.bootstrap.Bootstrap;
 import io.netty.channel.Channel;
 import io.netty.channel.DefaultEventLoopGroup;
+import io.netty.channel.EventLoopGroup;
 import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.pool.ChannelPool;
 import io.netty.channel.socket.nio.NioSocketChannel;
@@ -36,8 +47,12 @@ import io.netty.util.concurrent.Promise;
 import org.junit.Before;
 import org.junit.Test;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoProcessor;
+import reactor.ipc.netty.NettyContext;
 import reactor.ipc.netty.SocketUtils;
 import reactor.ipc.netty.tcp.TcpClientTests;
+import reactor.ipc.netty.tcp.TcpServer;
+import reactor.util.context.Context;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
@@ -190,4 +205,781 @@ public class DefaultPoolResourcesTest {
 		}
 	}
 
-}
\ No newline at end of file
+	@Test
+	public void perEventLoopPoolTwoAcquire()
+			throws ExecutionException, InterruptedException, IOException {
+		final ScheduledExecutorService service = Executors.newScheduledThreadPool(2);
+		int echoServerPort = SocketUtils.findAvailableTcpPort();
+		TcpClientTests.EchoServer echoServer = new TcpClientTests.EchoServer(echoServerPort);
+
+		List<Channel> createdChannels = new ArrayList<>();
+
+		try {
+			final InetSocketAddress address = InetSocketAddress.createUnresolved("localhost", echoServerPort);
+			ChannelPool pool = PoolResources.perEventLoop("perEventLoopPoolTwoAcquire", 2, -1)
+			                                .selectOrCreate(address,
+					                                () -> new Bootstrap()
+							                                .remoteAddress(address)
+							                                .channelFactory(NioSocketChannel::new)
+							                                .group(new NioEventLoopGroup(2)),
+					                                createdChannels::add,
+					                                new NioEventLoopGroup(2));
+
+			//fail a couple
+			assertThatExceptionOfType(Throwable.class)
+					.isThrownBy(pool.acquire()::get)
+					.withMessageContaining("Connection refused");
+			assertThatExceptionOfType(Throwable.class)
+					.isThrownBy(pool.acquire()::get)
+					.withMessageContaining("Connection refused");
+
+			//start the echo server
+			service.submit(echoServer);
+			Thread.sleep(100);
+
+			//acquire 2
+			final Channel channel1 = pool.acquire().get();
+			final Channel channel2 = pool.acquire().get();
+
+			//make room for 1 more
+			channel2.close().get();
+			final Channel channel3 = pool.acquire().get();
+
+			//next one will block until a previous one is released
+			long start = System.currentTimeMillis();
+			service.schedule(() -> pool.release(channel1), 500, TimeUnit.MILLISECONDS);
+			final Channel channel4 = pool.acquire().get();
+			long end = System.currentTimeMillis();
+
+			assertThat(end - start)
+					.as("channel4 acquire blocked until channel1 released")
+					.isGreaterThanOrEqualTo(500);
+
+			pool.release(channel3).get();
+			pool.release(channel4).get();
+
+			assertThat(pool).isInstanceOf(DefaultPoolResources.Pool.class);
+			DefaultPoolResources.Pool defaultPool = (DefaultPoolResources.Pool) pool;
+			assertThat(defaultPool.activeConnections.get())
+					.as("activeConnections fully released")
+					.isZero();
+		}
+		finally {
+			echoServer.close();
+		}
+	}
+
+	@Test
+	public void maxIdleTimeEvictsOnAcquire() throws Exception {
+		NettyContext server = TcpServer.create(0)
+		                               .newHandler((in, out) -> out.neverComplete())
+		                               .block(Duration.ofSeconds(30));
+		NioEventLoopGroup group = new NioEventLoopGroup(1);
+		PoolResources poolResources = PoolResources.builder("maxIdleTimeEvictsOnAcquire")
+		                                           .maxConnections(-1)
+		                                           .maxIdleTime(Duration.ofMillis(50))
+		                                           .build();
+		try {
+			DefaultPoolResources.Pool pool = selectOrCreate(poolResources, server, group);
+
+			Channel ch = pool.acquire().get();
+			pool.release(ch).get();
+			Thread.sleep(100);
+
+			Channel next = pool.acquire().get();
+			assertThat(next).isNotSameAs(ch);
+			assertThat(ch.closeFuture().await(5, TimeUnit.SECONDS)).isTrue();
+			assertThat(pool.evictedConnections()).isEqualTo(1);
+		}
+		finally {
+			poolResources.dispose();
+			server.dispose();
+			group.shutdownGracefully();
+		}
+	}
+
+	@Test
+	public void maxLifeTimeEvictsOnRelease() throws Exception {
+		NettyContext server = TcpServer.create(0)
+		                               .newHandler((in, out) -> out.neverComplete())
+		                               .block(Duration.ofSeconds(30));
+		NioEventLoopGroup group = new NioEventLoopGroup(1);
+		PoolResources poolResources = PoolResources.builder("maxLifeTimeEvictsOnRelease")
+		                                           .maxConnections(1)
+		                                           .maxLifeTime(Duration.ofMillis(50))
+		                                           .build();
+		try {
+			DefaultPoolResources.Pool pool = selectOrCreate(poolResources, server, group);
+
+			Channel ch = pool.acquire().get();
+			Thread.sleep(100);
+			pool.release(ch).get();
+
+			assertThat(ch.closeFuture().await(5, TimeUnit.SECONDS)).isTrue();
+			assertThat(pool.evictedConnections()).isEqualTo(1);
+			assertThat(pool.acquire().get()).isNotSameAs(ch);
+		}
+		finally {
+			poolResources.dispose();
+			server.dispose();
+			group.shutdownGracefully();
+		}
+	}
+
+	@Test
+	public void backgroundEvictionClosesIdleChannels() throws Exception {
+		backgroundEviction(false);
+	}
+
+	@Test
+	public void backgroundEvictionClosesIdleChannelsPerEventLoop() throws Exception {
+		backgroundEviction(true);
+	}
+
+	private void backgroundEviction(boolean perEventLoop) throws Exception {
+		NettyContext server = TcpServer.create(0)
+		                               .newHandler((in, out) -> out.neverComplete())
+		                               .block(Duration.ofSeconds(30));
+		NioEventLoopGroup group = new NioEventLoopGroup(2);
+		PoolResources poolResources = PoolResources.builder("backgroundEviction")
+		                                           .maxConnections(2)
+		                                           .perEventLoop(perEventLoop)
+		                                           .maxIdleTime(Duration.ofMillis(50))
+		                                           .evictionInterval(Duration.ofMillis(20))
+		                                           .build();
+		try {
+			DefaultPoolResources.Pool pool = selectOrCreate(poolResources, server, group);
+
+			Channel ch1 = pool.acquire().get();
+			Channel ch2 = pool.acquire().get();
+			pool.release(ch1).get();
+
+			assertThat(ch1.closeFuture().await(5, TimeUnit.SECONDS)).isTrue();
+			assertThat(ch2.isActive()).isTrue();
+			assertThat(pool.evictedConnections()).isEqualTo(1);
+
+			//the evicted channel gave back its slot
+			assertThat(pool.acquire().get(5, TimeUnit.SECONDS).isActive()).isTrue();
+		}
+		finally {
+			poolResources.dispose();
+			server.dispose();
+			group.shutdownGracefully();
+		}
+	}
+
+	@Test
+	public void metricsReportedPerRemoteAddress() throws Exception {
+		NettyContext server = TcpServer.create(0)
+		                               .newHandler((in, out) -> out.neverComplete())
+		                               .block(Duration.ofSeconds(30));
+		NioEventLoopGroup group = new NioEventLoopGroup(1);
+		List<PoolMetrics> registered = new CopyOnWriteArrayList<>();
+		List<PoolMetrics> unregistered = new CopyOnWriteArrayList<>();
+		AtomicInteger acquireTimes = new AtomicInteger();
+		AtomicInteger connectTimes = new AtomicInteger();
+		PoolResources poolResources =
+				PoolResources.builder("metricsReportedPerRemoteAddress")
+				             .maxConnections(2)
+				             .metricsRecorder(new PoolMetricsRecorder() {
+					             @Override
+					             public void registerPool(String poolName, PoolMetrics metrics) {
+						             registered.add(metrics);
+					             }
+
+					             @Override
+					             public void unregisterPool(String poolName, PoolMetrics metrics) {
+						             unregistered.add(metrics);
+					             }
+
+					             @Override
+					             public void recordAcquireTime(String poolName,
+							             SocketAddress remoteAddress, long nanos) {
+						             acquireTimes.incrementAndGet();
+					             }
+
+					             @Override
+					             public void recordConnectTime(String poolName,
+							             SocketAddress remoteAddress, long nanos) {
+						             connectTimes.incrementAndGet();
+					             }
+				             })
+				             .build();
+		try {
+			DefaultPoolResources.Pool pool = selectOrCreate(poolResources, server, group);
+			assertThat(registered).containsExactly(pool);
+			assertThat(poolResources.metrics()).containsExactly(pool);
+			assertThat(pool.remoteAddress()).isEqualTo(server.address());
+
+			Channel ch1 = pool.acquire().get();
+			Channel ch2 = pool.acquire().get();
+			Future<Channel> pending = pool.acquire();
+			assertThat(pool.activeConnections()).isEqualTo(2);
+			assertThat(pool.pendingAcquires()).isEqualTo(1);
+
+			pool.release(ch1).get();
+			assertThat(pending.get(5, TimeUnit.SECONDS)).isSameAs(ch1);
+			pool.release(ch2).get();
+
+			assertThat(pool.activeConnections()).isEqualTo(1);
+			assertThat(pool.idleConnections()).isEqualTo(1);
+			assertThat(pool.pendingAcquires()).isZero();
+			assertThat(pool.acquireLatency().count()).isEqualTo(3);
+			assertThat(pool.connectLatency().count()).isEqualTo(2);
+			assertThat(acquireTimes.get()).isEqualTo(3);
+			assertThat(connectTimes.get()).isEqualTo(2);
+		}
+		finally {
+			poolResources.disposeLater().block(Duration.ofSeconds(30));
+			server.dispose();
+			group.shutdownGracefully();
+		}
+		assertThat(unregistered).isEqualTo(registered);
+	}
+
+	@Test
+	public void warmupOpensIdleConnections() throws Exception {
+		NettyContext server = TcpServer.create(0)
+		                               .newHandler((in, out) -> out.neverComplete())
+		                               .block(Duration.ofSeconds(30));
+		NioEventLoopGroup group = new NioEventLoopGroup(2);
+		PoolResources poolResources = PoolResources.elastic("warmupOpensIdleConnections");
+		try {
+			DefaultPoolResources.Pool pool = selectOrCreate(poolResources, server, group);
+
+			assertThat(poolResources.warmup(server.address(), 3)
+			                        .block(Duration.ofSeconds(30))).isEqualTo(3);
+			assertThat(pool.idleConnections()).isEqualTo(3);
+			assertThat(pool.activeConnections()).isZero();
+			assertThat(pool.warmingUpConnections()).isZero();
+			assertThat(pool.acquireLatency().count()).isZero();
+
+			//idle connections count toward the warm-up
+			assertThat(poolResources.warmup(server.address(), 2)
+			                        .block(Duration.ofSeconds(30))).isZero();
+
+			pool.acquire().get();
+			pool.acquire().get();
+			pool.acquire().get();
+			assertThat(pool.connectLatency().count()).isEqualTo(3);
+		}
+		finally {
+			poolResources.dispose();
+			server.dispose();
+			group.shutdownGracefully();
+		}
+	}
+
+	@Test
+	public void warmupDeferredUntilPoolCreation() throws Exception {
+		NettyContext server = TcpServer.create(0)
+		                               .newHandler((in, out) -> out.neverComplete())
+		                               .block(Duration.ofSeconds(30));
+		NioEventLoopGroup group = new NioEventLoopGroup(2);
+		PoolResources poolResources = PoolResources.fixed("warmupDeferredUntilPoolCreation", 2);
+		try {
+			MonoProcessor<Integer> warmup = poolResources.warmup(server.address(), 5)
+			                                             .toProcessor();
+			assertThat(warmup.isTerminated()).isFalse();
+
+			DefaultPoolResources.Pool pool = selectOrCreate(poolResources, server, group);
+
+			//capped to the max connections
+			assertThat(warmup.block(Duration.ofSeconds(30))).isEqualTo(2);
+			assertThat(pool.idleConnections()).isEqualTo(2);
+		}
+		finally {
+			poolResources.dispose();
+			server.dispose();
+			group.shutdownGracefully();
+		}
+	}
+
+	@Test
+	public void warmupOptionalByDefault() {
+		PoolResources poolResources = (address, bootstrap, onChannelCreate, group) -> null;
+
+		assertThat(poolResources.warmup(InetSocketAddress.createUnresolved("localhost", 80), 3)
+		                        .block(Duration.ofSeconds(30))).isZero();
+	}
+
+	@Test
+	public void minIdleMaintained() throws Exception {
+		NettyContext server = TcpServer.create(0)
+		                               .newHandler((in, out) -> out.neverComplete())
+		                               .block(Duration.ofSeconds(30));
+		NioEventLoopGroup group = new NioEventLoopGroup(2);
+		PoolResources poolResources = PoolResources.builder("minIdleMaintained")
+		                                           .maxConnections(-1)
+		                                           .minIdle(2)
+		                                           .build();
+		try {
+			DefaultPoolResources.Pool pool = selectOrCreate(poolResources, server, group);
+			awaitIdle(pool, 2);
+
+			Channel ch = pool.acquire().get();
+			awaitIdle(pool, 2);
+			assertThat(pool.activeConnections()).isEqualTo(1);
+
+			ch.close().sync();
+			pool.acquire().get().close().sync();
+			awaitIdle(pool, 2);
+		}
+		finally {
+			poolResources.dispose();
+			server.dispose();
+			group.shutdownGracefully();
+		}
+	}
+
+	@Test
+	public void maxPendingAcquiresRejectsImmediately() throws Exception {
+		NettyContext server = TcpServer.create(0)
+		                               .newHandler((in, out) -> out.neverComplete())
+		                               .block(Duration.ofSeconds(30));
+		NioEventLoopGroup group = new NioEventLoopGroup(2);
+		PoolResources poolResources = PoolResources.builder("maxPendingAcquiresRejectsImmediately")
+		                                           .maxConnections(1)
+		                                           .maxPendingAcquires(1)
+		                                           .build();
+		try {
+			DefaultPoolResources.Pool pool = selectOrCreate(poolResources, server, group);
+
+			Channel ch = pool.acquire().get();
+			Future<Channel> pending = pool.acquire();
+			assertThat(pool.pendingAcquires()).isEqualTo(1);
+
+			Future<Channel> rejected = pool.acquire();
+			assertThat(rejected.isDone()).isTrue();
+			assertThat(rejected.cause()).isInstanceOf(PoolAcquirePendingLimitException.class);
+			assertThat(pool.pendingAcquires()).isEqualTo(1);
+
+			pool.release(ch);
+			assertThat(pending.get()).isSameAs(ch);
+			assertThat(pool.pendingAcquires()).isZero();
+		}
+		finally {
+			poolResources.dispose();
+			server.dispose();
+			group.shutdownGracefully();
+		}
+	}
+
+	@Test
+	public void acquireDeadlineFromContext() throws Exception {
+		acquireDeadline(false);
+	}
+
+	@Test
+	public void acquireDeadlineFromContextPerEventLoop() throws Exception {
+		acquireDeadline(true);
+	}
+
+	private void acquireDeadline(boolean perEventLoop) throws Exception {
+		NettyContext server = TcpServer.create(0)
+		                               .newHandler((in, out) -> out.neverComplete())
+		                               .block(Duration.ofSeconds(30));
+		NioEventLoopGroup group = new NioEventLoopGroup(2);
+		PoolResources poolResources = PoolResources.builder("acquireDeadline")
+		                                           .maxConnections(1)
+		                                           .perEventLoop(perEventLoop)
+		                                           .build();
+		try {
+			DefaultPoolResources.Pool pool = selectOrCreate(poolResources, server, group);
+			Channel ch = pool.acquire().get();
+
+			Future<Channel> expired = DeadlineChannelPool.acquire(pool,
+					Context.of(PoolResources.ACQUIRE_DEADLINE, Instant.now().minusSeconds(1)));
+			assertThat(expired.isDone()).isTrue();
+			assertThat(expired.cause()).isInstanceOf(TimeoutException.class);
+
+			Future<Channel> timedOut = DeadlineChannelPool.acquire(pool,
+					Context.of(PoolResources.ACQUIRE_DEADLINE, Instant.now().plusMillis(100)));
+			assertThat(timedOut.await(5, TimeUnit.SECONDS)).isTrue();
+			assertThat(timedOut.cause()).isInstanceOf(TimeoutException.class);
+
+			//the expired acquisition does not keep the released channel
+			pool.release(ch).sync();
+			assertThat(pool.acquire().get()).isSameAs(ch);
+			assertThat(pool.activeConnections()).isEqualTo(1);
+			assertThat(pool.pendingAcquires()).isZero();
+		}
+		finally {
+			poolResources.dispose();
+			server.dispose();
+			group.shutdownGracefully();
+		}
+	}
+
+	@Test
+	public void expiredAcquirerNeverHandedChannel() throws Exception {
+		expiredAcquirerNeverHandedChannel(false);
+	}
+
+	@Test
+	public void expiredAcquirerNeverHandedChannelPerEventLoop() throws Exception {
+		expiredAcquirerNeverHandedChannel(true);
+	}
+
+	private void expiredAcquirerNeverHandedChannel(boolean perEventLoop) throws Exception {
+		NettyContext server = TcpServer.create(0)
+		                               .newHandler((in, out) -> out.neverComplete())
+		                               .block(Duration.ofSeconds(30));
+		NioEventLoopGroup group = new NioEventLoopGroup(2);
+		PoolResources poolResources = PoolResources.builder("expiredAcquirer")
+		                                           .maxConnections(1)
+		                                           .perEventLoop(perEventLoop)
+		                                           .build();
+		try {
+			DefaultPoolResources.Pool pool = selectOrCreate(poolResources, server, group);
+			Channel ch = pool.acquire().get();
+
+			Future<Channel> expired = DeadlineChannelPool.acquire(pool,
+					Context.of(PoolResources.ACQUIRE_DEADLINE, Instant.now().plusMillis(100)));
+			assertThat(expired.await(5, TimeUnit.SECONDS)).isTrue();
+			assertThat(expired.cause()).isInstanceOf(TimeoutException.class);
+			assertThat(pool.pendingAcquires()).isZero();
+
+			Future<Channel> next = pool.acquire();
+			assertThat(pool.pendingAcquires()).isEqualTo(1);
+			pool.release(ch).sync();
+
+			//the released channel goes straight to the live acquirer
+			assertThat(next.get(5, TimeUnit.SECONDS)).isSameAs(ch);
+			assertThat(pool.acquireLatency()
+			               .count()).isEqualTo(2);
+			assertThat(pool.activeConnections()).isEqualTo(1);
+			assertThat(pool.pendingAcquires()).isZero();
+		}
+		finally {
+			poolResources.dispose();
+			server.dispose();
+			group.shutdownGracefully();
+		}
+	}
+
+	@Test
+	public void inactivePoolDisposed() throws Exception {
+		NettyContext server = TcpServer.create(0)
+		                               .newHandler((in, out) -> out.neverComplete())
+		                               .block(Duration.ofSeconds(30));
+		NioEventLoopGroup group = new NioEventLoopGroup(2);
+		PoolResources poolResources = PoolResources.builder("inactivePoolDisposed")
+		                                           .maxConnections(-1)
+		                                           .poolInactivityTimeout(Duration.ofMillis(100))
+		                                           .build();
+		try {
+			DefaultPoolResources.Pool pool = selectOrCreate(poolResources, server, group);
+			Channel ch = pool.acquire().get();
+
+			//acquired connections keep the pool alive
+			Thread.sleep(300);
+			assertThat(poolResources.metrics()).containsExactly(pool);
+
+			pool.release(ch).sync();
+			long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+			while (!poolResources.metrics().isEmpty() && System.nanoTime() < deadline) {
+				Thread.sleep(10);
+			}
+			assertThat(poolResources.metrics()).isEmpty();
+			assertThat(pool.get()).isTrue();
+			assertThat(ch.closeFuture().await(5, TimeUnit.SECONDS)).isTrue();
+			assertThat(poolResources.createdPools()).isEqualTo(1);
+			assertThat(poolResources.disposedPools()).isEqualTo(1);
+
+			assertThat(selectOrCreate(poolResources, server, group)).isNotSameAs(pool);
+			assertThat(poolResources.createdPools()).isEqualTo(2);
+		}
+		finally {
+			poolResources.dispose();
+			server.dispose();
+			group.shutdownGracefully();
+		}
+	}
+
+	@Test
+	public void acquireFromDisposedPoolRedirected() throws Exception {
+		NettyContext server = TcpServer.create(0)
+		                               .newHandler((in, out) -> out.neverComplete())
+		                               .block(Duration.ofSeconds(30));
+		NioEventLoopGroup group = new NioEventLoopGroup(2);
+		PoolResources poolResources = PoolResources.fixed("acquireFromDisposedPoolRedirected", 2);
+		try {
+			DefaultPoolResources.Pool pool = selectOrCreate(poolResources, server, group);
+			assertThat(pool.tryDispose()).isTrue();
+			assertThat(pool.pendingAcquires()).isZero();
+
+			Channel ch = pool.acquire().get();
+			DefaultPoolResources.Pool replacement = selectOrCreate(poolResources, server, group);
+			assertThat(replacement).isNotSameAs(pool);
+			assertThat(replacement.activeConnections()).isEqualTo(1);
+
+			pool.release(ch).sync();
+			assertThat(replacement.activeConnections()).isZero();
+			assertThat(replacement.idleConnections()).isEqualTo(1);
+			assertThat(ch.isActive()).isTrue();
+		}
+		finally {
+			poolResources.dispose();
+			server.dispose();
+			group.shutdownGracefully();
+		}
+	}
+
+	@Test
+	public void tryDisposeRacingSelectOrCreateDoesNotLeak() throws Exception {
+		NettyContext server = TcpServer.create(0)
+		                               .newHandler((in, out) -> out.neverComplete())
+		                               .block(Duration.ofSeconds(30));
+		NioEventLoopGroup group = new NioEventLoopGroup(2);
+		PoolResources poolResources =
+				PoolResources.fixed("tryDisposeRacingSelectOrCreateDoesNotLeak", 4);
+		ExecutorService executor = Executors.newFixedThreadPool(3);
+		try {
+			for (int i = 0; i < 200; i++) {
+				List<DefaultPoolResources.Pool> seen = new CopyOnWriteArrayList<>();
+				seen.add(selectOrCreate(poolResources, server, group));
+				CyclicBarrier barrier = new CyclicBarrier(3);
+				Callable<Void> acquirer = () -> {
+					barrier.await();
+					DefaultPoolResources.Pool pool = selectOrCreate(poolResources, server, group);
+					seen.add(pool);
+					Channel ch = pool.acquire().get(30, TimeUnit.SECONDS);
+					pool.release(ch).sync();
+					return null;
+				};
+				List<java.util.concurrent.Future<Void>> tasks = new ArrayList<>();
+				tasks.add(executor.submit(() -> {
+					barrier.await();
+					seen.get(0).tryDispose();
+					return null;
+				}));
+				tasks.add(executor.submit(acquirer));
+				tasks.add(executor.submit(acquirer));
+				for (java.util.concurrent.Future<Void> task : tasks) {
+					task.get(30, TimeUnit.SECONDS);
+				}
+
+				//every pool is either mapped or disposed, the live pool is unique
+				assertThat(poolResources.metrics().size()).isLessThanOrEqualTo(1);
+				for (DefaultPoolResources.Pool pool : seen) {
+					assertThat(poolResources.metrics().contains(pool) ||
+							pool.pendingAcquires.get() < 0).isTrue();
+				}
+			}
+		}
+		finally {
+			executor.shutdownNow();
+			poolResources.dispose();
+			server.dispose();
+			group.shutdownGracefully();
+		}
+	}
+
+	@Test
+	public void maxPoolsDisposesLeastRecentlyUsed() throws Exception {
+		List<NettyContext> servers = new ArrayList<>();
+		for (int i = 0; i < 3; i++) {
+			servers.add(TcpServer.create(0)
+			                     .newHandler((in, out) -> out.neverComplete())
+			                     .block(Duration.ofSeconds(30)));
+		}
+		NioEventLoopGroup group = new NioEventLoopGroup(2);
+		PoolResources poolResources = PoolResources.builder("maxPoolsDisposesLeastRecentlyUsed")
+		                                           .maxConnections(-1)
+		                                           .maxPools(2)
+		                                           .build();
+		try {
+			DefaultPoolResources.Pool first = selectOrCreate(poolResources, servers.get(0), group);
+			DefaultPoolResources.Pool second = selectOrCreate(poolResources, servers.get(1), group);
+			second.acquire().get();
+			Thread.sleep(10);
+			first.release(first.acquire().get()).sync();
+
+			//the second pool is in use, the first one is disposed although more recent
+			DefaultPoolResources.Pool third = selectOrCreate(poolResources, servers.get(2), group);
+			assertThat(poolResources.metrics()).containsOnly(second, third);
+			assertThat(first.get()).isTrue();
+			assertThat(poolResources.createdPools()).isEqualTo(3);
+			assertThat(poolResources.disposedPools()).isEqualTo(1);
+		}
+		finally {
+			poolResources.dispose();
+			servers.forEach(NettyContext::dispose);
+			group.shutdownGracefully();
+		}
+	}
+
+	@Test
+	public void balancedAcquiresSpreadOverAddresses() throws Exception {
+		NettyContext server1 = TcpServer.create(0)
+		                                .newHandler((in, out) -> out.neverComplete())
+		                                .block(Duration.ofSeconds(30));
+		NettyContext server2 = TcpServer.create(0)
+		                                .newHandler((in, out) -> out.neverComplete())
+		                                .block(Duration.ofSeconds(30));
+		NioEventLoopGroup group = new NioEventLoopGroup(2);
+		PoolResources poolResources =
+				PoolResources.builder("balancedAcquiresSpreadOverAddresses")
+				             .maxConnections(-1)
+				             .loadBalancing(PoolResources.LoadBalancing.LEAST_OUTSTANDING)
+				             .addressResolver(a -> Arrays.asList(server1.address(), server2.address()))
+				             .build();
+		try {
+			BalancingChannelPool pool = selectOrCreateBalanced(poolResources, group);
+			awaitResolved(pool, 2);
+			List<Channel> channels = new ArrayList<>();
+			channels.add(pool.acquire().get());
+			//scoring the addresses does not create their pool
+			assertThat(poolResources.metrics()).hasSize(1);
+			for (int i = 0; i < 3; i++) {
+				channels.add(pool.acquire().get());
+			}
+
+			assertThat(poolResources.metrics()).hasSize(2)
+			                                   .allMatch(m -> m.activeConnections() == 2);
+
+			for (Channel ch : channels) {
+				pool.release(ch).sync();
+			}
+			assertThat(poolResources.metrics()).allMatch(m -> m.activeConnections() == 0 &&
+					m.idleConnections() == 2);
+		}
+		finally {
+			poolResources.dispose();
+			server1.dispose();
+			server2.dispose();
+			group.shutdownGracefully();
+		}
+	}
+
+	@Test
+	public void balancedAddressesResolvedOffCallerThread() throws Exception {
+		NettyContext server = TcpServer.create(0)
+		                               .newHandler((in, out) -> out.neverComplete())
+		                               .block(Duration.ofSeconds(30));
+		CountDownLatch resolving = new CountDownLatch(1);
+		CountDownLatch resolved = new CountDownLatch(1);
+		List<Thread> resolvers = new CopyOnWriteArrayList<>();
+		NioEventLoopGroup group = new NioEventLoopGroup(2);
+		PoolResources poolResources =
+				PoolResources.builder("balancedAddressesResolvedOffCallerThread")
+				             .maxConnections(-1)
+				             .loadBalancing(PoolResources.LoadBalancing.LEAST_OUTSTANDING)
+				             .addressResolver(a -> {
+					             resolvers.add(Thread.currentThread());
+					             resolving.countDown();
+					             try {
+						             resolved.await(10, TimeUnit.SECONDS);
+					             }
+					             catch (InterruptedException e) {
+						             Thread.currentThread().interrupt();
+					             }
+					             return Arrays.asList(server.address(), server.address());
+				             })
+				             .build();
+		try {
+			//a slow resolver neither blocks the creation nor an event loop
+			BalancingChannelPool pool = selectOrCreateBalanced(poolResources, group);
+			assertThat(resolving.await(10, TimeUnit.SECONDS)).isTrue();
+			assertThat(pool.endpoints).hasSize(1);
+			assertThat(resolvers).doesNotContain(Thread.currentThread())
+			                     .allMatch(t -> !t.getName().startsWith("nioEventLoopGroup"));
+
+			resolved.countDown();
+			awaitResolved(pool, 2);
+		}
+		finally {
+			resolved.countDown();
+			poolResources.dispose();
+			server.dispose();
+			group.shutdownGracefully();
+		}
+	}
+
+	@Test
+	public void balancedFailingAddressEjected() throws Exception {
+		NettyContext server = TcpServer.create(0)
+		                               .newHandler((in, out) -> out.neverComplete())
+		                               .block(Duration.ofSeconds(30));
+		InetSocketAddress unreachable =
+				new InetSocketAddress("127.0.0.1", SocketUtils.findAvailableTcpPort());
+		NioEventLoopGroup group = new NioEventLoopGroup(2);
+		PoolResources poolResources =
+				PoolResources.builder("balancedFailingAddressEjected")
+				             .maxConnections(-1)
+				             .loadBalancing(PoolResources.LoadBalancing.POWER_OF_TWO_CHOICES)
+				             .addressResolver(a -> Arrays.asList(unreachable, server.address()))
+				             .outlierDetection(1, Duration.ofMinutes(1))
+				             .build();
+		try {
+			BalancingChannelPool pool = selectOrCreateBalanced(poolResources, group);
+			awaitResolved(pool, 2);
+			BalancingChannelPool.Endpoint failing = pool.endpoints[0];
+
+			List<Channel> channels = new ArrayList<>();
+			long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+			while (failing.ejections == 0 && System.nanoTime() < deadline) {
+				Future<Channel> f = pool.acquire().await();
+				if (f.isSuccess()) {
+					channels.add(f.getNow());
+				}
+				else {
+					assertThat(f.cause()).isInstanceOf(IOException.class);
+					Thread.sleep(10);
+				}
+			}
+			assertThat(failing.ejections).isEqualTo(1);
+
+			for (int i = 0; i < 5; i++) {
+				channels.add(pool.acquire().get());
+			}
+			assertThat(channels).allMatch(ch -> ((InetSocketAddress) ch.remoteAddress()).getPort() ==
+					server.address().getPort());
+		}
+		finally {
+			poolResources.dispose();
+			server.dispose();
+			group.shutdownGracefully();
+		}
+	}
+
+	private static BalancingChannelPool selectOrCreateBalanced(PoolResources poolResources,
+			EventLoopGroup group) {
+		InetSocketAddress address = InetSocketAddress.createUnresolved("balanced", 80);
+		return (BalancingChannelPool) poolResources.selectOrCreate(address,
+				() -> new Bootstrap().remoteAddress(address)
+				                     .channelFactory(NioSocketChannel::new)
+				                     .group(group),
+				null,
+				group);
+	}
+
+	private static void awaitResolved(BalancingChannelPool pool, int addresses) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+		while (pool.endpoints.length != addresses && System.nanoTime() < deadline) {
+			Thread.sleep(10);
+		}
+		assertThat(pool.endpoints).hasSize(addresses);
+	}
+
+	private static void awaitIdle(DefaultPoolResources.Pool pool, int idle) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+		while ((pool.idleConnections() != idle || pool.warmingUpConnections() != 0) &&
+				System.nanoTime() < deadline) {
+			Thread.sleep(10);
+		}
+		assertThat(pool.idleConnections()).isEqualTo(idle);
+	}
+
+	private static DefaultPoolResources.Pool selectOrCreate(PoolResources poolResources,
+			NettyContext server, EventLoopGroup group) {
+		InetSocketAddress address = server.address();
+		return (DefaultPoolResources.Pool) poolResources.selectOrCreate(address,
+				() -> new Bootstrap().remoteAddress(address)
+				                     .channelFactory(NioSocketChannel::new)
+				                     .group(group),
+				null,
+				group);
+	}
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2011-2018 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.ipc.netty.resources;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.EventLoop;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.pool.AbstractChannelPoolHandler;
+import io.netty.channel.pool.ChannelHealthChecker;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.util.concurrent.Future;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import reactor.ipc.netty.NettyContext;
+import reactor.ipc.netty.tcp.TcpServer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+public class EventLoopChannelPoolTest {
+
+	NettyContext      server;
+	NioEventLoopGroup group;
+	EventLoop         loop0;
+	EventLoop         loop1;
+
+	@Before
+	public void setUp() {
+		server = TcpServer.create(0)
+		                  .newHandler((in, out) -> out.neverComplete())
+		                  .block();
+		group = new NioEventLoopGroup(2);
+		loop0 = group.next();
+		loop1 = group.next();
+	}
+
+	@After
+	public void tearDown() {
+		server.dispose();
+		group.shutdownGracefully();
+	}
+
+	@Test
+	public void reuseChannelReleasedOnSameLoop() throws Exception {
+		EventLoopChannelPool pool = newPool(4, -1);
+
+		Channel ch = acquireOn(pool, loop0);
+		assertThat(ch.eventLoop()).isSameAs(loop0);
+		pool.release(ch).sync();
+		assertThat(pool.idleSize()).isEqualTo(1);
+
+		assertThat(acquireOn(pool, loop0)).isSameAs(ch);
+		assertThat(pool.idleSize()).isZero();
+		pool.close();
+	}
+
+	@Test
+	public void stealIdleChannelFromSiblingLoop() throws Exception {
+		EventLoopChannelPool pool = newPool(4, -1);
+
+		Channel ch = acquireOn(pool, loop0);
+		pool.release(ch).sync();
+
+		assertThat(acquireOn(pool, loop1)).isSameAs(ch);
+		assertThat(pool.permits).isEqualTo(3);
+		pool.close();
+	}
+
+	@Test
+	public void pendingAcquireServedOnRelease() throws Exception {
+		EventLoopChannelPool pool = newPool(1, -1);
+
+		Channel ch = acquireOn(pool, loop0);
+		Future<Channel> pending = loop1.submit(() -> pool.acquire())
+		                                        .get();
+		pending.await(100);
+		assertThat(pending.isDone()).isFalse();
+		assertThat(pool.pendingAcquireSize()).isEqualTo(1);
+
+		pool.release(ch).sync();
+
+		assertThat(pending.get(5, TimeUnit.SECONDS)).isSameAs(ch);
+		assertThat(pool.pendingAcquireSize()).isZero();
+		pool.close();
+	}
+
+	@Test
+	public void pendingAcquireTimesOut() throws Exception {
+		EventLoopChannelPool pool = newPool(1, 100);
+
+		acquireOn(pool, loop0);
+
+		assertThatExceptionOfType(ExecutionException.class)
+				.isThrownBy(() -> acquireOn(pool, loop1))
+				.withCauseInstanceOf(TimeoutException.class);
+		pool.close();
+	}
+
+	@Test
+	public void closedChannelReturnsItsPermit() throws Exception {
+		EventLoopChannelPool pool = newPool(1, -1);
+
+		Channel ch = acquireOn(pool, loop0);
+		ch.close().sync();
+		pool.release(ch).sync();
+		assertThat(pool.permits).isEqualTo(1);
+
+		Channel next = acquireOn(pool, loop0);
+		assertThat(next).isNotSameAs(ch);
+		assertThat(next.isActive()).isTrue();
+		pool.close();
+	}
+
+	EventLoopChannelPool newPool(int maxConnections, long acquireTimeout) {
+		Bootstrap bootstrap = new Bootstrap().remoteAddress(server.address())
+		                                     .channelFactory(NioSocketChannel::new)
+		                                     .group(group);
+		return new EventLoopChannelPool(bootstrap,
+				new AbstractChannelPoolHandler() {
+					@Override
+					public void channelCreated(Channel ch) {
+					}
+				},
+				ChannelHealthChecker.ACTIVE,
+				maxConnections,
+				acquireTimeout);
+	}
+
+	static Channel acquireOn(EventLoopChannelPool pool, EventLoop loop) throws Exception {
+		Future<Channel> acquire = loop.submit(() -> pool.acquire())
+		                              .get();
+		return acquire.get(5, TimeUnit.SECONDS);
+	}
+}
@@ -0,0 +1,206 @@
+/*
+ * Copyright (c) 2011-2018 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.ipc.netty.resources;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import org.junit.Before;
+import org.junit.Test;
+import reactor.core.publisher.Mono;
+import reactor.ipc.netty.NettyContext;
+import reactor.ipc.netty.tcp.TcpClient;
+import reactor.ipc.netty.tcp.TcpServer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class HappyEyeballsConnectorTest {
+
+	private InetAddress v6;
+	private InetAddress v4;
+
+	@Before
+	public void before() throws Exception {
+		v6 = InetAddress.getByAddress("stub.test",
+				new byte[]{0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 1});
+		v4 = InetAddress.getByAddress("stub.test", new byte[]{127, 0, 0, 1});
+	}
+
+	private CachingAddressResolverGroup stub() {
+		//the server only listens on 127.0.0.1, the connection to ::1 is refused
+		return CachingAddressResolverGroup.builder()
+		                                  .hostsFileEntriesResolver(null)
+		                                  .lookup(host -> Mono.just(Arrays.asList(v6, v4)))
+		                                  .build();
+	}
+
+	@Test
+	public void interleaveAlternatesAddressFamilies() throws Exception {
+		InetAddress v6b = InetAddress.getByAddress(
+				new byte[]{0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 2});
+		InetAddress v4b = InetAddress.getByAddress(new byte[]{127, 0, 0, 2});
+		List<InetSocketAddress> interleaved = HappyEyeballsConnector.interleave(Arrays.asList(
+				new InetSocketAddress(v6, 1),
+				new InetSocketAddress(v6b, 1),
+				new InetSocketAddress(v4, 1),
+				new InetSocketAddress(v4b, 1)));
+
+		assertThat(interleaved).extracting(InetSocketAddress::getAddress)
+		                       .containsExactly(v6, v4, v6b, v4b);
+
+		interleaved = HappyEyeballsConnector.interleave(Arrays.asList(
+				new InetSocketAddress(v4, 1),
+				new InetSocketAddress(v4b, 1),
+				new InetSocketAddress(v6, 1)));
+
+		assertThat(interleaved).extracting(InetSocketAddress::getAddress)
+		                       .containsExactly(v4, v6, v4b);
+	}
+
+	@Test
+	public void failedAttemptStartsNextAttempt() throws Exception {
+		NettyContext server = TcpServer.create("127.0.0.1", 0)
+		                               .newHandler((in, out) -> out.neverComplete())
+		                               .block(Duration.ofSeconds(30));
+		CachingAddressResolverGroup group = stub();
+		NioEventLoopGroup loop = new NioEventLoopGroup(1);
+		CountDownLatch active = new CountDownLatch(1);
+		try {
+			Bootstrap bootstrap =
+					new Bootstrap().group(loop)
+					               .channel(NioSocketChannel.class)
+					               .resolver(group)
+					               .remoteAddress(InetSocketAddress.createUnresolved(
+							               "stub.test", server.address().getPort()))
+					               .attr(HappyEyeballsConnector.CONNECTION_ATTEMPT_DELAY,
+							               TimeUnit.SECONDS.toNanos(30))
+					               .handler(new ChannelInboundHandlerAdapter() {
+						               @Override
+						               public void channelActive(ChannelHandlerContext ctx) {
+							               active.countDown();
+						               }
+					               });
+
+			ChannelFuture f = HappyEyeballsConnector.connect(bootstrap);
+
+			assertThat(f.await(10, TimeUnit.SECONDS)).isTrue();
+			assertThat(f.isSuccess()).isTrue();
+			Channel channel = f.channel();
+			assertThat(((InetSocketAddress) channel.remoteAddress()).getAddress())
+					.isEqualTo(v4);
+			assertThat(active.await(10, TimeUnit.SECONDS)).isTrue();
+			channel.close()
+			       .sync();
+		}
+		finally {
+			loop.shutdownGracefully(0, 0, TimeUnit.SECONDS);
+			group.close();
+			server.dispose();
+		}
+	}
+
+	@Test
+	public void resolvedRemoteAddressConnectsDirectly() throws Exception {
+		NettyContext server = TcpServer.create("127.0.0.1", 0)
+		                               .newHandler((in, out) -> out.neverComplete())
+		                               .block(Duration.ofSeconds(30));
+		NioEventLoopGroup loop = new NioEventLoopGroup(1);
+		try {
+			ChannelFuture f = HappyEyeballsConnector.connect(
+					new Bootstrap().group(loop)
+					               .channel(NioSocketChannel.class)
+					               .remoteAddress(server.address())
+					               .attr(HappyEyeballsConnector.CONNECTION_ATTEMPT_DELAY,
+							               TimeUnit.SECONDS.toNanos(30))
+					               .handler(new ChannelInboundHandlerAdapter()));
+
+			assertThat(f).isNotInstanceOf(HappyEyeballsConnector.Race.class);
+			assertThat(f.await(10, TimeUnit.SECONDS)).isTrue();
+			assertThat(f.isSuccess()).isTrue();
+			f.channel()
+			 .close()
+			 .sync();
+		}
+		finally {
+			loop.shutdownGracefully(0, 0, TimeUnit.SECONDS);
+			server.dispose();
+		}
+	}
+
+	@Test
+	public void tcpClientRacesAddresses() {
+		tcpClientRacesAddresses(false);
+	}
+
+	@Test
+	public void pooledTcpClientRacesAddresses() {
+		tcpClientRacesAddresses(true);
+	}
+
+	private void tcpClientRacesAddresses(boolean pooled) {
+		NettyContext server = TcpServer.create("127.0.0.1", 0)
+		                               .newHandler((in, out) -> out.sendString(Mono.just("ok")))
+		                               .block(Duration.ofSeconds(30));
+		CachingAddressResolverGroup group = stub();
+		PoolResources pool = pooled ? PoolResources.fixed("happyEyeballs", 1) : null;
+		try {
+			TcpClient client =
+					TcpClient.create(opts -> {
+						opts.host("stub.test")
+						    .port(server.address().getPort())
+						    .resolver(group)
+						    .happyEyeballs(Duration.ofSeconds(30));
+						if (pooled) {
+							opts.poolResources(pool);
+						}
+						else {
+							opts.disablePool();
+						}
+					});
+
+			String received =
+					client.newHandler((in, out) -> in.receive()
+					                                 .asString()
+					                                 .take(1)
+					                                 .then())
+					      .flatMap(c -> c.onClose()
+					                     .thenReturn("closed"))
+					      .block(Duration.ofSeconds(10));
+
+			assertThat(received).isEqualTo("closed");
+		}
+		finally {
+			if (pool != null) {
+				pool.dispose();
+			}
+			group.close();
+			server.dispose();
+		}
+	}
+}
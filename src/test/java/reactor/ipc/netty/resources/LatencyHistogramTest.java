@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2011-2018 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.ipc.netty.resources;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LatencyHistogramTest {
+
+	@Test
+	public void emptyHistogram() {
+		LatencyHistogram histogram = new LatencyHistogram();
+
+		assertThat(histogram.count()).isZero();
+		assertThat(histogram.max(TimeUnit.NANOSECONDS)).isZero();
+		assertThat(histogram.valueAtPercentile(99d, TimeUnit.NANOSECONDS)).isZero();
+	}
+
+	@Test
+	public void percentilesWithinPrecision() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		for (long i = 1; i <= 1000; i++) {
+			histogram.record(TimeUnit.MICROSECONDS.toNanos(i));
+		}
+
+		assertThat(histogram.count()).isEqualTo(1000);
+		assertThat(histogram.max(TimeUnit.MICROSECONDS)).isEqualTo(1000);
+		assertThat(histogram.totalTime(TimeUnit.MICROSECONDS)).isEqualTo(500500);
+		assertThat(histogram.valueAtPercentile(50d, TimeUnit.MICROSECONDS))
+				.isBetween(465L, 535L);
+		assertThat(histogram.valueAtPercentile(99d, TimeUnit.MICROSECONDS))
+				.isBetween(920L, 1000L);
+		assertThat(histogram.valueAtPercentile(100d, TimeUnit.MICROSECONDS)).isEqualTo(1000);
+	}
+
+	@Test
+	public void outOfRangeValues() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		histogram.record(-1);
+		histogram.record(Long.MAX_VALUE);
+
+		assertThat(histogram.count()).isEqualTo(1);
+		assertThat(histogram.max(TimeUnit.NANOSECONDS)).isEqualTo(Long.MAX_VALUE);
+		assertThat(histogram.valueAtPercentile(50d, TimeUnit.NANOSECONDS))
+				.isGreaterThanOrEqualTo(LatencyHistogram.MAX_TRACKABLE_NANOS);
+	}
+
+	@Test
+	public void bucketsCoverEachValueOnce() {
+		long previous = -1;
+		for (int i = 0; i < LatencyHistogram.BUCKETS; i++) {
+			long highest = LatencyHistogram.highestEquivalentValue(i);
+			assertThat(LatencyHistogram.bucketIndex(previous + 1)).isEqualTo(i);
+			assertThat(LatencyHistogram.bucketIndex(highest)).isEqualTo(i);
+			previous = highest;
+		}
+		assertThat(previous).isEqualTo(LatencyHistogram.MAX_TRACKABLE_NANOS);
+	}
+}